@@ -0,0 +1,131 @@
+package com.campus.trading.cache;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 二进制缓存格式读取器，与 {@link BinaryWriter} 对应
+ *
+ * 读取记录时只在记录范围内读：旧数据缺少的尾部字段读出为 null，新数据多出的尾部字段被跳过。
+ */
+public final class BinaryReader {
+
+    private final byte[] buf;
+    private int pos;
+    private int limit;
+
+    public BinaryReader(byte[] buf) {
+        this.buf = buf;
+        this.limit = buf.length;
+    }
+
+    public int readByte() {
+        check(1);
+        return buf[pos++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalArgumentException("varint 格式错误");
+    }
+
+    /**
+     * 进入一条记录，返回记录结束位置，读完后调用 {@link #endRecord(int)}
+     */
+    public int beginRecord() {
+        int length = (int) readVarLong();
+        check(length);
+        int end = pos + length;
+        int outer = limit;
+        limit = end;
+        return outer;
+    }
+
+    public void endRecord(int outerLimit) {
+        pos = limit;
+        limit = outerLimit;
+    }
+
+    /**
+     * 当前记录中是否还有字段
+     */
+    public boolean hasMore() {
+        return pos < limit;
+    }
+
+    public Long readNullableLong() {
+        if (!hasMore()) return null;
+        long raw = readVarLong();
+        return raw == 0 ? null : unzigzag(raw - 1);
+    }
+
+    public Integer readNullableInt() {
+        Long value = readNullableLong();
+        return value == null ? null : value.intValue();
+    }
+
+    public String readString() {
+        if (!hasMore()) return null;
+        long raw = readVarLong();
+        if (raw == 0) return null;
+        int length = (int) (raw - 1);
+        check(length);
+        String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return value;
+    }
+
+    public List<String> readStringList() {
+        if (!hasMore()) return null;
+        long raw = readVarLong();
+        if (raw == 0) return null;
+        int count = (int) (raw - 1);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString());
+        }
+        return values;
+    }
+
+    public BigDecimal readDecimal() {
+        if (!hasMore()) return null;
+        long raw = readVarLong();
+        if (raw == 0) return null;
+        int scale = (int) unzigzag(raw - 1);
+        int length = (int) readVarLong();
+        check(length);
+        BigInteger unscaled = new BigInteger(Arrays.copyOfRange(buf, pos, pos + length));
+        pos += length;
+        return new BigDecimal(unscaled, scale);
+    }
+
+    public LocalDateTime readDateTime() {
+        if (!hasMore()) return null;
+        long raw = readVarLong();
+        if (raw == 0) return null;
+        long seconds = unzigzag(raw - 1);
+        int nanos = (int) readVarLong();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private void check(int length) {
+        if (length < 0 || pos + length > limit) {
+            throw new IllegalArgumentException("缓存数据不完整");
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
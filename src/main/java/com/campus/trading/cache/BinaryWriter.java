@@ -0,0 +1,115 @@
+package com.campus.trading.cache;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 二进制缓存格式写入器
+ *
+ * 整数使用 varint（有符号数先做 zigzag），可空值以 0 表示 null、其余值加 1 写入，
+ * 因此 null 只占一个字节，常见的小整数也只占一到两个字节。
+ */
+public final class BinaryWriter {
+
+    private byte[] buf;
+    private int size;
+
+    public BinaryWriter() {
+        this(256);
+    }
+
+    public BinaryWriter(int capacity) {
+        buf = new byte[capacity];
+    }
+
+    public BinaryWriter writeByte(int b) {
+        ensure(1);
+        buf[size++] = (byte) b;
+        return this;
+    }
+
+    public BinaryWriter writeVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buf[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[size++] = (byte) value;
+        return this;
+    }
+
+    public BinaryWriter writeNullableLong(Long value) {
+        return writeVarLong(value == null ? 0 : zigzag(value) + 1);
+    }
+
+    public BinaryWriter writeNullableInt(Integer value) {
+        return writeNullableLong(value == null ? null : value.longValue());
+    }
+
+    public BinaryWriter writeString(String value) {
+        if (value == null) return writeVarLong(0);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        return writeBytes(bytes, 0, bytes.length);
+    }
+
+    public BinaryWriter writeStringList(List<String> values) {
+        if (values == null) return writeVarLong(0);
+        writeVarLong(values.size() + 1L);
+        for (String value : values) {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public BinaryWriter writeDecimal(BigDecimal value) {
+        if (value == null) return writeVarLong(0);
+        writeVarLong(zigzag(value.scale()) + 1);
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        writeVarLong(unscaled.length);
+        return writeBytes(unscaled, 0, unscaled.length);
+    }
+
+    public BinaryWriter writeDateTime(LocalDateTime value) {
+        if (value == null) return writeVarLong(0);
+        writeVarLong(zigzag(value.toEpochSecond(ZoneOffset.UTC)) + 1);
+        return writeVarLong(value.getNano());
+    }
+
+    /**
+     * 写入一条长度前缀的记录，读取方可据此跳过不认识的尾部字段
+     */
+    public BinaryWriter writeRecord(BinaryWriter body) {
+        writeVarLong(body.size);
+        return writeBytes(body.buf, 0, body.size);
+    }
+
+    public BinaryWriter writeBytes(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buf, size, length);
+        size += length;
+        return this;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,18 @@
+package com.campus.trading.cache;
+
+/**
+ * Redis 缓存值编解码器
+ *
+ * @param <T> 缓存值类型
+ */
+public interface CacheCodec<T> {
+
+    byte[] encode(T value);
+
+    /**
+     * 解码缓存值
+     *
+     * @return 解码结果；格式版本不兼容时返回 null，按缓存未命中处理
+     */
+    T decode(byte[] bytes);
+}
@@ -0,0 +1,59 @@
+package com.campus.trading.cache;
+
+import com.campus.trading.entity.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分类列表二进制编解码
+ *
+ * 格式：[格式版本 1 字节][分类数 varint][每个分类一条长度前缀的记录]，演进规则同 {@link ItemDTOBinaryCodec}。
+ */
+public class CategoryListBinaryCodec implements CacheCodec<List<Category>> {
+
+    static final int FORMAT_VERSION = 1;
+
+    @Override
+    public byte[] encode(List<Category> categories) {
+        BinaryWriter out = new BinaryWriter(categories.size() * 48 + 8);
+        out.writeByte(FORMAT_VERSION).writeVarLong(categories.size());
+        BinaryWriter body = new BinaryWriter(64);
+        for (Category category : categories) {
+            body.reset();
+            body.writeNullableLong(category.getId())
+                    .writeString(category.getName())
+                    .writeString(category.getDescription())
+                    .writeString(category.getIcon())
+                    .writeNullableInt(category.getSortOrder())
+                    .writeNullableLong(category.getParentId())
+                    .writeDateTime(category.getCreateTime())
+                    .writeDateTime(category.getUpdateTime());
+            out.writeRecord(body);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public List<Category> decode(byte[] bytes) {
+        BinaryReader in = new BinaryReader(bytes);
+        if (in.readByte() != FORMAT_VERSION) return null;
+        int count = (int) in.readVarLong();
+        List<Category> categories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int outer = in.beginRecord();
+            Category category = new Category();
+            category.setId(in.readNullableLong());
+            category.setName(in.readString());
+            category.setDescription(in.readString());
+            category.setIcon(in.readString());
+            category.setSortOrder(in.readNullableInt());
+            category.setParentId(in.readNullableLong());
+            category.setCreateTime(in.readDateTime());
+            category.setUpdateTime(in.readDateTime());
+            in.endRecord(outer);
+            categories.add(category);
+        }
+        return categories;
+    }
+}
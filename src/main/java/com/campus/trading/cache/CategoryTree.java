@@ -0,0 +1,155 @@
+package com.campus.trading.cache;
+
+import com.campus.trading.entity.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分类树的不可变快照
+ *
+ * 构建时一次性算好 ID→分类、ID→名称 和每个分类的子孙ID数组（含自身），之后只读，可被多线程无锁共享。
+ * 分类变更时整体重建一棵新树替换旧引用，读方要么看到旧树要么看到新树。
+ * 对外返回的 Category 都是副本，调用方修改不会影响快照。
+ */
+public final class CategoryTree {
+
+    private static final CategoryTree EMPTY = new CategoryTree(Collections.emptyList());
+
+    private final List<Category> categories;
+    private final Map<Long, Category> byId;
+    private final Map<Long, String> names;
+    private final Map<Long, List<Long>> descendants;
+
+    private CategoryTree(List<Category> source) {
+        List<Category> list = new ArrayList<>(source.size());
+        Map<Long, Category> idMap = new HashMap<>();
+        Map<Long, String> nameMap = new HashMap<>();
+        Map<Long, List<Long>> children = new HashMap<>();
+        for (Category category : source) {
+            if (category == null) continue;
+            Category copy = copy(category);
+            list.add(copy);
+            if (copy.getId() == null) continue;
+            idMap.put(copy.getId(), copy);
+            nameMap.put(copy.getId(), copy.getName());
+            if (copy.getParentId() != null) {
+                children.computeIfAbsent(copy.getParentId(), k -> new ArrayList<>()).add(copy.getId());
+            }
+        }
+        Map<Long, List<Long>> descendantMap = new HashMap<>();
+        for (Long id : idMap.keySet()) {
+            descendantMap.put(id, Collections.unmodifiableList(Arrays.asList(collectDescendants(id, children))));
+        }
+        this.categories = Collections.unmodifiableList(list);
+        this.byId = idMap;
+        this.names = Collections.unmodifiableMap(nameMap);
+        this.descendants = descendantMap;
+    }
+
+    public static CategoryTree of(List<Category> categories) {
+        return categories == null || categories.isEmpty() ? EMPTY : new CategoryTree(categories);
+    }
+
+    public static CategoryTree empty() {
+        return EMPTY;
+    }
+
+    // 广度优先收集子孙，遇到脏数据形成的环也不会死循环
+    private static Long[] collectDescendants(Long rootId, Map<Long, List<Long>> children) {
+        List<Long> ids = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        ids.add(rootId);
+        seen.add(rootId);
+        for (int i = 0; i < ids.size(); i++) {
+            for (Long child : children.getOrDefault(ids.get(i), Collections.emptyList())) {
+                if (seen.add(child)) {
+                    ids.add(child);
+                }
+            }
+        }
+        return ids.toArray(new Long[0]);
+    }
+
+    private static Category copy(Category category) {
+        return Category.builder()
+                .id(category.getId())
+                .name(category.getName())
+                .description(category.getDescription())
+                .icon(category.getIcon())
+                .sortOrder(category.getSortOrder())
+                .parentId(category.getParentId())
+                .createTime(category.getCreateTime())
+                .updateTime(category.getUpdateTime())
+                .build();
+    }
+
+    /**
+     * 所有分类（副本）
+     */
+    public List<Category> getCategories() {
+        List<Category> result = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            result.add(copy(category));
+        }
+        return result;
+    }
+
+    /**
+     * 按ID取分类（副本），不存在时返回null
+     */
+    public Category get(Long categoryId) {
+        Category category = categoryId != null ? byId.get(categoryId) : null;
+        return category != null ? copy(category) : null;
+    }
+
+    public boolean contains(Long categoryId) {
+        return categoryId != null && byId.containsKey(categoryId);
+    }
+
+    /**
+     * 分类名称，不存在时返回null
+     */
+    public String getName(Long categoryId) {
+        return categoryId != null ? names.get(categoryId) : null;
+    }
+
+    /**
+     * ID→名称映射（只读）
+     */
+    public Map<Long, String> getNames() {
+        return names;
+    }
+
+    /**
+     * 分类及其所有子孙分类的ID（只读）；快照中没有的分类只返回自身
+     */
+    public List<Long> getDescendantIds(Long categoryId) {
+        List<Long> ids = descendants.get(categoryId);
+        return ids != null ? ids : Collections.singletonList(categoryId);
+    }
+
+    /**
+     * 分类自身及其所有祖先分类的ID，从自身开始逐级向上；快照中没有的分类只返回自身
+     */
+    public List<Long> getAncestorIds(Long categoryId) {
+        List<Long> ids = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Long id = categoryId; id != null && seen.add(id); ) {
+            ids.add(id);
+            Category category = byId.get(id);
+            id = category != null ? category.getParentId() : null;
+        }
+        return ids;
+    }
+
+    public int size() {
+        return categories.size();
+    }
+}
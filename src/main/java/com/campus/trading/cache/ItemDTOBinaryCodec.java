@@ -0,0 +1,82 @@
+package com.campus.trading.cache;
+
+import com.campus.trading.dto.ItemDTO;
+
+/**
+ * 物品详情二进制编解码
+ *
+ * 格式：[格式版本 1 字节][记录长度 varint][字段...]，字段按下方顺序依次写入。
+ *
+ * 结构演进规则：
+ * 1. 新字段只能追加在末尾，不能调整顺序或改变已有字段的类型；
+ * 2. 废弃字段继续占位写 null（1 字节），不能删除；
+ * 3. 旧数据缺少的尾部字段解码为 null，新数据多出的尾部字段按记录长度跳过，新旧节点可混跑；
+ * 4. 无法兼容的改动递增 FORMAT_VERSION，旧版本数据解码为 null，按缓存未命中重新加载。
+ */
+public class ItemDTOBinaryCodec implements CacheCodec<ItemDTO> {
+
+    static final int FORMAT_VERSION = 1;
+
+    @Override
+    public byte[] encode(ItemDTO dto) {
+        BinaryWriter body = new BinaryWriter();
+        writeBody(body, dto);
+        return new BinaryWriter()
+                .writeByte(FORMAT_VERSION)
+                .writeRecord(body)
+                .toByteArray();
+    }
+
+    @Override
+    public ItemDTO decode(byte[] bytes) {
+        BinaryReader reader = new BinaryReader(bytes);
+        if (reader.readByte() != FORMAT_VERSION) return null;
+        return readRecord(reader);
+    }
+
+    static void writeBody(BinaryWriter out, ItemDTO dto) {
+        out.writeNullableLong(dto.getId())
+                .writeString(dto.getName())
+                .writeNullableLong(dto.getCategoryId())
+                .writeString(dto.getCategoryName())
+                .writeDecimal(dto.getPrice())
+                .writeString(dto.getDescription())
+                .writeStringList(dto.getImages())
+                .writeStringList(dto.getImageIds())
+                .writeNullableInt(dto.getCondition())
+                .writeNullableInt(dto.getStatus())
+                .writeNullableInt(dto.getPopularity())
+                .writeNullableLong(dto.getUserId())
+                .writeString(dto.getUsername())
+                .writeString(dto.getUserAvatar())
+                .writeDateTime(dto.getCreateTime())
+                .writeDateTime(dto.getUpdateTime())
+                .writeNullableLong(dto.getFavoriteId())
+                .writeNullableInt(dto.getStock());
+    }
+
+    static ItemDTO readRecord(BinaryReader in) {
+        int outer = in.beginRecord();
+        ItemDTO dto = new ItemDTO();
+        dto.setId(in.readNullableLong());
+        dto.setName(in.readString());
+        dto.setCategoryId(in.readNullableLong());
+        dto.setCategoryName(in.readString());
+        dto.setPrice(in.readDecimal());
+        dto.setDescription(in.readString());
+        dto.setImages(in.readStringList());
+        dto.setImageIds(in.readStringList());
+        dto.setCondition(in.readNullableInt());
+        dto.setStatus(in.readNullableInt());
+        dto.setPopularity(in.readNullableInt());
+        dto.setUserId(in.readNullableLong());
+        dto.setUsername(in.readString());
+        dto.setUserAvatar(in.readString());
+        dto.setCreateTime(in.readDateTime());
+        dto.setUpdateTime(in.readDateTime());
+        dto.setFavoriteId(in.readNullableLong());
+        dto.setStock(in.readNullableInt());
+        in.endRecord(outer);
+        return dto;
+    }
+}
@@ -0,0 +1,28 @@
+package com.campus.trading.cache;
+
+import com.alibaba.fastjson.JSON;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * fastjson 文本编解码（原缓存格式）
+ */
+public class JsonCacheCodec<T> implements CacheCodec<T> {
+
+    private final Type type;
+
+    public JsonCacheCodec(Type type) {
+        this.type = type;
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        return JSON.toJSONString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public T decode(byte[] bytes) {
+        return JSON.parseObject(new String(bytes, StandardCharsets.UTF_8), type);
+    }
+}
@@ -0,0 +1,88 @@
+package com.campus.trading.config;
+
+import com.campus.trading.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Function;
+
+/**
+ * 当前登录用户主体
+ *
+ * 由认证过滤器按请求创建并放入安全上下文，携带令牌中的用户ID与角色；
+ * 归属校验只需用户ID，完整的用户实体在首次需要时才加载，并在本次请求内复用。
+ */
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private transient User user;
+
+    public AuthenticatedUser(Long id, String username, String password, Collection<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.authorities = authorities != null ? authorities : Collections.emptyList();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * 获取完整用户实体，同一请求内只加载一次
+     *
+     * @param loader 按用户ID加载实体
+     * @return 用户实体
+     */
+    public User getUser(Function<Long, User> loader) {
+        if (user == null) {
+            user = loader.apply(id);
+        }
+        return user;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser{id=" + id + ", username='" + username + "'}";
+    }
+}
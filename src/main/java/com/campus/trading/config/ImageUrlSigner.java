@@ -0,0 +1,146 @@
+package com.campus.trading.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * 图片访问令牌签名器
+ *
+ * 令牌格式为 {过期时间(秒,36进制)}.{签名(base64url)}，签名为 HMAC-SHA256(imageId + "." + 过期时间)。
+ * 过期时间向上对齐到时间桶，同一图片在同一时间桶内得到相同令牌，因此可按 (imageId, 时间桶) 缓存复用。
+ */
+@Component
+public class ImageUrlSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    /**
+     * 令牌有效期（毫秒），默认与登录令牌一致
+     */
+    @Value("${image.token.expiration:${jwt.expiration}}")
+    private Long expiration;
+
+    /**
+     * 过期时间对齐的时间桶长度（秒）
+     */
+    @Value("${image.token.bucket-seconds:600}")
+    private long bucketSeconds;
+
+    @Value("${image.token.cache-size:20000}")
+    private long cacheSize;
+
+    private SecretKeySpec key;
+    private ThreadLocal<Mac> macHolder;
+    private Cache<String, String> tokenCache;
+
+    public ImageUrlSigner() {
+    }
+
+    public ImageUrlSigner(String secret, long expiration, long bucketSeconds, long cacheSize) {
+        this.secret = secret;
+        this.expiration = expiration;
+        this.bucketSeconds = bucketSeconds;
+        this.cacheSize = cacheSize;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        macHolder = ThreadLocal.withInitial(this::newMac);
+        tokenCache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(bucketSeconds))
+                .build();
+    }
+
+    /**
+     * 生成图片访问令牌，同一时间桶内命中缓存直接返回
+     *
+     * @param imageId 图片id
+     * @return 令牌
+     */
+    public String sign(String imageId) {
+        long exp = bucketExpiry(System.currentTimeMillis() / 1000);
+        return tokenCache.get(imageId + '.' + exp, k -> doSign(imageId, exp));
+    }
+
+    /**
+     * 校验图片访问令牌
+     *
+     * @param token   令牌
+     * @param imageId 图片id
+     * @return 是否有效
+     */
+    public boolean verify(String token, String imageId) {
+        if (token == null || imageId == null) return false;
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1 || token.indexOf('.', dot + 1) >= 0) return false;
+        long exp;
+        try {
+            exp = Long.parseLong(token, 0, dot, 36);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (exp < System.currentTimeMillis() / 1000) return false;
+        byte[] actual;
+        try {
+            actual = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(mac(imageId, exp), actual);
+    }
+
+    /**
+     * 判断令牌是否为本签名器的紧凑格式（JWT 含两个点号）
+     */
+    public static boolean isCompactToken(String token) {
+        if (token == null) return false;
+        int dot = token.indexOf('.');
+        return dot > 0 && token.indexOf('.', dot + 1) < 0;
+    }
+
+    // 过期时间向上对齐到时间桶边界，保证有效期不短于配置值
+    private long bucketExpiry(long nowSeconds) {
+        long target = nowSeconds + expiration / 1000;
+        return (target / bucketSeconds + 1) * bucketSeconds;
+    }
+
+    private String doSign(String imageId, long exp) {
+        return Long.toString(exp, 36) + '.' + ENCODER.encodeToString(mac(imageId, exp));
+    }
+
+    private byte[] mac(String imageId, long exp) {
+        Mac mac = macHolder.get();
+        mac.update(imageId.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) '.');
+        return mac.doFinal(Long.toString(exp, 36).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化图片签名失败", e);
+        }
+    }
+}
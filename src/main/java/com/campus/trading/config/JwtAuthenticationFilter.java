@@ -5,6 +5,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
@@ -30,7 +31,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
     private JwtUtils jwtUtils;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
     
+    private static final String PUSH_STREAM_PATH = "/push/stream";
+
     private final AntPathMatcher pathMatcher = new AntPathMatcher();
     
     // 定义公开路径列表，不需要token验证
@@ -64,10 +70,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String requestPath = request.getServletPath();
         
         // 调试信息
-        logger.info("处理请求: " + requestPath);
+        logger.debug("处理请求: " + requestPath);
         
         if (isPublicPath(requestPath)) {
-            logger.info("公开路径，不需要验证: " + requestPath);
+            logger.debug("公开路径，不需要验证: " + requestPath);
             chain.doFilter(request, response);
             return;
         }
@@ -76,13 +82,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 由于context-path是/api，实际请求路径是/api/image/{id}
         if (requestPath.startsWith("/image/") && !requestPath.startsWith("/image/debug/")) {
             String token = request.getParameter("token");
-            logger.info("检测到图片访问请求: " + requestPath + ", token: " + (token != null ? "存在" : "不存在"));
+            logger.debug("检测到图片访问请求: " + requestPath + ", token: " + (token != null ? "存在" : "不存在"));
             if (token != null && !token.isEmpty()) {
                 try {
                     String imageId = extractImageIdFromPath(requestPath);
-                    logger.info("提取的图片ID: " + imageId);
+                    logger.debug("提取的图片ID: " + imageId);
                     if (imageId != null && jwtUtils.validateImageToken(token, imageId)) {
-                        logger.info("图片访问token验证成功: " + imageId);
+                        logger.debug("图片访问token验证成功: " + imageId);
                         
                         // 为图片访问设置一个临时的认证上下文
                         // 创建一个简单的认证对象，表示这是一个有效的图片访问
@@ -105,31 +111,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String authHeader = request.getHeader("Authorization");
-
-        String username = null;
-        String jwt = null;
-
-        // 提取JWT令牌
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            try {
-                username = jwtUtils.getUsernameFromToken(jwt);
-            } catch (Exception e) {
-                logger.error("无法验证JWT令牌", e);
-            }
+        String jwt = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        // 推送连接由浏览器 EventSource 建立，无法设置请求头，允许从URL参数中取登录令牌
+        if (jwt == null && PUSH_STREAM_PATH.equals(requestPath)) {
+            jwt = request.getParameter("token");
         }
 
-        // 验证令牌并设置认证
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        // 提取JWT令牌并校验（已验证的令牌命中缓存，不再重复解析）
+        if (jwt != null && !jwt.isEmpty()
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            VerifiedTokenCache.VerifiedToken verified = verifiedTokenCache.verify(jwt);
+            if (verified == null) {
+                logger.debug("无法验证JWT令牌");
+            } else {
+                try {
+                    // 用户状态以缓存的用户详情为准；用户ID和权限取自令牌声明，旧版令牌没有时用用户详情中的
+                    UserDetails userDetails = this.userDetailsService.loadUserByUsername(verified.getUsername());
+                    Long userId = userDetails instanceof AuthenticatedUser ? ((AuthenticatedUser) userDetails).getId() : null;
+                    if (verified.getUserId() != null && userId != null && !verified.getUserId().equals(userId)) {
+                        throw new UsernameNotFoundException("令牌用户ID与账号不一致: " + verified.getUsername());
+                    }
+                    AuthenticatedUser principal = verified.getUserId() != null
+                            ? new AuthenticatedUser(verified.getUserId(), verified.getUsername(), null, verified.getAuthorities())
+                            : new AuthenticatedUser(userId, verified.getUsername(), null, userDetails.getAuthorities());
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            principal, null, principal.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-            if (jwtUtils.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.info("为用户 '" + username + "' 设置了安全上下文");
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    logger.debug("为用户 '" + verified.getUsername() + "' 设置了安全上下文");
+                } catch (UsernameNotFoundException e) {
+                    logger.warn("令牌对应用户不可用: " + e.getMessage());
+                }
             }
         }
 
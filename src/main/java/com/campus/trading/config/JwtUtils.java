@@ -4,14 +4,20 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * JWT工具类，用于生成和验证JWT令牌
@@ -19,12 +25,35 @@ import java.util.function.Function;
 @Component
 public class JwtUtils {
 
+    /**
+     * 令牌中的用户ID声明
+     */
+    public static final String CLAIM_USER_ID = "uid";
+
+    /**
+     * 令牌中的角色声明
+     */
+    public static final String CLAIM_ROLES = "roles";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    @Autowired
+    private ImageUrlSigner imageUrlSigner;
+
+    /**
+     * 签名密钥，启动时构建一次
+     */
+    private SecretKey signingKey;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * 从令牌中获取用户名
      *
@@ -57,6 +86,17 @@ public class JwtUtils {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * 校验签名与有效期并解析令牌（仅做一次 HMAC 校验）
+     *
+     * @param token 令牌
+     * @return 所有声明
+     * @throws io.jsonwebtoken.JwtException 令牌无效或已过期
+     */
+    public Claims parseToken(String token) {
+        return getAllClaimsFromToken(token);
+    }
+
     /**
      * 从令牌中获取所有声明
      *
@@ -65,7 +105,7 @@ public class JwtUtils {
      */
     private Claims getAllClaimsFromToken(String token) {
         return Jwts.parserBuilder()
-                .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes()))
+                .setSigningKey(signingKey)
                 .build()
                 .parseClaimsJws(token)
                 .getBody();
@@ -90,6 +130,12 @@ public class JwtUtils {
      */
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof AuthenticatedUser) {
+            claims.put(CLAIM_USER_ID, ((AuthenticatedUser) userDetails).getId());
+        }
+        claims.put(CLAIM_ROLES, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList()));
         return doGenerateToken(claims, userDetails.getUsername());
     }
 
@@ -110,7 +156,7 @@ public class JwtUtils {
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(exp)
-                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -127,32 +173,34 @@ public class JwtUtils {
     }
 
     /**
-     * 生成图片访问Token
+     * 生成图片访问Token（紧凑签名格式，见 {@link ImageUrlSigner}）
      * @param imageId 图片id
      * @return 图片Token
      */
     public String generateImageToken(String imageId) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("imageId", imageId);
-        return doGenerateToken(claims, imageId);
+        return imageUrlSigner.sign(imageId);
     }
 
     /**
      * 验证图片访问Token
+     * 紧凑格式走轻量校验；旧版 JWT 格式的图片Token在过期前仍然有效
      * @param token 图片访问token
      * @param imageId 图片id
      * @return 是否有效
      */
     public Boolean validateImageToken(String token, String imageId) {
+        if (ImageUrlSigner.isCompactToken(token)) {
+            return imageUrlSigner.verify(token, imageId);
+        }
         try {
             Claims claims = getAllClaimsFromToken(token);
             String tokenImageId = claims.get("imageId", String.class);
             String subject = claims.getSubject();
             
             // 验证图片ID和主题是否匹配
-            return imageId.equals(tokenImageId) && imageId.equals(subject) && !isTokenExpired(token);
+            return imageId.equals(tokenImageId) && imageId.equals(subject) && claims.getExpiration().after(new Date());
         } catch (Exception e) {
             return false;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.campus.trading.config;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 订单事件的 RabbitMQ 拓扑（app.order-events.transport=rabbit 时生效）
+ *
+ * 消费失败的消息不重新入队，转入死信队列 {queue}.dlq，排查后可原样重投，消费者幂等不会重复处理。
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.order-events.transport", havingValue = "rabbit")
+public class OrderEventRabbitConfig {
+
+    @Value("${app.order-events.rabbit.exchange:order.events}")
+    private String exchange;
+
+    @Value("${app.order-events.rabbit.queue:order.events}")
+    private String queue;
+
+    @Value("${app.order-events.rabbit.routing-key:order.event}")
+    private String routingKey;
+
+    @Bean
+    public Declarables orderEventDeclarables() {
+        DirectExchange orderExchange = new DirectExchange(exchange, true, false);
+        Queue deadLetterQueue = QueueBuilder.durable(queue + ".dlq").build();
+        Queue orderQueue = QueueBuilder.durable(queue)
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(deadLetterQueue.getName())
+                .build();
+        Binding binding = BindingBuilder.bind(orderQueue).to(orderExchange).with(routingKey);
+        return new Declarables(orderExchange, orderQueue, deadLetterQueue, binding);
+    }
+}
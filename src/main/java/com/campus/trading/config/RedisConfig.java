@@ -0,0 +1,69 @@
+package com.campus.trading.config;
+
+import com.alibaba.fastjson.TypeReference;
+import com.campus.trading.cache.CacheCodec;
+import com.campus.trading.cache.CategoryListBinaryCodec;
+import com.campus.trading.cache.ItemDTOBinaryCodec;
+import com.campus.trading.cache.JsonCacheCodec;
+import com.campus.trading.dto.ItemDTO;
+import com.campus.trading.entity.Category;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+
+/**
+ * Redis 配置
+ */
+@Configuration
+public class RedisConfig {
+
+    private static final String CODEC_JSON = "json";
+
+    /**
+     * 缓存值编码：binary（默认）或 json（原 fastjson 文本格式）
+     */
+    @Value("${app.cache.codec:binary}")
+    private String codec;
+
+    /**
+     * Redis 发布订阅监听容器，用于节点间广播（如缓存失效通知）
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * 值为原始字节的 RedisTemplate，缓存值由 {@link CacheCodec} 编解码
+     */
+    @Bean
+    public RedisTemplate<String, byte[]> binaryRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashKeySerializer(RedisSerializer.string());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
+        return template;
+    }
+
+    @Bean
+    public CacheCodec<ItemDTO> itemDetailCodec() {
+        return CODEC_JSON.equals(codec) ? new JsonCacheCodec<>(ItemDTO.class) : new ItemDTOBinaryCodec();
+    }
+
+    @Bean
+    public CacheCodec<List<Category>> categoryListCodec() {
+        return CODEC_JSON.equals(codec)
+                ? new JsonCacheCodec<>(new TypeReference<List<Category>>() {}.getType())
+                : new CategoryListBinaryCodec();
+    }
+}
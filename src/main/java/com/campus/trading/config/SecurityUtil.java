@@ -17,12 +17,53 @@ public class SecurityUtil {
     }
 
     /**
-     * 获取当前登录用户实体
+     * 获取当前登录用户主体（令牌认证的请求才有）
+     */
+    public static AuthenticatedUser getCurrentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+            if (principal.getId() != null) {
+                return principal;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取当前登录用户ID，令牌认证的请求不查询数据库
+     */
+    public static Long getCurrentUserId() {
+        AuthenticatedUser principal = getCurrentPrincipal();
+        if (principal != null) {
+            return principal.getId();
+        }
+        return getCurrentUser().getId();
+    }
+
+    /**
+     * 获取当前登录用户的实体引用（懒加载代理），只用作关联或查询条件时不查询数据库
+     */
+    public static User getCurrentUserReference() {
+        AuthenticatedUser principal = getCurrentPrincipal();
+        if (principal != null) {
+            return userRepository.getReferenceById(principal.getId());
+        }
+        return getCurrentUser();
+    }
+
+    /**
+     * 获取当前登录用户实体，同一请求内只查询一次
      */
     public static User getCurrentUser() {
+        AuthenticatedUser principal = getCurrentPrincipal();
+        if (principal != null) {
+            return principal.getUser(id -> userRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("当前用户不存在: ID=" + id)));
+        }
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("当前用户不存在: " + username));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package com.campus.trading.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 已验证登录令牌缓存
+ *
+ * 以令牌的 SHA-256 摘要为键，缓存到令牌过期时刻为止；命中时无需再做签名校验和 JSON 解析。
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtUtils jwtUtils;
+    private final Cache<String, VerifiedToken> cache;
+    private final ThreadLocal<MessageDigest> digestHolder = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Autowired
+    public VerifiedTokenCache(JwtUtils jwtUtils, @Value("${jwt.token-cache-size:10000}") long maxSize) {
+        this.jwtUtils = jwtUtils;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.getExpiresAt() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 校验令牌，命中缓存直接返回，否则解析一次并写入缓存
+     *
+     * @param token 令牌
+     * @return 校验通过的令牌信息；令牌无效或过期时返回 null
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isEmpty()) return null;
+        String key = digest(token);
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null && cached.getExpiresAt() > System.currentTimeMillis()) {
+            return cached;
+        }
+        Claims claims;
+        try {
+            claims = jwtUtils.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims.getSubject() == null || claims.getExpiration() == null) return null;
+        List<?> roles = claims.get(JwtUtils.CLAIM_ROLES, List.class);
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(),
+                claims.get(JwtUtils.CLAIM_USER_ID, Long.class),
+                roles != null ? roles.stream().map(String::valueOf).collect(Collectors.toList()) : Collections.emptyList(),
+                claims.getExpiration().getTime());
+        cache.put(key, verified);
+        return verified;
+    }
+
+    private String digest(String token) {
+        MessageDigest md = digestHolder.get();
+        return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * 校验通过的令牌信息
+     */
+    public static final class VerifiedToken {
+        private final String username;
+        private final Long userId;
+        private final List<String> roles;
+        private final List<GrantedAuthority> authorities;
+        private final long expiresAt;
+
+        public VerifiedToken(String username, Long userId, List<String> roles, long expiresAt) {
+            this.username = username;
+            this.userId = userId;
+            this.roles = roles;
+            this.authorities = Collections.unmodifiableList(roles.stream()
+                    .map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toList()));
+            this.expiresAt = expiresAt;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        /**
+         * 用户ID，旧版令牌不含该声明时为 null
+         */
+        public Long getUserId() {
+            return userId;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+
+        /**
+         * 角色声明对应的权限，随令牌一起缓存
+         */
+        public List<GrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class ChatController {
             Authentication authentication,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        Long userId = SecurityUtil.getCurrentUser().getId();
+        Long userId = SecurityUtil.getCurrentUserId();
         Pageable pageable = PageRequest.of(page, size, Sort.by("updatedAt").descending());
         PageResponseDTO<ChatDTO> chats = chatService.getUserChats(userId, pageable);
         return ResponseEntity.ok(chats);
@@ -52,7 +52,7 @@ public class ChatController {
             @PathVariable Long chatId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        Long userId = SecurityUtil.getCurrentUser().getId();
+        Long userId = SecurityUtil.getCurrentUserId();
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
         PageResponseDTO<ChatMessageDTO> messages = chatService.getChatMessages(chatId, userId, pageable);
         return ResponseEntity.ok(messages);
@@ -66,7 +66,7 @@ public class ChatController {
             Authentication authentication,
             @PathVariable Long chatId,
             @RequestBody Map<String, String> payload) {
-        Long userId = SecurityUtil.getCurrentUser().getId();
+        Long userId = SecurityUtil.getCurrentUserId();
         String content = payload.get("content");
         
         if (content == null || content.trim().isEmpty()) {
@@ -84,7 +84,7 @@ public class ChatController {
     public ResponseEntity<ChatDTO> createChat(
             Authentication authentication,
             @RequestBody Map<String, Object> payload) {
-        Long userId = SecurityUtil.getCurrentUser().getId();
+        Long userId = SecurityUtil.getCurrentUserId();
         Long otherUserId = Long.valueOf(payload.get("otherUserId").toString());
         Long itemId = Long.valueOf(payload.get("itemId").toString());
         String initialMessage = (String) payload.get("initialMessage");
@@ -100,7 +100,7 @@ public class ChatController {
     public ResponseEntity<ApiResponse> markChatMessagesAsRead(
             Authentication authentication,
             @PathVariable Long chatId) {
-        Long userId = SecurityUtil.getCurrentUser().getId();
+        Long userId = SecurityUtil.getCurrentUserId();
         chatService.markChatMessagesAsRead(chatId, userId);
         return ResponseEntity.ok(new ApiResponse(true, "聊天消息已标记为已读"));
     }
@@ -112,7 +112,7 @@ public class ChatController {
     public ResponseEntity<Map<String, Integer>> countUnreadMessages(
             Authentication authentication,
             @PathVariable Long chatId) {
-        Long userId = SecurityUtil.getCurrentUser().getId();
+        Long userId = SecurityUtil.getCurrentUserId();
         int count = chatService.countUnreadMessages(chatId, userId);
         
         Map<String, Integer> response = new HashMap<>();
@@ -126,7 +126,7 @@ public class ChatController {
      */
     @GetMapping("/unread/total")
     public ResponseEntity<Map<String, Integer>> countTotalUnreadMessages(Authentication authentication) {
-        Long userId = SecurityUtil.getCurrentUser().getId();
+        Long userId = SecurityUtil.getCurrentUserId();
         int count = chatService.countTotalUnreadMessages(userId);
         
         Map<String, Integer> response = new HashMap<>();
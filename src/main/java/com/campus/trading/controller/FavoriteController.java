@@ -4,13 +4,11 @@ import com.campus.trading.dto.ApiResponse;
 import com.campus.trading.dto.ItemDTO;
 import com.campus.trading.dto.PageResponseDTO;
 import com.campus.trading.service.FavoriteService;
-import com.campus.trading.service.UserProfileService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.Principal;
 import java.util.Map;
 
 /**
@@ -23,12 +21,10 @@ public class FavoriteController {
 
     private static final Logger logger = LoggerFactory.getLogger(FavoriteController.class);
     private final FavoriteService favoriteService;
-    private final UserProfileService userProfileService;
 
     @Autowired
-    public FavoriteController(FavoriteService favoriteService, UserProfileService userProfileService) {
+    public FavoriteController(FavoriteService favoriteService) {
         this.favoriteService = favoriteService;
-        this.userProfileService = userProfileService;
     }
 
     /**
@@ -60,7 +56,7 @@ public class FavoriteController {
      * @return 收藏结果
      */
     @PostMapping
-    public ApiResponse<ItemDTO> addFavorite(@RequestBody Map<String, Long> request, Principal principal) {
+    public ApiResponse<ItemDTO> addFavorite(@RequestBody Map<String, Long> request) {
         Long itemId = request.get("itemId");
         logger.info("添加收藏请求: itemId={}", itemId);
         if (itemId == null) {
@@ -68,10 +64,6 @@ public class FavoriteController {
         }
         try {
             ItemDTO item = favoriteService.addFavorite(itemId);
-            // 自动更新用户画像
-            if (principal != null) {
-                userProfileService.updateProfile(favoriteService.getCurrentUser(principal));
-            }
             logger.info("添加收藏成功: itemId={}", itemId);
             return ApiResponse.success("收藏成功", item);
         } catch (Exception e) {
@@ -87,14 +79,10 @@ public class FavoriteController {
      * @return 取消结果
      */
     @DeleteMapping("/{id}")
-    public ApiResponse<Boolean> removeFavorite(@PathVariable Long id, Principal principal) {
+    public ApiResponse<Boolean> removeFavorite(@PathVariable Long id) {
         logger.info("取消收藏请求: id={}", id);
         try {
             boolean success = favoriteService.removeFavorite(id);
-            // 自动更新用户画像
-            if (principal != null) {
-                userProfileService.updateProfile(favoriteService.getCurrentUser(principal));
-            }
             logger.info("取消收藏成功: id={}", id);
             return ApiResponse.success("取消收藏成功", success);
         } catch (Exception e) {
@@ -110,14 +98,10 @@ public class FavoriteController {
      * @return 取消结果
      */
     @DeleteMapping("/item/{itemId}")
-    public ApiResponse<Boolean> removeFavoriteByItemId(@PathVariable Long itemId, Principal principal) {
+    public ApiResponse<Boolean> removeFavoriteByItemId(@PathVariable Long itemId) {
         logger.info("根据物品ID取消收藏请求: itemId={}", itemId);
         try {
             boolean success = favoriteService.removeFavoriteByItemId(itemId);
-            // 自动更新用户画像
-            if (principal != null) {
-                userProfileService.updateProfile(favoriteService.getCurrentUser(principal));
-            }
             logger.info("根据物品ID取消收藏成功: itemId={}", itemId);
             return ApiResponse.success("取消收藏成功", success);
         } catch (Exception e) {
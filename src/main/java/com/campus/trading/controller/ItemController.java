@@ -1,6 +1,7 @@
 package com.campus.trading.controller;
 
 import com.campus.trading.dto.ApiResponse;
+import com.campus.trading.dto.CursorPageResponseDTO;
 import com.campus.trading.dto.ItemCreateRequestDTO;
 import com.campus.trading.dto.ItemDTO;
 import com.campus.trading.dto.PageResponseDTO;
@@ -130,6 +131,22 @@ public class ItemController {
         return ApiResponse.success(pageResponse);
     }
 
+    /**
+     * 游标分页查询物品列表（无限滚动）
+     *
+     * @param cursor   上一页返回的 nextCursor，首页不传
+     * @param pageSize 每页大小
+     * @param sort     排序方式（createTime, popularity），倒序
+     * @return 物品游标分页列表
+     */
+    @GetMapping("/cursor")
+    public ApiResponse<CursorPageResponseDTO<ItemDTO>> listItemsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "createTime") String sort) {
+        return ApiResponse.success(itemService.listItemsByCursor(null, cursor, pageSize, sort));
+    }
+
     /**
      * 分页查询用户物品列表
      *
@@ -164,6 +181,24 @@ public class ItemController {
         return ApiResponse.success(pageResponse);
     }
 
+    /**
+     * 游标分页查询分类物品列表（无限滚动）
+     *
+     * @param categoryId 分类ID
+     * @param cursor     上一页返回的 nextCursor，首页不传
+     * @param pageSize   每页大小
+     * @param sort       排序方式（createTime, popularity），倒序
+     * @return 物品游标分页列表
+     */
+    @GetMapping("/category/{categoryId}/cursor")
+    public ApiResponse<CursorPageResponseDTO<ItemDTO>> listCategoryItemsByCursor(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "createTime") String sort) {
+        return ApiResponse.success(itemService.listItemsByCursor(categoryId, cursor, pageSize, sort));
+    }
+
     /**
      * 搜索物品
      *
@@ -193,40 +228,68 @@ public class ItemController {
             @RequestParam(defaultValue = "10") int pageSize,
             @RequestParam(defaultValue = "createTime") String sort,
             @RequestParam(defaultValue = "desc") String order) {
-        // 兼容前端传condition为字符串的情况
+        Integer[] conditionRange = resolveConditionRange(condition, conditionMin, conditionMax);
+        PageResponseDTO<ItemDTO> pageResponse = itemService.searchItems(
+                keyword, categoryId, minPrice, maxPrice, conditionRange[0], conditionRange[1], pageNum, pageSize, sort, order);
+        return ApiResponse.success(pageResponse);
+    }
+
+    /**
+     * 游标分页搜索物品（深度翻页）
+     *
+     * @param keyword      关键字
+     * @param categoryId   分类ID
+     * @param minPrice     最低价格
+     * @param maxPrice     最高价格
+     * @param condition    新旧程度
+     * @param conditionMin 新旧程度最小值
+     * @param conditionMax 新旧程度最大值
+     * @param cursor       上一页返回的 nextCursor，首页不传
+     * @param pageSize     每页大小
+     * @param sort         排序方式
+     * @param order        排序顺序
+     * @return 物品游标分页列表
+     */
+    @GetMapping("/search/cursor")
+    public ApiResponse<CursorPageResponseDTO<ItemDTO>> searchItemsByCursor(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String condition,
+            @RequestParam(required = false) Integer conditionMin,
+            @RequestParam(required = false) Integer conditionMax,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "createTime") String sort,
+            @RequestParam(defaultValue = "desc") String order) {
+        Integer[] conditionRange = resolveConditionRange(condition, conditionMin, conditionMax);
+        return ApiResponse.success(itemService.searchItemsByCursor(
+                keyword, categoryId, minPrice, maxPrice, conditionRange[0], conditionRange[1], cursor, pageSize, sort, order));
+    }
+
+    // 兼容前端传condition为字符串的情况，返回 [最小值, 最大值]
+    private static Integer[] resolveConditionRange(String condition, Integer conditionMin, Integer conditionMax) {
         if (condition != null) {
             switch (condition.toLowerCase()) {
                 case "all":
-                    conditionMin = null;
-                    conditionMax = null;
-                    break;
+                    return new Integer[]{null, null};
                 case "new":
-                    conditionMin = 1;
-                    conditionMax = 1;
-                    break;
+                    return new Integer[]{1, 1};
                 case "like_new":
-                    conditionMin = 2;
-                    conditionMax = 3;
-                    break;
+                    return new Integer[]{2, 3};
                 case "good":
-                    conditionMin = 4;
-                    conditionMax = 6;
-                    break;
+                    return new Integer[]{4, 6};
                 case "acceptable":
-                    conditionMin = 7;
-                    conditionMax = 10;
-                    break;
+                    return new Integer[]{7, 10};
                 default:
                     try {
                         int cond = Integer.parseInt(condition);
-                        conditionMin = cond;
-                        conditionMax = cond;
+                        return new Integer[]{cond, cond};
                     } catch (NumberFormatException ignored) {}
             }
         }
-        PageResponseDTO<ItemDTO> pageResponse = itemService.searchItems(
-                keyword, categoryId, minPrice, maxPrice, conditionMin, conditionMax, pageNum, pageSize, sort, order);
-        return ApiResponse.success(pageResponse);
+        return new Integer[]{conditionMin, conditionMax};
     }
 
     /**
@@ -243,11 +306,12 @@ public class ItemController {
 
     /**
      * 获取推荐物品列表（最热商品）
+     * @param categoryId 分类ID，可选
      * @return 推荐物品列表
      */
     @GetMapping("/recommended")
-    public ApiResponse<List<ItemDTO>> getRecommendedItems() {
-        List<ItemDTO> hotItems = itemService.getHotItems(5);
+    public ApiResponse<List<ItemDTO>> getRecommendedItems(@RequestParam(required = false) Long categoryId) {
+        List<ItemDTO> hotItems = itemService.getHotItems(categoryId, 5);
         return ApiResponse.success(hotItems);
     }
 
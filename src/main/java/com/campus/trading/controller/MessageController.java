@@ -13,6 +13,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/messages")
 @CrossOrigin
@@ -36,7 +38,7 @@ public class MessageController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            Long userId = SecurityUtil.getCurrentUser().getId();
+            Long userId = SecurityUtil.getCurrentUserId();
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
             PageResponseDTO<MessageDTO> messages = messageService.getAllMessages(userId, pageable);
             return ResponseEntity.ok(ApiResponse.success("获取所有消息成功", messages));
@@ -54,7 +56,7 @@ public class MessageController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            Long userId = SecurityUtil.getCurrentUser().getId();
+            Long userId = SecurityUtil.getCurrentUserId();
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
             PageResponseDTO<CommentMessageDTO> messages = messageService.getCommentMessages(userId, pageable);
             return ResponseEntity.ok(ApiResponse.success("获取评论消息成功", messages));
@@ -72,7 +74,7 @@ public class MessageController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            Long userId = SecurityUtil.getCurrentUser().getId();
+            Long userId = SecurityUtil.getCurrentUserId();
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
             PageResponseDTO<FavoriteMessageDTO> messages = messageService.getFavoriteMessages(userId, pageable);
             return ResponseEntity.ok(ApiResponse.success("获取收藏列表成功", messages));
@@ -90,7 +92,7 @@ public class MessageController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            Long userId = SecurityUtil.getCurrentUser().getId();
+            Long userId = SecurityUtil.getCurrentUserId();
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
             PageResponseDTO<OrderMessageDTO> messages = messageService.getOrderMessages(userId, pageable);
             return ResponseEntity.ok(ApiResponse.success("获取订单消息成功", messages));
@@ -108,7 +110,7 @@ public class MessageController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            Long userId = SecurityUtil.getCurrentUser().getId();
+            Long userId = SecurityUtil.getCurrentUserId();
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
             PageResponseDTO<ChatMessageDTO> messages = messageService.getChatMessages(userId, pageable);
             return ResponseEntity.ok(ApiResponse.success("获取聊天消息成功", messages));
@@ -126,7 +128,7 @@ public class MessageController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            Long userId = SecurityUtil.getCurrentUser().getId();
+            Long userId = SecurityUtil.getCurrentUserId();
             Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
             PageResponseDTO<ChatMessageDTO> messages = messageService.getUserChatMessages(userId, pageable);
             return ResponseEntity.ok(ApiResponse.success("获取所有聊天消息成功", messages));
@@ -156,7 +158,7 @@ public class MessageController {
     @PutMapping("/read/all")
     public ResponseEntity<ApiResponse> markAllAsRead(Authentication authentication) {
         try {
-            Long userId = SecurityUtil.getCurrentUser().getId();
+            Long userId = SecurityUtil.getCurrentUserId();
             messageService.markAllAsRead(userId);
             return ResponseEntity.ok(new ApiResponse(true, "所有消息已标记为已读"));
         } catch (Exception e) {
@@ -172,7 +174,7 @@ public class MessageController {
             Authentication authentication,
             @PathVariable String messageType) {
         try {
-            Long userId = SecurityUtil.getCurrentUser().getId();
+            Long userId = SecurityUtil.getCurrentUserId();
             messageService.markAllAsReadByType(userId, messageType);
             return ResponseEntity.ok(new ApiResponse(true, messageType + "类型的消息已标记为已读"));
         } catch (Exception e) {
@@ -186,7 +188,7 @@ public class MessageController {
     @GetMapping("/unread/count")
     public ResponseEntity<ApiResponse<Long>> countUnreadMessages(Authentication authentication) {
         try {
-            Long userId = SecurityUtil.getCurrentUser().getId();
+            Long userId = SecurityUtil.getCurrentUserId();
             long count = messageService.countUnreadMessages(userId);
             return ResponseEntity.ok(ApiResponse.success("获取未读消息数量成功", count));
         } catch (Exception e) {
@@ -194,6 +196,20 @@ public class MessageController {
         }
     }
 
+    /**
+     * 一次获取各类型的未读消息数量
+     */
+    @GetMapping("/unread/summary")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getUnreadSummary(Authentication authentication) {
+        try {
+            Long userId = SecurityUtil.getCurrentUserId();
+            Map<String, Long> summary = messageService.getUnreadSummary(userId);
+            return ResponseEntity.ok(ApiResponse.success("获取未读消息汇总成功", summary));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(ApiResponse.error(500, "获取未读消息汇总失败: " + e.getMessage()));
+        }
+    }
+
     /**
      * 获取特定类型的未读消息数量
      */
@@ -202,7 +218,7 @@ public class MessageController {
             Authentication authentication,
             @PathVariable String messageType) {
         try {
-            Long userId = SecurityUtil.getCurrentUser().getId();
+            Long userId = SecurityUtil.getCurrentUserId();
             long count = messageService.countUnreadMessagesByType(userId, messageType);
             return ResponseEntity.ok(ApiResponse.success("获取" + messageType + "类型未读消息数量成功", count));
         } catch (Exception e) {
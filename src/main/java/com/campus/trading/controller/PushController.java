@@ -0,0 +1,33 @@
+package com.campus.trading.controller;
+
+import com.campus.trading.config.SecurityUtil;
+import com.campus.trading.service.PushService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/push")
+public class PushController {
+
+    private final PushService pushService;
+
+    @Autowired
+    public PushController(PushService pushService) {
+        this.pushService = pushService;
+    }
+
+    /**
+     * 建立推送连接（SSE）
+     *
+     * 事件：chat.message 新的聊天消息（ChatMessageDTO），notification 新的评论/收藏/订单通知。
+     * 浏览器 EventSource 无法设置请求头，可用 ?token= 传递登录令牌。
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return pushService.subscribe(SecurityUtil.getCurrentUserId());
+    }
+}
@@ -0,0 +1,40 @@
+package com.campus.trading.controller;
+
+import com.campus.trading.service.impl.ItemReindexJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 搜索索引管理接口（仅管理员）
+ */
+@RestController
+@RequestMapping("/admin/search")
+@CrossOrigin
+public class SearchAdminController {
+    @Autowired
+    private ItemReindexJob itemReindexJob;
+
+    /**
+     * 在后台启动物品索引全量重建
+     *
+     * @param resume 是否从上次失败的位置续跑
+     */
+    @PostMapping("/reindex")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, String>> reindex(@RequestParam(defaultValue = "false") boolean resume) {
+        return ResponseEntity.accepted().body(itemReindexJob.start(resume));
+    }
+
+    /**
+     * 查询物品索引重建进度
+     */
+    @GetMapping("/reindex")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, String>> reindexStatus() {
+        return ResponseEntity.ok(itemReindexJob.getStatus());
+    }
+}
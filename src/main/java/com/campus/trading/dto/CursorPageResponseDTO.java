@@ -0,0 +1,75 @@
+package com.campus.trading.dto;
+
+import java.util.List;
+
+/**
+ * 游标分页响应数据传输对象
+ *
+ * 用于无限滚动列表：不返回总数，客户端携带 nextCursor 请求下一页
+ *
+ * @param <T> 数据类型
+ */
+public class CursorPageResponseDTO<T> {
+
+    /**
+     * 数据列表
+     */
+    private List<T> list;
+
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private boolean hasMore;
+
+    /**
+     * 每页大小
+     */
+    private int pageSize;
+
+    public CursorPageResponseDTO() {
+    }
+
+    public CursorPageResponseDTO(List<T> list, String nextCursor, boolean hasMore, int pageSize) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.pageSize = pageSize;
+    }
+
+    public List<T> getList() {
+        return list;
+    }
+
+    public void setList(List<T> list) {
+        this.list = list;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+}
@@ -0,0 +1,111 @@
+package com.campus.trading.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 物品列表分页游标
+ *
+ * 游标记录上一页最后一条物品的排序键（创建时间或热度）和ID，
+ * 编码为 base64url(排序方式|排序键|ID)，对客户端不透明。
+ * 首页不带游标时使用哨兵值，保证所有物品都排在其后。
+ */
+public final class ItemCursor {
+
+    public static final String SORT_CREATE_TIME = "createTime";
+    public static final String SORT_POPULARITY = "popularity";
+
+    private static final LocalDateTime MAX_CREATE_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final String sort;
+    private final LocalDateTime createTime;
+    private final Integer popularity;
+    private final Long id;
+
+    private ItemCursor(String sort, LocalDateTime createTime, Integer popularity, Long id) {
+        this.sort = sort;
+        this.createTime = createTime;
+        this.popularity = popularity;
+        this.id = id;
+    }
+
+    /**
+     * 规范化排序方式，目前只支持创建时间和热度两种键
+     */
+    public static String normalizeSort(String sort) {
+        return SORT_POPULARITY.equals(sort) ? SORT_POPULARITY : SORT_CREATE_TIME;
+    }
+
+    /**
+     * 首页游标
+     */
+    public static ItemCursor first(String sort) {
+        return new ItemCursor(normalizeSort(sort), MAX_CREATE_TIME, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * 以一条物品作为上一页末尾生成游标
+     */
+    public static ItemCursor after(String sort, LocalDateTime createTime, Integer popularity, Long id) {
+        return new ItemCursor(normalizeSort(sort), createTime, popularity, id);
+    }
+
+    /**
+     * 解析客户端传入的游标，为空时返回首页游标
+     *
+     * @param sort   排序方式
+     * @param cursor 游标字符串
+     * @return 游标
+     */
+    public static ItemCursor decode(String sort, String cursor) {
+        String normalized = normalizeSort(sort);
+        if (cursor == null || cursor.isEmpty()) {
+            return first(normalized);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3 || !parts[0].equals(normalized)) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            Long id = Long.valueOf(parts[2]);
+            if (SORT_POPULARITY.equals(normalized)) {
+                return new ItemCursor(normalized, null, Integer.valueOf(parts[1]), id);
+            }
+            return new ItemCursor(normalized, LocalDateTime.parse(parts[1]), null, id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    /**
+     * 编码为客户端使用的游标字符串
+     */
+    public String encode() {
+        String key = SORT_POPULARITY.equals(sort) ? String.valueOf(popularity) : String.valueOf(createTime);
+        String raw = sort + "|" + key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public boolean isByPopularity() {
+        return SORT_POPULARITY.equals(sort);
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public Integer getPopularity() {
+        return popularity;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,100 @@
+package com.campus.trading.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单领域事件
+ *
+ * 订单状态变化的事务提交后发布，由各消费者异步处理消息通知、用户画像、信誉分和平台统计。
+ * 只携带ID和变化前后的状态，消费者按需回查数据库；eventId 全局唯一，用于消费幂等。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent {
+
+    public enum Type {
+        CREATED, CONFIRMED, SHIPPED, RECEIVED, COMPLETED, REJECTED, CANCELLED, COMMENTED
+    }
+
+    /**
+     * 事件ID
+     */
+    private String eventId;
+
+    /**
+     * 事件类型
+     */
+    private Type type;
+
+    /**
+     * 订单ID
+     */
+    private Long orderId;
+
+    /**
+     * 买家ID
+     */
+    private Long buyerId;
+
+    /**
+     * 卖家ID
+     */
+    private Long sellerId;
+
+    /**
+     * 物品ID
+     */
+    private Long itemId;
+
+    /**
+     * 操作人ID
+     */
+    private Long operatorId;
+
+    /**
+     * 变化前的订单状态，新建订单为null
+     */
+    private Integer oldStatus;
+
+    /**
+     * 变化后的订单状态
+     */
+    private Integer newStatus;
+
+    /**
+     * 变化前的物品状态，物品状态未变化时为null
+     */
+    private Integer oldItemStatus;
+
+    /**
+     * 变化后的物品状态，物品状态未变化时为null
+     */
+    private Integer newItemStatus;
+
+    /**
+     * 备注（拒绝/取消原因、物流单号）
+     */
+    private String remark;
+
+    /**
+     * 评价是否由买家发出（仅 COMMENTED）
+     */
+    private Boolean byBuyer;
+
+    /**
+     * 评分（仅 COMMENTED）
+     */
+    private Integer rating;
+
+    /**
+     * 事件发生时间
+     */
+    private LocalDateTime occurredAt;
+}
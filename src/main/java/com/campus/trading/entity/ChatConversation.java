@@ -0,0 +1,69 @@
+package com.campus.trading.entity;
+
+import lombok.*;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 用户会话索引
+ *
+ * 每个聊天为双方各保存一行，发消息、建会话和标记已读时同步维护最后消息、更新时间和未读数，
+ * 会话列表按 (user_id, updatedAt) 索引一次范围读取，不再逐个会话统计未读消息。
+ * 已读状态用水位 lastReadMessageId 表示：ID 不大于水位的消息视为已读，标记已读只更新这一行。
+ */
+@Entity
+@Table(name = "t_chat_conversation",
+        uniqueConstraints = @UniqueConstraint(name = "uk_chat_conversation_user_chat", columnNames = {"user_id", "chat_id"}),
+        indexes = {
+                @Index(name = "idx_chat_conversation_user_updated", columnList = "user_id, updatedAt"),
+                @Index(name = "idx_chat_conversation_chat", columnList = "chat_id")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatConversation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 会话所属用户
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "chat_id", nullable = false)
+    private Chat chat;
+
+    /**
+     * 会话的另一方
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "peer_id", nullable = false)
+    private User peer;
+
+    /**
+     * 该用户在此会话中的未读消息数
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer unreadCount = 0;
+
+    private String lastMessage;
+
+    /**
+     * 会话最后一条消息ID
+     */
+    private Long lastMessageId;
+
+    /**
+     * 已读水位：该用户已读到的消息ID，为空表示尚未标记过已读
+     */
+    private Long lastReadMessageId;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
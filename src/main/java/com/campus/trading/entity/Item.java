@@ -18,7 +18,13 @@ import java.util.List;
  * 物品实体类
  */
 @Entity
-@Table(name = "t_item")
+@Table(name = "t_item", indexes = {
+        @Index(name = "idx_item_status_create_time", columnList = "status, createTime, id"),
+        @Index(name = "idx_item_status_popularity", columnList = "status, popularity, id"),
+        @Index(name = "idx_item_category_status_create_time", columnList = "category_id, status, createTime, id"),
+        @Index(name = "idx_item_category_status_popularity", columnList = "category_id, status, popularity, id"),
+        @Index(name = "idx_item_status_favorite_count", columnList = "status, favorite_count, createTime")
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
@@ -81,6 +87,14 @@ public class Item {
     @Column(nullable = false)
     private Integer popularity;
 
+    /**
+     * 收藏数（冗余字段）
+     * 只通过 ItemRepository 的原子加减语句更新，实体保存时不写该列，避免旧值覆盖并发收藏
+     */
+    @Builder.Default
+    @Column(name = "favorite_count", nullable = false, updatable = false)
+    private Integer favoriteCount = 0;
+
     /**
      * 物品所有者
      */
@@ -186,6 +200,14 @@ public class Item {
         this.popularity = popularity;
     }
     
+    public Integer getFavoriteCount() {
+        return favoriteCount;
+    }
+    
+    public void setFavoriteCount(Integer favoriteCount) {
+        this.favoriteCount = favoriteCount;
+    }
+    
     public User getUser() {
         return user;
     }
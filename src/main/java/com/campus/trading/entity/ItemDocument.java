@@ -32,6 +32,8 @@ public class ItemDocument {
     private Integer status;
     @Field(type = FieldType.Integer)
     private Integer popularity;
+    @Field(type = FieldType.Integer)
+    private Integer favoriteCount;
     @Field(type = FieldType.Long)
     private Long userId;
     @Field(type = FieldType.Text)
@@ -67,6 +69,8 @@ public class ItemDocument {
     public void setStatus(Integer status) { this.status = status; }
     public Integer getPopularity() { return popularity; }
     public void setPopularity(Integer popularity) { this.popularity = popularity; }
+    public Integer getFavoriteCount() { return favoriteCount; }
+    public void setFavoriteCount(Integer favoriteCount) { this.favoriteCount = favoriteCount; }
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
     public String getUsername() { return username; }
@@ -0,0 +1,34 @@
+package com.campus.trading.entity;
+
+import lombok.*;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 物品索引发件箱
+ *
+ * 物品变更时在同一事务中写入一行，由索引任务异步同步到 ES 后删除。
+ * 自增ID单调递增，同时作为 ES 文档的外部版本号。
+ */
+@Entity
+@Table(name = "t_item_index_outbox", indexes = {
+        @Index(name = "idx_item_index_outbox_item_id", columnList = "item_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ItemIndexOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 变更的物品ID
+     */
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private LocalDateTime createTime;
+}
@@ -7,11 +7,23 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 
+/**
+ * 消息实体类（聊天、评论、收藏、订单消息单表继承）
+ * 索引对应 MessageRepository 的各查询路径，新库由 JPA 自动创建，已有库执行 db/add_message_indexes.sql
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_recipient_created", columnList = "recipient_id, created_at"),
+        @Index(name = "idx_messages_recipient_type_created", columnList = "recipient_id, message_type, created_at"),
+        @Index(name = "idx_messages_recipient_read_type", columnList = "recipient_id, is_read, message_type"),
+        @Index(name = "idx_messages_sender_type_created", columnList = "sender_id, message_type, created_at"),
+        @Index(name = "idx_messages_chat_created", columnList = "chat_id, created_at"),
+        @Index(name = "idx_messages_chat_recipient_read", columnList = "chat_id, recipient_id, is_read"),
+        @Index(name = "idx_messages_type_read_created", columnList = "message_type, is_read, created_at")
+})
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "message_type", discriminatorType = DiscriminatorType.STRING)
 public abstract class Message {
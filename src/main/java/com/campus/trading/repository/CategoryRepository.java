@@ -3,11 +3,7 @@ package com.campus.trading.repository;
 import com.campus.trading.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
-import java.util.List;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
-
-    List<Category> findByParentId(Long parentId);
-
 }
@@ -0,0 +1,106 @@
+package com.campus.trading.repository;
+
+import com.campus.trading.entity.ChatConversation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChatConversationRepository extends JpaRepository<ChatConversation, Long> {
+
+    /**
+     * 用户的会话列表（按更新时间倒序），只取列表展示需要的字段，不加载实体
+     *
+     * @return 每行为 [聊天ID, 未读数, 最后消息, 更新时间, 会话创建时间, 对方ID, 对方用户名, 对方头像, 物品ID, 物品名称, 物品价格]
+     */
+    @Query(value = "SELECT ch.id, c.unreadCount, c.lastMessage, c.updatedAt, ch.createdAt, " +
+                   "p.id, p.username, p.avatarImageId, i.id, i.name, i.price " +
+                   "FROM ChatConversation c JOIN c.chat ch JOIN c.peer p LEFT JOIN ch.item i " +
+                   "WHERE c.user.id = :userId ORDER BY c.updatedAt DESC, c.id DESC",
+           countQuery = "SELECT COUNT(c) FROM ChatConversation c WHERE c.user.id = :userId")
+    Page<Object[]> findListRowsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * 用户发出了新消息：更新最后消息和时间，发消息即视为已读到这条消息
+     *
+     * @return 更新行数，0 表示该用户还没有会话索引
+     */
+    @Modifying
+    @Query("UPDATE ChatConversation c SET c.lastMessage = :lastMessage, c.lastMessageId = :messageId, " +
+           "c.lastReadMessageId = :messageId, c.unreadCount = 0, c.updatedAt = :updatedAt " +
+           "WHERE c.chat.id = :chatId AND c.user.id = :userId")
+    int touchSent(@Param("chatId") Long chatId, @Param("userId") Long userId, @Param("lastMessage") String lastMessage,
+                  @Param("messageId") Long messageId, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 用户收到了新消息：更新最后消息和时间，未读数加一
+     *
+     * @return 更新行数，0 表示该用户还没有会话索引
+     */
+    @Modifying
+    @Query("UPDATE ChatConversation c SET c.lastMessage = :lastMessage, c.lastMessageId = :messageId, " +
+           "c.unreadCount = c.unreadCount + 1, c.updatedAt = :updatedAt " +
+           "WHERE c.chat.id = :chatId AND c.user.id = :userId")
+    int touchReceived(@Param("chatId") Long chatId, @Param("userId") Long userId, @Param("lastMessage") String lastMessage,
+                      @Param("messageId") Long messageId, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 会话全部标记已读：水位移到最后一条消息
+     */
+    @Modifying
+    @Query("UPDATE ChatConversation c SET c.lastReadMessageId = c.lastMessageId, c.unreadCount = 0 " +
+           "WHERE c.chat.id = :chatId AND c.user.id = :userId")
+    int markRead(@Param("chatId") Long chatId, @Param("userId") Long userId);
+
+    /**
+     * 已读到指定消息：水位只前进不后退。之后又收到新消息时未读数保持不变，下次标记已读时再清零
+     */
+    @Modifying
+    @Query("UPDATE ChatConversation c SET " +
+           "c.unreadCount = CASE WHEN c.lastMessageId <= :messageId THEN 0 ELSE c.unreadCount END, " +
+           "c.lastReadMessageId = :messageId " +
+           "WHERE c.chat.id = :chatId AND c.user.id = :userId " +
+           "AND (c.lastReadMessageId IS NULL OR c.lastReadMessageId < :messageId)")
+    int markReadThrough(@Param("chatId") Long chatId, @Param("userId") Long userId, @Param("messageId") Long messageId);
+
+    /**
+     * 用户的所有会话标记已读
+     */
+    @Modifying
+    @Query("UPDATE ChatConversation c SET c.lastReadMessageId = c.lastMessageId, c.unreadCount = 0 " +
+           "WHERE c.user.id = :userId AND (c.unreadCount > 0 OR c.lastReadMessageId IS NULL " +
+           "OR c.lastReadMessageId < c.lastMessageId)")
+    int markAllRead(@Param("userId") Long userId);
+
+    @Query("SELECT c.unreadCount FROM ChatConversation c WHERE c.chat.id = :chatId AND c.user.id = :userId")
+    Optional<Integer> findUnreadCount(@Param("chatId") Long chatId, @Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(c.unreadCount), 0) FROM ChatConversation c WHERE c.user.id = :userId")
+    long sumUnreadCount(@Param("userId") Long userId);
+
+    /**
+     * 批量汇总用户的聊天未读数，没有会话的用户不返回
+     *
+     * @return 每行为 [用户ID, 未读数之和]
+     */
+    @Query("SELECT c.user.id, SUM(c.unreadCount) FROM ChatConversation c WHERE c.user.id IN :userIds GROUP BY c.user.id")
+    List<Object[]> sumUnreadCountGroupByUser(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 批量查询会话双方的已读水位
+     *
+     * @return 每行为 [聊天ID, 用户ID, 已读水位]
+     */
+    @Query("SELECT c.chat.id, c.user.id, c.lastReadMessageId FROM ChatConversation c " +
+           "WHERE c.chat.id IN :chatIds AND c.lastReadMessageId IS NOT NULL")
+    List<Object[]> findReadWatermarks(@Param("chatIds") Collection<Long> chatIds);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -24,4 +25,14 @@ public interface ChatRepository extends JpaRepository<Chat, Long> {
 
     @Query("SELECT c FROM Chat c WHERE ((c.user1 = :user1 AND c.user2 = :user2) OR (c.user1 = :user2 AND c.user2 = :user1)) AND c.item = :item")
     Optional<Chat> findChatByUsersAndItem(User user1, User user2, com.campus.trading.entity.Item item);
+
+    /**
+     * 还没有会话索引的聊天，用于补建索引
+     *
+     * @return 每行为 [聊天ID, 用户1 ID, 用户2 ID, 最后消息, 更新时间]
+     */
+    @Query("SELECT c.id, c.user1.id, c.user2.id, c.lastMessage, c.updatedAt FROM Chat c " +
+           "WHERE c.user1 IS NOT NULL AND c.user2 IS NOT NULL " +
+           "AND NOT EXISTS (SELECT v.id FROM ChatConversation v WHERE v.chat = c) ORDER BY c.id")
+    List<Object[]> findChatsWithoutConversation(Pageable pageable);
 } 
\ No newline at end of file
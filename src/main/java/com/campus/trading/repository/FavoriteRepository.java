@@ -6,8 +6,11 @@ import com.campus.trading.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,4 +61,17 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
      * @return 收藏列表
      */
     List<Favorite> findByUser(User user);
+
+    /**
+     * 用户在指定时间之后收藏记录的 [分类ID, 收藏时间]，用于重建兴趣画像
+     */
+    @Query("SELECT i.category.id, f.createTime FROM Favorite f JOIN f.item i " +
+           "WHERE f.user = :user AND f.createTime >= :since AND i.category IS NOT NULL")
+    List<Object[]> findCategoryFavoriteTimes(@Param("user") User user, @Param("since") LocalDateTime since);
+
+    /**
+     * 允许个性化推荐的用户当前收藏的 [用户ID, 物品ID]，用于离线生成推荐候选
+     */
+    @Query("SELECT f.user.id, f.item.id FROM Favorite f WHERE f.user.allowPersonalizedRecommend = true")
+    List<Object[]> findUserItemPairs();
 } 
\ No newline at end of file
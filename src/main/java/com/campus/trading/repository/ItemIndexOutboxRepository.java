@@ -0,0 +1,52 @@
+package com.campus.trading.repository;
+
+import com.campus.trading.entity.ItemIndexOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ItemIndexOutboxRepository extends JpaRepository<ItemIndexOutbox, Long> {
+
+    /**
+     * 按写入顺序取一批待同步记录
+     */
+    @Query("SELECT o FROM ItemIndexOutbox o ORDER BY o.id")
+    List<ItemIndexOutbox> findBatch(Pageable pageable);
+
+    /**
+     * 最早的一条待同步记录，用于计算索引延迟
+     */
+    ItemIndexOutbox findFirstByOrderByIdAsc();
+
+    /**
+     * 为用户的所有物品写入发件箱（卖家头像等冗余字段变更时使用）
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO t_item_index_outbox (item_id, create_time) SELECT id, NOW() FROM t_item WHERE user_id = :userId",
+           nativeQuery = true)
+    int enqueueByUserId(@Param("userId") Long userId);
+
+    /**
+     * 为指定时间之后更新过的物品写入发件箱（全量重建期间的变更在切换别名后补同步）
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO t_item_index_outbox (item_id, create_time) SELECT id, NOW() FROM t_item WHERE update_time >= :since",
+           nativeQuery = true)
+    int enqueueUpdatedSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ItemIndexOutbox o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -4,12 +4,18 @@ import com.campus.trading.entity.Item;
 import com.campus.trading.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -27,6 +33,7 @@ public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificat
      * @param pageable 分页参数
      * @return 物品分页列表
      */
+    @EntityGraph(attributePaths = {"user", "category"})
     Page<Item> findByUser(User user, Pageable pageable);
 
     /**
@@ -72,6 +79,7 @@ public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificat
      * @param pageable 分页参数
      * @return 物品分页列表
      */
+    @EntityGraph(attributePaths = {"user", "category"})
     Page<Item> findAllByOrderByPopularityDesc(Pageable pageable);
 
     /**
@@ -114,31 +122,153 @@ public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificat
     /**
      * 查询上架且有库存的商品
      */
+    @EntityGraph(attributePaths = {"user", "category"})
     Page<Item> findByStatusAndStockGreaterThan(Integer status, Integer stock, Pageable pageable);
 
     /**
      * 查询分类下上架且有库存的商品
      */
+    @EntityGraph(attributePaths = {"user", "category"})
     Page<Item> findByCategoryIdAndStatusAndStockGreaterThan(Long categoryId, Integer status, Integer stock, Pageable pageable);
 
-    // 按收藏量降序分页查询上架且有库存的商品
-    @Query(value = "SELECT i.* FROM t_item i LEFT JOIN t_favorite f ON i.id = f.item_id WHERE i.status = 1 AND i.stock > 0 GROUP BY i.id ORDER BY COUNT(f.id) DESC, i.create_time DESC",
-           countQuery = "SELECT COUNT(DISTINCT i.id) FROM t_item i WHERE i.status = 1 AND i.stock > 0",
-           nativeQuery = true)
-    Page<Item> findAllOrderByFavoriteCountDesc(Pageable pageable);
+    /**
+     * 原子预占一件库存：只有上架且有库存时才扣减，扣到0时同时下架
+     * status 写在 stock 之前，MySQL 按顺序求值时判断的也是扣减前的库存
+     *
+     * @return 1 预占成功，0 已售罄或不可购买
+     */
+    @Modifying
+    @Query("UPDATE Item i SET i.status = CASE WHEN i.stock <= 1 THEN 0 ELSE i.status END, i.stock = i.stock - 1, i.updateTime = CURRENT_TIMESTAMP " +
+           "WHERE i.id = :id AND i.status = 1 AND i.stock > 0")
+    int reserveStock(@Param("id") Long id);
+
+    /**
+     * 归还一件库存并重新上架（订单取消、拒绝时）
+     */
+    @Modifying
+    @Query("UPDATE Item i SET i.stock = i.stock + 1, i.status = 1, i.updateTime = CURRENT_TIMESTAMP WHERE i.id = :id")
+    int releaseStock(@Param("id") Long id);
+
+    /**
+     * 查询当前库存（绕过持久化上下文中的旧值）
+     */
+    @Query("SELECT i.stock FROM Item i WHERE i.id = :id")
+    Integer findStockById(@Param("id") Long id);
+
+    /**
+     * 只查询物品的分类ID，不加载物品和分类
+     */
+    @Query("SELECT i.category.id FROM Item i WHERE i.id = :id")
+    Long findCategoryIdById(@Param("id") Long id);
+
+    /**
+     * 收藏数加一（单条 UPDATE，并发收藏不会丢失）
+     */
+    @Modifying
+    @Query("UPDATE Item i SET i.favoriteCount = i.favoriteCount + 1 WHERE i.id = :id")
+    int incrementFavoriteCount(@Param("id") Long id);
+
+    /**
+     * 收藏数减一，不会减到负数
+     */
+    @Modifying
+    @Query("UPDATE Item i SET i.favoriteCount = i.favoriteCount - 1 WHERE i.id = :id AND i.favoriteCount > 0")
+    int decrementFavoriteCount(@Param("id") Long id);
     
     /**
      * 查询用户发布的所有商品（按创建时间倒序）
      */
+    @EntityGraph(attributePaths = {"user", "category"})
     List<Item> findByUserOrderByCreateTimeDesc(User user);
 
     /**
-     * 根据分类ID列表查询物品列表，并根据状态和热度排序
+     * 根据分类ID列表查询有库存的物品列表，并根据状态和热度排序
      *
      * @param categoryIds 分类ID列表
      * @param status      状态
+     * @param stock       库存下限（不含）
      * @param pageable    分页参数
      * @return 物品分页列表
      */
-    Page<Item> findByCategoryIdInAndStatusOrderByPopularityDesc(List<Long> categoryIds, Integer status, Pageable pageable);
-} 
\ No newline at end of file
+    @EntityGraph(attributePaths = {"user", "category"})
+    Page<Item> findByCategoryIdInAndStatusAndStockGreaterThanOrderByPopularityDesc(List<Long> categoryIds, Integer status,
+                                                                                   Integer stock, Pageable pageable);
+
+    /**
+     * 查询所有在售且有库存的物品及其发布者，离线生成推荐候选时使用
+     *
+     * @return 每行为 [物品ID, 发布者ID]
+     */
+    @Query("SELECT i.id, i.user.id FROM Item i WHERE i.status = 1 AND i.stock > 0")
+    List<Object[]> findLiveItemSellerIds();
+
+    /**
+     * 从给定物品中筛出在售且有库存的，只取分类ID，生成热度榜时使用
+     *
+     * @param ids 物品ID集合
+     * @return 每行为 [物品ID, 分类ID]，没有分类时分类ID为 null
+     */
+    @Query("SELECT i.id, c.id FROM Item i LEFT JOIN i.category c WHERE i.id IN :ids AND i.status = 1 AND i.stock > 0")
+    List<Object[]> findLiveItemCategoryIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 批量查询物品图片ID，列表页一次查询取回整页图片
+     *
+     * @param itemIds 物品ID集合
+     * @return 每行为 [物品ID, 图片ID]
+     */
+    @Query("SELECT i.id, img FROM Item i JOIN i.imageIds img WHERE i.id IN :itemIds")
+    List<Object[]> findImageIdsByItemIds(@Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * 游标分页：按创建时间倒序查询上架且有库存的商品，从 (createTime, id) 之后开始
+     *
+     * 返回 Slice 只多取一行判断是否有下一页，不执行 COUNT 查询
+     */
+    @EntityGraph(attributePaths = {"user", "category"})
+    @Query("SELECT i FROM Item i WHERE i.status = 1 AND i.stock > 0 " +
+           "AND (i.createTime < :createTime OR (i.createTime = :createTime AND i.id < :id)) " +
+           "ORDER BY i.createTime DESC, i.id DESC")
+    Slice<Item> findLiveItemsBeforeCreateTime(@Param("createTime") LocalDateTime createTime, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * 游标分页：按热度倒序查询上架且有库存的商品，从 (popularity, id) 之后开始
+     */
+    @EntityGraph(attributePaths = {"user", "category"})
+    @Query("SELECT i FROM Item i WHERE i.status = 1 AND i.stock > 0 " +
+           "AND (i.popularity < :popularity OR (i.popularity = :popularity AND i.id < :id)) " +
+           "ORDER BY i.popularity DESC, i.id DESC")
+    Slice<Item> findLiveItemsBeforePopularity(@Param("popularity") Integer popularity, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * 游标分页：按创建时间倒序查询分类下上架且有库存的商品
+     */
+    @EntityGraph(attributePaths = {"user", "category"})
+    @Query("SELECT i FROM Item i WHERE i.category.id = :categoryId AND i.status = 1 AND i.stock > 0 " +
+           "AND (i.createTime < :createTime OR (i.createTime = :createTime AND i.id < :id)) " +
+           "ORDER BY i.createTime DESC, i.id DESC")
+    Slice<Item> findLiveCategoryItemsBeforeCreateTime(@Param("categoryId") Long categoryId, @Param("createTime") LocalDateTime createTime,
+                                                      @Param("id") Long id, Pageable pageable);
+
+    /**
+     * 游标分页：按热度倒序查询分类下上架且有库存的商品
+     */
+    @EntityGraph(attributePaths = {"user", "category"})
+    @Query("SELECT i FROM Item i WHERE i.category.id = :categoryId AND i.status = 1 AND i.stock > 0 " +
+           "AND (i.popularity < :popularity OR (i.popularity = :popularity AND i.id < :id)) " +
+           "ORDER BY i.popularity DESC, i.id DESC")
+    Slice<Item> findLiveCategoryItemsBeforePopularity(@Param("categoryId") Long categoryId, @Param("popularity") Integer popularity,
+                                                      @Param("id") Long id, Pageable pageable);
+
+    /**
+     * 按ID批量加载物品及其图片、分类和卖家，用于构建 ES 文档
+     */
+    @Query("SELECT DISTINCT i FROM Item i LEFT JOIN FETCH i.imageIds LEFT JOIN FETCH i.category JOIN FETCH i.user WHERE i.id IN :ids")
+    List<Item> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按ID顺序取指定ID之后的一段物品ID，用于全量重建索引时分块读取
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+}
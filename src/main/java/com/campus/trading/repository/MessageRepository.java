@@ -6,9 +6,11 @@ import com.campus.trading.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -26,6 +28,19 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findUnreadMessagesByType(User recipient, String messageType);
     
     List<Message> findByRecipientAndReadFalse(User recipient);
+
+    // 按接收者和类型分组统计未读通知（聊天消息的未读数由会话索引维护），每行为 [接收者ID, 消息类型, 未读数]
+    @Query("SELECT m.recipient.id, m.messageType, COUNT(m) FROM Message m WHERE m.recipient.id IN :recipientIds AND m.read = false AND m.messageType <> 'CHAT' GROUP BY m.recipient.id, m.messageType")
+    List<Object[]> countUnreadNotificationsGroupByRecipient(Collection<Long> recipientIds);
+
+    // 只标记通知，聊天消息按会话索引的已读水位判断，不逐条改写
+    @Modifying
+    @Query("UPDATE Message m SET m.read = true WHERE m.recipient.id = :recipientId AND m.read = false AND m.messageType <> 'CHAT'")
+    int markAllAsReadByRecipientId(Long recipientId);
+
+    @Modifying
+    @Query("UPDATE Message m SET m.read = true WHERE m.recipient.id = :recipientId AND m.messageType = :messageType AND m.read = false")
+    int markAllAsReadByRecipientIdAndType(Long recipientId, String messageType);
     
     // 聊天消息相关查询
     @Query("SELECT m FROM ChatMessage m WHERE m.chatId = :chatId ORDER BY m.createdAt DESC")
@@ -36,6 +51,14 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     
     @Query("SELECT COUNT(m) FROM ChatMessage m WHERE m.chatId = :chatId AND m.recipient = :recipient AND m.read = false")
     int countByChatIdAndRecipientAndReadFalse(Long chatId, User recipient);
+
+    // 按聊天和接收者分组统计未读消息，每行为 [聊天ID, 接收者ID, 未读数]
+    @Query("SELECT m.chatId, m.recipient.id, COUNT(m) FROM ChatMessage m WHERE m.chatId IN :chatIds AND m.read = false GROUP BY m.chatId, m.recipient.id")
+    List<Object[]> countUnreadGroupByChatIdAndRecipient(Collection<Long> chatIds);
+
+    // 每个聊天的最后一条消息ID，每行为 [聊天ID, 消息ID]
+    @Query("SELECT m.chatId, MAX(m.id) FROM ChatMessage m WHERE m.chatId IN :chatIds GROUP BY m.chatId")
+    List<Object[]> findLastMessageIdGroupByChatId(Collection<Long> chatIds);
     
     // 获取用户作为发送者或接收者的所有聊天消息
     @Query("SELECT m FROM Message m WHERE (m.recipient = :user OR m.sender = :user) AND m.messageType = :messageType ORDER BY m.createdAt DESC")
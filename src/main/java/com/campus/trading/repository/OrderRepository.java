@@ -6,8 +6,11 @@ import com.campus.trading.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -96,4 +99,21 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     // 统计所有订单总数
     long count();
+
+    // 按状态统计订单数
+    long countByStatus(Integer status);
+
+    /**
+     * 买家在指定时间之后下单记录的 [分类ID, 下单时间]，用于重建兴趣画像
+     */
+    @Query("SELECT i.category.id, o.createTime FROM Order o JOIN o.item i " +
+           "WHERE o.buyer = :buyer AND o.createTime >= :since AND i.category IS NOT NULL")
+    List<Object[]> findCategoryOrderTimes(@Param("buyer") User buyer, @Param("since") LocalDateTime since);
+
+    /**
+     * 指定时间之后允许个性化推荐的买家下单的 [买家ID, 物品ID]（去重），用于离线生成推荐候选
+     */
+    @Query("SELECT DISTINCT o.buyer.id, o.item.id FROM Order o " +
+           "WHERE o.createTime >= :since AND o.buyer.allowPersonalizedRecommend = true")
+    List<Object[]> findBuyerItemPairsSince(@Param("since") LocalDateTime since);
 } 
\ No newline at end of file
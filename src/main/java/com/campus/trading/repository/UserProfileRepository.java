@@ -2,12 +2,21 @@ package com.campus.trading.repository;
 
 import com.campus.trading.entity.UserProfile;
 import com.campus.trading.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserProfileRepository extends JpaRepository<UserProfile, Long> {
     Optional<UserProfile> findByUser(User user);
+
+    /**
+     * 允许个性化推荐的用户ID，按画像ID分页，供定时重建画像使用
+     */
+    @Query("SELECT p.user.id FROM UserProfile p WHERE p.user.allowPersonalizedRecommend = true ORDER BY p.id")
+    List<Long> findPersonalizedUserIds(Pageable pageable);
 } 
\ No newline at end of file
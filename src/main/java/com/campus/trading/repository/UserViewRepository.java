@@ -4,8 +4,11 @@ import com.campus.trading.entity.UserView;
 import com.campus.trading.entity.User;
 import com.campus.trading.entity.Item;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -13,4 +16,18 @@ public interface UserViewRepository extends JpaRepository<UserView, Long> {
     List<UserView> findByUser(User user);
     List<UserView> findByItem(Item item);
     List<UserView> findByUserAndItem(User user, Item item);
+
+    /**
+     * 用户在指定时间之后浏览记录的 [分类ID, 浏览时间]，用于重建兴趣画像
+     */
+    @Query("SELECT i.category.id, v.viewTime FROM UserView v JOIN v.item i " +
+           "WHERE v.user = :user AND v.viewTime >= :since AND i.category IS NOT NULL")
+    List<Object[]> findCategoryViewTimes(@Param("user") User user, @Param("since") LocalDateTime since);
+
+    /**
+     * 指定时间之后允许个性化推荐的用户浏览过的 [用户ID, 物品ID]（去重），用于离线生成推荐候选
+     */
+    @Query("SELECT DISTINCT v.user.id, v.item.id FROM UserView v " +
+           "WHERE v.viewTime >= :since AND v.user.allowPersonalizedRecommend = true")
+    List<Object[]> findUserItemPairsSince(@Param("since") LocalDateTime since);
 } 
\ No newline at end of file
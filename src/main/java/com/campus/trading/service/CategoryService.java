@@ -1,5 +1,6 @@
 package com.campus.trading.service;
 
+import com.campus.trading.cache.CategoryTree;
 import com.campus.trading.entity.Category;
 import java.util.List;
 
@@ -7,4 +8,14 @@ public interface CategoryService {
     List<Category> getAllCategories();
 
     Category findById(Long categoryId);
-}
\ No newline at end of file
+
+    /**
+     * 当前分类树快照（不可变，分类刷新时整体替换）
+     */
+    CategoryTree getCategoryTree();
+
+    /**
+     * 从数据库重新加载分类并写入缓存
+     */
+    void refreshCategoryCache();
+}
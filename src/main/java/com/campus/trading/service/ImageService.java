@@ -3,6 +3,8 @@ package com.campus.trading.service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.InputStream;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
 
 public interface ImageService {
     /**
@@ -32,6 +34,14 @@ public interface ImageService {
      */
     String generateImageAccessToken(String imageId);
 
+    /**
+     * 批量生成图片访问地址，同一图片ID只签名一次
+     *
+     * @param imageIds 图片ID集合（可包含重复或空值）
+     * @return 图片ID到带令牌访问地址的映射
+     */
+    Map<String, String> generateImageAccessTokens(Collection<String> imageIds);
+
     /**
      * 获取图片文件大小
      */
@@ -0,0 +1,50 @@
+package com.campus.trading.service;
+
+import com.campus.trading.entity.Item;
+import com.campus.trading.entity.ItemDocument;
+
+import java.util.Collection;
+
+/**
+ * 物品搜索索引服务
+ *
+ * 物品变更通过发件箱表与业务数据在同一事务中提交，再由定时任务批量同步到 ES
+ */
+public interface ItemIndexService {
+
+    /**
+     * 记录物品变更，需在修改物品的事务中调用
+     *
+     * @param itemId 物品ID
+     */
+    void enqueue(Long itemId);
+
+    /**
+     * 批量记录物品变更
+     *
+     * @param itemIds 物品ID
+     */
+    void enqueueAll(Collection<Long> itemIds);
+
+    /**
+     * 记录用户所有物品的变更（卖家信息冗余在物品文档中）
+     *
+     * @param userId 用户ID
+     */
+    void enqueueUserItems(Long userId);
+
+    /**
+     * 批量处理发件箱，将变更同步到 ES
+     *
+     * @return 本次同步的发件箱记录数
+     */
+    int processOutbox();
+
+    /**
+     * 物品实体转换为 ES 文档
+     *
+     * @param item 物品（需已加载图片、分类和卖家）
+     * @return ES 文档
+     */
+    ItemDocument toDocument(Item item);
+}
@@ -1,5 +1,6 @@
 package com.campus.trading.service;
 
+import com.campus.trading.dto.CursorPageResponseDTO;
 import com.campus.trading.dto.ItemCreateRequestDTO;
 import com.campus.trading.dto.ItemDTO;
 import com.campus.trading.dto.PageResponseDTO;
@@ -96,6 +97,17 @@ public interface ItemService {
      */
     PageResponseDTO<ItemDTO> listCategoryItems(Long categoryId, int pageNum, int pageSize);
 
+    /**
+     * 游标分页查询上架物品列表，不统计总数，适用于无限滚动
+     *
+     * @param categoryId 分类ID，为空时查询全部分类
+     * @param cursor     上一页返回的游标，首页为空
+     * @param pageSize   每页大小
+     * @param sort       排序方式（createTime, popularity），均为倒序
+     * @return 物品游标分页列表
+     */
+    CursorPageResponseDTO<ItemDTO> listItemsByCursor(Long categoryId, String cursor, int pageSize, String sort);
+
     /**
      * 搜索物品
      *
@@ -115,6 +127,25 @@ public interface ItemService {
                                         BigDecimal maxPrice, Integer conditionMin, Integer conditionMax, 
                                         int pageNum, int pageSize, String sort, String order);
 
+    /**
+     * 游标分页搜索物品（ES search_after），适用于深度翻页
+     *
+     * @param keyword      关键词，为空时只按条件过滤
+     * @param categoryId   分类ID，包含子分类
+     * @param minPrice     最低价格
+     * @param maxPrice     最高价格
+     * @param conditionMin 成色最小值
+     * @param conditionMax 成色最大值
+     * @param cursor       上一页返回的游标，首页为空
+     * @param pageSize     每页大小
+     * @param sort         排序方式
+     * @param order        排序顺序
+     * @return 物品游标分页列表
+     */
+    CursorPageResponseDTO<ItemDTO> searchItemsByCursor(String keyword, Long categoryId, BigDecimal minPrice,
+                                                       BigDecimal maxPrice, Integer conditionMin, Integer conditionMax,
+                                                       String cursor, int pageSize, String sort, String order);
+
     /**
      * 根据图片生成物品描述
      *
@@ -160,10 +191,33 @@ public interface ItemService {
      */
     List<ItemDTO> getHotItems(int topN);
 
+    /**
+     * 获取分类下的最热商品列表
+     * @param categoryId 分类ID，为空时取全站
+     * @param topN 前N个
+     * @return 最热商品DTO列表
+     */
+    List<ItemDTO> getHotItems(Long categoryId, int topN);
+
+    /**
+     * 按ID批量获取物品（走物品详情缓存），结果保持传入顺序，不存在的物品跳过
+     * @param ids 物品ID列表
+     * @return 物品DTO列表
+     */
+    List<ItemDTO> getItemsByIds(List<Long> ids);
+
     /**
      * 实体转DTO
      */
     ItemDTO convertToDTO(com.campus.trading.entity.Item item);
+
+    /**
+     * 批量实体转DTO：浏览量、图片ID与图片签名均按整批一次性处理
+     *
+     * @param items 物品实体列表
+     * @return 与入参顺序一一对应的DTO列表（空元素对应null）
+     */
+    List<ItemDTO> convertToDTOs(List<Item> items);
     
     /**
      * 获取用户所有物品
@@ -5,6 +5,8 @@ import com.campus.trading.entity.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Map;
+
 public interface MessageService {
     
     // 获取用户所有消息
@@ -54,4 +56,7 @@ public interface MessageService {
     
     // 获取特定类型的未读消息数量
     long countUnreadMessagesByType(Long userId, String messageType);
+    
+    // 获取各类型的未读消息数量（COMMENT、FAVORITE、ORDER、CHAT）
+    Map<String, Long> getUnreadSummary(Long userId);
 } 
\ No newline at end of file
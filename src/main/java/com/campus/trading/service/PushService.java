@@ -0,0 +1,26 @@
+package com.campus.trading.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 实时推送（SSE）
+ *
+ * 客户端通过 /push/stream 保持一个长连接，新的聊天消息和通知由服务端推送，不再轮询。
+ */
+public interface PushService {
+
+    /**
+     * 为当前用户建立推送连接
+     * @param userId 用户ID
+     * @return SSE 连接
+     */
+    SseEmitter subscribe(Long userId);
+
+    /**
+     * 推送事件给指定用户的所有连接（多节点间经 Redis 广播），在事务中调用时于提交后推送
+     * @param userId 接收用户ID
+     * @param event 事件名
+     * @param payload 事件数据，按 JSON 序列化
+     */
+    void push(Long userId, String event, Object payload);
+}
@@ -5,16 +5,37 @@ import com.campus.trading.entity.UserProfile;
 import com.campus.trading.entity.User;
 
 public interface UserProfileService {
+    /**
+     * 浏览行为兴趣权重
+     */
+    double VIEW_WEIGHT = 1.0;
+    /**
+     * 收藏行为兴趣权重，取消收藏时扣回
+     */
+    double FAVORITE_WEIGHT = 3.0;
+    /**
+     * 下单行为兴趣权重
+     */
+    double ORDER_WEIGHT = 5.0;
+
     /**
      * 获取用户画像
      */
     UserProfile getOrCreateProfile(User user);
 
     /**
-     * 聚合并更新用户画像（根据行为数据）
+     * 按全部行为数据重建用户画像（带时间衰减），用于定时校正增量更新的偏差
      */
     void updateProfile(User user);
 
+    /**
+     * 单次行为的兴趣增量：先把已有兴趣按距上次更新的时间衰减，再给该分类加上权重
+     *
+     * @param categoryId 行为对应物品的分类ID，为null时忽略
+     * @param weight     行为权重，撤销行为时为负数
+     */
+    void recordInterest(User user, Long categoryId, double weight);
+
     /**
      * 增加信誉分
      */
@@ -49,7 +49,7 @@ public class BuyRequestCommentServiceImpl implements BuyRequestCommentService {
     @Override
     @Transactional
     public BuyRequestCommentDTO create(BuyRequestCommentCreateDTO dto) {
-        User user = userRepository.findById(SecurityUtil.getCurrentUser().getId()).orElseThrow(() -> new RuntimeException("用户不存在"));
+        User user = SecurityUtil.getCurrentUser();
         BuyRequest buyRequest = buyRequestRepository.findById(dto.getBuyRequestId()).orElseThrow(() -> new RuntimeException("求购帖不存在"));
         BuyRequestComment comment = BuyRequestComment.builder()
                 .content(dto.getContent())
@@ -67,7 +67,7 @@ public class BuyRequestCommentServiceImpl implements BuyRequestCommentService {
     @Transactional
     public void delete(Long commentId) {
         BuyRequestComment comment = commentRepository.findById(commentId).orElseThrow(() -> new RuntimeException("评论不存在"));
-        Long currentUserId = SecurityUtil.getCurrentUser().getId();
+        Long currentUserId = SecurityUtil.getCurrentUserId();
         // 允许评论作者或求购帖作者都能删除
         if (!comment.getUser().getId().equals(currentUserId)
             && !comment.getBuyRequest().getUser().getId().equals(currentUserId)) {
@@ -70,7 +70,7 @@ public class BuyRequestServiceImpl implements BuyRequestService {
     @Override
     @Transactional
     public BuyRequestDTO create(BuyRequestCreateDTO dto) {
-        User user = userRepository.findById(SecurityUtil.getCurrentUser().getId()).orElseThrow(() -> new RuntimeException("用户不存在"));
+        User user = SecurityUtil.getCurrentUser();
         BuyRequest buyRequest = BuyRequest.builder()
                 .title(dto.getTitle())
                 .category(categoryService.findById(dto.getCategoryId()))
@@ -90,7 +90,7 @@ public class BuyRequestServiceImpl implements BuyRequestService {
     @Transactional
     public BuyRequestDTO update(Long id, BuyRequestUpdateDTO dto) {
         BuyRequest buyRequest = buyRequestRepository.findById(id).orElseThrow(() -> new RuntimeException("求购帖不存在"));
-        if (!buyRequest.getUser().getId().equals(SecurityUtil.getCurrentUser().getId())) {
+        if (!buyRequest.getUser().getId().equals(SecurityUtil.getCurrentUserId())) {
             throw new RuntimeException("无权编辑该求购帖");
         }
         BeanUtils.copyProperties(dto, buyRequest, "id", "user", "createTime", "updateTime");
@@ -102,7 +102,7 @@ public class BuyRequestServiceImpl implements BuyRequestService {
     @Transactional
     public void delete(Long id) {
         BuyRequest buyRequest = buyRequestRepository.findById(id).orElseThrow(() -> new RuntimeException("求购帖不存在"));
-        if (!buyRequest.getUser().getId().equals(SecurityUtil.getCurrentUser().getId())) {
+        if (!buyRequest.getUser().getId().equals(SecurityUtil.getCurrentUserId())) {
             throw new RuntimeException("无权删除该求购帖");
         }
         buyRequestRepository.delete(buyRequest);
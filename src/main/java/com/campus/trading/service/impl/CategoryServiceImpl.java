@@ -1,45 +1,105 @@
 package com.campus.trading.service.impl;
 
+import com.campus.trading.cache.CacheCodec;
+import com.campus.trading.cache.CategoryTree;
 import com.campus.trading.entity.Category;
 import com.campus.trading.repository.CategoryRepository;
 import com.campus.trading.service.CategoryService;
-import com.campus.trading.service.impl.ItemServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
-import com.alibaba.fastjson.JSON;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * 分类服务
+ *
+ * 分类数据以 CategoryTree 快照常驻内存，读路径不访问 Redis 和数据库；
+ * 首次使用时从 Redis（category:all:bin）或数据库加载，之后每5分钟从数据库重建并整体替换快照。
+ * Redis 只是加速启动的二级缓存，不可用时直接读数据库；重建失败时继续使用上一份快照。
+ */
 @Service
 public class CategoryServiceImpl implements CategoryService {
+    private static final Logger log = LoggerFactory.getLogger(CategoryServiceImpl.class);
+    private static final String CACHE_KEY = "category:all:bin";
+    private static final Duration CACHE_TTL = Duration.ofMinutes(30);
+
     @Autowired
     private CategoryRepository categoryRepository;
     @Autowired
-    private StringRedisTemplate stringRedisTemplate;
+    private RedisTemplate<String, byte[]> binaryRedisTemplate;
+    @Autowired
+    private CacheCodec<List<Category>> categoryListCodec;
+
+    private final AtomicReference<CategoryTree> tree = new AtomicReference<>();
 
     @Override
     public List<Category> getAllCategories() {
-        String cacheKey = "category:all";
-        String cached = stringRedisTemplate.opsForValue().get(cacheKey);
+        return getCategoryTree().getCategories();
+    }
+
+    @Override
+    public CategoryTree getCategoryTree() {
+        CategoryTree current = tree.get();
+        if (current != null) return current;
+        // 并发首次加载时只保留先完成的一棵，之后由定时刷新替换
+        tree.compareAndSet(null, CategoryTree.of(loadCategories()));
+        return tree.get();
+    }
+
+    private List<Category> loadCategories() {
+        byte[] cached = null;
+        try {
+            cached = binaryRedisTemplate.opsForValue().get(CACHE_KEY);
+        } catch (DataAccessException e) {
+            log.warn("读取分类缓存失败，改为数据库加载: {}", e.getMessage());
+        }
         if (cached != null) {
-            return JSON.parseArray(cached, Category.class);
+            try {
+                List<Category> categories = categoryListCodec.decode(cached);
+                if (categories != null) return categories;
+            } catch (RuntimeException e) {
+                log.warn("分类缓存解码失败: {}", e.getMessage());
+            }
         }
         List<Category> categories = categoryRepository.findAll();
-        stringRedisTemplate.opsForValue().set(cacheKey, JSON.toJSONString(categories), java.time.Duration.ofMinutes(30));
+        writeCache(categories);
         return categories;
     }
 
+    @Override
     @Scheduled(cron = "0 */5 * * * ?")
     public void refreshCategoryCache() {
         List<Category> categories = categoryRepository.findAll();
-        stringRedisTemplate.opsForValue().set("category:all", JSON.toJSONString(categories), java.time.Duration.ofMinutes(30));
+        tree.set(CategoryTree.of(categories));
+        writeCache(categories);
+    }
+
+    private void writeCache(List<Category> categories) {
+        try {
+            binaryRedisTemplate.opsForValue().set(CACHE_KEY, categoryListCodec.encode(categories), CACHE_TTL);
+        } catch (DataAccessException e) {
+            log.warn("写入分类缓存失败: {}", e.getMessage());
+        }
     }
 
     @Override
     public Category findById(Long categoryId) {
-        return categoryRepository.findById(categoryId)
-            .orElseThrow(() -> new RuntimeException("分类不存在: " + categoryId));
+        Category category = getCategoryTree().get(categoryId);
+        if (category != null) return category;
+        // 快照之后新增的分类：回源确认，存在则立即刷新快照
+        Optional<Category> fromDb = categoryId != null ? categoryRepository.findById(categoryId) : Optional.empty();
+        if (fromDb.isPresent()) {
+            refreshCategoryCache();
+            return fromDb.get();
+        }
+        throw new RuntimeException("分类不存在: " + categoryId);
     }
-} 
\ No newline at end of file
+}
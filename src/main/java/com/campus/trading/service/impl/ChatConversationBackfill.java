@@ -0,0 +1,100 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.entity.ChatConversation;
+import com.campus.trading.repository.ChatConversationRepository;
+import com.campus.trading.repository.ChatRepository;
+import com.campus.trading.repository.MessageRepository;
+import com.campus.trading.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 会话索引补建：启动时为还没有索引的历史聊天建立双方的会话索引，未读数按现有未读消息统计。
+ * 已有索引的聊天由收发消息和标记已读维护，补建完成后每次启动只剩一次空查询。
+ */
+@Component
+class ChatConversationBackfill implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(ChatConversationBackfill.class);
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private ChatRepository chatRepository;
+    @Autowired
+    private MessageRepository messageRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ChatConversationRepository chatConversationRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int total = 0;
+        try {
+            List<Object[]> chats;
+            // 补建后的聊天不再满足条件，每次都取第一页
+            while (!(chats = chatRepository.findChatsWithoutConversation(PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+                total += backfill(chats);
+            }
+        } catch (DataAccessException e) {
+            // 与在线收发消息同时建立同一会话的索引时可能违反唯一约束，下次启动继续补建
+            log.warn("补建会话索引失败: {}", e.getMessage());
+        }
+        if (total > 0) {
+            log.info("补建会话索引完成: {} 个聊天", total);
+        }
+    }
+
+    // 每行：[聊天ID, 用户1 ID, 用户2 ID, 最后消息, 更新时间]
+    private int backfill(List<Object[]> chats) {
+        List<Long> chatIds = chats.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+        Map<String, Long> unread = new HashMap<>();
+        for (Object[] row : messageRepository.countUnreadGroupByChatIdAndRecipient(chatIds)) {
+            unread.put(row[0] + ":" + row[1], (Long) row[2]);
+        }
+        Map<Long, Long> lastMessageIds = new HashMap<>();
+        for (Object[] row : messageRepository.findLastMessageIdGroupByChatId(chatIds)) {
+            lastMessageIds.put((Long) row[0], (Long) row[1]);
+        }
+        List<ChatConversation> conversations = new ArrayList<>();
+        for (Object[] row : chats) {
+            Long chatId = (Long) row[0];
+            Long user1Id = (Long) row[1];
+            Long user2Id = (Long) row[2];
+            LocalDateTime updatedAt = row[4] != null ? (LocalDateTime) row[4] : LocalDateTime.now();
+            Long lastMessageId = lastMessageIds.get(chatId);
+            conversations.add(conversation(chatId, user1Id, user2Id, (String) row[3], lastMessageId, updatedAt,
+                    unread.getOrDefault(chatId + ":" + user1Id, 0L)));
+            conversations.add(conversation(chatId, user2Id, user1Id, (String) row[3], lastMessageId, updatedAt,
+                    unread.getOrDefault(chatId + ":" + user2Id, 0L)));
+        }
+        chatConversationRepository.saveAll(conversations);
+        return chats.size();
+    }
+
+    // 历史会话没有水位，已读状态沿用消息上的 is_read，下次标记已读时再建立水位
+    private ChatConversation conversation(Long chatId, Long userId, Long peerId, String lastMessage,
+                                          Long lastMessageId, LocalDateTime updatedAt, long unread) {
+        return ChatConversation.builder()
+                .user(userRepository.getReferenceById(userId))
+                .chat(chatRepository.getReferenceById(chatId))
+                .peer(userRepository.getReferenceById(peerId))
+                .unreadCount((int) unread)
+                .lastMessage(lastMessage)
+                .lastMessageId(lastMessageId)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
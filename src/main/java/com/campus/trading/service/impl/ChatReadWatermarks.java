@@ -0,0 +1,57 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.entity.ChatMessage;
+import com.campus.trading.entity.Message;
+import com.campus.trading.repository.ChatConversationRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 一页消息涉及的会话已读水位
+ *
+ * 聊天消息的已读状态不再逐条更新，而是由接收者在该会话的已读水位推导：消息ID不大于水位即为已读。
+ * 水位出现之前已标记的旧消息仍以 is_read 为准。
+ */
+final class ChatReadWatermarks {
+
+    private final Map<String, Long> watermarks;
+
+    private ChatReadWatermarks(Map<String, Long> watermarks) {
+        this.watermarks = watermarks;
+    }
+
+    /**
+     * 一次查询取回这些消息所在会话双方的水位，没有聊天消息时不查询
+     */
+    static ChatReadWatermarks load(ChatConversationRepository repository, Collection<? extends Message> messages) {
+        Set<Long> chatIds = messages.stream()
+                .filter(message -> message instanceof ChatMessage)
+                .map(message -> ((ChatMessage) message).getChatId())
+                .filter(chatId -> chatId != null)
+                .collect(Collectors.toSet());
+        Map<String, Long> watermarks = new HashMap<>();
+        if (!chatIds.isEmpty()) {
+            for (Object[] row : repository.findReadWatermarks(chatIds)) {
+                watermarks.put(key((Long) row[0], (Long) row[1]), (Long) row[2]);
+            }
+        }
+        return new ChatReadWatermarks(watermarks);
+    }
+
+    boolean isRead(Message message) {
+        if (message.isRead() || !(message instanceof ChatMessage)
+                || message.getRecipient() == null || message.getId() == null) {
+            return message.isRead();
+        }
+        Long watermark = watermarks.get(key(((ChatMessage) message).getChatId(), message.getRecipient().getId()));
+        return watermark != null && message.getId() <= watermark;
+    }
+
+    private static String key(Long chatId, Long userId) {
+        return chatId + ":" + userId;
+    }
+}
@@ -5,92 +5,121 @@ import com.campus.trading.dto.ChatMessageDTO;
 import com.campus.trading.dto.PageResponseDTO;
 import com.campus.trading.dto.UserDTO;
 import com.campus.trading.entity.Chat;
+import com.campus.trading.entity.ChatConversation;
 import com.campus.trading.entity.ChatMessage;
 import com.campus.trading.entity.Item;
 import com.campus.trading.entity.User;
+import com.campus.trading.repository.ChatConversationRepository;
 import com.campus.trading.repository.ChatRepository;
 import com.campus.trading.repository.ItemRepository;
 import com.campus.trading.repository.MessageRepository;
 import com.campus.trading.repository.UserRepository;
 import com.campus.trading.service.ChatService;
+import com.campus.trading.service.PushService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class ChatServiceImpl implements ChatService {
 
+    static final String PUSH_EVENT_CHAT_MESSAGE = "chat.message";
+
     private final ChatRepository chatRepository;
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final ChatConversationRepository chatConversationRepository;
+    private final PushService pushService;
+    private final MessageUnreadCounter unreadCounter;
 
     @Autowired
     public ChatServiceImpl(ChatRepository chatRepository,
                           MessageRepository messageRepository,
                           UserRepository userRepository,
-                          ItemRepository itemRepository) {
+                          ItemRepository itemRepository,
+                          ChatConversationRepository chatConversationRepository,
+                          PushService pushService,
+                          MessageUnreadCounter unreadCounter) {
         this.chatRepository = chatRepository;
         this.messageRepository = messageRepository;
         this.userRepository = userRepository;
         this.itemRepository = itemRepository;
+        this.chatConversationRepository = chatConversationRepository;
+        this.pushService = pushService;
+        this.unreadCounter = unreadCounter;
     }
 
+    /**
+     * 会话列表：按用户会话索引一次范围读取，未读数随索引维护，物品缩略图按整页批量查询
+     */
     @Override
     public PageResponseDTO<ChatDTO> getUserChats(Long userId, Pageable pageable) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        Page<Object[]> rows = chatConversationRepository.findListRowsByUserId(userId, pageable);
         
-        Page<Chat> chats = chatRepository.findChatsByUser(user, pageable);
+        // 每行：[聊天ID, 未读数, 最后消息, 更新时间, 会话创建时间, 对方ID, 对方用户名, 对方头像, 物品ID, 物品名称, 物品价格]
+        Set<Long> itemIds = new HashSet<>();
+        for (Object[] row : rows.getContent()) {
+            if (row[8] != null) itemIds.add((Long) row[8]);
+        }
+        Map<Long, String> itemImages = new HashMap<>();
+        if (!itemIds.isEmpty()) {
+            for (Object[] image : itemRepository.findImageIdsByItemIds(itemIds)) {
+                itemImages.putIfAbsent((Long) image[0], (String) image[1]);
+            }
+        }
         
-        Page<ChatDTO> chatDTOs = chats.map(chat -> {
+        List<ChatDTO> chatDTOs = rows.getContent().stream().map(row -> {
             ChatDTO dto = new ChatDTO();
-            dto.setId(chat.getId());
-            dto.setCreatedAt(chat.getCreatedAt());
-            dto.setUpdatedAt(chat.getUpdatedAt());
-            dto.setLastMessage(chat.getLastMessage());
+            dto.setId((Long) row[0]);
+            dto.setUnreadCount((Integer) row[1]);
+            dto.setLastMessage((String) row[2]);
+            dto.setUpdatedAt((LocalDateTime) row[3]);
+            dto.setCreatedAt((LocalDateTime) row[4]);
             
             // 设置对话的另一方用户信息
-            User otherUser = chat.getUser1().getId().equals(userId) ? chat.getUser2() : chat.getUser1();
             UserDTO otherUserDTO = new UserDTO();
-            otherUserDTO.setId(otherUser.getId());
-            otherUserDTO.setUsername(otherUser.getUsername());
-            otherUserDTO.setAvatarUrl(otherUser.getAvatarImageId());
+            otherUserDTO.setId((Long) row[5]);
+            otherUserDTO.setUsername((String) row[6]);
+            otherUserDTO.setAvatarUrl((String) row[7]);
             dto.setOtherUser(otherUserDTO);
             
             // 设置物品信息
-            if (chat.getItem() != null) {
-                dto.setItemId(chat.getItem().getId());
-                dto.setItemName(chat.getItem().getName());
-                // 获取物品的第一张图片作为缩略图
-                if (!chat.getItem().getImageIds().isEmpty()) {
-                    dto.setItemImage(chat.getItem().getImageIds().get(0));
+            if (row[8] != null) {
+                dto.setItemId((Long) row[8]);
+                dto.setItemName((String) row[9]);
+                dto.setItemImage(itemImages.get((Long) row[8]));
+                if (row[10] != null) {
+                    dto.setItemPrice(((BigDecimal) row[10]).doubleValue());
                 }
-                dto.setItemPrice(chat.getItem().getPrice().doubleValue());
             }
-            
-            // 获取未读消息数
-            dto.setUnreadCount(countUnreadMessages(chat.getId(), userId));
-            
             return dto;
-        });
+        }).collect(Collectors.toList());
         
         return new PageResponseDTO<ChatDTO>(
-                chatDTOs.getContent(),
-                chats.getTotalElements(),
+                chatDTOs,
+                rows.getTotalElements(),
                 pageable.getPageNumber(),
                 pageable.getPageSize(),
-                chats.getTotalPages()
+                rows.getTotalPages()
         );
     }
 
     @Override
+    @Transactional
     public PageResponseDTO<ChatMessageDTO> getChatMessages(Long chatId, Long userId, Pageable pageable) {
         // 验证用户是否是聊天的参与者
         Chat chat = chatRepository.findById(chatId)
@@ -100,41 +129,22 @@ public class ChatServiceImpl implements ChatService {
             throw new RuntimeException("无权访问该聊天");
         }
         
-        // 获取聊天消息
+        // 获取聊天消息，已读状态按双方的已读水位推导
         Page<ChatMessage> messages = messageRepository.findByChatIdOrderByCreatedAtDesc(chatId, pageable);
+        ChatReadWatermarks watermarks = ChatReadWatermarks.load(chatConversationRepository, messages.getContent());
         
         Page<ChatMessageDTO> messageDTOs = messages.map(message -> {
-            ChatMessageDTO dto = new ChatMessageDTO();
-            dto.setId(message.getId());
-            dto.setMessageType(message.getMessageType());
-            dto.setCreatedAt(message.getCreatedAt());
-            dto.setRead(message.isRead());
-            dto.setChatId(message.getChatId());
-            dto.setContent(message.getContent());
-            
-            if (message.getSender() != null) {
-                UserDTO senderDTO = new UserDTO();
-                senderDTO.setId(message.getSender().getId());
-                senderDTO.setUsername(message.getSender().getUsername());
-                senderDTO.setAvatarUrl(message.getSender().getAvatarImageId());
-                dto.setSender(senderDTO);
-            }
-            
-            if (message.getItem() != null) {
-                dto.setItemId(message.getItem().getId());
-                dto.setItemName(message.getItem().getName());
-                // 获取物品的第一张图片作为缩略图
-                if (!message.getItem().getImageIds().isEmpty()) {
-                    dto.setItemImage(message.getItem().getImageIds().get(0));
-                }
-                dto.setItemPrice(message.getItem().getPrice().doubleValue());
-            }
-            
+            ChatMessageDTO dto = toChatMessageDTO(message);
+            dto.setRead(watermarks.isRead(message));
             return dto;
         });
         
-        // 标记消息为已读
-        markChatMessagesAsRead(chatId, userId);
+        // 标记已读到本页最新的消息，只更新一行会话索引
+        messages.getContent().stream()
+                .map(ChatMessage::getId)
+                .filter(Objects::nonNull)
+                .max(Long::compare)
+                .ifPresent(lastId -> unreadCounter.markChatRead(chatId, userId, lastId));
         
         return new PageResponseDTO<ChatMessageDTO>(
                 messageDTOs.getContent(),
@@ -177,34 +187,11 @@ public class ChatServiceImpl implements ChatService {
         // 更新聊天的最后消息和时间
         chat.setLastMessage(content);
         chatRepository.save(chat);
+        touchConversations(chat, senderId, content, savedMessage.getId());
         
-        // 转换为DTO
-        ChatMessageDTO dto = new ChatMessageDTO();
-        dto.setId(savedMessage.getId());
-        dto.setMessageType(savedMessage.getMessageType());
-        dto.setCreatedAt(savedMessage.getCreatedAt());
-        dto.setRead(savedMessage.isRead());
-        dto.setChatId(savedMessage.getChatId());
-        dto.setContent(savedMessage.getContent());
-        
-        if (savedMessage.getSender() != null) {
-            UserDTO senderDTO = new UserDTO();
-            senderDTO.setId(savedMessage.getSender().getId());
-            senderDTO.setUsername(savedMessage.getSender().getUsername());
-            senderDTO.setAvatarUrl(savedMessage.getSender().getAvatarImageId());
-            dto.setSender(senderDTO);
-        }
-        
-        if (savedMessage.getItem() != null) {
-            dto.setItemId(savedMessage.getItem().getId());
-            dto.setItemName(savedMessage.getItem().getName());
-            // 获取物品的第一张图片作为缩略图
-            if (!savedMessage.getItem().getImageIds().isEmpty()) {
-                dto.setItemImage(savedMessage.getItem().getImageIds().get(0));
-            }
-            dto.setItemPrice(savedMessage.getItem().getPrice().doubleValue());
-        }
-        
+        // 转换为DTO并推送给接收者
+        ChatMessageDTO dto = toChatMessageDTO(savedMessage);
+        pushService.push(recipient.getId(), PUSH_EVENT_CHAT_MESSAGE, dto);
         return dto;
     }
 
@@ -250,10 +237,12 @@ public class ChatServiceImpl implements ChatService {
             message.setItem(item);
             message.setRead(false);
             messageRepository.save(message);
+        pushService.push(user2.getId(), PUSH_EVENT_CHAT_MESSAGE, toChatMessageDTO(message));
         
         // 保存消息后，强制同步到 chat 的 lastMessage 字段
         chat.setLastMessage(msg);
         chatRepository.save(chat);
+        touchConversations(chat, user1Id, msg, message.getId());
         
         // 转换为DTO
         ChatDTO dto = new ChatDTO();
@@ -294,15 +283,8 @@ public class ChatServiceImpl implements ChatService {
             throw new RuntimeException("无权访问该聊天");
         }
         
-        // 获取发送给该用户的未读消息
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-        
-        List<ChatMessage> unreadMessages = messageRepository.findByChatIdAndRecipientAndReadFalse(chatId, user);
-        
-        // 标记为已读
-        unreadMessages.forEach(message -> message.setRead(true));
-        messageRepository.saveAll(unreadMessages);
+        // 已读水位移到最后一条消息，不再逐条更新消息
+        unreadCounter.markChatRead(chatId, userId, null);
     }
 
     @Override
@@ -316,21 +298,87 @@ public class ChatServiceImpl implements ChatService {
         }
         
         // 获取用户
-        User user = userRepository.findById(userId)
+        userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
-        // 统计未读消息
-        return messageRepository.countByChatIdAndRecipientAndReadFalse(chatId, user);
+        // 未读数由会话索引维护
+        return chatConversationRepository.findUnreadCount(chatId, userId).orElse(0);
     }
 
     @Override
     public int countTotalUnreadMessages(Long userId) {
         // 获取用户
-        User user = userRepository.findById(userId)
+        userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
-        // 统计所有聊天的未读消息
-        Long count = messageRepository.countByRecipientAndMessageTypeAndReadFalse(user, "CHAT");
-        return count.intValue();
+        // 汇总会话索引中的未读数
+        return (int) chatConversationRepository.sumUnreadCount(userId);
+    }
+
+    // 辅助方法：聊天消息转换为DTO
+    private ChatMessageDTO toChatMessageDTO(ChatMessage message) {
+        ChatMessageDTO dto = new ChatMessageDTO();
+        dto.setId(message.getId());
+        dto.setMessageType(message.getMessageType());
+        dto.setCreatedAt(message.getCreatedAt());
+        dto.setRead(message.isRead());
+        dto.setChatId(message.getChatId());
+        dto.setContent(message.getContent());
+        
+        if (message.getSender() != null) {
+            UserDTO senderDTO = new UserDTO();
+            senderDTO.setId(message.getSender().getId());
+            senderDTO.setUsername(message.getSender().getUsername());
+            senderDTO.setAvatarUrl(message.getSender().getAvatarImageId());
+            dto.setSender(senderDTO);
+        }
+        
+        if (message.getItem() != null) {
+            dto.setItemId(message.getItem().getId());
+            dto.setItemName(message.getItem().getName());
+            // 获取物品的第一张图片作为缩略图
+            if (!message.getItem().getImageIds().isEmpty()) {
+                dto.setItemImage(message.getItem().getImageIds().get(0));
+            }
+            dto.setItemPrice(message.getItem().getPrice().doubleValue());
+        }
+        return dto;
+    }
+
+    // 按 user1、user2 的固定顺序更新双方的会话索引，双方同时发消息时不会互相等锁
+    private void touchConversations(Chat chat, Long senderId, String content, Long messageId) {
+        LocalDateTime now = LocalDateTime.now();
+        touchConversation(chat, chat.getUser1(), chat.getUser2(), senderId, content, messageId, now);
+        touchConversation(chat, chat.getUser2(), chat.getUser1(), senderId, content, messageId, now);
+    }
+
+    private void touchConversation(Chat chat, User owner, User peer, Long senderId, String content,
+                                   Long messageId, LocalDateTime now) {
+        boolean sent = owner.getId().equals(senderId);
+        if (sent) {
+            // 发消息即读完该会话，原有的未读从计数中扣除
+            int unread = chatConversationRepository.findUnreadCount(chat.getId(), owner.getId()).orElse(0);
+            if (chatConversationRepository.touchSent(chat.getId(), owner.getId(), content, messageId, now) > 0) {
+                unreadCounter.increment(owner.getId(), MessageUnreadCounter.CHAT, -unread);
+                return;
+            }
+        } else if (chatConversationRepository.touchReceived(chat.getId(), owner.getId(), content, messageId, now) > 0) {
+            unreadCounter.increment(owner.getId(), MessageUnreadCounter.CHAT, 1);
+            return;
+        }
+        // 新建的会话或还没补建索引的历史会话，发送方已读到这条消息，接收方按数据库中的未读消息建立索引；
+        // 没有索引时这些未读不在计数中，按新建索引的未读数计入
+        int unread = sent ? 0 : messageRepository.countByChatIdAndRecipientAndReadFalse(chat.getId(), owner);
+        chatConversationRepository.save(ChatConversation.builder()
+                .user(owner)
+                .chat(chat)
+                .peer(peer)
+                .unreadCount(unread)
+                .lastMessage(content)
+                .lastMessageId(messageId)
+                .lastReadMessageId(sent ? messageId : null)
+                .updatedAt(now)
+                .build());
+        unreadCounter.increment(owner.getId(), MessageUnreadCounter.CHAT, unread);
     }
-} 
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.campus.trading.service.impl;
 
+import com.campus.trading.config.SecurityUtil;
 import com.campus.trading.dto.ItemDTO;
 import com.campus.trading.dto.PageResponseDTO;
 import com.campus.trading.entity.Favorite;
@@ -9,9 +10,9 @@ import com.campus.trading.entity.User;
 import com.campus.trading.repository.FavoriteRepository;
 import com.campus.trading.repository.ItemRepository;
 import com.campus.trading.service.FavoriteService;
+import com.campus.trading.service.ItemIndexService;
 import com.campus.trading.service.MessageService;
 import com.campus.trading.service.ItemService;
-import com.campus.trading.service.UserService;
 import com.campus.trading.service.UserProfileService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,9 +25,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
-import java.security.Principal;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,20 +35,21 @@ public class FavoriteServiceImpl implements FavoriteService {
     private static final Logger logger = LoggerFactory.getLogger(FavoriteServiceImpl.class);
     private final FavoriteRepository favoriteRepository;
     private final ItemRepository itemRepository;
-    private final UserService userService;
     private final MessageService messageService;
     private final ItemService itemService;
     private final UserProfileService userProfileService;
+    private final ItemIndexService itemIndexService;
 
     @Autowired
     public FavoriteServiceImpl(FavoriteRepository favoriteRepository, ItemRepository itemRepository, 
-                              UserService userService, MessageService messageService, ItemService itemService, UserProfileService userProfileService) {
+                              MessageService messageService, ItemService itemService, UserProfileService userProfileService,
+                              ItemIndexService itemIndexService) {
         this.favoriteRepository = favoriteRepository;
         this.itemRepository = itemRepository;
-        this.userService = userService;
         this.messageService = messageService;
         this.itemService = itemService;
         this.userProfileService = userProfileService;
+        this.itemIndexService = itemIndexService;
     }
 
     @Override
@@ -56,9 +57,9 @@ public class FavoriteServiceImpl implements FavoriteService {
     public ItemDTO addFavorite(Long itemId) {
         logger.info("添加收藏: itemId={}", itemId);
         try {
-            // 获取当前用户
-            User currentUser = userService.findByUsername(userService.getCurrentUser().getUsername());
-            logger.info("当前用户: id={}, username={}", currentUser.getId(), currentUser.getUsername());
+            // 获取当前用户（懒加载引用，只在需要用户属性时查询）
+            User currentUser = SecurityUtil.getCurrentUserReference();
+            logger.info("当前用户: id={}", currentUser.getId());
             
             // 获取物品
             Item item = itemRepository.findById(itemId)
@@ -81,12 +82,14 @@ public class FavoriteServiceImpl implements FavoriteService {
                     .build();
             
             Favorite savedFavorite = favoriteRepository.save(favorite);
+            itemRepository.incrementFavoriteCount(item.getId());
+            itemIndexService.enqueue(item.getId());
             logger.info("收藏成功: favoriteId={}", savedFavorite.getId());
             
             // 创建收藏消息通知
             if (!currentUser.getId().equals(item.getUser().getId())) {
                 try {
-                    logger.info("开始创建收藏消息: 发送者={}, 接收者={}", currentUser.getUsername(), item.getUser().getUsername());
+                    logger.info("开始创建收藏消息: 发送者={}, 接收者={}", currentUser.getId(), item.getUser().getId());
                     
                     FavoriteMessage favoriteMessage = new FavoriteMessage();
                     favoriteMessage.setSender(currentUser);
@@ -106,9 +109,9 @@ public class FavoriteServiceImpl implements FavoriteService {
                 logger.info("用户收藏了自己的物品，不创建消息通知");
             }
             
-            // 添加收藏后自动更新用户画像（如有需要）
+            // 添加收藏后增量更新用户画像（如有需要）
             if (currentUser.isAllowPersonalizedRecommend()) {
-                userProfileService.updateProfile(currentUser);
+                userProfileService.recordInterest(currentUser, categoryIdOf(item), UserProfileService.FAVORITE_WEIGHT);
             }
             
             // 转换为DTO返回
@@ -126,9 +129,9 @@ public class FavoriteServiceImpl implements FavoriteService {
     public boolean removeFavorite(Long favoriteId) {
         logger.info("取消收藏: favoriteId={}", favoriteId);
         try {
-            // 获取当前用户
-            User currentUser = userService.findByUsername(userService.getCurrentUser().getUsername());
-            logger.info("当前用户: id={}, username={}", currentUser.getId(), currentUser.getUsername());
+            // 获取当前用户（懒加载引用，只在需要用户属性时查询）
+            User currentUser = SecurityUtil.getCurrentUserReference();
+            logger.info("当前用户: id={}", currentUser.getId());
             
             // 获取收藏
             Favorite favorite = favoriteRepository.findById(favoriteId)
@@ -147,11 +150,13 @@ public class FavoriteServiceImpl implements FavoriteService {
             
             // 删除收藏
             favoriteRepository.delete(favorite);
+            itemRepository.decrementFavoriteCount(favorite.getItem().getId());
+            itemIndexService.enqueue(favorite.getItem().getId());
             logger.info("取消收藏成功: favoriteId={}", favoriteId);
             
-            // 取消收藏后自动更新用户画像（如有需要）
+            // 取消收藏后扣回兴趣（如有需要）
             if (currentUser.isAllowPersonalizedRecommend()) {
-                userProfileService.updateProfile(currentUser);
+                userProfileService.recordInterest(currentUser, categoryIdOf(favorite.getItem()), -UserProfileService.FAVORITE_WEIGHT);
             }
             
             return true;
@@ -166,9 +171,9 @@ public class FavoriteServiceImpl implements FavoriteService {
     public boolean removeFavoriteByItemId(Long itemId) {
         logger.info("根据物品ID取消收藏: itemId={}", itemId);
         try {
-            // 获取当前用户
-            User currentUser = userService.findByUsername(userService.getCurrentUser().getUsername());
-            logger.info("当前用户: id={}, username={}", currentUser.getId(), currentUser.getUsername());
+            // 获取当前用户（懒加载引用，只在需要用户属性时查询）
+            User currentUser = SecurityUtil.getCurrentUserReference();
+            logger.info("当前用户: id={}", currentUser.getId());
             
             // 获取物品
             Item item = itemRepository.findById(itemId)
@@ -192,11 +197,13 @@ public class FavoriteServiceImpl implements FavoriteService {
             
             // 删除收藏
             favoriteRepository.delete(favorite);
+            itemRepository.decrementFavoriteCount(item.getId());
+            itemIndexService.enqueue(item.getId());
             logger.info("根据物品ID取消收藏成功: itemId={}, favoriteId={}", itemId, favorite.getId());
             
-            // 取消收藏后自动更新用户画像（如有需要）
+            // 取消收藏后扣回兴趣（如有需要）
             if (currentUser.isAllowPersonalizedRecommend()) {
-                userProfileService.updateProfile(currentUser);
+                userProfileService.recordInterest(currentUser, categoryIdOf(favorite.getItem()), -UserProfileService.FAVORITE_WEIGHT);
             }
             
             return true;
@@ -210,9 +217,9 @@ public class FavoriteServiceImpl implements FavoriteService {
     public PageResponseDTO<ItemDTO> getUserFavorites(int pageNum, int pageSize) {
         logger.info("获取用户收藏列表: pageNum={}, pageSize={}", pageNum, pageSize);
         try {
-            // 获取当前用户
-            User currentUser = userService.findByUsername(userService.getCurrentUser().getUsername());
-            logger.info("当前用户: id={}, username={}", currentUser.getId(), currentUser.getUsername());
+            // 获取当前用户（懒加载引用，只在需要用户属性时查询）
+            User currentUser = SecurityUtil.getCurrentUserReference();
+            logger.info("当前用户: id={}", currentUser.getId());
             
             // 创建分页参数
             Pageable pageable = PageRequest.of(pageNum - 1, pageSize, Sort.by(Sort.Direction.DESC, "createTime"));
@@ -221,18 +228,20 @@ public class FavoriteServiceImpl implements FavoriteService {
             Page<Favorite> favoritesPage = favoriteRepository.findByUser(currentUser, pageable);
             logger.info("查询到收藏数量: total={}", favoritesPage.getTotalElements());
             
-            // 转换为DTO
-            List<ItemDTO> itemDTOs = favoritesPage.getContent().stream()
-                    .map(favorite -> {
-                        ItemDTO dto = itemService.convertToDTO(favorite.getItem());
-                        // 设置收藏ID
-                        if (dto != null) {
-                            dto.setFavoriteId(favorite.getId());
-                        }
-                        return dto;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+            // 转换为DTO（整页批量转换，结果与收藏记录按下标一一对应）
+            List<Favorite> favorites = favoritesPage.getContent();
+            List<ItemDTO> converted = itemService.convertToDTOs(favorites.stream()
+                    .map(Favorite::getItem)
+                    .collect(Collectors.toList()));
+            List<ItemDTO> itemDTOs = new ArrayList<>(favorites.size());
+            for (int i = 0; i < favorites.size(); i++) {
+                ItemDTO dto = converted.get(i);
+                if (dto != null) {
+                    // 设置收藏ID
+                    dto.setFavoriteId(favorites.get(i).getId());
+                    itemDTOs.add(dto);
+                }
+            }
             
             // 构建分页响应
             PageResponseDTO<ItemDTO> pageResponseDTO = new PageResponseDTO<>();
@@ -254,9 +263,9 @@ public class FavoriteServiceImpl implements FavoriteService {
     public ItemDTO checkFavoriteStatus(Long itemId) {
         logger.info("检查物品是否已收藏: itemId={}", itemId);
         try {
-            // 获取当前用户
-            User currentUser = userService.findByUsername(userService.getCurrentUser().getUsername());
-            logger.info("当前用户: id={}, username={}", currentUser.getId(), currentUser.getUsername());
+            // 获取当前用户（懒加载引用，只在需要用户属性时查询）
+            User currentUser = SecurityUtil.getCurrentUserReference();
+            logger.info("当前用户: id={}", currentUser.getId());
             
             // 获取物品
             Item item = itemRepository.findById(itemId)
@@ -287,6 +296,11 @@ public class FavoriteServiceImpl implements FavoriteService {
         }
     }
     
+    // 物品的分类ID，分类为空时返回null
+    private Long categoryIdOf(Item item) {
+        return item != null && item.getCategory() != null ? item.getCategory().getId() : null;
+    }
+
     /**
      * 将Item实体转换为ItemDTO
      * @param item 物品实体
@@ -312,10 +326,4 @@ public class FavoriteServiceImpl implements FavoriteService {
         logger.debug("Item转换为DTO: itemId={}, name={}", item.getId(), item.getName());
         return dto;
     }
-
-    @Override
-    public User getCurrentUser(Principal principal) {
-        if (principal == null) throw new RuntimeException("未登录");
-        return userService.findByUsername(principal.getName());
-    }
 } 
\ No newline at end of file
@@ -10,6 +10,9 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service
 public class ImageServiceImpl implements ImageService {
@@ -50,6 +53,17 @@ public class ImageServiceImpl implements ImageService {
         return generateImageAccessToken(imageId, true);
     }
 
+    @Override
+    public Map<String, String> generateImageAccessTokens(Collection<String> imageIds) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        if (imageIds == null) return urls;
+        for (String imageId : imageIds) {
+            if (imageId == null || imageId.isEmpty() || urls.containsKey(imageId)) continue;
+            urls.put(imageId, generateImageAccessToken(imageId, false));
+        }
+        return urls;
+    }
+
     public String generateImageAccessToken(String imageId, boolean forAI) {
         String token = jwtUtils.generateImageToken(imageId);
         return getImageUrl(imageId, forAI) + "?token=" + token;
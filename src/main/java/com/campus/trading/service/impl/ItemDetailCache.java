@@ -0,0 +1,218 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.cache.CacheCodec;
+import com.campus.trading.dto.ItemDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 物品详情两级缓存
+ *
+ * L1 为进程内 Caffeine 缓存（有容量上限，短过期时间兜底），L2 为 Redis item:detail:bin:{id}，值由 CacheCodec 编码。
+ * 同一节点上同一物品的并发未命中由 Caffeine 合并为一次加载。
+ * 物品变更后调用 invalidate：事务提交后删除 L2，并通过 Redis 频道通知所有节点清除 L1。
+ * 浏览量等高频字段不触发失效，最多滞后一个缓存周期。
+ */
+@Component
+class ItemDetailCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemDetailCache.class);
+
+    static final String KEY_PREFIX = "item:detail:bin:";
+    static final String INVALIDATE_CHANNEL = "item:detail:invalidate";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisTemplate<String, byte[]> binaryRedisTemplate;
+    @Autowired
+    private CacheCodec<ItemDTO> itemDetailCodec;
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${app.item-cache.local-size:10000}")
+    private long localSize = 10000;
+
+    @Value("${app.item-cache.local-ttl-seconds:60}")
+    private long localTtlSeconds = 60;
+
+    @Value("${app.item-cache.redis-ttl-minutes:10}")
+    private long redisTtlMinutes = 10;
+
+    private Cache<Long, ItemDTO> local;
+
+    @PostConstruct
+    public void init() {
+        local = Caffeine.newBuilder()
+                .maximumSize(localSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .build();
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener((message, pattern) -> {
+                String body = new String(message.getBody(), StandardCharsets.UTF_8);
+                try {
+                    local.invalidate(Long.valueOf(body));
+                } catch (NumberFormatException ignored) {
+                }
+            }, new ChannelTopic(INVALIDATE_CHANNEL));
+        }
+    }
+
+    /**
+     * 读取物品详情，依次查 L1、L2，都未命中时调用 loader 并回填
+     *
+     * @param id     物品ID
+     * @param loader 从数据库加载，物品不存在时抛出异常
+     */
+    ItemDTO get(Long id, Function<Long, ItemDTO> loader) {
+        return local.get(id, key -> {
+            ItemDTO cached = readRedis(key);
+            if (cached != null) return cached;
+            ItemDTO dto = loader.apply(key);
+            writeRedis(Collections.singletonMap(key, dto));
+            return dto;
+        });
+    }
+
+    /**
+     * 批量读取物品详情，L2 一次 MGET，剩余的交给 loader 一次加载
+     *
+     * @param ids    物品ID
+     * @param loader 批量加载，不存在的物品不返回
+     * @return 物品ID到详情的映射
+     */
+    Map<Long, ItemDTO> getAll(Collection<Long> ids, Function<List<Long>, Map<Long, ItemDTO>> loader) {
+        return local.getAll(ids, keys -> {
+            List<Long> missing = new ArrayList<>();
+            keys.forEach(missing::add);
+            Map<Long, ItemDTO> result = new HashMap<>(readRedis(missing));
+            missing.removeAll(result.keySet());
+            if (!missing.isEmpty()) {
+                Map<Long, ItemDTO> loaded = loader.apply(missing);
+                writeRedis(loaded);
+                result.putAll(loaded);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 用最新数据覆盖缓存
+     */
+    void putAll(Map<Long, ItemDTO> dtos) {
+        writeRedis(dtos);
+        local.putAll(dtos);
+    }
+
+    /**
+     * 物品变更后使缓存失效；在事务中调用时推迟到提交之后，避免并发读把旧数据重新写回缓存
+     */
+    void invalidate(Long id) {
+        if (id == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(id);
+                }
+            });
+        } else {
+            doInvalidate(id);
+        }
+    }
+
+    private void doInvalidate(Long id) {
+        local.invalidate(id);
+        try {
+            stringRedisTemplate.delete(KEY_PREFIX + id);
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, id.toString());
+        } catch (DataAccessException e) {
+            log.warn("清除物品详情缓存失败: id={}, {}", id, e.getMessage());
+        }
+    }
+
+    private ItemDTO readRedis(Long id) {
+        try {
+            return decode(binaryRedisTemplate.opsForValue().get(KEY_PREFIX + id));
+        } catch (DataAccessException e) {
+            log.warn("读取物品详情缓存失败: id={}, {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<Long, ItemDTO> readRedis(List<Long> ids) {
+        Map<Long, ItemDTO> result = new HashMap<>();
+        if (ids.isEmpty()) return result;
+        try {
+            List<byte[]> values = binaryRedisTemplate.opsForValue()
+                    .multiGet(ids.stream().map(id -> KEY_PREFIX + id).collect(Collectors.toList()));
+            if (values == null || values.size() != ids.size()) return result;
+            for (int i = 0; i < ids.size(); i++) {
+                ItemDTO dto = decode(values.get(i));
+                if (dto != null) result.put(ids.get(i), dto);
+            }
+        } catch (DataAccessException e) {
+            log.warn("批量读取物品详情缓存失败: {}", e.getMessage());
+        }
+        return result;
+    }
+
+    // 格式不兼容或数据损坏时按未命中处理
+    private ItemDTO decode(byte[] bytes) {
+        if (bytes == null) return null;
+        try {
+            return itemDetailCodec.decode(bytes);
+        } catch (RuntimeException e) {
+            log.warn("物品详情缓存解码失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(Map<Long, ItemDTO> dtos) {
+        if (dtos.isEmpty()) return;
+        Duration ttl = Duration.ofMinutes(redisTtlMinutes);
+        try {
+            if (dtos.size() == 1) {
+                Map.Entry<Long, ItemDTO> entry = dtos.entrySet().iterator().next();
+                binaryRedisTemplate.opsForValue().set(KEY_PREFIX + entry.getKey(), itemDetailCodec.encode(entry.getValue()), ttl);
+                return;
+            }
+            binaryRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    dtos.forEach((id, dto) -> operations.opsForValue().set(KEY_PREFIX + id, itemDetailCodec.encode(dto), ttl));
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("写入物品详情缓存失败: {}", e.getMessage());
+        }
+    }
+}
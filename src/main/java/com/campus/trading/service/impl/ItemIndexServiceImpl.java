@@ -0,0 +1,226 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.entity.Item;
+import com.campus.trading.entity.ItemDocument;
+import com.campus.trading.entity.ItemIndexOutbox;
+import com.campus.trading.repository.ItemIndexOutboxRepository;
+import com.campus.trading.repository.ItemRepository;
+import com.campus.trading.service.ItemIndexService;
+import com.alibaba.fastjson.JSON;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.xcontent.XContentType;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 物品索引服务实现类
+ *
+ * 同一物品在一批中的多次变更只同步一次，以最大的发件箱ID作为外部版本号：
+ * 重复投递或乱序到达的旧版本会被 ES 以版本冲突拒绝，因此重试是幂等的。
+ */
+@Service
+public class ItemIndexServiceImpl implements ItemIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemIndexServiceImpl.class);
+    private static final String INDEX = "items";
+    /**
+     * 与 ItemDocument 中日期字段的索引格式 date_hour_minute_second 保持一致
+     */
+    private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
+
+    private final ItemIndexOutboxRepository outboxRepository;
+    private final ItemRepository itemRepository;
+    @Autowired(required = false)
+    private RestHighLevelClient restHighLevelClient;
+
+    @Value("${app.search.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    /**
+     * 单次调度最多处理的批数，避免积压时长期占用调度线程
+     */
+    @Value("${app.search.outbox.max-batches:20}")
+    private int maxBatches = 20;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final Counter indexedCounter;
+    private final Counter failedCounter;
+
+    @Autowired
+    public ItemIndexServiceImpl(ItemIndexOutboxRepository outboxRepository, ItemRepository itemRepository,
+                                MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.itemRepository = itemRepository;
+        Gauge.builder("item.index.outbox.pending", pending, AtomicLong::get)
+                .description("待同步到 ES 的发件箱记录数")
+                .register(meterRegistry);
+        Gauge.builder("item.index.outbox.lag", lagSeconds, AtomicLong::get)
+                .description("最早一条待同步记录的等待时间")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.indexedCounter = Counter.builder("item.index.outbox.indexed").register(meterRegistry);
+        this.failedCounter = Counter.builder("item.index.outbox.failed").register(meterRegistry);
+    }
+
+    @Override
+    @Transactional
+    public void enqueue(Long itemId) {
+        if (itemId == null) return;
+        outboxRepository.save(ItemIndexOutbox.builder()
+                .itemId(itemId)
+                .createTime(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    @Transactional
+    public void enqueueAll(Collection<Long> itemIds) {
+        if (itemIds == null || itemIds.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemIndexOutbox> rows = new ArrayList<>(itemIds.size());
+        for (Long itemId : itemIds) {
+            rows.add(ItemIndexOutbox.builder().itemId(itemId).createTime(now).build());
+        }
+        outboxRepository.saveAll(rows);
+    }
+
+    @Override
+    @Transactional
+    public void enqueueUserItems(Long userId) {
+        if (userId == null) return;
+        outboxRepository.enqueueByUserId(userId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.search.outbox.interval-ms:1000}")
+    public int processOutbox() {
+        if (restHighLevelClient == null) return 0;
+        int processed = 0;
+        try {
+            for (int i = 0; i < maxBatches; i++) {
+                List<ItemIndexOutbox> batch = outboxRepository.findBatch(PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) break;
+                int done = indexBatch(batch);
+                processed += done;
+                // 本批有失败时留到下次调度重试，不在同一轮里反复请求
+                if (done < batch.size() || batch.size() < batchSize) break;
+            }
+        } catch (Exception e) {
+            log.warn("同步物品索引失败，稍后重试: {}", e.getMessage());
+        } finally {
+            refreshGauges();
+        }
+        return processed;
+    }
+
+    // 同步一批发件箱记录，返回成功并已删除的记录数
+    private int indexBatch(List<ItemIndexOutbox> batch) throws Exception {
+        Map<Long, Long> versions = new LinkedHashMap<>();
+        Map<Long, List<Long>> rowIds = new HashMap<>();
+        for (ItemIndexOutbox row : batch) {
+            versions.merge(row.getItemId(), row.getId(), Math::max);
+            rowIds.computeIfAbsent(row.getItemId(), k -> new ArrayList<>()).add(row.getId());
+        }
+        Map<Long, Item> items = itemRepository.findWithDetailsByIdIn(versions.keySet()).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity(), (a, b) -> a));
+
+        BulkRequest bulk = new BulkRequest();
+        versions.forEach((itemId, version) -> {
+            Item item = items.get(itemId);
+            if (item == null) {
+                bulk.add(new DeleteRequest(INDEX, itemId.toString())
+                        .version(version)
+                        .versionType(VersionType.EXTERNAL));
+            } else {
+                bulk.add(new IndexRequest(INDEX)
+                        .id(itemId.toString())
+                        .source(JSON.toJSONStringWithDateFormat(toDocument(item), DATE_FORMAT), XContentType.JSON)
+                        .version(version)
+                        .versionType(VersionType.EXTERNAL));
+            }
+        });
+        BulkResponse response = restHighLevelClient.bulk(bulk, RequestOptions.DEFAULT);
+
+        List<Long> done = new ArrayList<>();
+        int failed = 0;
+        for (BulkItemResponse itemResponse : response.getItems()) {
+            Long itemId = Long.valueOf(itemResponse.getId());
+            // 版本冲突说明 ES 中已是更新的版本，视为成功
+            if (!itemResponse.isFailed() || itemResponse.status() == RestStatus.CONFLICT) {
+                done.addAll(rowIds.get(itemId));
+            } else {
+                failed++;
+                log.warn("同步物品索引失败: itemId={}, reason={}", itemId, itemResponse.getFailureMessage());
+            }
+        }
+        if (!done.isEmpty()) {
+            outboxRepository.deleteByIdIn(done);
+        }
+        indexedCounter.increment(done.size());
+        failedCounter.increment(failed);
+        return done.size();
+    }
+
+    private void refreshGauges() {
+        try {
+            pending.set(outboxRepository.count());
+            ItemIndexOutbox oldest = outboxRepository.findFirstByOrderByIdAsc();
+            lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest.getCreateTime(), LocalDateTime.now()).getSeconds()));
+        } catch (Exception e) {
+            log.debug("刷新索引延迟指标失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public ItemDocument toDocument(Item item) {
+        ItemDocument doc = new ItemDocument();
+        doc.setId(item.getId());
+        doc.setName(item.getName());
+        doc.setCategoryId(item.getCategory() != null ? item.getCategory().getId() : null);
+        doc.setCategoryName(item.getCategory() != null ? item.getCategory().getName() : null);
+        doc.setPrice(item.getPrice());
+        doc.setDescription(item.getDescription());
+        doc.setImageIds(item.getImageIds() != null ? new ArrayList<>(item.getImageIds()) : null);
+        doc.setItemCondition(item.getItemCondition());
+        doc.setStatus(item.getStatus());
+        doc.setPopularity(item.getPopularity());
+        doc.setFavoriteCount(item.getFavoriteCount());
+        doc.setUserId(item.getUser() != null ? item.getUser().getId() : null);
+        doc.setUsername(item.getUser() != null ? item.getUser().getUsername() : null);
+        doc.setUserAvatar(item.getUser() != null ? item.getUser().getAvatarImageId() : null);
+        doc.setCreateTime(item.getCreateTime());
+        doc.setUpdateTime(item.getUpdateTime());
+        doc.setStock(item.getStock());
+        return doc;
+    }
+}
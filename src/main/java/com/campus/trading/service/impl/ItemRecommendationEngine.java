@@ -0,0 +1,361 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.repository.FavoriteRepository;
+import com.campus.trading.repository.ItemRepository;
+import com.campus.trading.repository.OrderRepository;
+import com.campus.trading.repository.UserViewRepository;
+import com.campus.trading.service.UserProfileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+
+/**
+ * 个性化推荐候选生成（离线）
+ *
+ * 定时读取窗口内的浏览、收藏和下单记录（只含允许个性化推荐的用户），按行为权重构成每个用户的物品篮子，
+ * 用 fork/join 并行统计物品两两共现并按余弦归一化得到物品相似度，每个物品只保留最相似的若干邻居。
+ * 再为每个用户按“交互过的物品 × 相似度”累加打分，过滤掉已交互、自己发布以及下架或无库存的物品，
+ * 取前 size 名写入 ZSET rec:user:{用户ID}。读取时一次 ZREVRANGE 即可，没有候选的用户由调用方走兜底逻辑。
+ */
+@Component
+class ItemRecommendationEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemRecommendationEngine.class);
+
+    static final String KEY_PREFIX = "rec:user:";
+
+    /**
+     * 单个叶子任务处理的用户数
+     */
+    private static final int USERS_PER_TASK = 256;
+
+    /**
+     * 每批写入 Redis 的用户数
+     */
+    private static final int WRITE_BATCH = 500;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private UserViewRepository userViewRepository;
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Value("${app.recommend.window-days:90}")
+    private int windowDays = 90;
+
+    @Value("${app.recommend.size:100}")
+    private int size = 100;
+
+    /**
+     * 每个物品保留的相似邻居数
+     */
+    @Value("${app.recommend.neighbors:50}")
+    private int neighbors = 50;
+
+    /**
+     * 每个用户参与共现统计的物品上限（按权重取前N），避免重度用户的篮子带来平方级的组合数
+     */
+    @Value("${app.recommend.max-items-per-user:100}")
+    private int maxItemsPerUser = 100;
+
+    @Value("${app.recommend.parallelism:0}")
+    private int parallelism = 0;
+
+    @Value("${app.recommend.ttl-hours:48}")
+    private long ttlHours = 48;
+
+    static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    /**
+     * 一页候选物品ID（按分数降序）及候选总数，一次往返读取；没有候选时总数为0
+     */
+    @SuppressWarnings("unchecked")
+    Candidates page(Long userId, long offset, int count) {
+        if (userId == null || count <= 0) return new Candidates(Collections.emptyList(), 0);
+        String key = key(userId);
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForZSet().reverseRange(key, offset, offset + count - 1);
+                ops.opsForZSet().zCard(key);
+                return null;
+            }
+        });
+        Set<String> ids = (Set<String>) results.get(0);
+        Long total = (Long) results.get(1);
+        List<Long> itemIds = new ArrayList<>();
+        if (ids != null) {
+            for (String id : ids) {
+                itemIds.add(Long.valueOf(id));
+            }
+        }
+        return new Candidates(itemIds, total != null ? total : 0);
+    }
+
+    static final class Candidates {
+        final List<Long> itemIds;
+        final long total;
+
+        Candidates(List<Long> itemIds, long total) {
+            this.itemIds = itemIds;
+            this.total = total;
+        }
+    }
+
+    @Scheduled(cron = "${app.recommend.rebuild-cron:0 0 3 * * ?}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            int users = doRebuild();
+            log.info("推荐候选重建完成: {} 个用户, 耗时 {} ms", users, System.currentTimeMillis() - start);
+        } catch (DataAccessException e) {
+            log.warn("重建推荐候选失败: {}", e.getMessage());
+        }
+    }
+
+    int doRebuild() {
+        LocalDateTime since = LocalDateTime.now().minusDays(windowDays);
+        Map<Long, Map<Long, Double>> baskets = new HashMap<>();
+        addInteractions(baskets, userViewRepository.findUserItemPairsSince(since), UserProfileService.VIEW_WEIGHT);
+        addInteractions(baskets, favoriteRepository.findUserItemPairs(), UserProfileService.FAVORITE_WEIGHT);
+        addInteractions(baskets, orderRepository.findBuyerItemPairsSince(since), UserProfileService.ORDER_WEIGHT);
+
+        Map<Long, Long> liveSellers = new HashMap<>();
+        for (Object[] row : itemRepository.findLiveItemSellerIds()) {
+            liveSellers.put((Long) row[0], (Long) row[1]);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            Map<Long, List<Neighbor>> similar = similarity(pool, baskets);
+            Map<Long, List<ZSetOperations.TypedTuple<String>>> candidates = pool.submit(() ->
+                    baskets.entrySet().parallelStream()
+                            .collect(Collectors.toMap(Map.Entry::getKey,
+                                    e -> score(e.getKey(), e.getValue(), similar, liveSellers)))).get();
+            write(candidates);
+            return candidates.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("推荐候选重建被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("推荐候选计算失败", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // 同一用户对同一物品有多种行为时取最高权重
+    private static void addInteractions(Map<Long, Map<Long, Double>> baskets, List<Object[]> rows, double weight) {
+        for (Object[] row : rows) {
+            Long userId = (Long) row[0];
+            Long itemId = (Long) row[1];
+            if (userId == null || itemId == null) continue;
+            baskets.computeIfAbsent(userId, k -> new HashMap<>()).merge(itemId, weight, Math::max);
+        }
+    }
+
+    /**
+     * 物品相似度：共现权重 co(i,j) = Σ min(w_i, w_j)，按 sqrt(n_i * n_j) 归一化，每个物品只保留前 neighbors 个邻居
+     */
+    Map<Long, List<Neighbor>> similarity(ForkJoinPool pool, Map<Long, Map<Long, Double>> baskets)
+            throws InterruptedException, ExecutionException {
+        List<Map<Long, Double>> trimmed = new ArrayList<>(baskets.size());
+        for (Map<Long, Double> basket : baskets.values()) {
+            trimmed.add(trim(basket, maxItemsPerUser));
+        }
+        Cooccurrence total = pool.invoke(new CooccurrenceTask(trimmed, 0, trimmed.size()));
+        return pool.submit(() -> total.pairs.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> {
+                    double normI = total.norms.get(e.getKey());
+                    List<Neighbor> list = new ArrayList<>(e.getValue().size());
+                    e.getValue().forEach((other, co) ->
+                            list.add(new Neighbor(other, co / Math.sqrt(normI * total.norms.get(other)))));
+                    return top(list, neighbors);
+                }))).get();
+    }
+
+    private List<ZSetOperations.TypedTuple<String>> score(Long userId, Map<Long, Double> basket,
+                                                         Map<Long, List<Neighbor>> similar, Map<Long, Long> liveSellers) {
+        Map<Long, Double> scores = new HashMap<>();
+        basket.forEach((itemId, weight) -> {
+            for (Neighbor neighbor : similar.getOrDefault(itemId, Collections.emptyList())) {
+                Long seller = liveSellers.get(neighbor.itemId);
+                // 只推荐在售且有库存、未交互过、不是自己发布的物品
+                if (seller == null || seller.equals(userId) || basket.containsKey(neighbor.itemId)) continue;
+                scores.merge(neighbor.itemId, weight * neighbor.score, Double::sum);
+            }
+        });
+        List<Neighbor> ranked = new ArrayList<>(scores.size());
+        scores.forEach((itemId, score) -> ranked.add(new Neighbor(itemId, score)));
+        List<ZSetOperations.TypedTuple<String>> tuples = new ArrayList<>();
+        for (Neighbor neighbor : top(ranked, size)) {
+            tuples.add(new DefaultTypedTuple<>(neighbor.itemId.toString(), neighbor.score));
+        }
+        return tuples;
+    }
+
+    // 先写临时键再 RENAME，读方不会看到写了一半的候选集；没有候选的用户删除旧键，由兜底逻辑处理
+    private void write(Map<Long, List<ZSetOperations.TypedTuple<String>>> candidates) {
+        Duration ttl = Duration.ofHours(ttlHours);
+        List<Map.Entry<Long, List<ZSetOperations.TypedTuple<String>>>> entries = new ArrayList<>(candidates.entrySet());
+        for (int from = 0; from < entries.size(); from += WRITE_BATCH) {
+            List<Map.Entry<Long, List<ZSetOperations.TypedTuple<String>>>> batch =
+                    entries.subList(from, Math.min(from + WRITE_BATCH, entries.size()));
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    for (Map.Entry<Long, List<ZSetOperations.TypedTuple<String>>> entry : batch) {
+                        String key = key(entry.getKey());
+                        if (entry.getValue().isEmpty()) {
+                            ops.delete(key);
+                            continue;
+                        }
+                        String tmp = key + ":next";
+                        ops.delete(tmp);
+                        ops.opsForZSet().add(tmp, new LinkedHashSet<>(entry.getValue()));
+                        ops.rename(tmp, key);
+                        ops.expire(key, ttl);
+                    }
+                    return null;
+                }
+            });
+        }
+    }
+
+    // 按权重取前 limit 个物品
+    private static Map<Long, Double> trim(Map<Long, Double> basket, int limit) {
+        if (basket.size() <= limit) return basket;
+        List<Neighbor> items = new ArrayList<>(basket.size());
+        basket.forEach((itemId, weight) -> items.add(new Neighbor(itemId, weight)));
+        Map<Long, Double> result = new HashMap<>();
+        for (Neighbor item : top(items, limit)) {
+            result.put(item.itemId, item.score);
+        }
+        return result;
+    }
+
+    // 分数最高的前 limit 个，按分数降序、ID升序
+    static List<Neighbor> top(List<Neighbor> list, int limit) {
+        PriorityQueue<Neighbor> heap = new PriorityQueue<>(Neighbor.ORDER.reversed());
+        for (Neighbor neighbor : list) {
+            heap.offer(neighbor);
+            if (heap.size() > limit) heap.poll();
+        }
+        List<Neighbor> result = new ArrayList<>(heap);
+        result.sort(Neighbor.ORDER);
+        return result;
+    }
+
+    static final class Neighbor {
+        static final Comparator<Neighbor> ORDER = Comparator
+                .comparingDouble((Neighbor n) -> -n.score).thenComparing(n -> n.itemId);
+
+        final Long itemId;
+        final double score;
+
+        Neighbor(Long itemId, double score) {
+            this.itemId = itemId;
+            this.score = score;
+        }
+    }
+
+    /**
+     * 一组用户篮子的共现统计结果：物品两两共现权重和每个物品的总权重
+     */
+    static final class Cooccurrence {
+        final Map<Long, Map<Long, Double>> pairs = new HashMap<>();
+        final Map<Long, Double> norms = new HashMap<>();
+
+        void add(Map<Long, Double> basket) {
+            List<Map.Entry<Long, Double>> items = new ArrayList<>(basket.entrySet());
+            for (int a = 0; a < items.size(); a++) {
+                Map.Entry<Long, Double> i = items.get(a);
+                norms.merge(i.getKey(), i.getValue(), Double::sum);
+                for (int b = a + 1; b < items.size(); b++) {
+                    Map.Entry<Long, Double> j = items.get(b);
+                    double co = Math.min(i.getValue(), j.getValue());
+                    pairs.computeIfAbsent(i.getKey(), k -> new HashMap<>()).merge(j.getKey(), co, Double::sum);
+                    pairs.computeIfAbsent(j.getKey(), k -> new HashMap<>()).merge(i.getKey(), co, Double::sum);
+                }
+            }
+        }
+
+        // 把较小的一方合并进较大的一方
+        static Cooccurrence merge(Cooccurrence left, Cooccurrence right) {
+            Cooccurrence big = left.pairs.size() >= right.pairs.size() ? left : right;
+            Cooccurrence small = big == left ? right : left;
+            small.norms.forEach((itemId, norm) -> big.norms.merge(itemId, norm, Double::sum));
+            small.pairs.forEach((itemId, row) -> {
+                Map<Long, Double> target = big.pairs.computeIfAbsent(itemId, k -> new HashMap<>());
+                row.forEach((other, co) -> target.merge(other, co, Double::sum));
+            });
+            return big;
+        }
+    }
+
+    /**
+     * 按用户区间二分的共现统计任务，叶子任务各自累加，合并时求和
+     */
+    static final class CooccurrenceTask extends RecursiveTask<Cooccurrence> {
+        private final List<Map<Long, Double>> baskets;
+        private final int from;
+        private final int to;
+
+        CooccurrenceTask(List<Map<Long, Double>> baskets, int from, int to) {
+            this.baskets = baskets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Cooccurrence compute() {
+            if (to - from <= USERS_PER_TASK) {
+                Cooccurrence result = new Cooccurrence();
+                for (int i = from; i < to; i++) {
+                    result.add(baskets.get(i));
+                }
+                return result;
+            }
+            int mid = (from + to) >>> 1;
+            CooccurrenceTask left = new CooccurrenceTask(baskets, from, mid);
+            left.fork();
+            Cooccurrence right = new CooccurrenceTask(baskets, mid, to).compute();
+            return Cooccurrence.merge(left.join(), right);
+        }
+    }
+}
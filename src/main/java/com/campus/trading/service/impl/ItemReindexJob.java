@@ -0,0 +1,425 @@
+package com.campus.trading.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.campus.trading.entity.Item;
+import com.campus.trading.entity.ItemDocument;
+import com.campus.trading.repository.ItemIndexOutboxRepository;
+import com.campus.trading.repository.ItemRepository;
+import com.campus.trading.service.ItemIndexService;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 物品全量重建索引任务
+ *
+ * 按ID区间分块读取物品（图片、分类、卖家一次性抓取），每块处理完即清空持久化上下文；
+ * 文档经 BulkProcessor 写入新的版本化索引 items_v{时间戳}，同时在途的 bulk 请求数有上限，
+ * 因此内存占用与物品总数无关。
+ *
+ * 进度以“连续完成水位”记录在 Redis：只有某个分块及其之前的所有分块都写入成功后水位才前移，
+ * 中断后可从水位处续跑。全部完成后原子地把别名 items 切到新索引。
+ *
+ * 重建期间的增量变更写入的是旧索引，切换后按 update_time 重新入队；浏览量同步不更新 update_time，
+ * 这类变更在重建期间另行记录，切换后一并入队。
+ */
+@Component
+public class ItemReindexJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemReindexJob.class);
+
+    static final String ALIAS = "items";
+    static final String INDEX_PREFIX = "items_v";
+    static final String CHECKPOINT_KEY = "reindex:items";
+    static final String CHANGED_KEY = "reindex:items:changed";
+
+    static final String STATUS_RUNNING = "RUNNING";
+    static final String STATUS_FAILED = "FAILED";
+    static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
+    private static final Duration CHANGED_TTL = Duration.ofDays(1);
+    private static final DateTimeFormatter INDEX_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final ItemRepository itemRepository;
+    private final ItemIndexOutboxRepository outboxRepository;
+    private final ItemIndexService itemIndexService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    @Autowired(required = false)
+    private RestHighLevelClient restHighLevelClient;
+    @Autowired(required = false)
+    private ElasticsearchOperations elasticsearchOperations;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.search.reindex.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Value("${app.search.reindex.bulk-actions:1000}")
+    private int bulkActions = 1000;
+
+    /**
+     * 同时在途的 bulk 请求数，达到上限时写入方阻塞等待
+     */
+    @Value("${app.search.reindex.concurrent-requests:2}")
+    private int concurrentRequests = 2;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "item-reindex");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ItemReindexJob(ItemRepository itemRepository, ItemIndexOutboxRepository outboxRepository,
+                          ItemIndexService itemIndexService, StringRedisTemplate stringRedisTemplate,
+                          PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.outboxRepository = outboxRepository;
+        this.itemIndexService = itemIndexService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 在后台线程启动重建，已有任务在运行时直接返回当前进度
+     *
+     * @param resume 是否从上次中断的水位续跑
+     * @return 任务进度
+     */
+    public Map<String, String> start(boolean resume) {
+        if (running.compareAndSet(false, true)) {
+            executor.submit(() -> {
+                try {
+                    doRun(resume);
+                } catch (Exception e) {
+                    log.error("重建物品索引失败", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+        return getStatus();
+    }
+
+    /**
+     * 在当前线程执行重建
+     *
+     * @param resume 是否从上次中断的水位续跑
+     * @return 任务进度
+     */
+    public Map<String, String> run(boolean resume) throws Exception {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("重建索引任务正在运行");
+        }
+        try {
+            doRun(resume);
+        } finally {
+            running.set(false);
+        }
+        return getStatus();
+    }
+
+    public Map<String, String> getStatus() {
+        Map<Object, Object> raw = stringRedisTemplate.opsForHash().entries(CHECKPOINT_KEY);
+        Map<String, String> status = new HashMap<>();
+        raw.forEach((k, v) -> status.put(k.toString(), v.toString()));
+        status.put("running", String.valueOf(running.get()));
+        return status;
+    }
+
+    private void doRun(boolean resume) throws Exception {
+        if (restHighLevelClient == null || elasticsearchOperations == null) {
+            throw new IllegalStateException("未配置 ElasticSearch");
+        }
+        Map<String, String> checkpoint = getStatus();
+        String index;
+        long watermark;
+        LocalDateTime startedAt;
+        if (resume && !STATUS_COMPLETED.equals(checkpoint.get("status")) && checkpoint.get("index") != null
+                && indexExists(checkpoint.get("index"))) {
+            index = checkpoint.get("index");
+            watermark = Long.parseLong(checkpoint.getOrDefault("watermark", "0"));
+            startedAt = LocalDateTime.parse(checkpoint.get("startedAt"));
+            log.info("续跑物品索引重建: index={}, watermark={}", index, watermark);
+        } else {
+            startedAt = LocalDateTime.now();
+            index = INDEX_PREFIX + startedAt.format(INDEX_SUFFIX);
+            watermark = 0;
+            createIndex(index);
+            stringRedisTemplate.delete(Arrays.asList(CHECKPOINT_KEY, CHANGED_KEY));
+            log.info("开始重建物品索引: index={}", index);
+        }
+        Map<String, String> state = new HashMap<>();
+        state.put("index", index);
+        state.put("status", STATUS_RUNNING);
+        state.put("watermark", String.valueOf(watermark));
+        state.put("startedAt", startedAt.toString());
+        stringRedisTemplate.opsForHash().putAll(CHECKPOINT_KEY, state);
+
+        ChunkTracker tracker = new ChunkTracker(watermark);
+        BulkProcessor processor = BulkProcessor.builder(
+                        (request, listener) -> restHighLevelClient.bulkAsync(request, RequestOptions.DEFAULT, listener),
+                        tracker)
+                .setBulkActions(bulkActions)
+                .setBulkSize(new ByteSizeValue(5, ByteSizeUnit.MB))
+                .setConcurrentRequests(concurrentRequests)
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(200), 5))
+                .build();
+        long lastId = watermark;
+        try {
+            while (!tracker.failed.get()) {
+                long after = lastId;
+                List<ItemDocument> docs = readOnlyTransaction.execute(status -> loadChunk(after));
+                if (docs == null || docs.isEmpty()) break;
+                lastId = docs.get(docs.size() - 1).getId();
+                tracker.register(after, lastId, docs.size());
+                for (ItemDocument doc : docs) {
+                    processor.add(new IndexRequest(index)
+                            .id(doc.getId().toString())
+                            .source(JSON.toJSONStringWithDateFormat(doc, DATE_FORMAT), XContentType.JSON));
+                }
+            }
+        } finally {
+            processor.awaitClose(10, TimeUnit.MINUTES);
+        }
+        if (tracker.failed.get() || tracker.watermark.get() < lastId) {
+            stringRedisTemplate.opsForHash().put(CHECKPOINT_KEY, "status", STATUS_FAILED);
+            throw new IllegalStateException("重建物品索引未完成，水位: " + tracker.watermark.get());
+        }
+
+        restHighLevelClient.indices().putSettings(new UpdateSettingsRequest(index)
+                .settings(Settings.builder().put("index.refresh_interval", "1s")), RequestOptions.DEFAULT);
+        restHighLevelClient.indices().refresh(new RefreshRequest(index), RequestOptions.DEFAULT);
+        Set<String> previous = swapAlias(index);
+        // 重建期间的增量变更写入了旧索引，切换后重新入队，由发件箱同步到新索引
+        int requeued = outboxRepository.enqueueUpdatedSince(startedAt.minusMinutes(1)) + requeueChanged();
+        deleteOldIndices(index, previous);
+
+        stringRedisTemplate.opsForHash().put(CHECKPOINT_KEY, "status", STATUS_COMPLETED);
+        stringRedisTemplate.opsForHash().put(CHECKPOINT_KEY, "finishedAt", LocalDateTime.now().toString());
+        log.info("物品索引重建完成: index={}, indexed={}, requeued={}", index, tracker.indexed.get(), requeued);
+    }
+
+    /**
+     * 记录重建期间不更新 update_time 的物品变更（如浏览量同步），切换别名后重新入队；没有重建在运行时忽略
+     *
+     * @param itemIds 变更的物品ID
+     */
+    public void recordChanged(Collection<Long> itemIds) {
+        if (itemIds == null || itemIds.isEmpty()) return;
+        if (!STATUS_RUNNING.equals(stringRedisTemplate.opsForHash().get(CHECKPOINT_KEY, "status"))) return;
+        stringRedisTemplate.opsForSet().add(CHANGED_KEY, itemIds.stream().map(String::valueOf).toArray(String[]::new));
+        stringRedisTemplate.expire(CHANGED_KEY, CHANGED_TTL);
+    }
+
+    // 把重建期间记录的变更分批移入发件箱，返回入队的物品数
+    private int requeueChanged() {
+        int requeued = 0;
+        List<String> chunk;
+        while ((chunk = stringRedisTemplate.opsForSet().pop(CHANGED_KEY, chunkSize)) != null && !chunk.isEmpty()) {
+            List<Long> ids = chunk.stream().map(Long::valueOf).collect(Collectors.toList());
+            itemIndexService.enqueueAll(ids);
+            requeued += ids.size();
+        }
+        return requeued;
+    }
+
+    // 读取一个分块并转换为文档，转换后清空持久化上下文
+    private List<ItemDocument> loadChunk(long afterId) {
+        List<Long> ids = itemRepository.findIdsAfter(afterId, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) return Collections.emptyList();
+        List<Item> items = new ArrayList<>(itemRepository.findWithDetailsByIdIn(ids));
+        items.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        List<ItemDocument> docs = new ArrayList<>(items.size());
+        for (Item item : items) {
+            docs.add(itemIndexService.toDocument(item));
+        }
+        entityManager.clear();
+        return docs;
+    }
+
+    private boolean indexExists(String index) throws Exception {
+        return restHighLevelClient.indices().exists(new GetIndexRequest(index), RequestOptions.DEFAULT);
+    }
+
+    private void createIndex(String index) throws Exception {
+        // 映射沿用 ItemDocument 上的注解；写入期间关闭刷新，完成后再恢复
+        Map<String, Object> mapping = elasticsearchOperations.indexOps(ItemDocument.class).createMapping(ItemDocument.class);
+        CreateIndexRequest request = new CreateIndexRequest(index)
+                .settings(Settings.builder().put("index.refresh_interval", "-1"))
+                .mapping(mapping);
+        restHighLevelClient.indices().create(request, RequestOptions.DEFAULT);
+    }
+
+    // 原子切换别名，返回切换前别名指向的索引
+    private Set<String> swapAlias(String index) throws Exception {
+        Set<String> previous = restHighLevelClient.indices()
+                .getAlias(new GetAliasesRequest(ALIAS), RequestOptions.DEFAULT)
+                .getAliases().keySet();
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        request.addAliasAction(IndicesAliasesRequest.AliasActions.add().index(index).alias(ALIAS));
+        for (String old : previous) {
+            if (!old.equals(index)) {
+                request.addAliasAction(IndicesAliasesRequest.AliasActions.remove().index(old).alias(ALIAS));
+            }
+        }
+        // 旧版本直接建了名为 items 的索引，需与别名添加在同一请求中删除
+        if (previous.isEmpty() && indexExists(ALIAS)) {
+            request.addAliasAction(IndicesAliasesRequest.AliasActions.removeIndex().index(ALIAS));
+        }
+        restHighLevelClient.indices().updateAliases(request, RequestOptions.DEFAULT);
+        return previous;
+    }
+
+    // 保留新索引和上一代索引（便于回滚），删除更早的版本
+    private void deleteOldIndices(String index, Set<String> previous) {
+        try {
+            String[] all = restHighLevelClient.indices()
+                    .get(new GetIndexRequest(INDEX_PREFIX + "*"), RequestOptions.DEFAULT)
+                    .getIndices();
+            List<String> stale = new ArrayList<>();
+            for (String name : all) {
+                if (!name.equals(index) && !previous.contains(name)) {
+                    stale.add(name);
+                }
+            }
+            if (!stale.isEmpty()) {
+                restHighLevelClient.indices().delete(new DeleteIndexRequest(stale.toArray(new String[0])), RequestOptions.DEFAULT);
+            }
+        } catch (Exception e) {
+            log.warn("清理旧物品索引失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 跟踪每个分块的完成情况，维护连续完成水位并写入检查点
+     */
+    class ChunkTracker implements BulkProcessor.Listener {
+
+        // 分块起始ID(不含) -> 分块
+        private final TreeMap<Long, Chunk> chunks = new TreeMap<>();
+        final AtomicLong watermark;
+        final AtomicLong indexed = new AtomicLong();
+        final AtomicBoolean failed = new AtomicBoolean();
+
+        ChunkTracker(long watermark) {
+            this.watermark = new AtomicLong(watermark);
+        }
+
+        synchronized void register(long afterId, long lastId, int size) {
+            chunks.put(afterId, new Chunk(lastId, size));
+        }
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            int ok = 0;
+            synchronized (this) {
+                for (BulkItemResponse item : response.getItems()) {
+                    if (item.isFailed()) {
+                        failed.set(true);
+                        log.warn("写入物品索引失败: id={}, reason={}", item.getId(), item.getFailureMessage());
+                        continue;
+                    }
+                    Map.Entry<Long, Chunk> entry = chunks.lowerEntry(Long.parseLong(item.getId()));
+                    if (entry != null) {
+                        entry.getValue().remaining.decrementAndGet();
+                    }
+                    ok++;
+                }
+                indexed.addAndGet(ok);
+                advance();
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            failed.set(true);
+            log.warn("物品索引 bulk 请求失败: {}", failure.getMessage());
+        }
+
+        // 从最早的分块开始，连续完成的分块出队并推进水位
+        private void advance() {
+            long before = watermark.get();
+            while (!chunks.isEmpty() && chunks.firstEntry().getValue().remaining.get() <= 0) {
+                watermark.set(chunks.pollFirstEntry().getValue().lastId);
+            }
+            if (watermark.get() != before) {
+                stringRedisTemplate.opsForHash().put(CHECKPOINT_KEY, "watermark", String.valueOf(watermark.get()));
+                stringRedisTemplate.opsForHash().put(CHECKPOINT_KEY, "indexed", String.valueOf(indexed.get()));
+            }
+        }
+    }
+
+    static class Chunk {
+        final long lastId;
+        final AtomicInteger remaining;
+
+        Chunk(long lastId, int size) {
+            this.lastId = lastId;
+            this.remaining = new AtomicInteger(size);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.campus.trading.service.impl;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MultiMatchQueryBuilder;
+import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * 物品搜索 ES 查询构造器
+ *
+ * 过滤条件（上架、有库存、分类及子分类、价格、新旧程度）全部放在 filter 上下文，不参与算分且可被缓存；
+ * 关键字用 multi_match 要求所有词都命中，match_phrase 只做短语加权。
+ * 排序、分页和返回字段都由 ES 完成，一次请求即得到完整的一页。
+ */
+final class ItemSearchQueryBuilder {
+
+    static final String INDEX = "items";
+
+    /**
+     * 列表页需要的字段，不返回 _class 等无关字段
+     */
+    static final String[] SOURCE_INCLUDES = {
+            "id", "name", "categoryId", "categoryName", "price", "description", "imageIds", "itemCondition",
+            "status", "popularity", "userId", "username", "userAvatar", "createTime", "updateTime", "stock"
+    };
+
+    private String keyword;
+    private Collection<Long> categoryIds;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer conditionMin;
+    private Integer conditionMax;
+    private String sort;
+    private String order;
+    private int from;
+    private int size = 10;
+    private Object[] searchAfter;
+
+    ItemSearchQueryBuilder keyword(String keyword) {
+        this.keyword = keyword;
+        return this;
+    }
+
+    ItemSearchQueryBuilder categoryIds(Collection<Long> categoryIds) {
+        this.categoryIds = categoryIds;
+        return this;
+    }
+
+    ItemSearchQueryBuilder price(BigDecimal minPrice, BigDecimal maxPrice) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    ItemSearchQueryBuilder condition(Integer conditionMin, Integer conditionMax) {
+        this.conditionMin = conditionMin;
+        this.conditionMax = conditionMax;
+        return this;
+    }
+
+    ItemSearchQueryBuilder sort(String sort, String order) {
+        this.sort = sort;
+        this.order = order;
+        return this;
+    }
+
+    ItemSearchQueryBuilder page(int from, int size) {
+        this.from = from;
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * 深度翻页：从上一页最后一条的排序值之后继续，此时忽略 from
+     */
+    ItemSearchQueryBuilder searchAfter(Object[] searchAfter) {
+        this.searchAfter = searchAfter;
+        return this;
+    }
+
+    SearchSourceBuilder build() {
+        BoolQueryBuilder query = QueryBuilders.boolQuery()
+                .filter(QueryBuilders.termQuery("status", 1))
+                .filter(QueryBuilders.rangeQuery("stock").gt(0));
+        if (categoryIds != null && !categoryIds.isEmpty()) {
+            query.filter(QueryBuilders.termsQuery("categoryId", categoryIds));
+        }
+        if (minPrice != null || maxPrice != null) {
+            RangeQueryBuilder price = QueryBuilders.rangeQuery("price");
+            if (minPrice != null) price.gte(minPrice.doubleValue());
+            if (maxPrice != null) price.lte(maxPrice.doubleValue());
+            query.filter(price);
+        }
+        if (conditionMin != null || conditionMax != null) {
+            RangeQueryBuilder condition = QueryBuilders.rangeQuery("itemCondition");
+            if (conditionMin != null) condition.gte(conditionMin);
+            if (conditionMax != null) condition.lte(conditionMax);
+            query.filter(condition);
+        }
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            String text = keyword.trim();
+            // 每个词须出现在名称或描述中，名称权重更高
+            query.must(QueryBuilders.multiMatchQuery(text, "name^3", "description")
+                    .type(MultiMatchQueryBuilder.Type.CROSS_FIELDS)
+                    .operator(Operator.AND));
+            // 完整短语命中时额外加分
+            query.should(QueryBuilders.matchPhraseQuery("name", text).boost(3));
+            query.should(QueryBuilders.matchPhraseQuery("description", text));
+        }
+
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(query)
+                .size(size)
+                .trackTotalHits(true)
+                .fetchSource(SOURCE_INCLUDES, null);
+        applySort(source);
+        if (searchAfter != null) {
+            source.searchAfter(searchAfter);
+        } else {
+            source.from(from);
+        }
+        return source;
+    }
+
+    // 排序规则与数据库分支保持一致，最后按 id 排序保证顺序稳定、search_after 可用
+    private void applySort(SearchSourceBuilder source) {
+        SortOrder direction = "asc".equalsIgnoreCase(order) ? SortOrder.ASC : SortOrder.DESC;
+        String key = sort == null ? "" : sort.toLowerCase();
+        switch (key) {
+            case "price":
+                source.sort(SortBuilders.fieldSort("price").order(direction));
+                break;
+            case "popularity":
+                source.sort(SortBuilders.fieldSort("popularity").order(SortOrder.DESC));
+                break;
+            case "views":
+                source.sort(SortBuilders.fieldSort("popularity").order(direction));
+                break;
+            case "favorites":
+                source.sort(SortBuilders.fieldSort("favoriteCount").order(SortOrder.DESC).unmappedType("integer").missing(0));
+                source.sort(SortBuilders.fieldSort("createTime").order(SortOrder.DESC));
+                break;
+            case "relevance":
+                source.sort(SortBuilders.scoreSort());
+                break;
+            case "createtime":
+                source.sort(SortBuilders.fieldSort("createTime").order(direction));
+                break;
+            default:
+                source.sort(SortBuilders.fieldSort("createTime").order(SortOrder.DESC));
+        }
+        source.sort(SortBuilders.fieldSort("id").order(SortOrder.DESC));
+    }
+}
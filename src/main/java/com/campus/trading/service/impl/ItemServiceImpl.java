@@ -1,15 +1,16 @@
 package com.campus.trading.service.impl;
 
 import com.alibaba.dashscope.aigc.multimodalconversation.MultiModalConversationOutput;
+import com.campus.trading.dto.CursorPageResponseDTO;
 import com.campus.trading.dto.ItemCreateRequestDTO;
+import com.campus.trading.dto.ItemCursor;
 import com.campus.trading.dto.ItemDTO;
 import com.campus.trading.dto.PageResponseDTO;
 import com.campus.trading.entity.Item;
 import com.campus.trading.entity.User;
-import com.campus.trading.entity.Category;
 import com.campus.trading.repository.ItemRepository;
-import com.campus.trading.repository.CategoryRepository;
 import com.campus.trading.service.CategoryService;
+import com.campus.trading.service.ItemIndexService;
 import com.campus.trading.service.ItemService;
 import com.campus.trading.service.UserService;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -17,12 +18,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.campus.trading.service.ImageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.campus.trading.config.Qwen3Properties;
@@ -49,21 +50,23 @@ import java.util.Arrays;
 import java.util.Collections;
 import com.campus.trading.repository.OrderRepository;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import java.util.Set;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
-import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.MatchPhraseQueryBuilder;
 import org.elasticsearch.index.query.MultiMatchQueryBuilder;
 import org.elasticsearch.action.search.SearchRequest;
-import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
 import com.campus.trading.config.SecurityUtil;
 
 /**
@@ -76,25 +79,40 @@ public class ItemServiceImpl implements ItemService {
     private final UserService userService;
     private final CategoryService categoryService;
     private static final Logger log = LoggerFactory.getLogger(ItemServiceImpl.class);
+    /**
+     * 游标分页每页最大条数
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
     private final ImageService imageService;
-    private final CategoryRepository categoryRepository;
     private final ItemESRepository itemESRepository;
     private final OrderRepository orderRepository;
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
     private static final String ITEM_VIEW_KEY_PREFIX = "item:view:";
-    private static final String PLATFORM_STATS_KEY = "platform:stats";
+    // 定时刷新详情缓存的热门物品数
+    private static final int HOT_DETAIL_CACHE_SIZE = 5;
     @Autowired(required = false)
     private RestHighLevelClient restHighLevelClient;
+    @Autowired
+    private ItemIndexService itemIndexService;
+    @Autowired
+    private ItemReindexJob itemReindexJob;
+    @Autowired
+    private ItemViewCounter itemViewCounter;
+    @Autowired
+    private PlatformStatsCounter platformStatsCounter;
+    @Autowired
+    private ItemTrendingEngine itemTrendingEngine;
+    @Autowired
+    private ItemDetailCache itemDetailCache;
     private final Qwen3Properties qwen3Properties;
 
     @Autowired
-    public ItemServiceImpl(ItemRepository itemRepository, UserService userService, CategoryService categoryService, ImageService imageService, CategoryRepository categoryRepository, ItemESRepository itemESRepository, Qwen3Properties qwen3Properties,OrderRepository orderRepository) {
+    public ItemServiceImpl(ItemRepository itemRepository, UserService userService, CategoryService categoryService, ImageService imageService, ItemESRepository itemESRepository, Qwen3Properties qwen3Properties,OrderRepository orderRepository) {
         this.itemRepository = itemRepository;
         this.userService = userService;
         this.categoryService = categoryService;
         this.imageService = imageService;
-        this.categoryRepository = categoryRepository;
         this.itemESRepository = itemESRepository;
         this.orderRepository = orderRepository;
         this.qwen3Properties = qwen3Properties;
@@ -122,26 +140,10 @@ public class ItemServiceImpl implements ItemService {
         
         // 保存物品
         Item savedItem = itemRepository.save(item);
+        platformStatsCounter.itemStatusChanged(null, savedItem.getStatus());
 
-        // 新增：同步到ES
-        ItemDocument doc = new ItemDocument();
-        doc.setId(savedItem.getId());
-        doc.setName(savedItem.getName());
-        doc.setCategoryId(savedItem.getCategory() != null ? savedItem.getCategory().getId() : null);
-        doc.setCategoryName(savedItem.getCategory() != null ? savedItem.getCategory().getName() : null);
-        doc.setPrice(savedItem.getPrice());
-        doc.setDescription(savedItem.getDescription());
-        doc.setImageIds(savedItem.getImageIds());
-        doc.setItemCondition(savedItem.getItemCondition());
-        doc.setStatus(savedItem.getStatus());
-        doc.setPopularity(savedItem.getPopularity());
-        doc.setUserId(savedItem.getUser() != null ? savedItem.getUser().getId() : null);
-        doc.setUsername(savedItem.getUser() != null ? savedItem.getUser().getUsername() : null);
-        doc.setUserAvatar(null); // 如有头像可补充
-        doc.setCreateTime(savedItem.getCreateTime());
-        doc.setUpdateTime(savedItem.getUpdateTime());
-        doc.setStock(savedItem.getStock());
-        itemESRepository.save(doc);
+        // 记录索引变更，随本事务提交后异步同步到ES
+        itemIndexService.enqueue(savedItem.getId());
         
         // 转换为DTO返回
         return convertToDTO(savedItem);
@@ -166,26 +168,15 @@ public class ItemServiceImpl implements ItemService {
         item.setStock(itemCreateRequest.getStock());
         // 保存更新
         Item updatedItem = itemRepository.save(item);
+        itemIndexService.enqueue(updatedItem.getId());
+        itemDetailCache.invalidate(updatedItem.getId());
         // 转换为DTO返回
         return convertToDTO(updatedItem);
     }
 
     @Override
     public ItemDTO getItemById(Long id) {
-        String cacheKey = "item:detail:" + id;
-        String cached = stringRedisTemplate.opsForValue().get(cacheKey);
-        if (cached != null) {
-            return com.alibaba.fastjson.JSON.parseObject(cached, ItemDTO.class);
-        }
-        // 缓存没有，查数据库
-        Item item = getItemOrThrow(id);
-        ItemDTO dto = convertToDTO(item);
-        // 只对热门商品写入缓存
-        Set<String> hotItemIds = stringRedisTemplate.opsForZSet().reverseRange("hot:items", 0, 4);
-        if (hotItemIds != null && hotItemIds.contains(id.toString())) {
-            stringRedisTemplate.opsForValue().set(cacheKey, com.alibaba.fastjson.JSON.toJSONString(dto), java.time.Duration.ofMinutes(10));
-        }
-        return dto;
+        return itemDetailCache.get(id, key -> convertToDTO(getItemOrThrow(key)));
     }
 
     @Override
@@ -205,10 +196,13 @@ public class ItemServiceImpl implements ItemService {
         checkItemOwner(item);
         
         // 设置物品状态为上架
+        platformStatsCounter.itemStatusChanged(item.getStatus(), 1);
         item.setStatus(1);
         
         // 保存更新
         Item updatedItem = itemRepository.save(item);
+        itemIndexService.enqueue(updatedItem.getId());
+        itemDetailCache.invalidate(updatedItem.getId());
         
         // 转换为DTO返回
         return convertToDTO(updatedItem);
@@ -224,10 +218,13 @@ public class ItemServiceImpl implements ItemService {
         checkItemOwner(item);
         
         // 设置物品状态为下架
+        platformStatsCounter.itemStatusChanged(item.getStatus(), 0);
         item.setStatus(0);
         
         // 保存更新
         Item updatedItem = itemRepository.save(item);
+        itemIndexService.enqueue(updatedItem.getId());
+        itemDetailCache.invalidate(updatedItem.getId());
         
         // 转换为DTO返回
         return convertToDTO(updatedItem);
@@ -237,9 +234,7 @@ public class ItemServiceImpl implements ItemService {
     public PageResponseDTO<ItemDTO> listItems(int pageNum, int pageSize, String sort, String order) {
         Pageable pageable = PageRequest.of(pageNum - 1, pageSize);
         Page<Item> itemPage = itemRepository.findByStatusAndStockGreaterThan(1, 0, pageable);
-        List<ItemDTO> itemDTOs = itemPage.getContent().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<ItemDTO> itemDTOs = convertToDTOs(itemPage.getContent());
         return new PageResponseDTO<>(
                 itemDTOs,
                 itemPage.getTotalElements(),
@@ -261,9 +256,7 @@ public class ItemServiceImpl implements ItemService {
         Page<Item> itemPage = itemRepository.findByUser(user, pageable);
         
         // 转换为DTO
-        List<ItemDTO> itemDTOs = itemPage.getContent().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<ItemDTO> itemDTOs = convertToDTOs(itemPage.getContent());
         
         // 构建分页响应
         return new PageResponseDTO<>(
@@ -279,9 +272,7 @@ public class ItemServiceImpl implements ItemService {
     public PageResponseDTO<ItemDTO> listCategoryItems(Long categoryId, int pageNum, int pageSize) {
         Pageable pageable = PageRequest.of(pageNum - 1, pageSize);
         Page<Item> itemPage = itemRepository.findByCategoryIdAndStatusAndStockGreaterThan(categoryId, 1, 0, pageable);
-        List<ItemDTO> itemDTOs = itemPage.getContent().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<ItemDTO> itemDTOs = convertToDTOs(itemPage.getContent());
         return new PageResponseDTO<>(
                 itemDTOs,
                 itemPage.getTotalElements(),
@@ -291,81 +282,52 @@ public class ItemServiceImpl implements ItemService {
         );
     }
 
+    @Override
+    public CursorPageResponseDTO<ItemDTO> listItemsByCursor(Long categoryId, String cursor, int pageSize, String sort) {
+        int size = Math.max(1, Math.min(pageSize, MAX_CURSOR_PAGE_SIZE));
+        ItemCursor after = ItemCursor.decode(sort, cursor);
+        // 只取一页，Slice 多取一行判断是否还有下一页，不执行 COUNT
+        Pageable pageable = PageRequest.of(0, size);
+        Slice<Item> slice;
+        if (after.isByPopularity()) {
+            slice = categoryId == null
+                    ? itemRepository.findLiveItemsBeforePopularity(after.getPopularity(), after.getId(), pageable)
+                    : itemRepository.findLiveCategoryItemsBeforePopularity(categoryId, after.getPopularity(), after.getId(), pageable);
+        } else {
+            slice = categoryId == null
+                    ? itemRepository.findLiveItemsBeforeCreateTime(after.getCreateTime(), after.getId(), pageable)
+                    : itemRepository.findLiveCategoryItemsBeforeCreateTime(categoryId, after.getCreateTime(), after.getId(), pageable);
+        }
+        List<Item> items = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext() && !items.isEmpty()) {
+            // 游标取数据库中的排序键，不能用 DTO 中合并了 Redis 浏览量的热度
+            Item last = items.get(items.size() - 1);
+            nextCursor = ItemCursor.after(after.getSort(), last.getCreateTime(), last.getPopularity(), last.getId()).encode();
+        }
+        return new CursorPageResponseDTO<>(convertToDTOs(items), nextCursor, nextCursor != null, size);
+    }
+
     @Override
     public PageResponseDTO<ItemDTO> searchItems(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, Integer conditionMin, Integer conditionMax, int pageNum, int pageSize, String sort, String order) {
         if (keyword != null && !keyword.isEmpty()) {
-            List<ItemDocument> docs = new ArrayList<>();
-            // 优先用 match_phrase 查询
+            // 过滤、排序、分页全部交给 ES，一次请求得到完整的一页和准确总数
             try {
-                SearchRequest searchRequest = new SearchRequest("items");
-                SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
-                BoolQueryBuilder boolQuery = QueryBuilders.boolQuery();
-                // match_phrase 查询 name 和 description
-                boolQuery.should(QueryBuilders.matchPhraseQuery("name", keyword));
-                boolQuery.should(QueryBuilders.matchPhraseQuery("description", keyword));
-                sourceBuilder.query(boolQuery);
-                sourceBuilder.from((pageNum - 1) * pageSize);
-                sourceBuilder.size(pageSize);
-                searchRequest.source(sourceBuilder);
-                SearchResponse response = restHighLevelClient.search(searchRequest, RequestOptions.DEFAULT);
-                for (SearchHit hit : response.getHits().getHits()) {
-                    ItemDocument doc = com.alibaba.fastjson.JSON.parseObject(hit.getSourceAsString(), ItemDocument.class);
-                    docs.add(doc);
-                }
+                SearchSourceBuilder source = newSearchQuery(keyword, categoryId, minPrice, maxPrice, conditionMin, conditionMax, sort, order)
+                        .page((pageNum - 1) * pageSize, pageSize)
+                        .build();
+                SearchHits hits = restHighLevelClient.search(new SearchRequest(ItemSearchQueryBuilder.INDEX).source(source), RequestOptions.DEFAULT).getHits();
+                long total = hits.getTotalHits() != null ? hits.getTotalHits().value : 0;
+                List<ItemDTO> itemDTOs = convertESDocsToDTOs(parseSearchHits(hits.getHits()));
+                return new PageResponseDTO<>(itemDTOs, total, pageNum, pageSize, (int) ((total + pageSize - 1) / pageSize));
             } catch (Exception e) {
-                e.printStackTrace();
+                // ES 不可用时退回数据库查询，保证搜索可用
+                log.warn("ES搜索失败，改用数据库查询: keyword={}, error={}", keyword, e.getMessage());
             }
-            // 如果 match_phrase 查不到，再用原有模糊匹配
-            if (docs.isEmpty()) {
-                docs = itemESRepository.findByNameContainingOrDescriptionContaining(keyword, keyword);
-            }
-            // 过滤其它条件
-            List<ItemDocument> filtered = docs.stream()
-                .filter(doc -> (categoryId == null || (doc.getCategoryId() != null && doc.getCategoryId().equals(categoryId)))
-                    && (minPrice == null || (doc.getPrice() != null && doc.getPrice().compareTo(minPrice) >= 0))
-                    && (maxPrice == null || (doc.getPrice() != null && doc.getPrice().compareTo(maxPrice) <= 0))
-                    && (conditionMin == null || (doc.getItemCondition() != null && doc.getItemCondition() >= conditionMin))
-                    && (conditionMax == null || (doc.getItemCondition() != null && doc.getItemCondition() <= conditionMax))
-                    && (doc.getStatus() != null && doc.getStatus() == 1)
-                    && (doc.getStock() != null && doc.getStock() > 0)
-                )
-                .collect(Collectors.toList());
-            // 排序
-            filtered = filtered.stream().sorted((a, b) -> {
-                int cmp = 0;
-                switch (sort.toLowerCase()) {
-                    case "price":
-                        cmp = a.getPrice().compareTo(b.getPrice());
-                        break;
-                    case "popularity":
-                    case "views":
-                        cmp = b.getPopularity() - a.getPopularity();
-                        break;
-                    case "createtime":
-                        cmp = b.getCreateTime().compareTo(a.getCreateTime());
-                        break;
-                    default:
-                        cmp = b.getCreateTime().compareTo(a.getCreateTime());
-                }
-                return "asc".equalsIgnoreCase(order) ? -cmp : cmp;
-            }).collect(Collectors.toList());
-            // 分页
-            int total = filtered.size();
-            int from = Math.max(0, (pageNum - 1) * pageSize);
-            int to = Math.min(filtered.size(), from + pageSize);
-            List<ItemDTO> itemDTOs = filtered.subList(from, to).stream().map(this::convertESDocToDTO).collect(Collectors.toList());
-            return new PageResponseDTO<>(itemDTOs, total, pageNum, pageSize, (total + pageSize - 1) / pageSize);
         }
-        // keyword为空直接用数据库SQL
+        // keyword为空或ES不可用时用数据库SQL
         Sort.Direction direction = "asc".equalsIgnoreCase(order) ? Sort.Direction.ASC : Sort.Direction.DESC;
         Sort sortObj;
-        if ("favorites".equalsIgnoreCase(sort)) {
-            // 按收藏量排序，调用自定义SQL
-            Pageable pageable = PageRequest.of(pageNum - 1, pageSize);
-            Page<Item> itemPage = itemRepository.findAllOrderByFavoriteCountDesc(pageable);
-            List<ItemDTO> itemDTOs = itemPage.getContent().stream().map(this::convertToDTO).collect(Collectors.toList());
-            return new PageResponseDTO<>(itemDTOs, itemPage.getTotalElements(), pageNum, pageSize, itemPage.getTotalPages());
-        }
         switch (sort.toLowerCase()) {
             case "price":
                 sortObj = Sort.by(direction, "price");
@@ -376,6 +338,10 @@ public class ItemServiceImpl implements ItemService {
             case "views":
                 sortObj = Sort.by(direction, "popularity");
                 break;
+            case "favorites":
+                // 按冗余的收藏数排序，走 (status, favorite_count, create_time) 索引
+                sortObj = Sort.by(Sort.Direction.DESC, "favoriteCount", "createTime");
+                break;
             case "createtime":
                 sortObj = Sort.by(direction, "createTime");
                 break;
@@ -383,6 +349,7 @@ public class ItemServiceImpl implements ItemService {
                 sortObj = Sort.by(Sort.Direction.DESC, "createTime");
         }
         Pageable pageable = PageRequest.of(pageNum - 1, pageSize, sortObj);
+        List<Long> categoryIds = categoryId != null ? getCategoryIdsWithDescendants(categoryId) : null;
         Specification<Item> spec = (root, query, cb) -> {
             Predicate p = cb.conjunction();
             p = cb.and(p, cb.equal(root.get("status"), 1));
@@ -392,13 +359,7 @@ public class ItemServiceImpl implements ItemService {
                 Predicate descLike = cb.like(root.get("description"), "%" + keyword + "%");
                 p = cb.and(p, cb.or(nameLike, descLike));
             }
-            if (categoryId != null) {
-                List<Long> categoryIds = new ArrayList<>();
-                categoryIds.add(categoryId);
-                List<Category> subCategories = categoryRepository.findByParentId(categoryId);
-                for (Category sub : subCategories) {
-                    categoryIds.add(sub.getId());
-                }
+            if (categoryIds != null) {
                 p = cb.and(p, root.get("category").get("id").in(categoryIds));
             }
             if (minPrice != null) {
@@ -417,10 +378,78 @@ public class ItemServiceImpl implements ItemService {
             return p;
         };
         Page<Item> itemPage = itemRepository.findAll(spec, pageable);
-        List<ItemDTO> itemDTOs = itemPage.getContent().stream().map(this::convertToDTO).collect(Collectors.toList());
+        List<ItemDTO> itemDTOs = convertToDTOs(itemPage.getContent());
         return new PageResponseDTO<>(itemDTOs, itemPage.getTotalElements(), pageNum, pageSize, itemPage.getTotalPages());
     }
 
+    @Override
+    public CursorPageResponseDTO<ItemDTO> searchItemsByCursor(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, Integer conditionMin, Integer conditionMax, String cursor, int pageSize, String sort, String order) {
+        int size = Math.max(1, Math.min(pageSize, MAX_CURSOR_PAGE_SIZE));
+        // 多取一条判断是否还有下一页
+        ItemSearchQueryBuilder builder = newSearchQuery(keyword, categoryId, minPrice, maxPrice, conditionMin, conditionMax, sort, order)
+                .page(0, size + 1);
+        if (cursor != null && !cursor.isEmpty()) {
+            builder.searchAfter(decodeSearchCursor(cursor));
+        }
+        SearchHit[] hits;
+        try {
+            hits = restHighLevelClient.search(new SearchRequest(ItemSearchQueryBuilder.INDEX).source(builder.build()), RequestOptions.DEFAULT)
+                    .getHits().getHits();
+        } catch (Exception e) {
+            log.warn("ES搜索失败: keyword={}, error={}", keyword, e.getMessage());
+            throw new RuntimeException("搜索服务暂不可用，请稍后重试");
+        }
+        boolean hasMore = hits.length > size;
+        SearchHit[] pageHits = hasMore ? Arrays.copyOf(hits, size) : hits;
+        String nextCursor = hasMore ? encodeSearchCursor(pageHits[pageHits.length - 1].getSortValues()) : null;
+        return new CursorPageResponseDTO<>(convertESDocsToDTOs(parseSearchHits(pageHits)), nextCursor, hasMore, size);
+    }
+
+    private ItemSearchQueryBuilder newSearchQuery(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                                  Integer conditionMin, Integer conditionMax, String sort, String order) {
+        return new ItemSearchQueryBuilder()
+                .keyword(keyword)
+                .categoryIds(categoryId != null ? getCategoryIdsWithDescendants(categoryId) : null)
+                .price(minPrice, maxPrice)
+                .condition(conditionMin, conditionMax)
+                .sort(sort, order);
+    }
+
+    private List<ItemDocument> parseSearchHits(SearchHit[] hits) {
+        List<ItemDocument> docs = new ArrayList<>(hits.length);
+        for (SearchHit hit : hits) {
+            docs.add(com.alibaba.fastjson.JSON.parseObject(hit.getSourceAsString(), ItemDocument.class));
+        }
+        return docs;
+    }
+
+    // search_after 游标：上一页最后一条的排序值，JSON 数组后 base64url 编码
+    private String encodeSearchCursor(Object[] sortValues) {
+        String json = com.alibaba.fastjson.JSON.toJSONString(sortValues);
+        return java.util.Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    private Object[] decodeSearchCursor(String cursor) {
+        try {
+            String json = new String(java.util.Base64.getUrlDecoder().decode(cursor), java.nio.charset.StandardCharsets.UTF_8);
+            Object[] values = com.alibaba.fastjson.JSON.parseArray(json).toArray();
+            for (int i = 0; i < values.length; i++) {
+                // fastjson 把小数解析为 BigDecimal，ES 只接受基本数值类型
+                if (values[i] instanceof BigDecimal) {
+                    values[i] = ((BigDecimal) values[i]).doubleValue();
+                }
+            }
+            return values;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    // 分类及其所有子孙分类的ID
+    private List<Long> getCategoryIdsWithDescendants(Long categoryId) {
+        return categoryService.getCategoryTree().getDescendantIds(categoryId);
+    }
+
     @Override
     public String generateItemDescription(String imageId) throws JsonProcessingException {
         // 1. 获取公网可访问的图片URL
@@ -439,25 +468,13 @@ public class ItemServiceImpl implements ItemService {
         Page<Item> itemPage = itemRepository.findAllByOrderByPopularityDesc(pageable);
         
         // 转换为DTO
-        return itemPage.getContent().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(itemPage.getContent());
     }
 
     @Override
-    @Transactional
     public void incrementItemPopularity(Long itemId) {
-        String redisKey = ITEM_VIEW_KEY_PREFIX + itemId;
-        String value = stringRedisTemplate.opsForValue().get(redisKey);
-        if (value == null) {
-            // Redis 没有，查数据库并初始化
-            Item item = itemRepository.findById(itemId).orElse(null);
-            long dbPopularity = item != null ? item.getPopularity() : 0;
-            stringRedisTemplate.opsForValue().set(redisKey, String.valueOf(dbPopularity));
-        }
-        stringRedisTemplate.opsForValue().increment(redisKey, 1);
-        // 同步到热门榜单
-        stringRedisTemplate.opsForZSet().incrementScore("hot:items", itemId.toString(), 1);
+        // 只在本地累加，由 ItemViewCounter 定时批量写入 Redis
+        itemViewCounter.increment(itemId);
     }
 
     @Override
@@ -465,36 +482,20 @@ public class ItemServiceImpl implements ItemService {
         String redisKey = ITEM_VIEW_KEY_PREFIX + itemId;
         String value = stringRedisTemplate.opsForValue().get(redisKey);
         if (value != null) {
-            return Long.parseLong(value);
+            return Long.parseLong(value) + itemViewCounter.pendingCount(itemId);
         }
         // Redis 没有，查数据库
         Item item = itemRepository.findById(itemId).orElse(null);
         long dbPopularity = item != null ? item.getPopularity() : 0;
         // 初始化 Redis
         stringRedisTemplate.opsForValue().set(redisKey, String.valueOf(dbPopularity));
-        return dbPopularity;
+        return dbPopularity + itemViewCounter.pendingCount(itemId);
     }
 
     @Override
     public Map<String, Long> getPlatformStatistics() {
-        Map<String, Long> statistics = new HashMap<>();
-        Map<Object, Object> redisStats = stringRedisTemplate.opsForHash().entries(PLATFORM_STATS_KEY);
-        if (redisStats != null && !redisStats.isEmpty()) {
-            statistics.put("totalItems", Long.parseLong(redisStats.getOrDefault("totalItems", "0").toString()));
-            statistics.put("completedOrders", Long.parseLong(redisStats.getOrDefault("completedOrders", "0").toString()));
-            statistics.put("totalUsers", Long.parseLong(redisStats.getOrDefault("totalUsers", "0").toString()));
-            statistics.put("totalOrders", Long.parseLong(redisStats.getOrDefault("totalOrders", "0").toString()));
-            return statistics;
-        }
-        // Redis 没有时查数据库并写入 Redis
-        statistics.put("totalItems", itemRepository.countByStatus(1));
-        statistics.put("completedOrders", itemRepository.countByStatus(3));
-        statistics.put("totalUsers", userService.getTotalUsers());
-        statistics.put("totalOrders", orderRepository.count());
-        Map<String, String> statsStr = new HashMap<>();
-        statistics.forEach((k, v) -> statsStr.put(k, v.toString()));
-        stringRedisTemplate.opsForHash().putAll(PLATFORM_STATS_KEY, statsStr);
-        return statistics;
+        // 计数器由业务事件增量维护，定时任务校正，这里只读 Redis
+        return platformStatsCounter.snapshot();
     }
 
     @Override
@@ -502,39 +503,116 @@ public class ItemServiceImpl implements ItemService {
         if (item == null) {
             return null;
         }
-        
-        // 处理图片URLs
-        List<String> imageUrls = null;
-        if (item.getImageIds() != null) {
-            imageUrls = item.getImageIds().stream()
-                .map(imageService::generateImageAccessToken)
+        return convertToDTOs(Collections.singletonList(item)).get(0);
+    }
+
+    @Override
+    public List<ItemDTO> convertToDTOs(List<Item> items) {
+        if (items == null || items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> itemIds = items.stream()
+                .filter(item -> item != null && item.getId() != null)
+                .map(Item::getId)
+                .distinct()
                 .collect(Collectors.toList());
+
+        // 浏览量：整页一次 MGET，与数据库值取较大者
+        Map<Long, Long> redisPopularity = loadRedisPopularity(itemIds);
+
+        // 图片ID：未加载的图片集合整页一次查询
+        Map<Long, List<String>> imageIdsMap = loadImageIds(items);
+
+        // 图片签名：商品图片与卖家头像去重后统一签名
+        Set<String> toSign = new java.util.LinkedHashSet<>();
+        for (Item item : items) {
+            if (item == null) continue;
+            toSign.addAll(imageIdsMap.getOrDefault(item.getId(), Collections.emptyList()));
+            if (item.getUser() != null && item.getUser().getAvatarImageId() != null) {
+                toSign.add(item.getUser().getAvatarImageId());
+            }
         }
-        
-        return ItemDTO.builder()
-                .id(item.getId())
-                .name(item.getName())
-                .price(item.getPrice())
-                .description(item.getDescription())
-                .imageUrls(imageUrls)
-                .imageIds(item.getImageIds())
-                .categoryId(item.getCategory() != null ? item.getCategory().getId() : null)
-                .categoryName(item.getCategory() != null ? item.getCategory().getName() : null)
-                .condition(item.getItemCondition())
-                .status(item.getStatus())
-                .popularity(Integer.valueOf((int) getItemPopularity(item.getId())))
-                .userId(item.getUser() != null ? item.getUser().getId() : null)
-                .username(item.getUser() != null ? item.getUser().getUsername() : null)
-                .userAvatar(item.getUser() != null ? imageService.generateImageAccessToken(item.getUser().getAvatarImageId()) : null)
-                .createTime(item.getCreateTime())
-                .updateTime(item.getUpdateTime())
-                .userId(item.getUser().getId())
-                .username(item.getUser().getUsername())
-                .userAvatar(item.getUser().getAvatarImageId() != null ? imageService.generateImageAccessToken(item.getUser().getAvatarImageId()) : null)
-                .createTime(item.getCreateTime())
-                .popularity(item.getPopularity())
-                .stock(item.getStock())
-                .build();
+        Map<String, String> signedUrls = imageService.generateImageAccessTokens(toSign);
+
+        List<ItemDTO> dtos = new ArrayList<>(items.size());
+        for (Item item : items) {
+            if (item == null) {
+                dtos.add(null);
+                continue;
+            }
+            List<String> imageIds = imageIdsMap.getOrDefault(item.getId(), Collections.emptyList());
+            List<String> imageUrls = imageIds.stream()
+                    .map(signedUrls::get)
+                    .collect(Collectors.toList());
+            int dbPopularity = item.getPopularity() != null ? item.getPopularity() : 0;
+            long popularity = Math.max(dbPopularity, redisPopularity.getOrDefault(item.getId(), 0L))
+                    + itemViewCounter.pendingCount(item.getId());
+            User seller = item.getUser();
+            dtos.add(ItemDTO.builder()
+                    .id(item.getId())
+                    .name(item.getName())
+                    .price(item.getPrice())
+                    .description(item.getDescription())
+                    .imageUrls(imageUrls)
+                    .imageIds(imageIds)
+                    .categoryId(item.getCategory() != null ? item.getCategory().getId() : null)
+                    .categoryName(item.getCategory() != null ? item.getCategory().getName() : null)
+                    .condition(item.getItemCondition())
+                    .status(item.getStatus())
+                    .popularity((int) popularity)
+                    .userId(seller != null ? seller.getId() : null)
+                    .username(seller != null ? seller.getUsername() : null)
+                    .userAvatar(seller != null && seller.getAvatarImageId() != null ? signedUrls.get(seller.getAvatarImageId()) : null)
+                    .createTime(item.getCreateTime())
+                    .updateTime(item.getUpdateTime())
+                    .stock(item.getStock())
+                    .build());
+        }
+        return dtos;
+    }
+
+    // 辅助方法：一次 MGET 读取整批物品在 Redis 中的浏览量
+    private Map<Long, Long> loadRedisPopularity(List<Long> itemIds) {
+        Map<Long, Long> result = new HashMap<>();
+        if (itemIds.isEmpty()) return result;
+        List<String> keys = itemIds.stream().map(id -> ITEM_VIEW_KEY_PREFIX + id).collect(Collectors.toList());
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        if (values == null || values.size() != itemIds.size()) return result;
+        for (int i = 0; i < itemIds.size(); i++) {
+            String value = values.get(i);
+            if (value == null) continue;
+            try {
+                result.put(itemIds.get(i), Long.parseLong(value));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return result;
+    }
+
+    // 辅助方法：已加载的图片集合直接使用，其余物品的图片ID用一条 IN 查询取回
+    private Map<Long, List<String>> loadImageIds(List<Item> items) {
+        Map<Long, List<String>> result = new HashMap<>();
+        List<Long> pending = new ArrayList<>();
+        for (Item item : items) {
+            if (item == null) continue;
+            List<String> imageIds = item.getImageIds();
+            if (imageIds == null) {
+                result.put(item.getId(), Collections.emptyList());
+            } else if (item.getId() == null || org.hibernate.Hibernate.isInitialized(imageIds)) {
+                result.put(item.getId(), new ArrayList<>(imageIds));
+            } else {
+                pending.add(item.getId());
+            }
+        }
+        if (!pending.isEmpty()) {
+            for (Long id : pending) {
+                result.put(id, new ArrayList<>());
+            }
+            for (Object[] row : itemRepository.findImageIdsByItemIds(pending)) {
+                result.get((Long) row[0]).add((String) row[1]);
+            }
+        }
+        return result;
     }
     
     @Override
@@ -546,31 +624,37 @@ public class ItemServiceImpl implements ItemService {
         List<Item> items = itemRepository.findByUserOrderByCreateTimeDesc(user);
         
         // 转换为DTO并返回
-        return items.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return new ArrayList<>(convertToDTOs(items));
     }
 
-    // 新增：ES实体转DTO
-    private ItemDTO convertESDocToDTO(ItemDocument doc) {
-        return ItemDTO.builder()
+    // 新增：ES实体转DTO，整页图片统一签名
+    private List<ItemDTO> convertESDocsToDTOs(List<ItemDocument> docs) {
+        Set<String> toSign = new java.util.LinkedHashSet<>();
+        for (ItemDocument doc : docs) {
+            if (doc.getImageIds() != null) toSign.addAll(doc.getImageIds());
+            if (doc.getUserAvatar() != null) toSign.add(doc.getUserAvatar());
+        }
+        Map<String, String> signedUrls = imageService.generateImageAccessTokens(toSign);
+        return docs.stream().map(doc -> ItemDTO.builder()
                 .id(doc.getId())
                 .name(doc.getName())
                 .categoryId(doc.getCategoryId())
                 .categoryName(doc.getCategoryName())
                 .price(doc.getPrice())
                 .description(doc.getDescription())
-                .imageUrls(doc.getImageIds() == null ? null : doc.getImageIds().stream().map(imageService::generateImageAccessToken).collect(Collectors.toList()))
+                .imageUrls(doc.getImageIds() == null ? null : doc.getImageIds().stream().map(signedUrls::get).collect(Collectors.toList()))
+                .imageIds(doc.getImageIds())
                 .condition(doc.getItemCondition())
                 .status(doc.getStatus())
                 .popularity(doc.getPopularity())
                 .userId(doc.getUserId())
                 .username(doc.getUsername())
-                .userAvatar(doc.getUserAvatar() != null ? imageService.generateImageAccessToken(doc.getUserAvatar()) : null)
+                .userAvatar(doc.getUserAvatar() != null ? signedUrls.get(doc.getUserAvatar()) : null)
                 .createTime(doc.getCreateTime())
                 .updateTime(doc.getUpdateTime())
                 .stock(doc.getStock())
-                .build();
+                .build())
+                .collect(Collectors.toList());
     }
 
     // 辅助方法：获取物品或抛出异常
@@ -581,52 +665,23 @@ public class ItemServiceImpl implements ItemService {
 
     // 辅助方法：检查是否是物品所有者
     private void checkItemOwner(Item item) {
-        User currentUser = SecurityUtil.getCurrentUser();
-        if (!item.getUser().getId().equals(currentUser.getId())) {
+        if (!item.getUser().getId().equals(SecurityUtil.getCurrentUserId())) {
             throw new RuntimeException("只有物品所有者才能执行此操作");
         }
     }
 
-    // 辅助方法：获取当前登录用户
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userService.findByUsername(username);
-    }
-
     /**
      * 批量同步所有商品到ElasticSearch
      */
     @Transactional
     public void syncAllItemsToES() {
-        List<Item> allItems = itemRepository.findAll();
-        List<ItemDocument> docs = new ArrayList<>();
-        for (Item item : allItems) {
-            // 强制初始化imageIds，防止懒加载异常
-            if (item.getImageIds() != null) {
-                item.getImageIds().size();
-            }
-            ItemDocument doc = new ItemDocument();
-            doc.setId(item.getId());
-            doc.setName(item.getName());
-            doc.setCategoryId(item.getCategory() != null ? item.getCategory().getId() : null);
-            doc.setCategoryName(item.getCategory() != null ? item.getCategory().getName() : null);
-            doc.setPrice(item.getPrice());
-            doc.setDescription(item.getDescription());
-            doc.setImageIds(item.getImageIds());
-            doc.setItemCondition(item.getItemCondition());
-            doc.setStatus(item.getStatus());
-            doc.setPopularity(item.getPopularity());
-            doc.setUserId(item.getUser() != null ? item.getUser().getId() : null);
-            doc.setUsername(item.getUser() != null ? item.getUser().getUsername() : null);
-            doc.setUserAvatar(item.getUser() != null ? item.getUser().getAvatarImageId() : null);
-            doc.setCreateTime(item.getCreateTime());
-            doc.setUpdateTime(item.getUpdateTime());
-            doc.setStock(item.getStock());
-            docs.add(doc);
+        // 分块流式写入新索引并切换别名，避免一次性加载全部物品
+        try {
+            Map<String, String> status = itemReindexJob.run(false);
+            log.info("已同步商品数据到ElasticSearch: {}", status);
+        } catch (Exception e) {
+            throw new RuntimeException("同步商品数据到ElasticSearch失败: " + e.getMessage(), e);
         }
-        itemESRepository.saveAll(docs);
-        System.out.println("已同步商品数据到ElasticSearch，数量：" + docs.size());
     }
 
     // 辅助方法：调用Qwen3生成商品描述
@@ -674,60 +729,54 @@ public class ItemServiceImpl implements ItemService {
 
     // 获取最热商品（前5）
     public List<ItemDTO> getHotItems(int topN) {
-        Set<String> hotItemIds = stringRedisTemplate.opsForZSet().reverseRange("hot:items", 0, topN - 1);
-        List<ItemDTO> hotItems = new ArrayList<>();
-        if (hotItemIds == null || hotItemIds.isEmpty()) return hotItems;
-        for (String idStr : hotItemIds) {
-            String cacheKey = "item:detail:" + idStr;
-            String cached = stringRedisTemplate.opsForValue().get(cacheKey);
-            ItemDTO dto = null;
-            if (cached != null) {
-                dto = com.alibaba.fastjson.JSON.parseObject(cached, ItemDTO.class);
-            } else {
-                Long id = Long.valueOf(idStr);
-                Item item = itemRepository.findById(id).orElse(null);
-                if (item != null) {
-                    dto = convertToDTO(item);
-                    stringRedisTemplate.opsForValue().set(cacheKey, com.alibaba.fastjson.JSON.toJSONString(dto), java.time.Duration.ofMinutes(10));
-                }
-            }
-            if (dto != null) hotItems.add(dto);
+        return getHotItems(null, topN);
+    }
+
+    @Override
+    public List<ItemDTO> getHotItems(Long categoryId, int topN) {
+        List<ItemDTO> items = getItemsByIds(itemTrendingEngine.top(categoryId, topN));
+        if (items.size() >= topN) return items;
+        // 热度榜只统计近期浏览，刚上线或近期没有浏览时不足 topN，用累计热度最高的在售物品补齐
+        Page<Item> fallback = categoryId == null
+                ? itemRepository.findByStatusAndStockGreaterThan(1, 0,
+                        PageRequest.of(0, topN, Sort.by(Sort.Direction.DESC, "popularity", "id")))
+                : itemRepository.findByCategoryIdInAndStatusAndStockGreaterThanOrderByPopularityDesc(
+                        getCategoryIdsWithDescendants(categoryId), 1, 0, PageRequest.of(0, topN));
+        Set<Long> seen = items.stream().map(ItemDTO::getId).collect(Collectors.toSet());
+        for (ItemDTO dto : convertToDTOs(fallback.getContent())) {
+            if (items.size() >= topN) break;
+            if (dto != null && seen.add(dto.getId())) items.add(dto);
         }
-        return hotItems;
+        return items;
     }
 
-    // 定时任务：每5分钟刷新前5商品详情缓存
-    @Scheduled(cron = "0 */5 * * * ?")
-    public void refreshHotItemDetails() {
-        Set<String> hotItemIds = stringRedisTemplate.opsForZSet().reverseRange("hot:items", 0, 4);
-        if (hotItemIds == null || hotItemIds.isEmpty()) return;
-        for (String idStr : hotItemIds) {
-            Long id = Long.valueOf(idStr);
-            Item item = itemRepository.findById(id).orElse(null);
-            if (item != null) {
-                ItemDTO dto = convertToDTO(item);
-                stringRedisTemplate.opsForValue().set("item:detail:" + idStr, com.alibaba.fastjson.JSON.toJSONString(dto), java.time.Duration.ofMinutes(10));
-            }
+    @Override
+    public List<ItemDTO> getItemsByIds(List<Long> ids) {
+        List<ItemDTO> items = new ArrayList<>();
+        if (ids == null || ids.isEmpty()) return items;
+        Map<Long, ItemDTO> dtoMap = itemDetailCache.getAll(ids, this::loadItemDTOs);
+        for (Long id : ids) {
+            ItemDTO dto = dtoMap.get(id);
+            if (dto != null) items.add(dto);
         }
+        return items;
     }
 
-    // 获取所有物品分类（优先从 Redis）
-    public List<Category> getAllCategoriesFromCache() {
-        String cacheKey = "category:all";
-        String cached = stringRedisTemplate.opsForValue().get(cacheKey);
-        if (cached != null) {
-            return com.alibaba.fastjson.JSON.parseArray(cached, Category.class);
+    // 辅助方法：一次查询加载一批物品并转换为DTO
+    private Map<Long, ItemDTO> loadItemDTOs(List<Long> ids) {
+        Map<Long, ItemDTO> result = new HashMap<>();
+        for (ItemDTO dto : convertToDTOs(itemRepository.findAllById(ids))) {
+            if (dto != null) result.put(dto.getId(), dto);
         }
-        List<Category> categories = categoryRepository.findAll();
-        stringRedisTemplate.opsForValue().set(cacheKey, com.alibaba.fastjson.JSON.toJSONString(categories), java.time.Duration.ofMinutes(30));
-        return categories;
+        return result;
     }
 
-    // 定时任务：每5分钟刷新分类缓存
-    @org.springframework.scheduling.annotation.Scheduled(cron = "0 */5 * * * ?")
-    public void refreshCategoryCache() {
-        List<Category> categories = categoryRepository.findAll();
-        stringRedisTemplate.opsForValue().set("category:all", com.alibaba.fastjson.JSON.toJSONString(categories), java.time.Duration.ofMinutes(30));
+    // 定时任务：每5分钟刷新前5商品详情缓存
+    @Scheduled(cron = "0 */5 * * * ?")
+    public void refreshHotItemDetails() {
+        List<Long> ids = itemTrendingEngine.top(null, HOT_DETAIL_CACHE_SIZE);
+        if (ids.isEmpty()) return;
+        itemDetailCache.putAll(loadItemDTOs(ids));
     }
 }
 
@@ -759,35 +808,89 @@ class RedisPopularityInitializer implements ApplicationRunner {
     }
 }
 
+/**
+ * 浏览量回写数据库
+ *
+ * 只同步 item:view:dirty 中记录的有变化的物品：SPOP 分块取出（多节点间不会重复处理），
+ * MGET 读取浏览量，每块一次 JDBC 批量 UPDATE，数据库只保留较大值。
+ */
 @Component
 class ItemPopularitySyncTask {
+    private static final Logger log = LoggerFactory.getLogger(ItemPopularitySyncTask.class);
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
     @Autowired
-    private ItemRepository itemRepository;
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ItemIndexService itemIndexService;
+    @Autowired
+    private ItemReindexJob itemReindexJob;
+    @Autowired
+    private MeterRegistry meterRegistry;
     private static final String ITEM_VIEW_KEY_PREFIX = "item:view:";
+    private static final String DIRTY_KEY = ItemViewCounter.DIRTY_KEY;
+    // 只在浏览量变大时更新，更新行数即可判断是否需要重建索引
+    private static final String UPDATE_SQL = "UPDATE t_item SET popularity = GREATEST(popularity, ?) WHERE id = ? AND popularity < ?";
+
+    @Value("${app.view-counter.sync-chunk-size:500}")
+    private int chunkSize = 500;
+
     // 每5分钟执行一次
     @Scheduled(cron = "0 */5 * * * ?")
     public void syncPopularityToDb() {
-        Set<String> keys = stringRedisTemplate.keys(ITEM_VIEW_KEY_PREFIX + "*");
-        if (keys == null || keys.isEmpty()) return;
-        for (String key : keys) {
-            String itemIdStr = key.substring(ITEM_VIEW_KEY_PREFIX.length());
-            Long itemId = Long.valueOf(itemIdStr);
-            String value = stringRedisTemplate.opsForValue().get(key);
-            if (value != null) {
-                Long redisPopularity = Long.valueOf(value);
-                itemRepository.findById(itemId).ifPresent(item -> {
-                    int dbPopularity = item.getPopularity();
-                    int newPopularity = Math.max(dbPopularity, redisPopularity.intValue());
-                    item.setPopularity(newPopularity);
-                    itemRepository.save(item);
-                });
+        long start = System.nanoTime();
+        int synced = 0;
+        List<String> chunk;
+        while ((chunk = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, chunkSize)) != null && !chunk.isEmpty()) {
+            try {
+                synced += syncChunk(chunk);
+            } catch (RuntimeException e) {
+                // 放回脏集合，下次重试
+                stringRedisTemplate.opsForSet().add(DIRTY_KEY, chunk.toArray(new String[0]));
+                log.warn("同步浏览量到数据库失败: {}", e.getMessage());
+                break;
+            }
+        }
+        meterRegistry.counter("item.popularity.sync.rows").increment(synced);
+        meterRegistry.timer("item.popularity.sync.duration").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private int syncChunk(List<String> ids) {
+        List<String> keys = ids.stream().map(id -> ITEM_VIEW_KEY_PREFIX + id).collect(Collectors.toList());
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        if (values == null) return 0;
+        List<Long> itemIds = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+        for (int i = 0; i < ids.size() && i < values.size(); i++) {
+            if (values.get(i) == null) continue;
+            try {
+                Long itemId = Long.valueOf(ids.get(i));
+                long popularity = Long.parseLong(values.get(i));
+                itemIds.add(itemId);
+                args.add(new Object[]{popularity, itemId, popularity});
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        if (args.isEmpty()) return 0;
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+        List<Long> changed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            // 驱动未返回具体行数时按已变更处理
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                changed.add(itemIds.get(i));
             }
         }
+        // 先记录再入队：入队的变更若在别名切换前同步到旧索引，切换后还会按记录重新入队
+        itemReindexJob.recordChanged(changed);
+        itemIndexService.enqueueAll(changed);
+        return changed.size();
     }
-} 
+}
 
+/**
+ * 平台统计校正任务：启动时和每小时按数据库重算一次，纠正增量计数的偏差。
+ * 重算期间发生的少量增量可能被覆盖，下次校正时会再被纠正。
+ */
 @Component
 class PlatformStatsSyncTask implements ApplicationRunner {
     @Autowired
@@ -797,16 +900,20 @@ class PlatformStatsSyncTask implements ApplicationRunner {
     @Autowired
     private OrderRepository orderRepository;
     @Autowired
-    private StringRedisTemplate stringRedisTemplate;
-    private static final String PLATFORM_STATS_KEY = "platform:stats";
+    private PlatformStatsCounter platformStatsCounter;
 
     @Override
     public void run(ApplicationArguments args) {
-        Map<String, String> stats = new HashMap<>();
-        stats.put("totalItems", String.valueOf(itemRepository.countByStatus(1)));
-        stats.put("completedOrders", String.valueOf(itemRepository.countByStatus(3)));
-        stats.put("totalUsers", String.valueOf(userService.getTotalUsers()));
-        stats.put("totalOrders", String.valueOf(orderRepository.count()));
-        stringRedisTemplate.opsForHash().putAll(PLATFORM_STATS_KEY, stats);
-    }
-} 
\ No newline at end of file
+        reconcile();
+    }
+
+    @Scheduled(cron = "${app.platform-stats.reconcile-cron:0 30 * * * ?}")
+    public void reconcile() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put(PlatformStatsCounter.TOTAL_ITEMS, itemRepository.countByStatus(1));
+        stats.put(PlatformStatsCounter.COMPLETED_ORDERS, orderRepository.countByStatus(4));
+        stats.put(PlatformStatsCounter.TOTAL_USERS, userService.getTotalUsers());
+        stats.put(PlatformStatsCounter.TOTAL_ORDERS, orderRepository.count());
+        platformStatsCounter.reset(stats);
+    }
+}
@@ -0,0 +1,216 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.cache.CategoryTree;
+import com.campus.trading.repository.ItemRepository;
+import com.campus.trading.service.CategoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 物品热度榜（按时间衰减）
+ *
+ * 浏览增量写入按小时分桶的 ZSET trending:h:{小时}，桶过期时间为窗口长度，自动清理。
+ * 定时用 ZUNIONSTORE 按衰减权重（每过 half-life-hours 小时权重减半）合并窗口内的桶，
+ * 再按分数从高到低分页扫描整个合并结果，过滤掉下架、售出和无库存的物品后，写入总榜 trending:items
+ * 和分类榜 trending:cat:{分类ID}（物品同时计入其所有上级分类），每个榜单只保留前 size 名。
+ * 各节点都按周期触发，通过 Redis 租约（SET NX PX）每个周期只由一个节点重建。读取时一次 ZREVRANGE 即可。
+ */
+@Component
+class ItemTrendingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemTrendingEngine.class);
+
+    static final String BUCKET_PREFIX = "trending:h:";
+    static final String TRENDING_KEY = "trending:items";
+    static final String CATEGORY_PREFIX = "trending:cat:";
+    private static final String MERGE_KEY = "trending:merge";
+    private static final String LEASE_KEY = "trending:rebuild:lease";
+    private static final long HOUR_MILLIS = 3600_000L;
+    /**
+     * 扫描合并结果时每页的物品数
+     */
+    private static final int SCAN_PAGE = 500;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CategoryService categoryService;
+
+    @Value("${app.trending.window-hours:24}")
+    private int windowHours = 24;
+
+    @Value("${app.trending.half-life-hours:6}")
+    private double halfLifeHours = 6;
+
+    @Value("${app.trending.size:200}")
+    private int size = 200;
+
+    @Value("${app.trending.rebuild-interval-ms:60000}")
+    private long rebuildIntervalMs = 60000;
+
+    /**
+     * 当前小时的分桶键
+     */
+    static String currentBucketKey() {
+        return BUCKET_PREFIX + System.currentTimeMillis() / HOUR_MILLIS;
+    }
+
+    /**
+     * 分桶保留时长：窗口长度再多一小时，保证合并时窗口内的桶都还在
+     */
+    Duration bucketTtl() {
+        return Duration.ofHours(windowHours + 1L);
+    }
+
+    /**
+     * 热度榜前N名的物品ID
+     *
+     * @param categoryId 分类ID，为空时取总榜
+     * @param topN       前N名
+     */
+    List<Long> top(Long categoryId, int topN) {
+        if (topN <= 0) return Collections.emptyList();
+        String key = categoryId == null ? TRENDING_KEY : CATEGORY_PREFIX + categoryId;
+        Set<String> ids = stringRedisTemplate.opsForZSet().reverseRange(key, 0, topN - 1);
+        List<Long> result = new ArrayList<>();
+        if (ids == null) return result;
+        for (String id : ids) {
+            result.add(Long.valueOf(id));
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.rebuild-interval-ms:60000}")
+    public void rebuild() {
+        try {
+            doRebuild();
+        } catch (DataAccessException e) {
+            log.warn("重建热度榜失败: {}", e.getMessage());
+        }
+    }
+
+    void doRebuild() {
+        if (!acquireLease()) return;
+        long currentHour = System.currentTimeMillis() / HOUR_MILLIS;
+        List<String> keys = new ArrayList<>(windowHours);
+        double[] weights = new double[windowHours];
+        for (int age = 0; age < windowHours; age++) {
+            keys.add(BUCKET_PREFIX + (currentHour - age));
+            weights[age] = Math.pow(0.5, age / halfLifeHours);
+        }
+        // 租约过期后的重建可能与仍在进行的上一次重叠，合并结果和待发布的榜单都写到各自的临时键
+        String rebuildId = UUID.randomUUID().toString();
+        String mergeKey = MERGE_KEY + ":" + rebuildId;
+        stringRedisTemplate.opsForZSet().unionAndStore(keys.get(0), keys.subList(1, keys.size()), mergeKey,
+                RedisZSetCommands.Aggregate.SUM, RedisZSetCommands.Weights.of(weights));
+
+        CategoryTree tree = categoryService.getCategoryTree();
+        Set<ZSetOperations.TypedTuple<String>> overall = new LinkedHashSet<>();
+        Map<Long, Set<ZSetOperations.TypedTuple<String>>> byCategory = new HashMap<>();
+        try {
+            // 小分类的物品可能排在总榜很靠后，只取总榜前若干名会让分类榜残缺，因此扫描全部候选
+            for (long start = 0; ; start += SCAN_PAGE) {
+                Set<ZSetOperations.TypedTuple<String>> page =
+                        stringRedisTemplate.opsForZSet().reverseRangeWithScores(mergeKey, start, start + SCAN_PAGE - 1);
+                if (page == null || page.isEmpty()) break;
+                collect(page, tree, overall, byCategory);
+                if (page.size() < SCAN_PAGE) break;
+            }
+        } finally {
+            stringRedisTemplate.delete(mergeKey);
+        }
+        publish(overall, byCategory, rebuildId);
+    }
+
+    // 按分数顺序把一页候选中可售的物品加入总榜和其所在分类及上级分类的榜单
+    private void collect(Set<ZSetOperations.TypedTuple<String>> page, CategoryTree tree,
+                         Set<ZSetOperations.TypedTuple<String>> overall,
+                         Map<Long, Set<ZSetOperations.TypedTuple<String>>> byCategory) {
+        List<ZSetOperations.TypedTuple<String>> tuples = new ArrayList<>(page.size());
+        List<Long> ids = new ArrayList<>(page.size());
+        for (ZSetOperations.TypedTuple<String> tuple : page) {
+            if (tuple.getValue() == null || tuple.getScore() == null) continue;
+            tuples.add(tuple);
+            ids.add(Long.valueOf(tuple.getValue()));
+        }
+        if (ids.isEmpty()) return;
+        // 只查可售物品的ID和分类ID，不加载实体及其关联的发布者和分类；每行为 [物品ID, 分类ID]
+        Map<Long, Long> categoryOf = new HashMap<>();
+        for (Object[] row : itemRepository.findLiveItemCategoryIds(ids)) {
+            categoryOf.put((Long) row[0], (Long) row[1]);
+        }
+        for (int i = 0; i < tuples.size(); i++) {
+            if (!categoryOf.containsKey(ids.get(i))) continue;
+            ZSetOperations.TypedTuple<String> tuple = tuples.get(i);
+            if (overall.size() < size) overall.add(tuple);
+            Long itemCategoryId = categoryOf.get(ids.get(i));
+            if (itemCategoryId == null) continue;
+            for (Long categoryId : tree.getAncestorIds(itemCategoryId)) {
+                Set<ZSetOperations.TypedTuple<String>> category =
+                        byCategory.computeIfAbsent(categoryId, k -> new LinkedHashSet<>());
+                if (category.size() < size) category.add(tuple);
+            }
+        }
+    }
+
+    // 租约不主动释放，本周期内其他节点的重建直接跳过；时长略短于周期，持有节点下个周期能再次取得
+    private boolean acquireLease() {
+        Duration lease = Duration.ofMillis(Math.max(1, rebuildIntervalMs * 9 / 10));
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                .setIfAbsent(LEASE_KEY, UUID.randomUUID().toString(), lease));
+    }
+
+    // 先写临时键再 RENAME，读方不会看到写了一半的榜单；分类榜过期时间为几个重建周期，不再上榜的分类自动消失
+    private void publish(Set<ZSetOperations.TypedTuple<String>> overall,
+                         Map<Long, Set<ZSetOperations.TypedTuple<String>>> byCategory, String rebuildId) {
+        Duration categoryTtl = Duration.ofMillis(rebuildIntervalMs * 5);
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                replace(ops, TRENDING_KEY, overall, null, rebuildId);
+                byCategory.forEach((categoryId, tuples) ->
+                        replace(ops, CATEGORY_PREFIX + categoryId, tuples, categoryTtl, rebuildId));
+                return null;
+            }
+        });
+    }
+
+    // 临时键按重建区分，多个节点同时重建时不会往同一个临时键里交错写入
+    private static void replace(RedisOperations<String, String> ops, String key,
+                                Set<ZSetOperations.TypedTuple<String>> tuples, Duration ttl, String rebuildId) {
+        if (tuples.isEmpty()) {
+            ops.delete(key);
+            return;
+        }
+        String tmp = key + ":next:" + rebuildId;
+        ops.opsForZSet().add(tmp, tuples);
+        ops.rename(tmp, key);
+        if (ttl != null) {
+            ops.expire(key, ttl);
+        }
+    }
+}
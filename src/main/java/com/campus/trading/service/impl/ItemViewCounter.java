@@ -0,0 +1,134 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.entity.Item;
+import com.campus.trading.repository.ItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 物品浏览量的进程内累加器（写回式）
+ *
+ * 浏览时只在本地 LongAdder 上累加，不访问 Redis；后台每隔 app.view-counter.flush-interval-ms
+ * 把所有增量用一次 pipeline 写入 item:view:{id} 和当前小时的热度分桶（见 ItemTrendingEngine），
+ * 并把物品ID加入 item:view:dirty，由 ItemPopularitySyncTask 只同步有变化的物品。
+ *
+ * 丢失边界：进程被强制终止时，最多丢失最近一个刷新周期内的浏览增量；
+ * 正常停机时 @PreDestroy 会做最后一次刷新。刷新失败的增量会加回累加器，下个周期重试。
+ * 取走增量与并发浏览之间没有加锁，恰好在取走瞬间累加到旧 LongAdder 上的个别浏览可能丢失，浏览量本身是近似值，可以接受。
+ */
+@Component
+class ItemViewCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemViewCounter.class);
+
+    static final String ITEM_VIEW_KEY_PREFIX = "item:view:";
+    static final String DIRTY_KEY = "item:view:dirty";
+
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemTrendingEngine itemTrendingEngine;
+
+    /**
+     * 记录一次浏览
+     */
+    void increment(Long itemId) {
+        pending.computeIfAbsent(itemId, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * 尚未写入 Redis 的浏览增量
+     */
+    long pendingCount(Long itemId) {
+        LongAdder adder = pending.get(itemId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.view-counter.flush-interval-ms:300}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+        // 取走增量：先移除再读数，之后的浏览会落到新的 LongAdder 上
+        List<Long> ids = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        for (Long itemId : pending.keySet()) {
+            LongAdder adder = pending.remove(itemId);
+            if (adder == null) continue;
+            long delta = adder.sum();
+            if (delta <= 0) continue;
+            ids.add(itemId);
+            deltas.add(delta);
+        }
+        if (ids.isEmpty()) return;
+        List<Object> results;
+        try {
+            String bucket = ItemTrendingEngine.currentBucketKey();
+            long bucketTtl = itemTrendingEngine.bucketTtl().getSeconds();
+            results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (int i = 0; i < ids.size(); i++) {
+                    String member = ids.get(i).toString();
+                    conn.incrBy(ITEM_VIEW_KEY_PREFIX + member, deltas.get(i));
+                    conn.zIncrBy(bucket, deltas.get(i), member);
+                    conn.sAdd(DIRTY_KEY, member);
+                }
+                conn.expire(bucket, bucketTtl);
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("刷新浏览量到Redis失败，稍后重试: {}", e.getMessage());
+            for (int i = 0; i < ids.size(); i++) {
+                pending.computeIfAbsent(ids.get(i), k -> new LongAdder()).add(deltas.get(i));
+            }
+            return;
+        }
+        seedNewKeys(ids, deltas, results);
+    }
+
+    // INCRBY 结果等于增量说明 Redis 中原本没有该键，补上数据库中的浏览量
+    private void seedNewKeys(List<Long> ids, List<Long> deltas, List<Object> results) {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object value = results.size() > i * 3 ? results.get(i * 3) : null;
+            if (value instanceof Long && (Long) value == deltas.get(i).longValue()) {
+                created.add(ids.get(i));
+            }
+        }
+        if (created.isEmpty()) return;
+        Map<Long, Integer> dbPopularity = new HashMap<>();
+        for (Item item : itemRepository.findAllById(created)) {
+            if (item.getPopularity() != null && item.getPopularity() > 0) {
+                dbPopularity.put(item.getId(), item.getPopularity());
+            }
+        }
+        if (dbPopularity.isEmpty()) return;
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            dbPopularity.forEach((id, popularity) -> conn.incrBy(ITEM_VIEW_KEY_PREFIX + id, popularity));
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,136 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内订单事件队列（默认传输方式）
+ *
+ * 事件放入有界队列由后台线程消费，队列满时由投递线程自己处理，起到限流作用；
+ * 投递线程此时处在订单事务的提交回调中，消费者各自以 REQUIRES_NEW 开启新事务写库。
+ * 有消费者失败时按指数退避重新分发，已完成的消费者由分发器的幂等标记跳过，达到次数上限后记录并放弃。
+ * 进程重启会丢失队列中未处理和等待重试的事件，需要可靠投递时切换为 rabbit。
+ */
+@Component
+@ConditionalOnProperty(name = "app.order-events.transport", havingValue = "local", matchIfMissing = true)
+class LocalOrderEventTransport implements OrderEventTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalOrderEventTransport.class);
+
+    private final OrderEventDispatcher dispatcher;
+    private final Executor executor;
+    private final ScheduledExecutorService retryScheduler;
+
+    /**
+     * 每个事件最多分发的次数（含第一次）
+     */
+    private final int maxAttempts;
+
+    /**
+     * 第一次重试前的等待时间，之后每次翻倍
+     */
+    private final long retryBackoffMs;
+
+    @Autowired
+    LocalOrderEventTransport(OrderEventDispatcher dispatcher,
+                             @Value("${app.order-events.local.threads:2}") int threads,
+                             @Value("${app.order-events.local.queue-capacity:10000}") int queueCapacity,
+                             @Value("${app.order-events.local.max-attempts:5}") int maxAttempts,
+                             @Value("${app.order-events.local.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this(dispatcher, newExecutor(threads, queueCapacity), newRetryScheduler(), maxAttempts, retryBackoffMs);
+    }
+
+    /**
+     * 测试中可传入同步执行器，不重试
+     */
+    LocalOrderEventTransport(OrderEventDispatcher dispatcher, Executor executor) {
+        this(dispatcher, executor, null, 1, 0);
+    }
+
+    LocalOrderEventTransport(OrderEventDispatcher dispatcher, Executor executor,
+                             ScheduledExecutorService retryScheduler, int maxAttempts, long retryBackoffMs) {
+        this.dispatcher = dispatcher;
+        this.executor = executor;
+        this.retryScheduler = retryScheduler;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    static ExecutorService newExecutor(int threads, int queueCapacity) {
+        AtomicInteger seq = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "order-event-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static ScheduledExecutorService newRetryScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-event-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void send(OrderEvent event) {
+        submit(event, 1);
+    }
+
+    private void submit(OrderEvent event, int attempt) {
+        executor.execute(() -> dispatch(event, attempt));
+    }
+
+    private void dispatch(OrderEvent event, int attempt) {
+        try {
+            dispatcher.dispatch(event);
+        } catch (RuntimeException e) {
+            if (attempt >= maxAttempts) {
+                log.error("订单事件 {}({}) 分发 {} 次仍失败，放弃: orderId={}",
+                        event.getEventId(), event.getType(), attempt, event.getOrderId(), e);
+                return;
+            }
+            long delay = retryBackoffMs << Math.min(attempt - 1, 20);
+            log.warn("订单事件 {}({}) 第 {} 次分发失败，{} ms 后重试: {}",
+                    event.getEventId(), event.getType(), attempt, delay, e.getMessage());
+            try {
+                retryScheduler.schedule(() -> submit(event, attempt + 1), delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException rejected) {
+                log.error("订单事件 {}({}) 无法安排重试，放弃: orderId={}",
+                        event.getEventId(), event.getType(), event.getOrderId(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+        }
+        if (executor instanceof ExecutorService) {
+            ExecutorService service = (ExecutorService) executor;
+            service.shutdown();
+            service.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
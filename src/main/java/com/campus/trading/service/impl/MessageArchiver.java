@@ -0,0 +1,183 @@
+package com.campus.trading.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * 已读通知归档
+ *
+ * 每晚把超过保留天数的已读评论、收藏和订单通知分批移到 messages_archive（同一事务内 INSERT ... SELECT 后 DELETE），
+ * 让 messages 只保留未读通知、近期通知和聊天记录。聊天记录是会话内容，不归档。
+ * 归档表按 created_at 每月一个分区，任务自动补齐到未来几个月，可按月 DROP PARTITION 清理。
+ * messages 本身不分区：MySQL 分区表不支持外键，而评论、收藏、订单删除时依赖外键级联删除对应消息。
+ */
+@Component
+class MessageArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageArchiver.class);
+
+    static final String ARCHIVE_TABLE = "messages_archive";
+    static final String CATCH_ALL_PARTITION = "p_max";
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final String COLUMNS = "id, recipient_id, sender_id, created_at, is_read, message_type, content, "
+            + "item_id, chat_id, comment_id, favorite_id, order_id, status, status_text";
+
+    // 分区键必须包含在主键中；分区表不能有外键，被引用的记录删除后归档数据保持原样
+    private static final String CREATE_ARCHIVE_SQL = "CREATE TABLE IF NOT EXISTS " + ARCHIVE_TABLE + " ("
+            + "id BIGINT NOT NULL, "
+            + "recipient_id BIGINT, "
+            + "sender_id BIGINT, "
+            + "created_at DATETIME(6) NOT NULL, "
+            + "is_read BIT(1) NOT NULL, "
+            + "message_type VARCHAR(31) NOT NULL, "
+            + "content VARCHAR(1000), "
+            + "item_id BIGINT, "
+            + "chat_id BIGINT, "
+            + "comment_id BIGINT, "
+            + "favorite_id BIGINT, "
+            + "order_id BIGINT, "
+            + "status VARCHAR(255), "
+            + "status_text VARCHAR(255), "
+            + "archived_at DATETIME(6) NOT NULL, "
+            + "PRIMARY KEY (id, created_at), "
+            + "KEY idx_messages_archive_recipient_created (recipient_id, created_at)"
+            + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 "
+            + "PARTITION BY RANGE COLUMNS (created_at) (PARTITION " + CATCH_ALL_PARTITION + " VALUES LESS THAN (MAXVALUE))";
+
+    private static final String PARTITIONS_SQL = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL";
+
+    // 走 idx_messages_type_read_created，只取ID，不排序
+    private static final String SELECT_IDS_SQL = "SELECT id FROM messages "
+            + "WHERE message_type IN ('COMMENT', 'FAVORITE', 'ORDER') AND is_read = TRUE AND created_at < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.message-archive.retention-days:90}")
+    private int retentionDays = 90;
+
+    @Value("${app.message-archive.batch-size:1000}")
+    private int batchSize = 1000;
+
+    /**
+     * 提前建好的月分区数，保证归档写入不会落到兜底分区
+     */
+    @Value("${app.message-archive.months-ahead:2}")
+    private int monthsAhead = 2;
+
+    /**
+     * 归档数据保留的月数，超过的月分区整体删除；0 表示永久保留
+     */
+    @Value("${app.message-archive.keep-months:0}")
+    private int keepMonths = 0;
+
+    @Autowired
+    MessageArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${app.message-archive.cron:0 30 4 * * ?}")
+    public void run() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            maintainPartitions(YearMonth.from(now));
+            int archived = archive(now.minusDays(retentionDays));
+            if (archived > 0) {
+                log.info("归档已读通知完成: {} 条", archived);
+            }
+        } catch (DataAccessException e) {
+            // 已完成的批次已提交，下次从剩余的记录继续
+            log.warn("归档已读通知失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 确保归档表存在，补齐从当前月到未来 monthsAhead 个月的分区，并删除超过保留期的分区
+     */
+    void maintainPartitions(YearMonth current) {
+        jdbcTemplate.execute(CREATE_ARCHIVE_SQL);
+        TreeSet<YearMonth> existing = new TreeSet<>();
+        for (String name : jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, ARCHIVE_TABLE)) {
+            YearMonth month = monthOf(name);
+            if (month != null) existing.add(month);
+        }
+
+        // 只能从兜底分区拆出新分区，因此只补在已有分区之后
+        YearMonth from = existing.isEmpty() ? current : existing.last().plusMonths(1);
+        List<String> added = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            added.add("PARTITION " + month.format(PARTITION_NAME)
+                    + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        if (!added.isEmpty()) {
+            added.add("PARTITION " + CATCH_ALL_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+            jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_TABLE + " REORGANIZE PARTITION " + CATCH_ALL_PARTITION
+                    + " INTO (" + String.join(", ", added) + ")");
+        }
+
+        if (keepMonths > 0) {
+            // 第一个分区还兼收更早的记录，至少保留一个分区
+            List<String> expired = existing.headSet(current.minusMonths(keepMonths)).stream()
+                    .limit(Math.max(0, existing.size() - 1))
+                    .map(month -> month.format(PARTITION_NAME))
+                    .collect(Collectors.toList());
+            if (!expired.isEmpty()) {
+                jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_TABLE + " DROP PARTITION " + String.join(", ", expired));
+            }
+        }
+    }
+
+    /**
+     * 分批归档 cutoff 之前的已读通知，每批一个短事务
+     *
+     * @return 归档的条数
+     */
+    int archive(LocalDateTime cutoff) {
+        int total = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_IDS_SQL, Long.class, Timestamp.valueOf(cutoff), batchSize);
+            if (ids.isEmpty()) break;
+            Integer moved = transactionTemplate.execute(status -> moveBatch(ids));
+            total += moved != null ? moved : 0;
+            if (ids.size() < batchSize) break;
+        }
+        return total;
+    }
+
+    private int moveBatch(List<Long> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Object[] args = ids.toArray();
+        jdbcTemplate.update("INSERT IGNORE INTO " + ARCHIVE_TABLE + " (" + COLUMNS + ", archived_at) "
+                + "SELECT " + COLUMNS + ", NOW(6) FROM messages WHERE id IN (" + placeholders + ")", args);
+        return jdbcTemplate.update("DELETE FROM messages WHERE id IN (" + placeholders + ")", args);
+    }
+
+    private static YearMonth monthOf(String partitionName) {
+        try {
+            return YearMonth.parse(partitionName, PARTITION_NAME);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -2,12 +2,14 @@ package com.campus.trading.service.impl;
 
 import com.campus.trading.dto.*;
 import com.campus.trading.entity.*;
+import com.campus.trading.repository.ChatConversationRepository;
 import com.campus.trading.repository.CommentRepository;
 import com.campus.trading.repository.ItemRepository;
 import com.campus.trading.repository.MessageRepository;
 import com.campus.trading.repository.UserRepository;
 import com.campus.trading.service.ImageService;
 import com.campus.trading.service.MessageService;
+import com.campus.trading.service.PushService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -15,29 +17,41 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class MessageServiceImpl implements MessageService {
 
+    static final String PUSH_EVENT_NOTIFICATION = "notification";
+
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final CommentRepository commentRepository;
     private final ImageService imageService;
+    private final ChatConversationRepository chatConversationRepository;
+    private final PushService pushService;
+    private final MessageUnreadCounter unreadCounter;
 
     @Autowired
     public MessageServiceImpl(MessageRepository messageRepository, 
                              UserRepository userRepository,
                              ItemRepository itemRepository,
                              CommentRepository commentRepository,
-                             ImageService imageService) {
+                             ImageService imageService,
+                             ChatConversationRepository chatConversationRepository,
+                             PushService pushService,
+                             MessageUnreadCounter unreadCounter) {
         this.messageRepository = messageRepository;
         this.userRepository = userRepository;
         this.itemRepository = itemRepository;
         this.commentRepository = commentRepository;
         this.imageService = imageService;
+        this.chatConversationRepository = chatConversationRepository;
+        this.pushService = pushService;
+        this.unreadCounter = unreadCounter;
     }
 
     @Override
@@ -46,8 +60,13 @@ public class MessageServiceImpl implements MessageService {
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
         Page<Message> messages = messageRepository.findByRecipientOrderByCreatedAtDesc(user, pageable);
+        ChatReadWatermarks watermarks = ChatReadWatermarks.load(chatConversationRepository, messages.getContent());
         
-        Page<MessageDTO> messageDTOs = messages.map(this::convertToMessageDTO);
+        Page<MessageDTO> messageDTOs = messages.map(message -> {
+            MessageDTO dto = convertToMessageDTO(message);
+            dto.setRead(watermarks.isRead(message));
+            return dto;
+        });
         
         return new PageResponseDTO<MessageDTO>(
                 messageDTOs.getContent(),
@@ -200,9 +219,12 @@ public class MessageServiceImpl implements MessageService {
         Page<Message> messages = messageRepository.findByRecipientAndMessageTypeOrderByCreatedAtDesc(
                 user, "CHAT", pageable);
         
+        ChatReadWatermarks watermarks = ChatReadWatermarks.load(chatConversationRepository, messages.getContent());
         Page<ChatMessageDTO> chatMessageDTOs = messages.map(message -> {
             ChatMessage chatMessage = (ChatMessage) message;
-            return convertToChatMessageDTO(chatMessage);
+            ChatMessageDTO dto = convertToChatMessageDTO(chatMessage);
+            dto.setRead(watermarks.isRead(chatMessage));
+            return dto;
         });
         
         return new PageResponseDTO<ChatMessageDTO>(
@@ -223,9 +245,12 @@ public class MessageServiceImpl implements MessageService {
         Page<Message> messages = messageRepository.findBySenderOrRecipientAndMessageTypeOrderByCreatedAtDesc(
                 user, "CHAT", pageable);
         
+        ChatReadWatermarks watermarks = ChatReadWatermarks.load(chatConversationRepository, messages.getContent());
         Page<ChatMessageDTO> chatMessageDTOs = messages.map(message -> {
             ChatMessage chatMessage = (ChatMessage) message;
-            return convertToChatMessageDTO(chatMessage);
+            ChatMessageDTO dto = convertToChatMessageDTO(chatMessage);
+            dto.setRead(watermarks.isRead(chatMessage));
+            return dto;
         });
         
         return new PageResponseDTO<ChatMessageDTO>(
@@ -243,6 +268,13 @@ public class MessageServiceImpl implements MessageService {
         Message message = messageRepository.findById(messageId)
                 .orElseThrow(() -> new RuntimeException("消息不存在"));
         
+        // 聊天消息把接收者的已读水位推进到这条消息，通知扣减对应类型的未读数
+        if (message instanceof ChatMessage && message.getRecipient() != null) {
+            unreadCounter.markChatRead(((ChatMessage) message).getChatId(),
+                    message.getRecipient().getId(), message.getId());
+        } else if (!message.isRead() && message.getRecipient() != null) {
+            unreadCounter.increment(message.getRecipient().getId(), message.getMessageType(), -1);
+        }
         message.setRead(true);
         messageRepository.save(message);
     }
@@ -250,23 +282,28 @@ public class MessageServiceImpl implements MessageService {
     @Override
     @Transactional
     public void markAllAsRead(Long userId) {
-        User user = userRepository.findById(userId)
+        userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
-        List<Message> unreadMessages = messageRepository.findByRecipientAndReadFalse(user);
-        unreadMessages.forEach(message -> message.setRead(true));
-        messageRepository.saveAll(unreadMessages);
+        // 一条 UPDATE 标记全部通知，聊天消息只移动各会话的已读水位
+        messageRepository.markAllAsReadByRecipientId(userId);
+        chatConversationRepository.markAllRead(userId);
+        unreadCounter.clear(userId, MessageUnreadCounter.TYPES.toArray(new String[0]));
     }
 
     @Override
     @Transactional
     public void markAllAsReadByType(Long userId, String messageType) {
-        User user = userRepository.findById(userId)
+        userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
-        List<Message> unreadMessages = messageRepository.findUnreadMessagesByType(user, messageType);
-        unreadMessages.forEach(message -> message.setRead(true));
-        messageRepository.saveAll(unreadMessages);
+        if ("CHAT".equals(messageType)) {
+            chatConversationRepository.markAllRead(userId);
+            unreadCounter.clear(userId, messageType);
+        } else {
+            int updated = messageRepository.markAllAsReadByRecipientIdAndType(userId, messageType);
+            unreadCounter.increment(userId, messageType, -updated);
+        }
     }
 
     @Override
@@ -280,6 +317,7 @@ public class MessageServiceImpl implements MessageService {
         message.setRead(false);
         
         CommentMessage savedMessage = (CommentMessage) messageRepository.save(message);
+        notificationCreated(savedMessage, "COMMENT");
         return convertToCommentMessageDTO(savedMessage);
     }
 
@@ -294,6 +332,7 @@ public class MessageServiceImpl implements MessageService {
         message.setRead(false);
         
         FavoriteMessage savedMessage = (FavoriteMessage) messageRepository.save(message);
+        notificationCreated(savedMessage, "FAVORITE");
         return convertToFavoriteMessageDTO(savedMessage);
     }
 
@@ -324,7 +363,9 @@ public class MessageServiceImpl implements MessageService {
         OrderMessage savedBuyerMessage = (OrderMessage) messageRepository.save(buyerMessage);
         
         // 保存卖家的消息
-        messageRepository.save(sellerMessage);
+        Message savedSellerMessage = messageRepository.save(sellerMessage);
+        notificationCreated(savedBuyerMessage, "ORDER");
+        notificationCreated(savedSellerMessage, "ORDER");
         
         // 返回买家的消息DTO
         return convertToOrderMessageDTO(savedBuyerMessage);
@@ -334,7 +375,9 @@ public class MessageServiceImpl implements MessageService {
     @Transactional
     public CommentMessage saveCommentMessage(CommentMessage commentMessage) {
         if (commentMessage == null) throw new NullPointerException("commentMessage is null");
-        return (CommentMessage) messageRepository.save(commentMessage);
+        CommentMessage savedMessage = (CommentMessage) messageRepository.save(commentMessage);
+        notificationCreated(savedMessage, "COMMENT");
+        return savedMessage;
     }
     
     @Override
@@ -349,6 +392,7 @@ public class MessageServiceImpl implements MessageService {
             
             FavoriteMessage savedMessage = (FavoriteMessage) messageRepository.save(favoriteMessage);
             System.out.println("MessageServiceImpl.saveFavoriteMessage - 收藏消息保存成功: " + savedMessage.getId());
+            notificationCreated(savedMessage, "FAVORITE");
             return savedMessage;
         } catch (Exception e) {
             System.err.println("MessageServiceImpl.saveFavoriteMessage - 保存收藏消息失败: " + e.getMessage());
@@ -359,20 +403,50 @@ public class MessageServiceImpl implements MessageService {
 
     @Override
     public long countUnreadMessages(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-        
-        return messageRepository.countByRecipientAndReadFalse(user);
+        return unreadCounter.summary(userId).values().stream().mapToLong(Long::longValue).sum();
     }
 
     @Override
     public long countUnreadMessagesByType(Long userId, String messageType) {
+        if (MessageUnreadCounter.isCounted(messageType)) {
+            return unreadCounter.summary(userId).get(messageType);
+        }
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
         return messageRepository.countByRecipientAndMessageTypeAndReadFalse(user, messageType);
     }
     
+    @Override
+    public Map<String, Long> getUnreadSummary(Long userId) {
+        return unreadCounter.summary(userId);
+    }
+
+    // 新通知计入接收者的未读数并推送
+    private void notificationCreated(Message message, String messageType) {
+        if (message != null && message.getRecipient() != null) {
+            unreadCounter.increment(message.getRecipient().getId(), messageType, 1);
+        }
+        pushNotification(message, messageType);
+    }
+
+    // 新通知在事务提交后推送给接收者，客户端据此刷新列表和未读数，不再轮询
+    private void pushNotification(Message message, String messageType) {
+        if (message == null || message.getRecipient() == null) return;
+        MessageDTO dto = new MessageDTO();
+        dto.setId(message.getId());
+        dto.setMessageType(messageType);
+        dto.setCreatedAt(message.getCreatedAt());
+        dto.setRead(message.isRead());
+        if (message.getSender() != null) {
+            UserDTO senderDTO = new UserDTO();
+            senderDTO.setId(message.getSender().getId());
+            senderDTO.setUsername(message.getSender().getUsername());
+            dto.setSender(senderDTO);
+        }
+        pushService.push(message.getRecipient().getId(), PUSH_EVENT_NOTIFICATION, dto);
+    }
+
     // 转换方法
     private MessageDTO convertToMessageDTO(Message message) {
         MessageDTO dto = new MessageDTO();
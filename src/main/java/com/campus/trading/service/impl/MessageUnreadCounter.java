@@ -0,0 +1,276 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.repository.ChatConversationRepository;
+import com.campus.trading.repository.MessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按用户和消息类型的未读数（Redis 哈希 msg:unread:{用户ID}，字段为 COMMENT、FAVORITE、ORDER、CHAT）
+ *
+ * 新消息 HINCRBY 加一，标记已读按实际变化的条数扣减，事务中调用时在提交后才写入。读取一次 HGETALL；
+ * 哈希不存在或字段不全（过期后被单独的增量重新创建）时按数据库重算并整体写回。
+ * 聊天未读数与会话索引保持一致，写入失败或并发带来的偏差由定时任务按数据库重算纠正。
+ * 过期时间只在读取时整体重建设置，校正不续期，Redis 中只保留近期读取过未读数的用户，校正的范围随之有界。
+ */
+@Component
+class MessageUnreadCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageUnreadCounter.class);
+
+    static final String KEY_PREFIX = "msg:unread:";
+    static final String COMMENT = "COMMENT";
+    static final String FAVORITE = "FAVORITE";
+    static final String ORDER = "ORDER";
+    static final String CHAT = "CHAT";
+    static final List<String> TYPES = Collections.unmodifiableList(Arrays.asList(COMMENT, FAVORITE, ORDER, CHAT));
+
+    /**
+     * 定时校正时每批处理的用户数
+     */
+    private static final int RECONCILE_BATCH = 500;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private MessageRepository messageRepository;
+    @Autowired
+    private ChatConversationRepository chatConversationRepository;
+
+    /**
+     * 计数的保留时间，读取时整体重建才设置，期间没有读取过未读数的用户的计数到期删除
+     */
+    @Value("${app.message-unread.ttl-days:7}")
+    private long ttlDays = 7;
+
+    static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    static boolean isCounted(String messageType) {
+        return messageType != null && TYPES.contains(messageType);
+    }
+
+    void increment(Long userId, String messageType, long delta) {
+        if (userId == null || !isCounted(messageType) || delta == 0) return;
+        afterCommit(() -> stringRedisTemplate.opsForHash().increment(key(userId), messageType, delta));
+    }
+
+    /**
+     * 把指定类型的未读数置零（全部标记已读）
+     */
+    void clear(Long userId, String... messageTypes) {
+        if (userId == null || messageTypes.length == 0) return;
+        Map<String, String> zeros = new HashMap<>();
+        for (String messageType : messageTypes) {
+            if (isCounted(messageType)) zeros.put(messageType, "0");
+        }
+        if (zeros.isEmpty()) return;
+        afterCommit(() -> stringRedisTemplate.opsForHash().putAll(key(userId), zeros));
+    }
+
+    /**
+     * 标记聊天已读并按会话未读数的变化扣减计数
+     *
+     * @param messageId 已读到的消息ID，为 null 时整个会话标记已读
+     */
+    void markChatRead(Long chatId, Long userId, Long messageId) {
+        int before = chatConversationRepository.findUnreadCount(chatId, userId).orElse(0);
+        if (messageId == null) {
+            chatConversationRepository.markRead(chatId, userId);
+        } else {
+            chatConversationRepository.markReadThrough(chatId, userId, messageId);
+        }
+        if (before == 0) return;
+        int after = messageId == null ? 0 : chatConversationRepository.findUnreadCount(chatId, userId).orElse(0);
+        increment(userId, CHAT, after - before);
+    }
+
+    /**
+     * 各类型的未读数（按 TYPES 顺序），Redis 不可用时直接按数据库统计
+     */
+    Map<String, Long> summary(Long userId) {
+        Map<Object, Object> stored;
+        try {
+            stored = stringRedisTemplate.opsForHash().entries(key(userId));
+        } catch (DataAccessException e) {
+            log.warn("读取未读数失败，改为数据库统计: {}", e.getMessage());
+            return load(Collections.singletonList(userId)).get(userId);
+        }
+        if (stored != null && stored.keySet().containsAll(TYPES)) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (String messageType : TYPES) {
+                counts.put(messageType, Math.max(0, Long.parseLong(stored.get(messageType).toString())));
+            }
+            return counts;
+        }
+        Map<String, Long> counts = load(Collections.singletonList(userId)).get(userId);
+        try {
+            reset(Collections.singletonMap(userId, counts));
+        } catch (DataAccessException e) {
+            log.warn("写入未读数失败: {}", e.getMessage());
+        }
+        return counts;
+    }
+
+    /**
+     * 按数据库重算 Redis 中现有的全部计数，不刷新过期时间
+     */
+    @Scheduled(cron = "${app.message-unread.reconcile-cron:0 */15 * * * ?}")
+    public void reconcile() {
+        int total = 0;
+        List<Long> batch = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(RECONCILE_BATCH).build();
+        try (Cursor<String> keys = stringRedisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                try {
+                    batch.add(Long.valueOf(key.substring(KEY_PREFIX.length())));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (batch.size() >= RECONCILE_BATCH) {
+                    rewrite(load(batch));
+                    total += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                rewrite(load(batch));
+                total += batch.size();
+            }
+        } catch (DataAccessException e) {
+            log.warn("校正未读数失败: {}", e.getMessage());
+            return;
+        }
+        log.debug("校正未读数完成: {} 个用户", total);
+    }
+
+    // 通知按消息统计，聊天取会话索引中的未读数之和；没有未读的类型为0
+    Map<Long, Map<String, Long>> load(Collection<Long> userIds) {
+        Map<Long, Map<String, Long>> counts = new HashMap<>();
+        for (Long userId : userIds) {
+            Map<String, Long> userCounts = new LinkedHashMap<>();
+            TYPES.forEach(messageType -> userCounts.put(messageType, 0L));
+            counts.put(userId, userCounts);
+        }
+        // 每行：[接收者ID, 消息类型, 未读数]
+        for (Object[] row : messageRepository.countUnreadNotificationsGroupByRecipient(userIds)) {
+            Map<String, Long> userCounts = counts.get((Long) row[0]);
+            if (userCounts != null && isCounted((String) row[1])) {
+                userCounts.put((String) row[1], ((Number) row[2]).longValue());
+            }
+        }
+        // 每行：[用户ID, 聊天未读数]
+        for (Object[] row : chatConversationRepository.sumUnreadCountGroupByUser(userIds)) {
+            Map<String, Long> userCounts = counts.get((Long) row[0]);
+            if (userCounts != null && row[1] != null) {
+                userCounts.put(CHAT, ((Number) row[1]).longValue());
+            }
+        }
+        return counts;
+    }
+
+    private void reset(Map<Long, Map<String, Long>> counts) {
+        Duration ttl = Duration.ofDays(ttlDays);
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                counts.forEach((userId, userCounts) -> {
+                    operations.opsForHash().putAll(key(userId), values(userCounts));
+                    operations.expire(key(userId), ttl);
+                });
+                return null;
+            }
+        });
+    }
+
+    // 只改写字段、保留原有的过期时间；扫描后到写入前恰好过期的键被重新创建时没有过期时间，补上
+    private void rewrite(Map<Long, Map<String, Long>> counts) {
+        List<Long> userIds = new ArrayList<>(counts.keySet());
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                userIds.forEach(userId -> operations.opsForHash().putAll(key(userId), values(counts.get(userId))));
+                return null;
+            }
+        });
+        List<Object> expires = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                userIds.forEach(userId -> operations.getExpire(key(userId)));
+                return null;
+            }
+        });
+        List<String> persistent = new ArrayList<>();
+        for (int i = 0; i < userIds.size() && i < expires.size(); i++) {
+            // -1 表示键存在但没有过期时间
+            if (expires.get(i) instanceof Number && ((Number) expires.get(i)).longValue() == -1) {
+                persistent.add(key(userIds.get(i)));
+            }
+        }
+        if (persistent.isEmpty()) return;
+        Duration ttl = Duration.ofDays(ttlDays);
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                persistent.forEach(key -> operations.expire(key, ttl));
+                return null;
+            }
+        });
+    }
+
+    private static Map<String, String> values(Map<String, Long> userCounts) {
+        Map<String, String> values = new HashMap<>();
+        userCounts.forEach((messageType, count) -> values.put(messageType, String.valueOf(count)));
+        return values;
+    }
+
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+        } else {
+            apply(update);
+        }
+    }
+
+    // 计数允许短暂偏差，Redis 异常不影响业务，等待定时校正
+    private void apply(Runnable update) {
+        try {
+            update.run();
+        } catch (DataAccessException e) {
+            log.warn("更新未读数失败: {}", e.getMessage());
+        }
+    }
+}
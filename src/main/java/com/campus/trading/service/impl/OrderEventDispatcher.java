@@ -0,0 +1,121 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订单事件分发器
+ *
+ * 把事件交给每个消费者，并用 Redis 键 order:event:{消费者}:{eventId} 做幂等：
+ * 处理前以 SETNX 写入短期的 PROCESSING 标记，处理成功后改为保留 dedup-ttl-hours 的 DONE 标记，
+ * 处理失败时删除标记以便重投时重做。进程在处理中途退出时 PROCESSING 标记会自行过期，
+ * 期间收到的重投视为该消费者失败交给传输层，不会被当作已处理而丢掉。
+ * 已是 DONE 的消费者直接跳过；有消费者失败时处理完其余消费者后抛出异常，由传输层决定重投还是丢弃。
+ */
+@Component
+class OrderEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderEventDispatcher.class);
+
+    static final String PROCESSED_KEY_PREFIX = "order:event:";
+    static final String PROCESSING = "PROCESSING";
+    static final String DONE = "DONE";
+
+    private final List<OrderEventHandler> handlers;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 幂等标记保留时间，需覆盖消息可能被重投的时间窗口
+     */
+    @Value("${app.order-events.dedup-ttl-hours:24}")
+    private long dedupTtlHours = 24;
+
+    /**
+     * 处理中标记的保留时间，需长于单个消费者的处理耗时
+     */
+    @Value("${app.order-events.processing-ttl-seconds:300}")
+    private long processingTtlSeconds = 300;
+
+    OrderEventDispatcher(List<OrderEventHandler> handlers, StringRedisTemplate stringRedisTemplate) {
+        this.handlers = handlers;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    void dispatch(OrderEvent event) {
+        List<String> failed = new ArrayList<>();
+        for (OrderEventHandler handler : handlers) {
+            String key = PROCESSED_KEY_PREFIX + handler.name() + ":" + event.getEventId();
+            String state = markProcessing(key);
+            if (DONE.equals(state)) {
+                continue;
+            }
+            if (PROCESSING.equals(state)) {
+                log.warn("订单事件 {}({}) 正由 {} 处理或上次处理中断，稍后重投", event.getEventId(), event.getType(), handler.name());
+                failed.add(handler.name());
+                continue;
+            }
+            try {
+                handler.handle(event);
+                markDone(key);
+            } catch (RuntimeException e) {
+                log.error("订单事件 {}({}) 由 {} 处理失败", event.getEventId(), event.getType(), handler.name(), e);
+                unmark(key);
+                failed.add(handler.name());
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new RuntimeException("订单事件处理失败: eventId=" + event.getEventId() + ", 消费者=" + failed);
+        }
+    }
+
+    /**
+     * 尝试占用处理权
+     *
+     * @return 占用成功返回 null，否则返回已有的标记（DONE 或 PROCESSING）；Redis 不可用时宁可重复处理也不丢事件，返回 null
+     */
+    private String markProcessing(String key) {
+        try {
+            // 标记恰好在两次调用之间过期时再占用一次
+            for (int attempt = 0; attempt < 2; attempt++) {
+                if (!Boolean.FALSE.equals(stringRedisTemplate.opsForValue()
+                        .setIfAbsent(key, PROCESSING, Duration.ofSeconds(processingTtlSeconds)))) {
+                    return null;
+                }
+                String state = stringRedisTemplate.opsForValue().get(key);
+                if (state != null) {
+                    return DONE.equals(state) ? DONE : PROCESSING;
+                }
+            }
+            return PROCESSING;
+        } catch (DataAccessException e) {
+            log.warn("写入订单事件幂等标记 {} 失败: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    // 标记写入失败时重投会重复处理，不影响本次结果
+    private void markDone(String key) {
+        try {
+            stringRedisTemplate.opsForValue().set(key, DONE, Duration.ofHours(dedupTtlHours));
+        } catch (DataAccessException e) {
+            log.warn("写入订单事件完成标记 {} 失败: {}", key, e.getMessage());
+        }
+    }
+
+    private void unmark(String key) {
+        try {
+            stringRedisTemplate.delete(key);
+        } catch (DataAccessException e) {
+            log.warn("删除订单事件幂等标记 {} 失败: {}", key, e.getMessage());
+        }
+    }
+}
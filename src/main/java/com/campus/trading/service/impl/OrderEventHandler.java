@@ -0,0 +1,20 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+
+/**
+ * 订单事件消费者
+ *
+ * 同一事件可能被重复投递，{@link OrderEventDispatcher} 按 name + eventId 去重后才调用 handle。
+ * handle 可能在订单事务的提交回调中由提交线程直接调用（进程内队列已满时），此时原事务已提交但仍绑定在线程上，
+ * 需要写库的消费者用 REQUIRES_NEW 开启自己的事务，不能加入原事务。
+ */
+interface OrderEventHandler {
+
+    /**
+     * 消费者名称，作为幂等标记的一部分，上线后不要修改
+     */
+    String name();
+
+    void handle(OrderEvent event);
+}
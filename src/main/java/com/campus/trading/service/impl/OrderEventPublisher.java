@@ -0,0 +1,56 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 订单事件发布器
+ *
+ * 事务中调用时在提交后才投递，回滚的订单变更不会产生事件；下单等请求只承担订单行本身的写入耗时。
+ */
+@Component
+class OrderEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderEventPublisher.class);
+
+    private final OrderEventTransport transport;
+
+    OrderEventPublisher(OrderEventTransport transport) {
+        this.transport = transport;
+    }
+
+    void publish(OrderEvent event) {
+        if (event.getEventId() == null) {
+            event.setEventId(UUID.randomUUID().toString());
+        }
+        if (event.getOccurredAt() == null) {
+            event.setOccurredAt(LocalDateTime.now());
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(event);
+                }
+            });
+        } else {
+            send(event);
+        }
+    }
+
+    // 订单已提交，投递失败只记录，不影响请求结果；平台统计由定时任务校正
+    private void send(OrderEvent event) {
+        try {
+            transport.send(event);
+        } catch (RuntimeException e) {
+            log.error("投递订单事件 {}({}) 失败: orderId={}", event.getEventId(), event.getType(), event.getOrderId(), e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+
+/**
+ * 订单事件传输通道，由 app.order-events.transport 选择 local（进程内队列）或 rabbit（RabbitMQ）
+ */
+interface OrderEventTransport {
+
+    void send(OrderEvent event);
+}
@@ -0,0 +1,80 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+import com.campus.trading.entity.Order;
+import com.campus.trading.repository.OrderRepository;
+import com.campus.trading.service.MessageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 订单消息通知：每次订单状态变化给买家和卖家各发一条订单消息
+ */
+@Component
+class OrderNotificationHandler implements OrderEventHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderNotificationHandler.class);
+
+    private final OrderRepository orderRepository;
+    private final MessageService messageService;
+
+    OrderNotificationHandler(OrderRepository orderRepository, MessageService messageService) {
+        this.orderRepository = orderRepository;
+        this.messageService = messageService;
+    }
+
+    @Override
+    public String name() {
+        return "notification";
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void handle(OrderEvent event) {
+        String remark = event.getRemark();
+        switch (event.getType()) {
+            case CREATED:
+                send(event, "created", "已创建", "您有一个新订单，买家已下单，请及时确认");
+                break;
+            case CONFIRMED:
+                send(event, "confirmed", "已确认", "卖家已确认订单，请确认收货");
+                break;
+            case SHIPPED:
+                String trackingInfo = remark != null && !remark.trim().isEmpty() ? "，物流单号：" + remark : "";
+                send(event, "shipping", "运送中", "卖家已发货" + trackingInfo);
+                break;
+            case RECEIVED:
+                send(event, "received", "已收货", "买家已确认收货，请评价订单");
+                break;
+            case COMPLETED:
+                send(event, "completed", "已完成", "订单已完成，感谢您的购买");
+                break;
+            case REJECTED:
+                send(event, "rejected", "已拒绝", "卖家已拒绝订单：" + (remark != null ? remark : "无理由"));
+                break;
+            case CANCELLED:
+                send(event, "cancelled", "已取消", "买家已取消订单");
+                break;
+            case COMMENTED:
+                // 双方都评价后订单才完成
+                if (Integer.valueOf(4).equals(event.getNewStatus())) {
+                    send(event, "completed", "已完成", "双方已完成评价，订单已完成");
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void send(OrderEvent event, String status, String statusText, String statusDescription) {
+        Order order = orderRepository.findById(event.getOrderId()).orElse(null);
+        if (order == null) {
+            log.warn("订单 {} 不存在，跳过订单消息 {}", event.getOrderId(), status);
+            return;
+        }
+        messageService.createOrderMessage(order, status, statusText, statusDescription);
+    }
+}
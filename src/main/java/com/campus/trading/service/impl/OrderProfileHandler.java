@@ -0,0 +1,45 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+import com.campus.trading.entity.User;
+import com.campus.trading.repository.ItemRepository;
+import com.campus.trading.service.UserProfileService;
+import com.campus.trading.service.UserService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 用户画像更新：下单时给买家在该物品分类上增加交易兴趣
+ */
+@Component
+class OrderProfileHandler implements OrderEventHandler {
+
+    private final UserService userService;
+    private final UserProfileService userProfileService;
+    private final ItemRepository itemRepository;
+
+    OrderProfileHandler(UserService userService, UserProfileService userProfileService, ItemRepository itemRepository) {
+        this.userService = userService;
+        this.userProfileService = userProfileService;
+        this.itemRepository = itemRepository;
+    }
+
+    @Override
+    public String name() {
+        return "profile";
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void handle(OrderEvent event) {
+        if (event.getType() != OrderEvent.Type.CREATED || event.getItemId() == null) {
+            return;
+        }
+        User buyer = userService.findById(event.getBuyerId());
+        if (buyer.isAllowPersonalizedRecommend()) {
+            userProfileService.recordInterest(buyer, itemRepository.findCategoryIdById(event.getItemId()),
+                    UserProfileService.ORDER_WEIGHT);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+import com.campus.trading.entity.User;
+import com.campus.trading.service.UserProfileService;
+import com.campus.trading.service.UserService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 信誉分：拒绝/取消订单时按原因扣分，评价时按评分给被评价方加减分
+ */
+@Component
+class OrderReputationHandler implements OrderEventHandler {
+
+    /**
+     * 取消订单时不扣分的客观原因
+     */
+    private static final String[] OBJECTIVE_REASONS = {"买家长时间未响应", "商品已售出", "买家要求取消", "与买家协商一致取消", "与卖家协商一致取消"};
+
+    /**
+     * 中止订单时需要扣分的自身原因，覆盖买家和卖家
+     */
+    private static final String[] SELF_REASONS = {"临时有事", "不想卖了", "不需要该商品了", "无法交易", "价格不合适", "描述不符"};
+
+    private final UserService userService;
+    private final UserProfileService userProfileService;
+
+    OrderReputationHandler(UserService userService, UserProfileService userProfileService) {
+        this.userService = userService;
+        this.userProfileService = userProfileService;
+    }
+
+    @Override
+    public String name() {
+        return "reputation";
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void handle(OrderEvent event) {
+        switch (event.getType()) {
+            case REJECTED:
+                onRejected(event);
+                break;
+            case CANCELLED:
+                onCancelled(event);
+                break;
+            case COMMENTED:
+                onCommented(event);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // 只扣当前操作人，订单推进得越远扣得越多
+    private void onRejected(OrderEvent event) {
+        String reason = event.getRemark();
+        if (reason == null || reason.trim().isEmpty() || !containsAny(reason, SELF_REASONS)) {
+            return;
+        }
+        int originalStatus = event.getOldStatus() != null ? event.getOldStatus() : -1;
+        int deduct;
+        if (originalStatus == 0) {
+            deduct = 0;
+        } else if (originalStatus == 2) {
+            deduct = 15;
+        } else if (originalStatus == 3) {
+            deduct = 20;
+        } else {
+            deduct = 10;
+        }
+        if (deduct > 0) {
+            userProfileService.deductReputationScore(userService.findById(event.getOperatorId()), deduct, reason);
+        }
+    }
+
+    // 买家/卖家都扣分（可根据实际业务调整）
+    private void onCancelled(OrderEvent event) {
+        String reason = event.getRemark();
+        if (reason == null || reason.trim().isEmpty() || containsAny(reason, OBJECTIVE_REASONS)) {
+            return;
+        }
+        userProfileService.deductReputationScore(userService.findById(event.getBuyerId()), 10, reason);
+        userProfileService.deductReputationScore(userService.findById(event.getSellerId()), 10, reason);
+    }
+
+    private void onCommented(OrderEvent event) {
+        Integer rating = event.getRating();
+        if (rating == null || rating == 4) {
+            return;
+        }
+        boolean byBuyer = Boolean.TRUE.equals(event.getByBuyer());
+        User target = userService.findById(byBuyer ? event.getSellerId() : event.getBuyerId());
+        String from = byBuyer ? "买家" : "卖家";
+        if (rating == 5) {
+            userProfileService.addReputationScore(target, 2, "获得" + from + "5星好评");
+        } else if (rating == 3) {
+            userProfileService.deductReputationScore(target, 2, "获得" + from + "3星差评");
+        } else if (rating == 2) {
+            userProfileService.deductReputationScore(target, 4, "获得" + from + "2星差评");
+        } else if (rating == 1) {
+            userProfileService.deductReputationScore(target, 6, "获得" + from + "1星差评");
+        }
+    }
+
+    private static boolean containsAny(String text, String[] keywords) {
+        for (String keyword : keywords) {
+            if (text.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
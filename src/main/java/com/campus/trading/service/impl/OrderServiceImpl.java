@@ -1,33 +1,36 @@
 package com.campus.trading.service.impl;
 
+import com.campus.trading.config.SecurityUtil;
+import com.campus.trading.dto.ItemDTO;
 import com.campus.trading.dto.OrderDTO;
+import com.campus.trading.dto.OrderEvent;
 import com.campus.trading.dto.PageResponseDTO;
 import com.campus.trading.entity.Item;
 import com.campus.trading.entity.Order;
 import com.campus.trading.entity.User;
 import com.campus.trading.repository.ItemRepository;
 import com.campus.trading.repository.OrderRepository;
+import com.campus.trading.service.ItemIndexService;
 import com.campus.trading.service.ItemService;
-import com.campus.trading.service.MessageService;
 import com.campus.trading.service.OrderService;
-import com.campus.trading.service.UserProfileService;
 import com.campus.trading.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
  * 订单服务实现类
+ *
+ * 请求事务内只写订单和库存，消息通知、用户画像、信誉分和平台统计通过提交后发布的 {@link OrderEvent} 异步处理。
  */
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -36,17 +39,19 @@ public class OrderServiceImpl implements OrderService {
     private final ItemRepository itemRepository;
     private final UserService userService;
     private final ItemService itemService;
-    private final UserProfileService userProfileService;
-    private final MessageService messageService;
+    @Autowired
+    private ItemIndexService itemIndexService;
+    @Autowired
+    private ItemDetailCache itemDetailCache;
+    @Autowired
+    private OrderEventPublisher orderEventPublisher;
 
     @Autowired
-    public OrderServiceImpl(OrderRepository orderRepository, ItemRepository itemRepository, UserService userService, ItemService itemService, UserProfileService userProfileService, MessageService messageService) {
+    public OrderServiceImpl(OrderRepository orderRepository, ItemRepository itemRepository, UserService userService, ItemService itemService) {
         this.orderRepository = orderRepository;
         this.itemRepository = itemRepository;
         this.userService = userService;
         this.itemService = itemService;
-        this.userProfileService = userProfileService;
-        this.messageService = messageService;
     }
 
     @Override
@@ -69,6 +74,13 @@ public class OrderServiceImpl implements OrderService {
             throw new RuntimeException("不能购买自己的物品");
         }
         
+        // 原子预占库存，并发下单时只有拿到库存的请求能继续，扣到0自动下架
+        if (itemRepository.reserveStock(itemId) == 0) {
+            throw new RuntimeException("物品已售罄或不可购买");
+        }
+        Integer remainingStock = itemRepository.findStockById(itemId);
+        boolean soldOut = remainingStock != null && remainingStock <= 0;
+        
         // 创建订单
         Order order = new Order();
         order.setOrderNo(generateOrderNo());
@@ -84,33 +96,22 @@ public class OrderServiceImpl implements OrderService {
         
         // 保存订单
         Order savedOrder = orderRepository.save(order);
+        itemIndexService.enqueue(item.getId());
+        itemDetailCache.invalidate(item.getId());
         
-        // 更新物品状态
-        // item.setStatus(2); // 已售出
-        itemRepository.save(item);
-        
-        // 下单成功后减少库存
-        if (item != null && item.getStock() != null && item.getStock() > 0) {
-            item.setStock(item.getStock() - 1);
-            if (item.getStock() <= 0) {
-                item.setStatus(0); // 自动下架
-            }
-            itemRepository.save(item);
-        }
-        
-        // 创建订单消息
-        try {
-            messageService.createOrderMessage(savedOrder, "created", "已创建", "您有一个新订单，买家已下单，请及时确认");
-        } catch (Exception e) {
-            // 记录错误但不影响主流程
-            System.err.println("创建订单消息失败: " + e.getMessage());
+        // 订单消息、用户画像和统计在提交后异步处理
+        OrderEvent.OrderEventBuilder event = event(OrderEvent.Type.CREATED, savedOrder, null)
+                .operatorId(currentUser.getId());
+        if (soldOut) {
+            event.oldItemStatus(1).newItemStatus(0);
         }
+        orderEventPublisher.publish(event.build());
         
-        // 转换为DTO返回
+        // 转换为DTO返回，库存和状态以预占后的数据库值为准
         OrderDTO dto = convertToDTO(savedOrder);
-        // 下单后自动更新用户画像
-        if (currentUser.isAllowPersonalizedRecommend()) {
-            userProfileService.updateProfile(currentUser);
+        if (dto.getItem() != null && remainingStock != null) {
+            dto.getItem().setStock(remainingStock);
+            dto.getItem().setStatus(remainingStock > 0 ? 1 : 0);
         }
         return dto;
     }
@@ -157,15 +158,7 @@ public class OrderServiceImpl implements OrderService {
         order.setUpdateTime(LocalDateTime.now());
         // 保存订单
         Order updatedOrder = orderRepository.save(order);
-
-        // 创建订单消息
-        try {
-            messageService.createOrderMessage(updatedOrder, "confirmed", "已确认", "卖家已确认订单，请确认收货");
-        } catch (Exception e) {
-            // 记录错误但不影响主流程
-            System.err.println("创建订单确认消息失败: " + e.getMessage());
-        }
-        
+        orderEventPublisher.publish(event(OrderEvent.Type.CONFIRMED, updatedOrder, 0).build());
 
         // 转换为DTO返回
         return convertToDTO(updatedOrder);
@@ -200,63 +193,19 @@ public class OrderServiceImpl implements OrderService {
         
         // 更新物品状态和库存
         Item item = order.getItem();
-        item.setStatus(1); // 重新上架
-        if (item.getStock() != null) {
-            item.setStock(item.getStock() + 1);
-        } else {
-            item.setStock(1);
-        }
-        itemRepository.save(item);
-        
-
-        // 信誉分扣分逻辑（只针对当前操作人，不分买家卖家）
-        if (sellerRemark != null && !sellerRemark.trim().isEmpty()) {
-            String[] objectiveReasons = {"买家长时间未响应", "商品已售出", "买家要求取消", "与买家协商一致取消", "与卖家协商一致取消","描述不符"};
-            boolean isObjective = false;
-            for (String obj : objectiveReasons) {
-                if (sellerRemark.contains(obj)) {
-                    isObjective = true;
-                    break;
-                }
-            }
-            // 自身问题关键词，覆盖买家和卖家
-            String[] selfReasons = {
-                "临时有事", "不想卖了", "不需要该商品了", "无法交易", "价格不合适", "描述不符"
-            };
-            boolean isSelf = false;
-            for (String self : selfReasons) {
-                if (sellerRemark.contains(self)) {
-                    isSelf = true;
-                    break;
-                }
-            }
-            if (isSelf) {
-                int deduct = 10;
-                if (originalStatus == 0) {
-                    deduct = 0;
-                } else if (originalStatus == 1) {
-                    deduct = 10;
-                } else if (originalStatus == 2) {
-                    deduct = 15;
-                } else if (originalStatus == 3) {
-                    deduct = 20;
-                } else {
-                    deduct = 10;
-                }
-                if (deduct > 0) {
-                    userProfileService.deductReputationScore(currentUser, deduct, sellerRemark);
-                }
-            }
-        }
+        Integer oldItemStatus = item.getStatus();
+        itemRepository.releaseStock(item.getId()); // 归还库存并重新上架
+        itemIndexService.enqueue(item.getId());
+        itemDetailCache.invalidate(item.getId());
+
+        // 信誉分扣分（只针对当前操作人）和订单消息由事件消费者处理
+        orderEventPublisher.publish(event(OrderEvent.Type.REJECTED, updatedOrder, originalStatus)
+                .operatorId(currentUser.getId())
+                .remark(sellerRemark)
+                .oldItemStatus(oldItemStatus)
+                .newItemStatus(1)
+                .build());
 
-        // 创建订单消息
-        try {
-            messageService.createOrderMessage(updatedOrder, "rejected", "已拒绝", "卖家已拒绝订单：" + (sellerRemark != null ? sellerRemark : "无理由"));
-        } catch (Exception e) {
-            // 记录错误但不影响主流程
-            System.err.println("创建订单拒绝消息失败: " + e.getMessage());
-        }
-        
 
         // 转换为DTO返回
         return convertToDTO(updatedOrder);
@@ -283,22 +232,11 @@ public class OrderServiceImpl implements OrderService {
         
         // 保存订单
         Order updatedOrder = orderRepository.save(order);
-        
-        // 创建订单消息
-        try {
-            messageService.createOrderMessage(updatedOrder, "completed", "已完成", "订单已完成，感谢您的购买");
-        } catch (Exception e) {
-            // 记录错误但不影响主流程
-            System.err.println("创建订单完成消息失败: " + e.getMessage());
-        }
+        // 订单消息和买家画像更新由事件消费者处理
+        orderEventPublisher.publish(event(OrderEvent.Type.COMPLETED, updatedOrder, 2).build());
         
         // 转换为DTO返回
-        OrderDTO dto = convertToDTO(updatedOrder);
-        // 完成订单后自动更新用户画像
-        if (order.getBuyer().isAllowPersonalizedRecommend()) {
-            userProfileService.updateProfile(order.getBuyer());
-        }
-        return dto;
+        return convertToDTO(updatedOrder);
     }
 
     @Override
@@ -312,6 +250,7 @@ public class OrderServiceImpl implements OrderService {
         if (order.getStatus() != 0 && order.getStatus() != 1) {
             throw new RuntimeException("订单状态不正确");
         }
+        Integer originalStatus = order.getStatus();
         // 更新订单
         order.setStatus(5); // 5-已取消
         order.setUpdateTime(LocalDateTime.now());
@@ -322,40 +261,17 @@ public class OrderServiceImpl implements OrderService {
         Order updatedOrder = orderRepository.save(order);
         // 更新物品状态和库存
         Item item = order.getItem();
-        item.setStatus(1); // 重新上架
-        if (item.getStock() != null) {
-            item.setStock(item.getStock() + 1);
-        } else {
-            item.setStock(1);
-        }
-        itemRepository.save(item);
-
-        // 信誉分扣分逻辑
-        if (reason != null && !reason.trim().isEmpty()) {
-            String[] objectiveReasons = {"买家长时间未响应", "商品已售出", "买家要求取消", "与买家协商一致取消", "与卖家协商一致取消"};
-            boolean isObjective = false;
-            for (String obj : objectiveReasons) {
-                if (reason.contains(obj)) {
-                    isObjective = true;
-                    break;
-                }
-            }
-            if (!isObjective) {
-                // 买家/卖家都扣分（可根据实际业务调整）
-                userProfileService.deductReputationScore(order.getBuyer(), 10, reason);
-                userProfileService.deductReputationScore(order.getSeller(), 10, reason);
-            }
-        }
-
-        
-        // 创建订单消息
-        try {
-            messageService.createOrderMessage(updatedOrder, "cancelled", "已取消", "买家已取消订单");
-        } catch (Exception e) {
-            // 记录错误但不影响主流程
-            System.err.println("创建订单取消消息失败: " + e.getMessage());
-        }
-        
+        Integer oldItemStatus = item.getStatus();
+        itemRepository.releaseStock(item.getId()); // 归还库存并重新上架
+        itemIndexService.enqueue(item.getId());
+        itemDetailCache.invalidate(item.getId());
+
+        // 信誉分扣分和订单消息由事件消费者处理
+        orderEventPublisher.publish(event(OrderEvent.Type.CANCELLED, updatedOrder, originalStatus)
+                .remark(reason)
+                .oldItemStatus(oldItemStatus)
+                .newItemStatus(1)
+                .build());
 
         // 转换为DTO返回
         return convertToDTO(updatedOrder);
@@ -373,10 +289,9 @@ public class OrderServiceImpl implements OrderService {
         Page<Order> orderPage = orderRepository.findByBuyer(currentUser, pageable);
         
         // 转换为DTO并过滤item为null的订单
-        List<OrderDTO> orderDTOs = orderPage.getContent().stream()
+        List<OrderDTO> orderDTOs = convertToDTOs(orderPage.getContent().stream()
                 .filter(order -> order.getItem() != null)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
         
         // 构建分页响应
         int filteredTotal = orderDTOs.size();
@@ -402,10 +317,9 @@ public class OrderServiceImpl implements OrderService {
         Page<Order> orderPage = orderRepository.findBySeller(currentUser, pageable);
         
         // 转换为DTO并过滤item为null的订单
-        List<OrderDTO> orderDTOs = orderPage.getContent().stream()
+        List<OrderDTO> orderDTOs = convertToDTOs(orderPage.getContent().stream()
                 .filter(order -> order.getItem() != null)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
         
         // 构建分页响应
         int filteredTotal = orderDTOs.size();
@@ -431,9 +345,7 @@ public class OrderServiceImpl implements OrderService {
         Page<Order> orderPage = orderRepository.findByBuyerAndStatus(currentUser, status, pageable);
         
         // 转换为DTO
-        List<OrderDTO> orderDTOs = orderPage.getContent().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<OrderDTO> orderDTOs = convertToDTOs(orderPage.getContent());
         
         // 构建分页响应
         int filteredTotal = orderDTOs.size();
@@ -459,9 +371,7 @@ public class OrderServiceImpl implements OrderService {
         Page<Order> orderPage = orderRepository.findBySellerAndStatus(currentUser, status, pageable);
         
         // 转换为DTO
-        List<OrderDTO> orderDTOs = orderPage.getContent().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<OrderDTO> orderDTOs = convertToDTOs(orderPage.getContent());
         
         // 构建分页响应
         int filteredTotal = orderDTOs.size();
@@ -490,16 +400,9 @@ public class OrderServiceImpl implements OrderService {
         order.setTrackingNumber(trackingNumber);
         order.setUpdateTime(LocalDateTime.now());
         Order updatedOrder = orderRepository.save(order);
-        
-        // 创建订单消息
-        try {
-            String trackingInfo = trackingNumber != null && !trackingNumber.trim().isEmpty() ? 
-                    "，物流单号：" + trackingNumber : "";
-            messageService.createOrderMessage(updatedOrder, "shipping", "运送中", "卖家已发货" + trackingInfo);
-        } catch (Exception e) {
-            // 记录错误但不影响主流程
-            System.err.println("创建订单发货消息失败: " + e.getMessage());
-        }
+        orderEventPublisher.publish(event(OrderEvent.Type.SHIPPED, updatedOrder, 1)
+                .remark(trackingNumber)
+                .build());
         
         return convertToDTO(updatedOrder);
     }
@@ -519,16 +422,7 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(3);
         order.setUpdateTime(LocalDateTime.now());
         Order updatedOrder = orderRepository.save(order);
-        
-        // 创建订单消息
-        try {
-            messageService.createOrderMessage(updatedOrder, "received", "已收货", "买家已确认收货，请评价订单");
-            System.out.println("成功创建订单收货消息: 订单ID=" + id);
-        } catch (Exception e) {
-            // 记录错误但不影响主流程
-            System.err.println("创建订单收货消息失败: " + e.getMessage());
-            e.printStackTrace();
-        }
+        orderEventPublisher.publish(event(OrderEvent.Type.RECEIVED, updatedOrder, 1).build());
         
         return convertToDTO(updatedOrder);
     }
@@ -554,18 +448,6 @@ public class OrderServiceImpl implements OrderService {
                 order.setSellerComment(comment);
                 order.setSellerRating(rating);
                 updated = true;
-                // 信誉分操作
-                if (rating != null) {
-                    if (rating == 5) {
-                        userProfileService.addReputationScore(order.getSeller(), 2, "获得买家5星好评");
-                    } else if (rating == 3) {
-                        userProfileService.deductReputationScore(order.getSeller(), 2, "获得买家3星差评");
-                    } else if (rating == 2) {
-                        userProfileService.deductReputationScore(order.getSeller(), 4, "获得买家2星差评");
-                    } else if (rating == 1) {
-                        userProfileService.deductReputationScore(order.getSeller(), 6, "获得买家1星差评");
-                    }
-                }
             }
         } else {
             // 卖家只能评价买家
@@ -576,41 +458,23 @@ public class OrderServiceImpl implements OrderService {
                 order.setBuyerComment(comment);
                 order.setBuyerRating(rating);
                 updated = true;
-                // 信誉分操作
-                if (rating != null) {
-                    if (rating == 5) {
-                        userProfileService.addReputationScore(order.getBuyer(), 2, "获得卖家5星好评");
-                    } else if (rating == 3) {
-                        userProfileService.deductReputationScore(order.getBuyer(), 2, "获得卖家3星差评");
-                    } else if (rating == 2) {
-                        userProfileService.deductReputationScore(order.getBuyer(), 4, "获得卖家2星差评");
-                    } else if (rating == 1) {
-                        userProfileService.deductReputationScore(order.getBuyer(), 6, "获得卖家1星差评");
-                    }
-                }
             }
         }
         // 如果双方都已评价，则订单状态变为已完成（4）
-        boolean bothCommented = false;
+        Integer originalStatus = order.getStatus();
         if (order.getBuyerComment() != null && order.getSellerComment() != null) {
             order.setStatus(4);
             order.setFinishTime(LocalDateTime.now());
-            bothCommented = true;
         }
         if (updated) {
             order.setUpdateTime(LocalDateTime.now());
             Order updatedOrder = orderRepository.save(order);
-            
-            // 如果双方都已评价，创建订单完成消息
-            if (bothCommented) {
-                try {
-                    messageService.createOrderMessage(updatedOrder, "completed", "已完成", "双方已完成评价，订单已完成");
-                } catch (Exception e) {
-                    // 记录错误但不影响主流程
-                    System.err.println("创建订单评价完成消息失败: " + e.getMessage());
-                }
-            }
-            
+            // 被评价方的信誉分、订单完成消息和成交统计由事件消费者处理
+            orderEventPublisher.publish(event(OrderEvent.Type.COMMENTED, updatedOrder, originalStatus)
+                    .operatorId(currentUser.getId())
+                    .byBuyer(isBuyer)
+                    .rating(rating)
+                    .build());
             return convertToDTO(updatedOrder);
         } else {
             return convertToDTO(order);
@@ -621,7 +485,7 @@ public class OrderServiceImpl implements OrderService {
     public List<OrderDTO> listBuyerOrdersByUserId(Long userId) {
         User user = userService.findById(userId);
         List<Order> orders = orderRepository.findByBuyer(user);
-        return orders.stream().map(this::convertToDTO).collect(java.util.stream.Collectors.toList());
+        return convertToDTOs(orders);
     }
 
     @Override
@@ -629,7 +493,7 @@ public class OrderServiceImpl implements OrderService {
         User user = userService.findById(userId);
         // 需要实现findBySeller(User user)方法
         List<Order> orders = orderRepository.findBySeller(user);
-        return orders.stream().map(this::convertToDTO).collect(java.util.stream.Collectors.toList());
+        return convertToDTOs(orders);
     }
 
     // 辅助方法：获取订单或抛出异常
@@ -640,34 +504,42 @@ public class OrderServiceImpl implements OrderService {
 
     // 辅助方法：检查订单访问权限
     private void checkOrderAccess(Order order) {
-        User currentUser = getCurrentUser();
-        if (!order.getBuyer().getId().equals(currentUser.getId()) && 
-            !order.getSeller().getId().equals(currentUser.getId())) {
+        Long currentUserId = SecurityUtil.getCurrentUserId();
+        if (!order.getBuyer().getId().equals(currentUserId) && 
+            !order.getSeller().getId().equals(currentUserId)) {
             throw new RuntimeException("无权访问此订单");
         }
     }
 
     // 辅助方法：检查是否是卖家
     private void checkOrderSeller(Order order) {
-        User currentUser = getCurrentUser();
-        if (!order.getSeller().getId().equals(currentUser.getId())) {
+        if (!order.getSeller().getId().equals(SecurityUtil.getCurrentUserId())) {
             throw new RuntimeException("只有卖家才能执行此操作");
         }
     }
 
     // 辅助方法：检查是否是买家
     private void checkOrderBuyer(Order order) {
-        User currentUser = getCurrentUser();
-        if (!order.getBuyer().getId().equals(currentUser.getId())) {
+        if (!order.getBuyer().getId().equals(SecurityUtil.getCurrentUserId())) {
             throw new RuntimeException("只有买家才能执行此操作");
         }
     }
 
-    // 辅助方法：获取当前登录用户
+    // 辅助方法：获取当前登录用户（懒加载引用，仅在读取非ID字段时才查询）
     private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userService.findByUsername(username);
+        return SecurityUtil.getCurrentUserReference();
+    }
+
+    // 辅助方法：按订单当前状态构建事件，调用方补充事件特有的字段
+    private OrderEvent.OrderEventBuilder event(OrderEvent.Type type, Order order, Integer oldStatus) {
+        return OrderEvent.builder()
+                .type(type)
+                .orderId(order.getId())
+                .buyerId(order.getBuyer().getId())
+                .sellerId(order.getSeller().getId())
+                .itemId(order.getItem() != null ? order.getItem().getId() : null)
+                .oldStatus(oldStatus)
+                .newStatus(order.getStatus());
     }
 
     // 辅助方法：生成订单号
@@ -675,8 +547,31 @@ public class OrderServiceImpl implements OrderService {
         return UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
     }
 
+    // 辅助方法：批量将实体转换为DTO，订单内物品整批转换
+    private List<OrderDTO> convertToDTOs(List<Order> orders) {
+        List<ItemDTO> items = itemService.convertToDTOs(orders.stream()
+                .map(Order::getItem)
+                .collect(Collectors.toList()));
+        List<OrderDTO> dtos = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            OrderDTO dto = buildDTO(orders.get(i));
+            dto.setItem(items.get(i));
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
     // 辅助方法：将实体转换为DTO
     private OrderDTO convertToDTO(Order order) {
+        OrderDTO dto = buildDTO(order);
+        if (order.getItem() != null) {
+            dto.setItem(itemService.convertToDTO(order.getItem()));
+        }
+        return dto;
+    }
+
+    // 辅助方法：构建订单DTO（不含物品详情）
+    private OrderDTO buildDTO(Order order) {
         OrderDTO dto = OrderDTO.builder()
                 .id(order.getId())
                 .orderNo(order.getOrderNo())
@@ -704,9 +599,6 @@ public class OrderServiceImpl implements OrderService {
                 .sellerRating(order.getSellerRating())
                 .trackingNumber(order.getTrackingNumber())
                 .build();
-        if (order.getItem() != null) {
-            dto.setItem(itemService.convertToDTO(order.getItem()));
-        }
         return dto;
     }
 
@@ -0,0 +1,33 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * 平台统计：订单数、成交数，以及下单售罄/取消重新上架带来的在售物品数变化
+ */
+@Component
+class OrderStatsHandler implements OrderEventHandler {
+
+    private final PlatformStatsCounter platformStatsCounter;
+
+    OrderStatsHandler(PlatformStatsCounter platformStatsCounter) {
+        this.platformStatsCounter = platformStatsCounter;
+    }
+
+    @Override
+    public String name() {
+        return "stats";
+    }
+
+    @Override
+    public void handle(OrderEvent event) {
+        if (event.getType() == OrderEvent.Type.CREATED) {
+            platformStatsCounter.orderCreated();
+        }
+        platformStatsCounter.orderStatusChanged(event.getOldStatus(), event.getNewStatus());
+        if (event.getOldItemStatus() != null || event.getNewItemStatus() != null) {
+            platformStatsCounter.itemStatusChanged(event.getOldItemStatus(), event.getNewItemStatus());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.campus.trading.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 平台统计计数器（Redis 哈希 platform:stats）
+ *
+ * 物品上下架、用户注册、下单和订单完成时用 HINCRBY 增量维护，事务中调用时在提交后才写入，回滚不计数；
+ * 读取只访问 Redis。写入失败或并发带来的偏差由 PlatformStatsSyncTask 定时按数据库重算纠正。
+ */
+@Component
+class PlatformStatsCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(PlatformStatsCounter.class);
+
+    static final String PLATFORM_STATS_KEY = "platform:stats";
+    static final String TOTAL_ITEMS = "totalItems";
+    static final String COMPLETED_ORDERS = "completedOrders";
+    static final String TOTAL_USERS = "totalUsers";
+    static final String TOTAL_ORDERS = "totalOrders";
+
+    private static final int ITEM_STATUS_LISTED = 1;
+    private static final int ORDER_STATUS_COMPLETED = 4;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 物品状态变化，只有进出“上架”状态时才影响在售物品数
+     *
+     * @param oldStatus 原状态，新建物品传 null
+     */
+    void itemStatusChanged(Integer oldStatus, Integer newStatus) {
+        boolean wasListed = oldStatus != null && oldStatus == ITEM_STATUS_LISTED;
+        boolean isListed = newStatus != null && newStatus == ITEM_STATUS_LISTED;
+        if (wasListed != isListed) {
+            increment(TOTAL_ITEMS, isListed ? 1 : -1);
+        }
+    }
+
+    void userRegistered() {
+        increment(TOTAL_USERS, 1);
+    }
+
+    void orderCreated() {
+        increment(TOTAL_ORDERS, 1);
+    }
+
+    /**
+     * 订单状态变化，进入“已完成”时计入成交数
+     */
+    void orderStatusChanged(Integer oldStatus, Integer newStatus) {
+        boolean wasCompleted = oldStatus != null && oldStatus == ORDER_STATUS_COMPLETED;
+        boolean isCompleted = newStatus != null && newStatus == ORDER_STATUS_COMPLETED;
+        if (wasCompleted != isCompleted) {
+            increment(COMPLETED_ORDERS, isCompleted ? 1 : -1);
+        }
+    }
+
+    /**
+     * 当前统计值，缺失的字段按0返回
+     */
+    Map<String, Long> snapshot() {
+        Map<Object, Object> stored = stringRedisTemplate.opsForHash().entries(PLATFORM_STATS_KEY);
+        Map<String, Long> statistics = new HashMap<>();
+        for (String field : new String[]{TOTAL_ITEMS, COMPLETED_ORDERS, TOTAL_USERS, TOTAL_ORDERS}) {
+            Object value = stored != null ? stored.get(field) : null;
+            statistics.put(field, value != null ? Math.max(0, Long.parseLong(value.toString())) : 0L);
+        }
+        return statistics;
+    }
+
+    /**
+     * 用数据库重算的结果整体覆盖
+     */
+    void reset(Map<String, Long> statistics) {
+        Map<String, String> values = new HashMap<>();
+        statistics.forEach((field, value) -> values.put(field, String.valueOf(value)));
+        stringRedisTemplate.opsForHash().putAll(PLATFORM_STATS_KEY, values);
+    }
+
+    private void increment(String field, long delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doIncrement(field, delta);
+                }
+            });
+        } else {
+            doIncrement(field, delta);
+        }
+    }
+
+    // 统计数据允许短暂偏差，Redis 异常不影响业务，等待定时校正
+    private void doIncrement(String field, long delta) {
+        try {
+            stringRedisTemplate.opsForHash().increment(PLATFORM_STATS_KEY, field, delta);
+        } catch (DataAccessException e) {
+            log.warn("更新平台统计 {} 失败: {}", field, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.service.PushService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSE 推送网关
+ *
+ * 本节点的连接按用户ID登记在内存中。推送先经 Redis 频道 push:user 广播，各节点只投递给自己持有的连接；
+ * 没有 Redis 监听容器或发布失败时直接投递本节点。每个连接有一个有界发送缓冲，由发送线程池依次写出，
+ * 缓冲写满说明客户端读得太慢，直接断开，客户端重连后重新拉取一次即可。写出是阻塞的，发送线程按需扩容，
+ * 单次写出超过期限的连接直接断开，卡住的写出不会拖慢其他连接。定时发送心跳注释，防止代理断开空闲连接。
+ */
+@Service
+public class PushServiceImpl implements PushService {
+
+    private static final Logger log = LoggerFactory.getLogger(PushServiceImpl.class);
+
+    static final String CHANNEL = "push:user";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 连接最长保持时间，到期后客户端自动重连
+     */
+    @Value("${app.push.timeout-ms:1800000}")
+    private long timeoutMs = 1800000;
+
+    /**
+     * 每个连接的发送缓冲（条）
+     */
+    @Value("${app.push.buffer-size:100}")
+    private int bufferSize = 100;
+
+    /**
+     * 每个用户同时保持的连接数上限，超出时关闭最早的连接
+     */
+    @Value("${app.push.max-connections-per-user:5}")
+    private int maxConnectionsPerUser = 5;
+
+    /**
+     * 常驻的发送线程数
+     */
+    @Value("${app.push.sender-threads:2}")
+    private int senderThreads = 2;
+
+    /**
+     * 发送线程数上限，都在写出时新的发送任务等下一次心跳再调度
+     */
+    @Value("${app.push.max-sender-threads:64}")
+    private int maxSenderThreads = 64;
+
+    /**
+     * 单次写出的期限（毫秒），超过时断开该连接
+     */
+    @Value("${app.push.write-timeout-ms:10000}")
+    private long writeTimeoutMs = 10000;
+
+    private final Map<Long, List<Connection>> connections = new ConcurrentHashMap<>();
+
+    private Executor sender;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        // 不排队：空闲线程不够时直接扩容，写出卡住的连接不会让其他连接的发送任务排在后面
+        sender = new ThreadPoolExecutor(senderThreads, Math.max(senderThreads, maxSenderThreads),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "push-sender-" + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener((message, pattern) -> {
+                try {
+                    JsonNode envelope = objectMapper.readTree(new String(message.getBody(), StandardCharsets.UTF_8));
+                    deliver(envelope.get("userId").asLong(), envelope.get("event").asText(), envelope.get("data").asText());
+                } catch (JsonProcessingException | NullPointerException e) {
+                    log.warn("无法解析推送消息: {}", e.getMessage());
+                }
+            }, new ChannelTopic(CHANNEL));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connections.values().forEach(list -> list.forEach(this::close));
+        if (sender instanceof ExecutorService) {
+            ((ExecutorService) sender).shutdownNow();
+        }
+    }
+
+    @Override
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = newEmitter();
+        Connection connection = new Connection(userId, emitter, bufferSize);
+        // 在 compute 内登记，和 remove 中删除空列表互斥，不会登记到已被移除的列表上
+        List<Connection> list = connections.compute(userId, (k, existing) -> {
+            List<Connection> result = existing != null ? existing : new CopyOnWriteArrayList<>();
+            result.add(connection);
+            return result;
+        });
+        while (list.size() > maxConnectionsPerUser) {
+            close(list.get(0));
+        }
+        emitter.onCompletion(() -> {
+            connection.closed = true;
+            remove(connection);
+        });
+        emitter.onTimeout(() -> close(connection));
+        emitter.onError(e -> close(connection));
+        // 立即写出一条注释，客户端据此确认连接已建立
+        enqueue(connection, SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    @Override
+    public void push(Long userId, String event, Object payload) {
+        if (userId == null) return;
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.warn("推送数据序列化失败: event={}, {}", event, e.getMessage());
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(userId, event, data);
+                }
+            });
+        } else {
+            publish(userId, event, data);
+        }
+    }
+
+    private void publish(Long userId, String event, String data) {
+        if (listenerContainer == null) {
+            deliver(userId, event, data);
+            return;
+        }
+        try {
+            ObjectNode envelope = objectMapper.createObjectNode();
+            envelope.put("userId", userId);
+            envelope.put("event", event);
+            envelope.put("data", data);
+            stringRedisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(envelope));
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("广播推送失败，仅投递本节点: userId={}, {}", userId, e.getMessage());
+            deliver(userId, event, data);
+        }
+    }
+
+    /**
+     * 投递给本节点上该用户的所有连接
+     */
+    void deliver(Long userId, String event, String data) {
+        List<Connection> list = connections.get(userId);
+        if (list == null) return;
+        for (Connection connection : list) {
+            enqueue(connection, SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.push.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (List<Connection> list : connections.values()) {
+            for (Connection connection : list) {
+                // 缓冲里还有待发事件时不必再发心跳，补调度一次因线程用满而没有发出的事件
+                if (connection.buffer.isEmpty()) {
+                    enqueue(connection, SseEmitter.event().comment("ping"));
+                } else {
+                    schedule(connection);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.push.write-check-ms:1000}")
+    public void closeStalled() {
+        closeStalled(System.currentTimeMillis());
+    }
+
+    /**
+     * 断开写出超过期限的连接。写出的线程持有发送器的锁，这里只摘除连接、丢弃缓冲，写出返回后由发送线程关闭
+     */
+    void closeStalled(long now) {
+        for (List<Connection> list : connections.values()) {
+            for (Connection connection : list) {
+                long since = connection.sendingSince;
+                if (since > 0 && now - since > writeTimeoutMs) {
+                    log.debug("推送写出超时，断开连接: userId={}", connection.userId);
+                    connection.closed = true;
+                    remove(connection);
+                    connection.buffer.clear();
+                }
+            }
+        }
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    int connectionCount(Long userId) {
+        List<Connection> list = connections.get(userId);
+        return list != null ? list.size() : 0;
+    }
+
+    private void enqueue(Connection connection, SseEmitter.SseEventBuilder event) {
+        if (connection.closed) return;
+        if (!connection.buffer.offer(event)) {
+            log.debug("推送缓冲已满，断开慢连接: userId={}", connection.userId);
+            close(connection);
+            return;
+        }
+        schedule(connection);
+    }
+
+    private void schedule(Connection connection) {
+        if (!connection.draining.compareAndSet(false, true)) return;
+        try {
+            sender.execute(() -> drain(connection));
+        } catch (RejectedExecutionException e) {
+            // 发送线程已用满，事件留在缓冲里，由下一次投递或心跳重新调度
+            connection.draining.set(false);
+        }
+    }
+
+    private void drain(Connection connection) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!connection.closed && (event = connection.buffer.poll()) != null) {
+                connection.sendingSince = System.currentTimeMillis();
+                connection.emitter.send(event);
+                connection.sendingSince = 0;
+            }
+        } catch (Exception e) {
+            // 客户端已断开
+            close(connection);
+        } finally {
+            connection.sendingSince = 0;
+            connection.draining.set(false);
+        }
+        // 写出期间因超时被摘除的连接
+        if (connection.closed) {
+            close(connection);
+            return;
+        }
+        // 释放标记前入队的事件由这里补发
+        if (!connection.buffer.isEmpty()) {
+            schedule(connection);
+        }
+    }
+
+    private void close(Connection connection) {
+        connection.closed = true;
+        remove(connection);
+        connection.buffer.clear();
+        try {
+            connection.emitter.complete();
+        } catch (Exception ignored) {
+        }
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (k, list) -> {
+            list.remove(connection);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static final class Connection {
+        final Long userId;
+        final SseEmitter emitter;
+        final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+        /**
+         * 正在进行的写出开始的时间，没有写出时为 0
+         */
+        volatile long sendingSince;
+
+        Connection(Long userId, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
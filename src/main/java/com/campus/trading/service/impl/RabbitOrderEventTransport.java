@@ -0,0 +1,53 @@
+package com.campus.trading.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.campus.trading.dto.OrderEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 RabbitMQ 的订单事件传输，事件以 JSON 文本投递，多个实例共同消费同一队列
+ */
+@Component
+@ConditionalOnProperty(name = "app.order-events.transport", havingValue = "rabbit")
+class RabbitOrderEventTransport implements OrderEventTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(RabbitOrderEventTransport.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final OrderEventDispatcher dispatcher;
+
+    @Value("${app.order-events.rabbit.exchange:order.events}")
+    private String exchange;
+
+    @Value("${app.order-events.rabbit.routing-key:order.event}")
+    private String routingKey;
+
+    RabbitOrderEventTransport(RabbitTemplate rabbitTemplate, OrderEventDispatcher dispatcher) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void send(OrderEvent event) {
+        rabbitTemplate.convertAndSend(exchange, routingKey, JSON.toJSONString(event));
+    }
+
+    @RabbitListener(queues = "${app.order-events.rabbit.queue:order.events}")
+    void onMessage(String body) {
+        OrderEvent event = JSON.parseObject(body, OrderEvent.class);
+        try {
+            dispatcher.dispatch(event);
+        } catch (RuntimeException e) {
+            // 已成功的消费者留有幂等标记，死信重投时只会重做失败的部分
+            log.warn("订单事件转入死信队列: {}", e.getMessage());
+            throw new AmqpRejectAndDontRequeueException(e.getMessage(), e);
+        }
+    }
+}
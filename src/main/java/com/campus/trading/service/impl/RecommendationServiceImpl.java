@@ -8,11 +8,15 @@ import com.campus.trading.repository.UserProfileRepository;
 import com.campus.trading.repository.ItemRepository;
 import com.campus.trading.service.RecommendationService;
 import com.campus.trading.service.ItemService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -20,26 +24,40 @@ import java.util.stream.Collectors;
 
 @Service
 public class RecommendationServiceImpl implements RecommendationService {
+    private static final Logger log = LoggerFactory.getLogger(RecommendationServiceImpl.class);
+
     private final UserProfileRepository userProfileRepository;
     private final ItemRepository itemRepository;
     private final ItemService itemService;
+    private final ItemRecommendationEngine itemRecommendationEngine;
 
     @Autowired
     public RecommendationServiceImpl(UserProfileRepository userProfileRepository,
                                      ItemRepository itemRepository,
-                                     ItemService itemService) {
+                                     ItemService itemService,
+                                     ItemRecommendationEngine itemRecommendationEngine) {
         this.userProfileRepository = userProfileRepository;
         this.itemRepository = itemRepository;
         this.itemService = itemService;
+        this.itemRecommendationEngine = itemRecommendationEngine;
     }
 
+    /**
+     * 优先读取离线生成的候选集（一次 ZSET 区间读取加一次批量取详情）；
+     * 没有候选时按兴趣画像的前3个分类取热门物品，没有画像则取全站热门，均只含在售且有库存的物品
+     */
     @Override
     public Page<ItemDTO> recommendItems(User user, int pageNum, int pageSize) {
+        Pageable pageable = PageRequest.of(pageNum - 1, pageSize);
+        if (user.isAllowPersonalizedRecommend()) {
+            Page<ItemDTO> candidates = candidatePage(user.getId(), pageable);
+            if (candidates != null) return candidates;
+        }
         Optional<UserProfile> profileOpt = userProfileRepository.findByUser(user);
         Page<Item> itemPage;
         if (profileOpt.isEmpty() || profileOpt.get().getCategoryInterest().isEmpty()) {
-            Pageable pageable = PageRequest.of(pageNum - 1, pageSize, Sort.by(Sort.Direction.DESC, "popularity"));
-            itemPage = itemRepository.findAll(pageable);
+            itemPage = itemRepository.findByStatusAndStockGreaterThan(1, 0,
+                    PageRequest.of(pageNum - 1, pageSize, Sort.by(Sort.Direction.DESC, "popularity")));
         } else {
             UserProfile profile = profileOpt.get();
             List<Long> topCategories = profile.getCategoryInterest().entrySet().stream()
@@ -47,8 +65,24 @@ public class RecommendationServiceImpl implements RecommendationService {
                     .limit(3)
                     .map(Map.Entry::getKey)
                     .collect(Collectors.toList());
-            itemPage = itemRepository.findByCategoryIdInAndStatusOrderByPopularityDesc(topCategories, 1, PageRequest.of(pageNum - 1, pageSize));
+            itemPage = itemRepository.findByCategoryIdInAndStatusAndStockGreaterThanOrderByPopularityDesc(topCategories, 1, 0, pageable);
+        }
+        return new PageImpl<>(itemService.convertToDTOs(itemPage.getContent()), itemPage.getPageable(), itemPage.getTotalElements());
+    }
+
+    // 候选集为空或 Redis 不可用时返回 null；候选生成后下架或售罄的物品在这里再过滤一次
+    private Page<ItemDTO> candidatePage(Long userId, Pageable pageable) {
+        ItemRecommendationEngine.Candidates page;
+        try {
+            page = itemRecommendationEngine.page(userId, pageable.getOffset(), pageable.getPageSize());
+        } catch (DataAccessException e) {
+            log.warn("读取推荐候选失败，使用兜底推荐: {}", e.getMessage());
+            return null;
         }
-        return itemPage.map(itemService::convertToDTO);
+        if (page.total == 0) return null;
+        List<ItemDTO> items = itemService.getItemsByIds(page.itemIds).stream()
+                .filter(dto -> Integer.valueOf(1).equals(dto.getStatus()) && dto.getStock() != null && dto.getStock() > 0)
+                .collect(Collectors.toList());
+        return new PageImpl<>(items, pageable, page.total);
     }
-} 
\ No newline at end of file
+}
@@ -1,8 +1,12 @@
 package com.campus.trading.service.impl;
 
+import com.campus.trading.config.AuthenticatedUser;
 import com.campus.trading.entity.User;
 import com.campus.trading.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,25 +14,44 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Spring Security用户详情服务实现类
+ *
+ * 已启用用户的认证信息缓存在本地（有界、定时过期），用户状态、角色或密码变化时需调用 {@link #evictUser(String)}。
+ * 多实例部署时其他节点最迟在缓存过期后感知变化。
  */
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache<String, CachedUser> userCache;
 
     @Autowired
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  @Value("${security.user-cache.ttl-seconds:300}") long ttlSeconds,
+                                  @Value("${security.user-cache.max-size:10000}") long maxSize) {
         this.userRepository = userRepository;
+        this.userCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (username == null) {
+            throw new UsernameNotFoundException("用户不存在: null");
+        }
+        CachedUser cached = userCache.getIfPresent(username);
+        if (cached != null) {
+            return cached.toUserDetails();
+        }
+
         // 从数据库查找用户
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("用户不存在: " + username));
@@ -43,11 +66,49 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
 
-        // 返回Spring Security的UserDetails对象
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                authorities
-        );
+        cached = new CachedUser(user.getId(), user.getUsername(), user.getPassword(), authorities);
+        userCache.put(username, cached);
+        return cached.toUserDetails();
+    }
+
+    /**
+     * 使指定用户的缓存失效（状态、角色、密码变化后调用）
+     *
+     * @param username 用户名
+     */
+    public void evictUser(String username) {
+        if (username != null) {
+            userCache.invalidate(username);
+        }
+    }
+
+    /**
+     * 清空全部用户缓存
+     */
+    public void evictAll() {
+        userCache.invalidateAll();
+    }
+
+    /**
+     * 缓存的用户认证快照；每次返回新的 UserDetails，
+     * 避免认证完成后擦除凭证影响缓存内容
+     */
+    private static final class CachedUser {
+        private final Long id;
+        private final String username;
+        private final String password;
+        private final List<SimpleGrantedAuthority> authorities;
+
+        private CachedUser(Long id, String username, String password, List<SimpleGrantedAuthority> authorities) {
+            this.id = id;
+            this.username = username;
+            this.password = password;
+            this.authorities = authorities;
+        }
+
+        private UserDetails toUserDetails() {
+            // 返回携带用户ID的UserDetails对象
+            return new AuthenticatedUser(id, username, password, authorities);
+        }
     }
-} 
\ No newline at end of file
+}
@@ -2,22 +2,26 @@ package com.campus.trading.service.impl;
 
 import com.campus.trading.entity.UserProfile;
 import com.campus.trading.entity.User;
-import com.campus.trading.entity.UserView;
-import com.campus.trading.entity.Favorite;
-import com.campus.trading.entity.Order;
-import com.campus.trading.entity.Item;
 import com.campus.trading.dto.UserProfileDTO;
-import com.campus.trading.entity.Category;
 import com.campus.trading.repository.UserProfileRepository;
 import com.campus.trading.repository.UserViewRepository;
 import com.campus.trading.repository.FavoriteRepository;
 import com.campus.trading.repository.OrderRepository;
-import com.campus.trading.repository.CategoryRepository;
+import com.campus.trading.repository.UserRepository;
+import com.campus.trading.cache.CategoryTree;
+import com.campus.trading.service.CategoryService;
 import com.campus.trading.service.UserProfileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -29,19 +33,35 @@ public class UserProfileServiceImpl implements UserProfileService {
     private final UserViewRepository userViewRepository;
     private final FavoriteRepository favoriteRepository;
     private final OrderRepository orderRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryService categoryService;
+
+    /**
+     * 衰减后低于此值的分类从画像中移除
+     */
+    private static final double MIN_INTEREST = 0.01;
+
+    /**
+     * 超过这么多个半衰期的行为权重已不足千分之一，重建时不再读取
+     */
+    private static final int REBUILD_HALF_LIVES = 10;
+
+    /**
+     * 兴趣半衰期（天）：行为的贡献每过一个半衰期减半
+     */
+    @Value("${app.user-profile.half-life-days:30}")
+    private double halfLifeDays = 30;
 
     @Autowired
     public UserProfileServiceImpl(UserProfileRepository userProfileRepository,
                                   UserViewRepository userViewRepository,
                                   FavoriteRepository favoriteRepository,
                                   OrderRepository orderRepository,
-                                  CategoryRepository categoryRepository) {
+                                  CategoryService categoryService) {
         this.userProfileRepository = userProfileRepository;
         this.userViewRepository = userViewRepository;
         this.favoriteRepository = favoriteRepository;
         this.orderRepository = orderRepository;
-        this.categoryRepository = categoryRepository;
+        this.categoryService = categoryService;
     }
 
     @Override
@@ -62,50 +82,65 @@ public class UserProfileServiceImpl implements UserProfileService {
     @Transactional
     public void updateProfile(User user) {
         UserProfile profile = getOrCreateProfile(user);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now.minusMinutes((long) (halfLifeDays * REBUILD_HALF_LIVES * 24 * 60));
         Map<Long, Double> interest = new HashMap<>();
+        // 只查询 [分类ID, 行为时间]，不逐行加载物品和分类
+        accumulate(interest, userViewRepository.findCategoryViewTimes(user, since), VIEW_WEIGHT, now);
+        accumulate(interest, favoriteRepository.findCategoryFavoriteTimes(user, since), FAVORITE_WEIGHT, now);
+        accumulate(interest, orderRepository.findCategoryOrderTimes(user, since), ORDER_WEIGHT, now);
+        interest.values().removeIf(score -> score < MIN_INTEREST);
+        profile.setCategoryInterest(interest);
+        profile.setUpdateTime(now);
+        userProfileRepository.save(profile);
+    }
 
-        // 浏览行为权重
-        List<UserView> views = userViewRepository.findByUser(user);
-        for (UserView view : views) {
-            Item item = view.getItem();
-            if (item != null && item.getCategory() != null) {
-                Long catId = item.getCategory().getId();
-                interest.put(catId, interest.getOrDefault(catId, 0.0) + 1.0);
-            }
-        }
-        // 收藏行为权重
-        List<Favorite> favorites = favoriteRepository.findByUser(user);
-        for (Favorite fav : favorites) {
-            Item item = fav.getItem();
-            if (item != null && item.getCategory() != null) {
-                Long catId = item.getCategory().getId();
-                interest.put(catId, interest.getOrDefault(catId, 0.0) + 3.0);
-            }
+    @Override
+    @Transactional
+    public void recordInterest(User user, Long categoryId, double weight) {
+        if (user == null || categoryId == null) {
+            return;
         }
-        // 交易行为权重
-        List<Order> orders = orderRepository.findByBuyer(user);
-        for (Order order : orders) {
-            Item item = order.getItem();
-            if (item != null && item.getCategory() != null) {
-                Long catId = item.getCategory().getId();
-                interest.put(catId, interest.getOrDefault(catId, 0.0) + 5.0);
-            }
+        UserProfile profile = getOrCreateProfile(user);
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Double> interest = profile.getCategoryInterest() != null ? profile.getCategoryInterest() : new HashMap<>();
+        // 画像中的分数以 updateTime 为基准，先衰减到当前时刻再叠加本次行为；分类数有限，与历史行为数无关
+        double factor = decay(profile.getUpdateTime(), now);
+        if (factor < 1.0) {
+            interest.replaceAll((id, score) -> score * factor);
         }
-        // 可根据需要归一化或加权
+        interest.merge(categoryId, weight, Double::sum);
+        interest.values().removeIf(score -> score < MIN_INTEREST);
         profile.setCategoryInterest(interest);
-        profile.setUpdateTime(LocalDateTime.now());
+        profile.setUpdateTime(now);
         userProfileRepository.save(profile);
     }
 
+    private void accumulate(Map<Long, Double> interest, List<Object[]> rows, double weight, LocalDateTime now) {
+        for (Object[] row : rows) {
+            interest.merge((Long) row[0], weight * decay((LocalDateTime) row[1], now), Double::sum);
+        }
+    }
+
+    // 从 from 到 to 的衰减系数
+    private double decay(LocalDateTime from, LocalDateTime to) {
+        if (from == null || !to.isAfter(from)) {
+            return 1.0;
+        }
+        double days = Duration.between(from, to).toMillis() / (double) Duration.ofDays(1).toMillis();
+        return Math.pow(0.5, days / halfLifeDays);
+    }
+
     @Override
     public UserProfileDTO getProfileDTO(User user) {
         UserProfile profile = getOrCreateProfile(user);
         Map<Long, Double> interest = profile.getCategoryInterest();
         Map<Long, String> idToName = new HashMap<>();
-        if (interest != null) {
+        if (interest != null && !interest.isEmpty()) {
+            CategoryTree tree = categoryService.getCategoryTree();
             for (Long catId : interest.keySet()) {
-                Category cat = categoryRepository.findById(catId).orElse(null);
-                idToName.put(catId, cat != null ? cat.getName() : String.valueOf(catId));
+                String name = tree.getName(catId);
+                idToName.put(catId, name != null ? name : String.valueOf(catId));
             }
         }
         return UserProfileDTO.builder()
@@ -137,4 +172,42 @@ public class UserProfileServiceImpl implements UserProfileService {
         userProfileRepository.save(profile);
         // 可扩展：记录信誉分变动日志
     }
-} 
\ No newline at end of file
+}
+
+/**
+ * 用户画像重建任务：每晚按全部行为数据重算允许个性化推荐的用户画像，纠正增量更新的偏差（并发丢失、撤销行为等）
+ */
+@Component
+class UserProfileRebuildTask {
+    private static final Logger log = LoggerFactory.getLogger(UserProfileRebuildTask.class);
+    private static final int PAGE_SIZE = 200;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserProfileService userProfileService;
+
+    @Scheduled(cron = "${app.user-profile.rebuild-cron:0 0 4 * * ?}")
+    public void rebuild() {
+        int rebuilt = 0;
+        for (int page = 0; ; page++) {
+            List<Long> userIds = userProfileRepository.findPersonalizedUserIds(PageRequest.of(page, PAGE_SIZE));
+            for (Long userId : userIds) {
+                try {
+                    // 每个用户单独提交，单个失败不影响其他用户
+                    userProfileService.updateProfile(userRepository.getReferenceById(userId));
+                    rebuilt++;
+                } catch (RuntimeException e) {
+                    log.warn("重建用户 {} 的画像失败: {}", userId, e.getMessage());
+                }
+            }
+            if (userIds.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        log.info("用户画像重建完成，共 {} 个用户", rebuilt);
+    }
+}
+
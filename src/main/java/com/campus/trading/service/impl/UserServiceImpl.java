@@ -8,8 +8,11 @@ import com.campus.trading.entity.User;
 import com.campus.trading.repository.UserRepository;
 import com.campus.trading.repository.UserProfileRepository;
 import com.campus.trading.service.UserService;
+import com.campus.trading.config.AuthenticatedUser;
 import com.campus.trading.config.JwtUtils;
+import com.campus.trading.config.SecurityUtil;
 import com.campus.trading.service.ImageService;
+import com.campus.trading.service.ItemIndexService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,16 +20,20 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 用户服务实现类
@@ -40,6 +47,13 @@ public class UserServiceImpl implements UserService {
     private final JwtUtils jwtUtils;
     private final ImageService imageService;
     private final UserProfileRepository userProfileRepository;
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private ItemIndexService itemIndexService;
+    @Autowired
+    private PlatformStatsCounter platformStatsCounter;
     private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
 
     @Value("${jwt.expiration}")
@@ -82,6 +96,7 @@ public class UserServiceImpl implements UserService {
         
         // 保存用户
         User savedUser = userRepository.save(user);
+        platformStatsCounter.userRegistered();
         
         // 转换为DTO返回
         return convertToDTO(savedUser);
@@ -128,7 +143,7 @@ public class UserServiceImpl implements UserService {
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new UsernameNotFoundException("当前用户未登录");
         }
-        return convertToDTO(getCurrentUser(authentication.getName()));
+        return convertToDTO(SecurityUtil.getCurrentUser());
     }
 
     @Override
@@ -136,11 +151,11 @@ public class UserServiceImpl implements UserService {
         if (principal == null) {
             throw new RuntimeException("未登录");
         }
-        return getCurrentUser(principal.getName());
-    }
-
-    private User getCurrentUser(String username) {
-        return findByUsername(username);
+        AuthenticatedUser current = SecurityUtil.getCurrentPrincipal();
+        if (current != null && current.getUsername().equals(principal.getName())) {
+            return SecurityUtil.getCurrentUser();
+        }
+        return findByUsername(principal.getName());
     }
 
     @Override
@@ -173,7 +188,9 @@ public class UserServiceImpl implements UserService {
         if (userDTO.getPhone() != null) {
             user.setPhone(userDTO.getPhone());
         }
+        boolean statusChanged = false;
         if (userDTO.getStatus() != null) {
+            statusChanged = !userDTO.getStatus().equals(user.getStatus());
             user.setStatus(userDTO.getStatus());
         }
         if (userDTO.getBio() != null) {
@@ -182,6 +199,9 @@ public class UserServiceImpl implements UserService {
         
         // 保存更新
         User updatedUser = userRepository.save(user);
+        if (statusChanged) {
+            evictUserDetailsAfterCommit(username);
+        }
         return convertToDTO(updatedUser);
     }
 
@@ -206,6 +226,7 @@ public class UserServiceImpl implements UserService {
         // 更新密码
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        evictUserDetailsAfterCommit(username);
         return true;
     }
 
@@ -230,10 +251,13 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public void updateImageId(String imageId) {
-        User currentUser = findByUsername(getCurrentUser().getUsername());
+        User currentUser = SecurityUtil.getCurrentUser();
         currentUser.setAvatarImageId(imageId);
         userRepository.save(currentUser);
+        // 物品文档冗余了卖家头像，需要重新索引该用户的物品
+        itemIndexService.enqueueUserItems(currentUser.getId());
     }
     
     @Override
@@ -259,14 +283,25 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    // 辅助方法：事务提交后再清理认证缓存，避免并发请求在提交前把旧数据重新写回缓存
+    private void evictUserDetailsAfterCommit(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userDetailsService.evictUser(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userDetailsService.evictUser(username);
+            }
+        });
+    }
+
     // 辅助方法：生成Token
     private String generateToken(User user) {
         // 使用JwtUtils生成令牌
-        UserDetails userDetails = org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password("")
-                .authorities(user.getRoles().stream().toArray(String[]::new))
-                .build();
+        UserDetails userDetails = new AuthenticatedUser(user.getId(), user.getUsername(), null,
+                user.getRoles().stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList()));
         
         return jwtUtils.generateToken(userDetails);
     }
@@ -4,9 +4,11 @@ import com.campus.trading.entity.UserView;
 import com.campus.trading.entity.User;
 import com.campus.trading.entity.Item;
 import com.campus.trading.repository.UserViewRepository;
+import com.campus.trading.service.UserProfileService;
 import com.campus.trading.service.UserViewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -14,20 +16,28 @@ import java.util.List;
 @Service
 public class UserViewServiceImpl implements UserViewService {
     private final UserViewRepository userViewRepository;
+    private final UserProfileService userProfileService;
 
     @Autowired
-    public UserViewServiceImpl(UserViewRepository userViewRepository) {
+    public UserViewServiceImpl(UserViewRepository userViewRepository, UserProfileService userProfileService) {
         this.userViewRepository = userViewRepository;
+        this.userProfileService = userProfileService;
     }
 
     @Override
+    @Transactional
     public UserView recordView(User user, Item item) {
         UserView userView = UserView.builder()
                 .user(user)
                 .item(item)
                 .viewTime(LocalDateTime.now())
                 .build();
-        return userViewRepository.save(userView);
+        UserView saved = userViewRepository.save(userView);
+        // 浏览后增量更新用户画像
+        if (user != null && item != null && item.getCategory() != null && user.isAllowPersonalizedRecommend()) {
+            userProfileService.recordInterest(user, item.getCategory().getId(), UserProfileService.VIEW_WEIGHT);
+        }
+        return saved;
     }
 
     @Override
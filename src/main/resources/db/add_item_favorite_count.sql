@@ -0,0 +1,13 @@
+-- 物品收藏数冗余字段
+-- 收藏/取消收藏时原子加减，按收藏量排序直接走 (status, favorite_count, create_time) 索引，不再聚合 t_favorite；
+-- 新库由 JPA 根据实体自动创建，已有库手动执行本脚本
+ALTER TABLE t_item
+ADD COLUMN favorite_count INT NOT NULL DEFAULT 0 COMMENT '收藏数',
+ADD INDEX idx_item_status_favorite_count (status, favorite_count, create_time);
+
+-- 回填已有收藏数（建议在低峰期执行，执行期间的收藏变动可能需要再执行一次）
+UPDATE t_item i
+LEFT JOIN (SELECT item_id, COUNT(*) AS cnt FROM t_favorite GROUP BY item_id) f ON f.item_id = i.id
+SET i.favorite_count = COALESCE(f.cnt, 0);
+
+-- ES 中的 favoriteCount 字段需要执行一次全量重建索引：POST /admin/search/reindex
@@ -0,0 +1,8 @@
+-- 物品列表游标分页索引
+-- 对应 /items/cursor 与 /items/category/{id}/cursor 的 (排序键, id) 定位查询，
+-- 新库由 JPA 根据实体 @Table(indexes) 自动创建，已有库手动执行本脚本
+ALTER TABLE t_item
+ADD INDEX idx_item_status_create_time (status, create_time, id),
+ADD INDEX idx_item_status_popularity (status, popularity, id),
+ADD INDEX idx_item_category_status_create_time (category_id, status, create_time, id),
+ADD INDEX idx_item_category_status_popularity (category_id, status, popularity, id);
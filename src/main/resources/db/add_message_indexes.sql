@@ -0,0 +1,12 @@
+-- 消息表索引
+-- 对应 MessageRepository 的查询路径：收件箱按类型/时间分页、未读数统计、批量标记已读、
+-- 聊天记录分页和会话未读统计，以及归档任务按类型和时间筛选已读通知。
+-- 新库由 JPA 根据实体 @Table(indexes) 自动创建，已有库手动执行本脚本
+ALTER TABLE messages
+ADD INDEX idx_messages_recipient_created (recipient_id, created_at),
+ADD INDEX idx_messages_recipient_type_created (recipient_id, message_type, created_at),
+ADD INDEX idx_messages_recipient_read_type (recipient_id, is_read, message_type),
+ADD INDEX idx_messages_sender_type_created (sender_id, message_type, created_at),
+ADD INDEX idx_messages_chat_created (chat_id, created_at),
+ADD INDEX idx_messages_chat_recipient_read (chat_id, recipient_id, is_read),
+ADD INDEX idx_messages_type_read_created (message_type, is_read, created_at);
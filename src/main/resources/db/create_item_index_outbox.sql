@@ -0,0 +1,9 @@
+-- 物品索引发件箱表
+-- 物品变更时与业务数据在同一事务中写入，由索引任务批量同步到 ES 后删除
+CREATE TABLE IF NOT EXISTS t_item_index_outbox (
+  id BIGINT NOT NULL AUTO_INCREMENT COMMENT '自增ID，同时作为ES外部版本号',
+  item_id BIGINT NOT NULL COMMENT '物品ID',
+  create_time DATETIME(6) NOT NULL COMMENT '写入时间',
+  PRIMARY KEY (id),
+  KEY idx_item_index_outbox_item_id (item_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='物品索引发件箱';
@@ -0,0 +1,159 @@
+package com.campus.trading.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.campus.trading.cache.CacheCodec;
+import com.campus.trading.cache.CategoryListBinaryCodec;
+import com.campus.trading.cache.ItemDTOBinaryCodec;
+import com.campus.trading.dto.ItemDTO;
+import com.campus.trading.entity.Category;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 缓存值编解码基准测试：原 fastjson 文本 vs 二进制编码
+ *
+ * 覆盖物品详情与分类列表的编码、解码耗时；存储字节数在 main 方法中先行打印。
+ * 运行方式：mvn test-compile 后执行本类 main 方法（测试 classpath）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheCodecBenchmark {
+
+    /**
+     * 分类数量，与线上分类规模相当
+     */
+    @Param({"40"})
+    private int categoryCount;
+
+    private ItemDTO item;
+    private List<Category> categories;
+    private CacheCodec<ItemDTO> itemCodec;
+    private CacheCodec<List<Category>> categoryCodec;
+    private String itemJson;
+    private String categoryJson;
+    private byte[] itemBinary;
+    private byte[] categoryBinary;
+
+    @Setup
+    public void setup() {
+        item = sampleItem();
+        categories = sampleCategories(categoryCount);
+        itemCodec = new ItemDTOBinaryCodec();
+        categoryCodec = new CategoryListBinaryCodec();
+        itemJson = JSON.toJSONString(item);
+        categoryJson = JSON.toJSONString(categories);
+        itemBinary = itemCodec.encode(item);
+        categoryBinary = categoryCodec.encode(categories);
+    }
+
+    // 原实现：JSON.toJSONString 写入 StringRedisTemplate，再按 UTF-8 发送
+    @Benchmark
+    public byte[] itemEncodeFastjson() {
+        return JSON.toJSONString(item).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] itemEncodeBinary() {
+        return itemCodec.encode(item);
+    }
+
+    @Benchmark
+    public ItemDTO itemDecodeFastjson() {
+        return JSON.parseObject(itemJson, ItemDTO.class);
+    }
+
+    @Benchmark
+    public ItemDTO itemDecodeBinary() {
+        return itemCodec.decode(itemBinary);
+    }
+
+    @Benchmark
+    public byte[] categoryEncodeFastjson() {
+        return JSON.toJSONString(categories).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] categoryEncodeBinary() {
+        return categoryCodec.encode(categories);
+    }
+
+    @Benchmark
+    public List<Category> categoryDecodeFastjson() {
+        return JSON.parseArray(categoryJson, Category.class);
+    }
+
+    @Benchmark
+    public List<Category> categoryDecodeBinary() {
+        return categoryCodec.decode(categoryBinary);
+    }
+
+    static ItemDTO sampleItem() {
+        return ItemDTO.builder()
+                .id(1024L)
+                .name("九成新台灯")
+                .categoryId(12L)
+                .categoryName("生活用品")
+                .price(new BigDecimal("35.50"))
+                .description("宿舍用台灯，三档调光，毕业出，可小刀，支持校内当面交易")
+                .imageUrls(Arrays.asList("/image/64f0c2a1b3d4e5f6a7b8c901?token=kx1a2b.QmFzZTY0U2lnbmF0dXJl",
+                        "/image/64f0c2a1b3d4e5f6a7b8c902?token=kx1a2b.QmFzZTY0U2lnbmF0dXJm"))
+                .imageIds(Arrays.asList("64f0c2a1b3d4e5f6a7b8c901", "64f0c2a1b3d4e5f6a7b8c902"))
+                .condition(9)
+                .status(1)
+                .popularity(356)
+                .userId(77L)
+                .username("student77")
+                .userAvatar("/image/64f0c2a1b3d4e5f6a7b8c9ff?token=kx1a2b.QXZhdGFyU2lnbmF0dXJl")
+                .createTime(LocalDateTime.of(2024, 5, 20, 13, 14, 15))
+                .updateTime(LocalDateTime.of(2024, 5, 21, 9, 0, 0))
+                .stock(3)
+                .build();
+    }
+
+    static List<Category> sampleCategories(int count) {
+        List<Category> categories = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            categories.add(Category.builder()
+                    .id((long) i)
+                    .name("分类" + i)
+                    .description("校园二手分类" + i)
+                    .icon("icon-" + i)
+                    .sortOrder(i)
+                    .parentId(i > 8 ? (long) (i % 8 + 1) : null)
+                    .createTime(LocalDateTime.of(2024, 3, 1, 10, 0))
+                    .updateTime(LocalDateTime.of(2024, 3, 1, 10, 0))
+                    .build());
+        }
+        return categories;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        ItemDTO item = sampleItem();
+        List<Category> categories = sampleCategories(40);
+        System.out.printf("物品详情存储字节: fastjson=%d, binary=%d%n",
+                JSON.toJSONString(item).getBytes(StandardCharsets.UTF_8).length,
+                new ItemDTOBinaryCodec().encode(item).length);
+        System.out.printf("分类列表存储字节: fastjson=%d, binary=%d%n",
+                JSON.toJSONString(categories).getBytes(StandardCharsets.UTF_8).length,
+                new CategoryListBinaryCodec().encode(categories).length);
+        Options options = new OptionsBuilder()
+                .include(CacheCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,110 @@
+package com.campus.trading.benchmark;
+
+import com.campus.trading.config.ImageUrlSigner;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片访问令牌签名/校验基准测试：原 JWT 方案 vs 紧凑签名方案
+ *
+ * 运行方式：mvn test-compile 后执行本类 main 方法（测试 classpath）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageTokenBenchmark {
+
+    private static final String SECRET = "campus-trading-platform-secret-key";
+    private static final long EXPIRATION = 86400000L;
+
+    /**
+     * 一页列表中的图片数量，模拟同一页内重复渲染
+     */
+    @Param({"20"})
+    private int imagesPerPage;
+
+    private String[] imageIds;
+    private ImageUrlSigner signer;
+    private String jwtToken;
+    private String compactToken;
+
+    @Setup
+    public void setup() {
+        imageIds = new String[imagesPerPage];
+        for (int i = 0; i < imagesPerPage; i++) {
+            imageIds[i] = String.format("64f0c2a1b3d4e5f6a7b8c9%02d", i);
+        }
+        signer = new ImageUrlSigner(SECRET, EXPIRATION, 600, 20000);
+        jwtToken = jwtSign(imageIds[0]);
+        compactToken = signer.sign(imageIds[0]);
+    }
+
+    @Benchmark
+    public String jwtSignPage() {
+        String last = null;
+        for (String imageId : imageIds) {
+            last = jwtSign(imageId);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public String compactSignPage() {
+        String last = null;
+        for (String imageId : imageIds) {
+            last = signer.sign(imageId);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public boolean jwtVerify() {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(jwtToken)
+                .getBody();
+        return imageIds[0].equals(claims.get("imageId", String.class)) && claims.getExpiration().after(new Date());
+    }
+
+    @Benchmark
+    public boolean compactVerify() {
+        return signer.verify(compactToken, imageIds[0]);
+    }
+
+    // 原 JwtUtils.generateImageToken 的实现：每次构建声明并重新派生密钥
+    private static String jwtSign(String imageId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("imageId", imageId);
+        long nowMillis = System.currentTimeMillis();
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(imageId)
+                .setIssuedAt(new Date(nowMillis))
+                .setExpiration(new Date(nowMillis + EXPIRATION))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ImageTokenBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.campus.trading.cache;
+
+import com.campus.trading.dto.ItemDTO;
+import com.campus.trading.entity.Category;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryCacheCodecTest {
+
+    private final ItemDTOBinaryCodec itemCodec = new ItemDTOBinaryCodec();
+
+    @Test
+    void testItemRoundTrip() {
+        ItemDTO dto = sampleItem();
+        ItemDTO decoded = itemCodec.decode(itemCodec.encode(dto));
+        assertEquals(dto.getId(), decoded.getId());
+        assertEquals(dto.getName(), decoded.getName());
+        assertEquals(0, dto.getPrice().compareTo(decoded.getPrice()));
+        assertEquals(dto.getPrice().scale(), decoded.getPrice().scale());
+        assertEquals(dto.getImages(), decoded.getImages());
+        assertEquals(dto.getImageIds(), decoded.getImageIds());
+        assertEquals(dto.getCreateTime(), decoded.getCreateTime());
+        assertEquals(dto.getStock(), decoded.getStock());
+        assertNull(decoded.getFavoriteId());
+        assertNull(decoded.getUpdateTime());
+        assertTrue(itemCodec.encode(dto).length < new JsonCacheCodec<ItemDTO>(ItemDTO.class).encode(dto).length);
+    }
+
+    @Test
+    void testOlderRecordMissingTrailingFieldsDecodesAsNull() {
+        // 模拟旧版本只写到 username 为止
+        BinaryWriter body = new BinaryWriter()
+                .writeNullableLong(9L).writeString("旧数据").writeNullableLong(null).writeString(null)
+                .writeDecimal(null).writeString(null).writeStringList(null).writeStringList(null)
+                .writeNullableInt(null).writeNullableInt(1).writeNullableInt(3).writeNullableLong(5L)
+                .writeString("seller");
+        byte[] bytes = new BinaryWriter().writeByte(ItemDTOBinaryCodec.FORMAT_VERSION).writeRecord(body).toByteArray();
+        ItemDTO decoded = itemCodec.decode(bytes);
+        assertEquals(9L, decoded.getId());
+        assertEquals("seller", decoded.getUsername());
+        assertNull(decoded.getUserAvatar());
+        assertNull(decoded.getStock());
+    }
+
+    @Test
+    void testNewerRecordTrailingFieldsAreSkipped() {
+        BinaryWriter body = new BinaryWriter();
+        ItemDTOBinaryCodec.writeBody(body, sampleItem());
+        // 新版本追加的字段
+        body.writeString("future-field").writeNullableLong(42L);
+        byte[] bytes = new BinaryWriter().writeByte(ItemDTOBinaryCodec.FORMAT_VERSION).writeRecord(body).toByteArray();
+        assertEquals(Integer.valueOf(3), itemCodec.decode(bytes).getStock());
+    }
+
+    @Test
+    void testUnknownVersionIsMiss() {
+        byte[] bytes = itemCodec.encode(sampleItem());
+        bytes[0] = 99;
+        assertNull(itemCodec.decode(bytes));
+    }
+
+    @Test
+    void testCategoryListRoundTrip() {
+        CategoryListBinaryCodec codec = new CategoryListBinaryCodec();
+        List<Category> categories = Arrays.asList(
+                Category.builder().id(1L).name("数码").sortOrder(1).build(),
+                Category.builder().id(2L).name("手机").parentId(1L).icon("phone").build());
+        List<Category> decoded = codec.decode(codec.encode(categories));
+        assertEquals(categories, decoded);
+        assertTrue(codec.decode(codec.encode(Collections.emptyList())).isEmpty());
+    }
+
+    static ItemDTO sampleItem() {
+        return ItemDTO.builder()
+                .id(1024L)
+                .name("九成新台灯")
+                .categoryId(12L)
+                .categoryName("生活用品")
+                .price(new BigDecimal("35.50"))
+                .description("宿舍用台灯，三档调光，毕业出")
+                .imageUrls(Arrays.asList("/image/64f0c2a1b3d4e5f6a7b8c901?token=kx1a2b.QmFzZTY0U2lnbmF0dXJl",
+                        "/image/64f0c2a1b3d4e5f6a7b8c902?token=kx1a2b.QmFzZTY0U2lnbmF0dXJm"))
+                .imageIds(Arrays.asList("64f0c2a1b3d4e5f6a7b8c901", "64f0c2a1b3d4e5f6a7b8c902"))
+                .condition(9)
+                .status(1)
+                .popularity(356)
+                .userId(77L)
+                .username("student77")
+                .userAvatar("/image/64f0c2a1b3d4e5f6a7b8c9ff?token=kx1a2b.QXZhdGFyU2lnbmF0dXJl")
+                .createTime(LocalDateTime.of(2024, 5, 20, 13, 14, 15))
+                .stock(3)
+                .build();
+    }
+}
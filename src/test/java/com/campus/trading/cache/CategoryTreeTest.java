@@ -0,0 +1,69 @@
+package com.campus.trading.cache;
+
+import com.campus.trading.entity.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryTreeTest {
+
+    private static Category category(Long id, String name, Long parentId) {
+        return Category.builder().id(id).name(name).parentId(parentId).build();
+    }
+
+    private final CategoryTree tree = CategoryTree.of(Arrays.asList(
+            category(1L, "电子产品", null),
+            category(2L, "手机", 1L),
+            category(3L, "手机配件", 2L),
+            category(4L, "电脑", 1L),
+            category(5L, "书籍", null)));
+
+    @Test
+    void testDescendantIdsAllLevels() {
+        assertEquals(Arrays.asList(1L, 2L, 4L, 3L), tree.getDescendantIds(1L));
+        assertEquals(Arrays.asList(2L, 3L), tree.getDescendantIds(2L));
+        assertEquals(Collections.singletonList(5L), tree.getDescendantIds(5L));
+        // 快照中没有的分类只返回自身
+        assertEquals(Collections.singletonList(99L), tree.getDescendantIds(99L));
+    }
+
+    @Test
+    void testAncestorIds() {
+        assertEquals(Arrays.asList(3L, 2L, 1L), tree.getAncestorIds(3L));
+        assertEquals(Collections.singletonList(5L), tree.getAncestorIds(5L));
+        assertEquals(Collections.singletonList(99L), tree.getAncestorIds(99L));
+    }
+
+    @Test
+    void testNamesAndLookup() {
+        assertEquals("手机", tree.getName(2L));
+        assertNull(tree.getName(99L));
+        assertEquals("书籍", tree.get(5L).getName());
+        assertNull(tree.get(99L));
+        assertEquals(5, tree.size());
+        assertEquals(5, tree.getNames().size());
+    }
+
+    @Test
+    void testSnapshotIsNotAffectedByCallers() {
+        tree.get(2L).setName("改名");
+        tree.getCategories().get(0).setParentId(5L);
+        assertEquals("手机", tree.getName(2L));
+        assertEquals("手机", tree.get(2L).getName());
+        assertEquals(Collections.singletonList(5L), tree.getDescendantIds(5L));
+        List<Long> ids = tree.getDescendantIds(1L);
+        assertThrows(UnsupportedOperationException.class, () -> ids.set(0, 7L));
+    }
+
+    @Test
+    void testCycleDoesNotLoop() {
+        CategoryTree cyclic = CategoryTree.of(Arrays.asList(category(1L, "a", 2L), category(2L, "b", 1L)));
+        assertEquals(Arrays.asList(1L, 2L), cyclic.getDescendantIds(1L));
+        assertEquals(Arrays.asList(1L, 2L), cyclic.getAncestorIds(1L));
+        assertEquals(0, CategoryTree.of(null).size());
+    }
+}
@@ -0,0 +1,52 @@
+package com.campus.trading.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageUrlSignerTest {
+
+    private static final String SECRET = "campus-trading-platform-secret-key-for-test";
+
+    private final ImageUrlSigner signer = new ImageUrlSigner(SECRET, 3600_000L, 600, 100);
+
+    @Test
+    void testSignAndVerify() {
+        String token = signer.sign("img-1");
+        assertTrue(ImageUrlSigner.isCompactToken(token));
+        assertTrue(signer.verify(token, "img-1"));
+    }
+
+    @Test
+    void testSameBucketReusesToken() {
+        assertEquals(signer.sign("img-1"), signer.sign("img-1"));
+        assertNotEquals(signer.sign("img-1"), signer.sign("img-2"));
+    }
+
+    @Test
+    void testVerifyRejectsOtherImage() {
+        String token = signer.sign("img-1");
+        assertFalse(signer.verify(token, "img-2"));
+    }
+
+    @Test
+    void testVerifyRejectsOtherKey() {
+        ImageUrlSigner other = new ImageUrlSigner(SECRET + "-other", 3600_000L, 600, 100);
+        assertFalse(signer.verify(other.sign("img-1"), "img-1"));
+    }
+
+    @Test
+    void testVerifyRejectsExpiredToken() {
+        ImageUrlSigner expired = new ImageUrlSigner(SECRET, -7200_000L, 60, 100);
+        assertFalse(expired.verify(expired.sign("img-1"), "img-1"));
+    }
+
+    @Test
+    void testVerifyRejectsMalformedToken() {
+        assertFalse(signer.verify(null, "img-1"));
+        assertFalse(signer.verify("abc", "img-1"));
+        assertFalse(signer.verify("zzzz.***", "img-1"));
+        assertFalse(signer.verify("a.b.c", "img-1"));
+        assertFalse(ImageUrlSigner.isCompactToken("a.b.c"));
+    }
+}
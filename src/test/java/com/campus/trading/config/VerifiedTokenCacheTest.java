@@ -0,0 +1,80 @@
+package com.campus.trading.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private JwtUtils jwtUtils;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        JwtUtils real = new JwtUtils();
+        ReflectionTestUtils.setField(real, "secret", "campus-trading-platform-secret-key-for-test");
+        ReflectionTestUtils.setField(real, "expiration", 3600_000L);
+        real.init();
+        jwtUtils = spy(real);
+        cache = new VerifiedTokenCache(jwtUtils, 100);
+    }
+
+    @Test
+    void testVerifyParsesOnce() {
+        String token = jwtUtils.generateToken(User.withUsername("alice").password("").authorities("ROLE_USER").build());
+
+        VerifiedTokenCache.VerifiedToken first = cache.verify(token);
+        VerifiedTokenCache.VerifiedToken second = cache.verify(token);
+
+        assertNotNull(first);
+        assertEquals("alice", first.getUsername());
+        assertSame(first, second);
+        verify(jwtUtils, times(1)).parseToken(anyString());
+    }
+
+    @Test
+    void testVerifyRejectsInvalidToken() {
+        assertNull(cache.verify(null));
+        assertNull(cache.verify(""));
+        assertNull(cache.verify("not-a-jwt"));
+        String token = jwtUtils.generateToken(User.withUsername("alice").password("").authorities("ROLE_USER").build());
+        assertNull(cache.verify(token.substring(0, token.length() - 2) + "xx"));
+    }
+
+    @Test
+    void testVerifyRejectsExpiredToken() {
+        ReflectionTestUtils.setField(jwtUtils, "expiration", -1000L);
+        String token = jwtUtils.generateToken(User.withUsername("alice").password("").authorities("ROLE_USER").build());
+        assertNull(cache.verify(token));
+    }
+
+    @Test
+    void testVerifyCarriesIdentityClaims() {
+        AuthenticatedUser principal = new AuthenticatedUser(42L, "alice", null,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        VerifiedTokenCache.VerifiedToken verified = cache.verify(jwtUtils.generateToken(principal));
+
+        assertNotNull(verified);
+        assertEquals(42L, verified.getUserId());
+        assertEquals(Arrays.asList("ROLE_ADMIN"), verified.getRoles());
+        assertEquals(Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN")), verified.getAuthorities());
+    }
+
+    @Test
+    void testVerifyLegacyTokenWithoutUserId() {
+        String token = jwtUtils.generateToken(User.withUsername("alice").password("").authorities("ROLE_USER").build());
+        VerifiedTokenCache.VerifiedToken verified = cache.verify(token);
+
+        assertNotNull(verified);
+        assertNull(verified.getUserId());
+    }
+}
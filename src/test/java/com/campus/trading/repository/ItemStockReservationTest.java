@@ -0,0 +1,160 @@
+package com.campus.trading.repository;
+
+import com.campus.trading.entity.Item;
+import com.campus.trading.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 库存原子预占的并发测试（H2 内存库，MySQL 兼容模式）
+ *
+ * 多线程同时对同一物品下单，验证不超卖、售罄自动下架，并输出每秒预占成功的订单数。
+ * 测试方法不包在事务里，每次预占各自提交，和线上并发下单一致。
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock;MODE=MySQL;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ItemStockReservationTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        User user = new User();
+        user.setUsername("seller-" + System.nanoTime());
+        user.setPassword("x");
+        user.setStatus(1);
+        seller = userRepository.save(user);
+    }
+
+    private Long createItem(int stock) {
+        Item item = new Item();
+        item.setName("测试物品");
+        item.setPrice(BigDecimal.TEN);
+        item.setItemCondition(1);
+        item.setStatus(1);
+        item.setPopularity(0);
+        item.setStock(stock);
+        item.setUser(seller);
+        return itemRepository.save(item).getId();
+    }
+
+    private int reserve(Long itemId) {
+        Integer updated = tx.execute(status -> itemRepository.reserveStock(itemId));
+        return updated != null ? updated : 0;
+    }
+
+    // 所有线程同时开始抢购，返回预占成功次数
+    private int race(Long itemId, int attempts, String label) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger remaining = new AtomicInteger(attempts);
+        AtomicInteger reserved = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                while (remaining.getAndDecrement() > 0) {
+                    reserved.addAndGet(reserve(itemId));
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        pool.shutdown();
+        System.out.printf("[%s] %d 线程, 尝试 %d 次, 预占成功 %d 单, 耗时 %.0f ms, 请求 %.0f 次/秒, 成交 %.0f 单/秒%n",
+                label, THREADS, attempts, reserved.get(), seconds * 1000, attempts / seconds, reserved.get() / seconds);
+        return reserved.get();
+    }
+
+    @Test
+    void testNoOversellUnderContention() throws Exception {
+        Long itemId = createItem(50);
+
+        int reserved = race(itemId, 2000, "抢购");
+
+        assertEquals(50, reserved);
+        Item item = itemRepository.findById(itemId).orElseThrow(IllegalStateException::new);
+        assertEquals(0, item.getStock());
+        // 售罄自动下架
+        assertEquals(0, item.getStatus());
+        assertEquals(0, reserve(itemId));
+    }
+
+    @Test
+    void testThroughputWithAmpleStock() throws Exception {
+        Long itemId = createItem(5000);
+
+        int reserved = race(itemId, 5000, "吞吐");
+
+        assertEquals(5000, reserved);
+        assertEquals(0, itemRepository.findStockById(itemId));
+    }
+
+    @Test
+    void testUnlistedItemCannotBeReserved() {
+        Long itemId = createItem(3);
+        tx.execute(status -> {
+            Item item = itemRepository.findById(itemId).orElseThrow(IllegalStateException::new);
+            item.setStatus(0);
+            return itemRepository.save(item);
+        });
+
+        assertEquals(0, reserve(itemId));
+        assertEquals(3, itemRepository.findStockById(itemId));
+    }
+
+    @Test
+    void testReleaseRelistsItem() {
+        Long itemId = createItem(1);
+        assertEquals(1, reserve(itemId));
+        assertEquals(0, itemRepository.findById(itemId).map(Item::getStatus).orElse(-1));
+
+        tx.execute(status -> itemRepository.releaseStock(itemId));
+
+        Item item = itemRepository.findById(itemId).orElseThrow(IllegalStateException::new);
+        assertEquals(1, item.getStock());
+        assertEquals(1, item.getStatus());
+    }
+}
@@ -96,7 +96,6 @@ class BuyRequestServiceImplTest {
         dto.setContact("contact");
         User user = new User();
         user.setId(1L);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(categoryService.findById(anyLong())).thenReturn(new Category());
         when(buyRequestRepository.save(any(BuyRequest.class))).thenAnswer(i -> i.getArgument(0));
         try (MockedStatic<SecurityUtil> mocked = mockStatic(SecurityUtil.class)) {
@@ -111,10 +110,8 @@ class BuyRequestServiceImplTest {
     void create_shouldThrow_whenUserNotFound() {
         BuyRequestCreateDTO dto = new BuyRequestCreateDTO();
         dto.setCategoryId(1L);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
         try (MockedStatic<SecurityUtil> mocked = mockStatic(SecurityUtil.class)) {
-            User fakeUser = new User(); fakeUser.setId(99L);
-            mocked.when(SecurityUtil::getCurrentUser).thenReturn(fakeUser);
+            mocked.when(SecurityUtil::getCurrentUser).thenThrow(new RuntimeException("当前用户不存在: ID=99"));
             assertThrows(RuntimeException.class, () -> buyRequestServiceImpl.create(dto));
         }
     }
@@ -124,7 +121,6 @@ class BuyRequestServiceImplTest {
         BuyRequestCreateDTO dto = new BuyRequestCreateDTO();
         dto.setCategoryId(1L);
         User user = new User(); user.setId(1L);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(categoryService.findById(anyLong())).thenThrow(new RuntimeException("分类不存在"));
         try (MockedStatic<SecurityUtil> mocked = mockStatic(SecurityUtil.class)) {
             mocked.when(SecurityUtil::getCurrentUser).thenReturn(user);
@@ -141,7 +137,7 @@ class BuyRequestServiceImplTest {
         when(buyRequestRepository.findById(1L)).thenReturn(Optional.of(buyRequest));
         when(buyRequestRepository.save(any(BuyRequest.class))).thenAnswer(i -> i.getArgument(0));
         try (MockedStatic<SecurityUtil> mocked = mockStatic(SecurityUtil.class)) {
-            mocked.when(SecurityUtil::getCurrentUser).thenReturn(user);
+            mocked.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
             BuyRequestDTO result = buyRequestServiceImpl.update(1L, dto);
             assertNotNull(result);
             assertEquals(1L, result.getId());
@@ -156,7 +152,7 @@ class BuyRequestServiceImplTest {
         BuyRequestUpdateDTO dto = new BuyRequestUpdateDTO();
         when(buyRequestRepository.findById(1L)).thenReturn(Optional.of(buyRequest));
         try (MockedStatic<SecurityUtil> mocked = mockStatic(SecurityUtil.class)) {
-            mocked.when(SecurityUtil::getCurrentUser).thenReturn(other);
+            mocked.when(SecurityUtil::getCurrentUserId).thenReturn(2L);
             assertThrows(RuntimeException.class, () -> buyRequestServiceImpl.update(1L, dto));
         }
     }
@@ -175,7 +171,7 @@ class BuyRequestServiceImplTest {
         when(buyRequestRepository.findById(1L)).thenReturn(Optional.of(buyRequest));
         doNothing().when(buyRequestRepository).delete(buyRequest);
         try (MockedStatic<SecurityUtil> mocked = mockStatic(SecurityUtil.class)) {
-            mocked.when(SecurityUtil::getCurrentUser).thenReturn(user);
+            mocked.when(SecurityUtil::getCurrentUserId).thenReturn(1L);
             assertDoesNotThrow(() -> buyRequestServiceImpl.delete(1L));
             verify(buyRequestRepository, times(1)).delete(buyRequest);
         }
@@ -188,7 +184,7 @@ class BuyRequestServiceImplTest {
         BuyRequest buyRequest = BuyRequest.builder().id(1L).user(owner).category(new Category()).build();
         when(buyRequestRepository.findById(1L)).thenReturn(Optional.of(buyRequest));
         try (MockedStatic<SecurityUtil> mocked = mockStatic(SecurityUtil.class)) {
-            mocked.when(SecurityUtil::getCurrentUser).thenReturn(other);
+            mocked.when(SecurityUtil::getCurrentUserId).thenReturn(2L);
             assertThrows(RuntimeException.class, () -> buyRequestServiceImpl.delete(1L));
         }
     }
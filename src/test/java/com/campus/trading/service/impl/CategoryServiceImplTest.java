@@ -1,6 +1,7 @@
 package com.campus.trading.service.impl;
 
-import com.alibaba.fastjson.JSON;
+import com.campus.trading.cache.CategoryListBinaryCodec;
+import com.campus.trading.cache.CategoryTree;
 import com.campus.trading.entity.Category;
 import com.campus.trading.repository.CategoryRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,8 +9,10 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -25,23 +28,25 @@ class CategoryServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
     @Mock
-    private StringRedisTemplate stringRedisTemplate;
+    private RedisTemplate<String, byte[]> binaryRedisTemplate;
     @Mock
-    private ValueOperations<String, String> valueOperations;
+    private ValueOperations<String, byte[]> valueOperations;
     @InjectMocks
     private CategoryServiceImpl categoryService;
 
+    private final CategoryListBinaryCodec codec = new CategoryListBinaryCodec();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(binaryRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        ReflectionTestUtils.setField(categoryService, "categoryListCodec", codec);
     }
 
     @Test
     void testGetAllCategories_CacheHit() {
         List<Category> categories = Arrays.asList(new Category(), new Category());
-        String json = JSON.toJSONString(categories);
-        when(valueOperations.get("category:all")).thenReturn(json);
+        when(valueOperations.get("category:all:bin")).thenReturn(codec.encode(categories));
         List<Category> result = categoryService.getAllCategories();
         assertNotNull(result);
         assertEquals(2, result.size());
@@ -50,7 +55,7 @@ class CategoryServiceImplTest {
 
     @Test
     void testGetAllCategories_CacheMiss() {
-        when(valueOperations.get("category:all")).thenReturn(null);
+        when(valueOperations.get("category:all:bin")).thenReturn(null);
         List<Category> categories = Collections.singletonList(new Category());
         when(categoryRepository.findAll()).thenReturn(categories);
         doNothing().when(valueOperations).set(any(), any(), any());
@@ -61,12 +66,50 @@ class CategoryServiceImplTest {
         verify(valueOperations, times(1)).set(any(), any(), any());
     }
 
+    @Test
+    void testGetAllCategories_UndecodableCache() {
+        when(valueOperations.get("category:all:bin")).thenReturn("[{}]".getBytes());
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(new Category()));
+        assertEquals(1, categoryService.getAllCategories().size());
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testGetAllCategories_RedisDown() {
+        when(valueOperations.get("category:all:bin")).thenThrow(new RedisConnectionFailureException("down"));
+        doThrow(new RedisConnectionFailureException("down")).when(valueOperations).set(any(), any(), any());
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(category(1L, "书籍", null)));
+        assertEquals(1, categoryService.getAllCategories().size());
+        assertEquals("书籍", categoryService.findById(1L).getName());
+    }
+
+    @Test
+    void testGetAllCategories_ServedFromSnapshot() {
+        when(valueOperations.get("category:all:bin")).thenReturn(codec.encode(Collections.singletonList(category(1L, "书籍", null))));
+        categoryService.getAllCategories();
+        categoryService.getAllCategories();
+        categoryService.findById(1L);
+        verify(valueOperations, times(1)).get("category:all:bin");
+        verify(categoryRepository, never()).findById(anyLong());
+    }
+
     @Test
     void testFindById_Found() {
-        Category category = new Category();
-        when(categoryRepository.findById(1L)).thenReturn(Optional.of(category));
+        when(valueOperations.get("category:all:bin")).thenReturn(codec.encode(Collections.singletonList(category(1L, "书籍", null))));
         Category result = categoryService.findById(1L);
         assertNotNull(result);
+        assertEquals("书籍", result.getName());
+    }
+
+    @Test
+    void testFindById_AddedAfterSnapshot() {
+        when(valueOperations.get("category:all:bin")).thenReturn(codec.encode(Collections.emptyList()));
+        Category created = category(2L, "乐器", null);
+        when(categoryRepository.findById(2L)).thenReturn(Optional.of(created));
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(created));
+        assertEquals("乐器", categoryService.findById(2L).getName());
+        // 回源命中后快照已刷新
+        assertTrue(categoryService.getCategoryTree().contains(2L));
     }
 
     @Test
@@ -83,6 +126,31 @@ class CategoryServiceImplTest {
         doNothing().when(valueOperations).set(any(), any(), any());
         categoryService.refreshCategoryCache();
         verify(categoryRepository, times(1)).findAll();
-        verify(valueOperations, times(1)).set(eq("category:all"), any(), any());
+        verify(valueOperations, times(1)).set(eq("category:all:bin"), any(), any());
+    }
+
+    @Test
+    void testRefreshCategoryCache_SwapsSnapshot() {
+        when(valueOperations.get("category:all:bin")).thenReturn(codec.encode(Collections.singletonList(category(1L, "书籍", null))));
+        CategoryTree before = categoryService.getCategoryTree();
+        when(categoryRepository.findAll()).thenReturn(Arrays.asList(category(1L, "书籍", null), category(2L, "教材", 1L)));
+        categoryService.refreshCategoryCache();
+        CategoryTree after = categoryService.getCategoryTree();
+        assertNotSame(before, after);
+        assertEquals(Collections.singletonList(1L), before.getDescendantIds(1L));
+        assertEquals(Arrays.asList(1L, 2L), after.getDescendantIds(1L));
+    }
+
+    @Test
+    void testRefreshCategoryCache_KeepsSnapshotOnFailure() {
+        when(valueOperations.get("category:all:bin")).thenReturn(codec.encode(Collections.singletonList(category(1L, "书籍", null))));
+        CategoryTree before = categoryService.getCategoryTree();
+        when(categoryRepository.findAll()).thenThrow(new RuntimeException("db down"));
+        assertThrows(RuntimeException.class, () -> categoryService.refreshCategoryCache());
+        assertSame(before, categoryService.getCategoryTree());
+    }
+
+    private static Category category(Long id, String name, Long parentId) {
+        return Category.builder().id(id).name(name).parentId(parentId).build();
     }
-}
\ No newline at end of file
+}
@@ -5,15 +5,19 @@ import com.campus.trading.dto.ChatMessageDTO;
 import com.campus.trading.dto.PageResponseDTO;
 import com.campus.trading.dto.UserDTO;
 import com.campus.trading.entity.Chat;
+import com.campus.trading.entity.ChatConversation;
 import com.campus.trading.entity.ChatMessage;
 import com.campus.trading.entity.Item;
 import com.campus.trading.entity.User;
+import com.campus.trading.repository.ChatConversationRepository;
 import com.campus.trading.repository.ChatRepository;
 import com.campus.trading.repository.ItemRepository;
 import com.campus.trading.repository.MessageRepository;
 import com.campus.trading.repository.UserRepository;
+import com.campus.trading.service.PushService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -39,6 +43,12 @@ class ChatServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private ItemRepository itemRepository;
+    @Mock
+    private ChatConversationRepository chatConversationRepository;
+    @Mock
+    private PushService pushService;
+    @Mock
+    private MessageUnreadCounter unreadCounter;
     @InjectMocks
     private ChatServiceImpl chatService;
 
@@ -49,27 +59,33 @@ class ChatServiceImplTest {
 
     // getUserChats
     @Test
-    void testGetUserChats_UserNotFound() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
-        assertThrows(RuntimeException.class, () -> chatService.getUserChats(1L, PageRequest.of(0, 10)));
+    void testGetUserChats_Empty() {
+        when(chatConversationRepository.findListRowsByUserId(eq(1L), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0));
+        PageResponseDTO<ChatDTO> result = chatService.getUserChats(1L, PageRequest.of(0, 10));
+        assertTrue(result.getList().isEmpty());
+        verify(itemRepository, never()).findImageIdsByItemIds(any());
     }
 
     @Test
     void testGetUserChats_Normal() {
-        User user = new User(); user.setId(1L); user.setUsername("u1");
-        User other = new User(); other.setId(2L); other.setUsername("u2");
-        Item item = new Item(); item.setId(10L); item.setName("item"); item.setImageIds(Collections.singletonList("img1")); item.setPrice(BigDecimal.valueOf(100));
-        Chat chat = new Chat(); chat.setId(100L); chat.setUser1(user); chat.setUser2(other); chat.setItem(item); chat.setLastMessage("hi");
-        chat.setCreatedAt(LocalDateTime.now()); chat.setUpdatedAt(LocalDateTime.now());
-        Page<Chat> chatPage = new PageImpl<>(Collections.singletonList(chat), PageRequest.of(0, 10), 1);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(chatRepository.findChatsByUser(any(User.class), any(Pageable.class))).thenReturn(chatPage);
-        when(chatRepository.findById(anyLong())).thenReturn(Optional.of(chat));
-        when(messageRepository.countByChatIdAndRecipientAndReadFalse(anyLong(), any(User.class))).thenReturn(Math.toIntExact(Long.valueOf(0)));
+        LocalDateTime now = LocalDateTime.now();
+        Object[] row = {100L, 3, "hi", now, now, 2L, "u2", "avatar", 10L, "item", BigDecimal.valueOf(100)};
+        Page<Object[]> rows = new PageImpl<>(Collections.singletonList(row), PageRequest.of(0, 10), 1);
+        when(chatConversationRepository.findListRowsByUserId(eq(1L), any(Pageable.class))).thenReturn(rows);
+        when(itemRepository.findImageIdsByItemIds(anyCollection()))
+                .thenReturn(Arrays.asList(new Object[]{10L, "img1"}, new Object[]{10L, "img2"}));
         PageResponseDTO<ChatDTO> result = chatService.getUserChats(1L, PageRequest.of(0, 10));
         assertNotNull(result);
         assertEquals(1, result.getList().size());
-        assertEquals("hi", result.getList().get(0).getLastMessage());
+        ChatDTO dto = result.getList().get(0);
+        assertEquals("hi", dto.getLastMessage());
+        assertEquals(3, dto.getUnreadCount());
+        assertEquals("u2", dto.getOtherUser().getUsername());
+        assertEquals("img1", dto.getItemImage());
+        assertEquals(100.0, dto.getItemPrice());
+        // 列表不再逐个会话统计未读消息
+        verify(messageRepository, never()).countByChatIdAndRecipientAndReadFalse(anyLong(), any(User.class));
     }
 
     // getChatMessages
@@ -95,13 +111,30 @@ class ChatServiceImplTest {
         Page<ChatMessage> msgPage = new PageImpl<>(Collections.singletonList(msg), PageRequest.of(0, 10), 1);
         when(chatRepository.findById(10L)).thenReturn(Optional.of(chat));
         when(messageRepository.findByChatIdOrderByCreatedAtDesc(eq(10L), any(Pageable.class))).thenReturn(msgPage);
-        when(messageRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(u1));
-        when(messageRepository.findByChatIdAndRecipientAndReadFalse(anyLong(), any(User.class))).thenReturn(Collections.emptyList());
         PageResponseDTO<ChatMessageDTO> result = chatService.getChatMessages(10L, 1L, PageRequest.of(0, 10));
         assertNotNull(result);
         assertEquals(1, result.getList().size());
         assertEquals("hello", result.getList().get(0).getContent());
+        // 只推进会话水位，不逐条保存消息
+        verify(unreadCounter).markChatRead(10L, 1L, 100L);
+        verify(messageRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testGetChatMessages_ReadFromWatermark() {
+        Chat chat = new Chat(); User u1 = new User(); u1.setId(1L); u1.setUsername("u1"); User u2 = new User(); u2.setId(2L); u2.setUsername("u2"); chat.setUser1(u1); chat.setUser2(u2);
+        chat.setId(10L);
+        ChatMessage newer = new ChatMessage(); newer.setId(101L); newer.setSender(u1); newer.setRecipient(u2); newer.setContent("new"); newer.setChatId(10L); newer.setRead(false);
+        ChatMessage older = new ChatMessage(); older.setId(100L); older.setSender(u1); older.setRecipient(u2); older.setContent("old"); older.setChatId(10L); older.setRead(false);
+        Page<ChatMessage> msgPage = new PageImpl<>(Arrays.asList(newer, older), PageRequest.of(0, 10), 2);
+        when(chatRepository.findById(10L)).thenReturn(Optional.of(chat));
+        when(messageRepository.findByChatIdOrderByCreatedAtDesc(eq(10L), any(Pageable.class))).thenReturn(msgPage);
+        when(chatConversationRepository.findReadWatermarks(anyCollection()))
+                .thenReturn(Collections.singletonList(new Object[]{10L, 2L, 100L}));
+        PageResponseDTO<ChatMessageDTO> result = chatService.getChatMessages(10L, 1L, PageRequest.of(0, 10));
+        // 接收方水位停在 100，更新的消息仍未读
+        assertFalse(result.getList().get(0).isRead());
+        assertTrue(result.getList().get(1).isRead());
     }
 
     // sendMessage
@@ -135,9 +168,40 @@ class ChatServiceImplTest {
         ChatMessage msg = new ChatMessage(); msg.setId(100L); msg.setSender(u1); msg.setRecipient(u2); msg.setContent("hi"); msg.setChatId(1L); msg.setRead(false); msg.setCreatedAt(LocalDateTime.now());
         when(messageRepository.save(any(ChatMessage.class))).thenReturn(msg);
         when(chatRepository.save(any(Chat.class))).thenReturn(chat);
+        when(chatConversationRepository.findUnreadCount(any(), eq(1L))).thenReturn(Optional.of(2));
+        when(chatConversationRepository.touchSent(any(), anyLong(), anyString(), any(), any(LocalDateTime.class))).thenReturn(1);
+        when(chatConversationRepository.touchReceived(any(), anyLong(), anyString(), any(), any(LocalDateTime.class))).thenReturn(1);
         ChatMessageDTO dto = chatService.sendMessage(1L, 1L, "hi");
         assertNotNull(dto);
         assertEquals("hi", dto.getContent());
+        // 发送方已读到自己的消息，接收方未读数加一
+        verify(chatConversationRepository).touchSent(any(), eq(1L), eq("hi"), eq(100L), any(LocalDateTime.class));
+        verify(chatConversationRepository).touchReceived(any(), eq(2L), eq("hi"), eq(100L), any(LocalDateTime.class));
+        verify(chatConversationRepository, never()).save(any());
+        // 接收方未读计数加一，发送方原有的未读清零
+        verify(unreadCounter).increment(2L, "CHAT", 1);
+        verify(unreadCounter).increment(1L, "CHAT", -2);
+        verify(pushService).push(eq(2L), eq("chat.message"), same(dto));
+    }
+
+    @Test
+    void testSendMessage_ConversationMissing() {
+        Chat chat = new Chat(); chat.setId(1L); User u1 = new User(); u1.setId(1L); u1.setUsername("u1"); User u2 = new User(); u2.setId(2L); u2.setUsername("u2"); chat.setUser1(u1); chat.setUser2(u2); chat.setItem(null);
+        when(chatRepository.findById(anyLong())).thenReturn(Optional.of(chat));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(u1));
+        ChatMessage msg = new ChatMessage(); msg.setId(100L); msg.setSender(u1); msg.setRecipient(u2); msg.setContent("hi"); msg.setChatId(1L); msg.setRead(false); msg.setCreatedAt(LocalDateTime.now());
+        when(messageRepository.save(any(ChatMessage.class))).thenReturn(msg);
+        when(chatRepository.save(any(Chat.class))).thenReturn(chat);
+        when(chatConversationRepository.touchSent(any(), anyLong(), anyString(), any(), any(LocalDateTime.class))).thenReturn(1);
+        when(chatConversationRepository.touchReceived(any(), anyLong(), anyString(), any(), any(LocalDateTime.class))).thenReturn(0);
+        when(messageRepository.countByChatIdAndRecipientAndReadFalse(1L, u2)).thenReturn(3);
+        chatService.sendMessage(1L, 1L, "hi");
+        // 历史会话没有索引，接收方的计数按新建索引的未读数计入
+        ArgumentCaptor<ChatConversation> conversation = ArgumentCaptor.forClass(ChatConversation.class);
+        verify(chatConversationRepository).save(conversation.capture());
+        assertEquals(3, conversation.getValue().getUnreadCount());
+        verify(unreadCounter).increment(2L, "CHAT", 3);
+        verify(unreadCounter, never()).increment(2L, "CHAT", 1);
     }
 
     // createChat
@@ -189,10 +253,27 @@ class ChatServiceImplTest {
             c.setId(20L);
             return c;
         });
-        when(messageRepository.save(any(ChatMessage.class))).thenReturn(new ChatMessage());
+        when(messageRepository.save(any(ChatMessage.class))).thenAnswer(invocation -> {
+            ChatMessage m = invocation.getArgument(0);
+            m.setId(200L);
+            return m;
+        });
+        when(messageRepository.countByChatIdAndRecipientAndReadFalse(20L, u2)).thenReturn(1);
         ChatDTO dto = chatService.createChat(1L, 2L, 3L, "");
         assertNotNull(dto);
         assertEquals(20L, dto.getId());
+        // 新会话为双方建立索引，接收方带一条未读
+        ArgumentCaptor<ChatConversation> conversations = ArgumentCaptor.forClass(ChatConversation.class);
+        verify(chatConversationRepository, times(2)).save(conversations.capture());
+        assertEquals(u1, conversations.getAllValues().get(0).getUser());
+        assertEquals(0, conversations.getAllValues().get(0).getUnreadCount());
+        assertEquals(200L, conversations.getAllValues().get(0).getLastReadMessageId());
+        assertEquals(u2, conversations.getAllValues().get(1).getUser());
+        assertEquals(u1, conversations.getAllValues().get(1).getPeer());
+        assertEquals(1, conversations.getAllValues().get(1).getUnreadCount());
+        assertEquals(200L, conversations.getAllValues().get(1).getLastMessageId());
+        assertNull(conversations.getAllValues().get(1).getLastReadMessageId());
+        verify(unreadCounter).increment(2L, "CHAT", 1);
     }
 
     // markChatMessagesAsRead
@@ -209,22 +290,13 @@ class ChatServiceImplTest {
         assertThrows(RuntimeException.class, () -> chatService.markChatMessagesAsRead(1L, 3L));
     }
 
-    @Test
-    void testMarkChatMessagesAsRead_UserNotFound() {
-        Chat chat = new Chat(); User u1 = new User(); u1.setId(1L); User u2 = new User(); u2.setId(2L); chat.setUser1(u1); chat.setUser2(u2);
-        when(chatRepository.findById(anyLong())).thenReturn(Optional.of(chat));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.empty());
-        assertThrows(RuntimeException.class, () -> chatService.markChatMessagesAsRead(1L, 1L));
-    }
-
     @Test
     void testMarkChatMessagesAsRead_Normal() {
         Chat chat = new Chat(); User u1 = new User(); u1.setId(1L); User u2 = new User(); u2.setId(2L); chat.setUser1(u1); chat.setUser2(u2);
         when(chatRepository.findById(anyLong())).thenReturn(Optional.of(chat));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(u1));
-        when(messageRepository.findByChatIdAndRecipientAndReadFalse(anyLong(), any(User.class))).thenReturn(Collections.singletonList(new ChatMessage()));
-        when(messageRepository.saveAll(anyList())).thenReturn(Collections.emptyList());
         assertDoesNotThrow(() -> chatService.markChatMessagesAsRead(1L, 1L));
+        verify(unreadCounter).markChatRead(1L, 1L, null);
+        verify(messageRepository, never()).saveAll(anyList());
     }
 
     // countUnreadMessages
@@ -254,7 +326,7 @@ class ChatServiceImplTest {
         Chat chat = new Chat(); User u1 = new User(); u1.setId(1L); User u2 = new User(); u2.setId(2L); chat.setUser1(u1); chat.setUser2(u2);
         when(chatRepository.findById(anyLong())).thenReturn(Optional.of(chat));
         when(userRepository.findById(1L)).thenReturn(Optional.of(u1));
-        when(messageRepository.countByChatIdAndRecipientAndReadFalse(anyLong(), any(User.class))).thenReturn(Math.toIntExact(Long.valueOf(5)));
+        when(chatConversationRepository.findUnreadCount(1L, 1L)).thenReturn(Optional.of(5));
         int count = chatService.countUnreadMessages(1L, 1L);
         assertEquals(5, count);
     }
@@ -270,7 +342,7 @@ class ChatServiceImplTest {
     void testCountTotalUnreadMessages_Normal() {
         User u1 = new User(); u1.setId(1L);
         when(userRepository.findById(1L)).thenReturn(Optional.of(u1));
-        when(messageRepository.countByRecipientAndMessageTypeAndReadFalse(u1, "CHAT")).thenReturn(Long.valueOf(7));
+        when(chatConversationRepository.sumUnreadCount(1L)).thenReturn(7L);
         int count = chatService.countTotalUnreadMessages(1L);
         assertEquals(7, count);
     }
@@ -1,8 +1,9 @@
 package com.campus.trading.service.impl;
 
+import com.campus.trading.config.SecurityUtil;
 import com.campus.trading.dto.ItemDTO;
 import com.campus.trading.dto.PageResponseDTO;
-import com.campus.trading.dto.UserDTO;
+import com.campus.trading.entity.Category;
 import com.campus.trading.entity.Favorite;
 import com.campus.trading.entity.FavoriteMessage;
 import com.campus.trading.entity.Item;
@@ -10,14 +11,16 @@ import com.campus.trading.entity.User;
 import com.campus.trading.repository.FavoriteRepository;
 import com.campus.trading.repository.ItemRepository;
 import com.campus.trading.service.FavoriteService;
+import com.campus.trading.service.ItemIndexService;
 import com.campus.trading.service.ItemService;
 import com.campus.trading.service.MessageService;
 import com.campus.trading.service.UserProfileService;
-import com.campus.trading.service.UserService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -26,7 +29,6 @@ import org.springframework.data.domain.Pageable;
 
 import javax.persistence.EntityNotFoundException;
 import java.math.BigDecimal;
-import java.security.Principal;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,28 +41,32 @@ class FavoriteServiceImplTest {
     @Mock
     private ItemRepository itemRepository;
     @Mock
-    private UserService userService;
-    @Mock
     private MessageService messageService;
     @Mock
     private ItemService itemService;
     @Mock
     private UserProfileService userProfileService;
+    @Mock
+    private ItemIndexService itemIndexService;
     @InjectMocks
     private FavoriteServiceImpl favoriteService;
 
     private User user;
-    private UserDTO userDTO;
     private Item item;
+    private MockedStatic<SecurityUtil> securityUtil;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         user = new User(); user.setId(1L); user.setUsername("testuser");
-        userDTO = new UserDTO(); userDTO.setId(1L); userDTO.setUsername("testuser");
         item = new Item(); item.setId(2L); item.setUser(user); item.setName("item"); item.setPrice(BigDecimal.valueOf(100));
-        when(userService.getCurrentUser()).thenReturn(userDTO);
-        when(userService.findByUsername(anyString())).thenReturn(user);
+        securityUtil = mockStatic(SecurityUtil.class);
+        securityUtil.when(SecurityUtil::getCurrentUserReference).thenReturn(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtil.close();
     }
 
     // addFavorite
@@ -75,6 +81,7 @@ class FavoriteServiceImplTest {
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
         when(favoriteRepository.existsByUserAndItem(any(), any())).thenReturn(true);
         assertThrows(IllegalStateException.class, () -> favoriteService.addFavorite(2L));
+        verify(itemRepository, never()).incrementFavoriteCount(anyLong());
     }
 
     @Test
@@ -103,12 +110,14 @@ class FavoriteServiceImplTest {
     @Test
     void testAddFavorite_UpdateProfile() {
         user.setAllowPersonalizedRecommend(true);
+        item.setCategory(Category.builder().id(7L).build());
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
         when(favoriteRepository.existsByUserAndItem(any(), any())).thenReturn(false);
         when(favoriteRepository.save(any())).thenReturn(new Favorite());
         ItemDTO dto = favoriteService.addFavorite(2L);
         assertNotNull(dto);
-        verify(userProfileService, atLeastOnce()).updateProfile(user);
+        verify(userProfileService).recordInterest(user, 7L, UserProfileService.FAVORITE_WEIGHT);
+        verify(userProfileService, never()).updateProfile(any());
     }
 
     @Test
@@ -118,6 +127,8 @@ class FavoriteServiceImplTest {
         when(favoriteRepository.save(any())).thenReturn(new Favorite());
         ItemDTO dto = favoriteService.addFavorite(2L);
         assertNotNull(dto);
+        verify(itemRepository, times(1)).incrementFavoriteCount(2L);
+        verify(itemIndexService).enqueue(2L);
     }
 
     // removeFavorite
@@ -142,12 +153,14 @@ class FavoriteServiceImplTest {
     @Test
     void testRemoveFavorite_UpdateProfile() {
         user.setAllowPersonalizedRecommend(true);
+        item.setCategory(Category.builder().id(7L).build());
         Favorite favorite = new Favorite(); favorite.setId(1L); favorite.setUser(user); favorite.setItem(item);
         when(favoriteRepository.findById(anyLong())).thenReturn(Optional.of(favorite));
         doNothing().when(favoriteRepository).delete(any(Favorite.class));
         boolean result = favoriteService.removeFavorite(1L);
         assertTrue(result);
-        verify(userProfileService, atLeastOnce()).updateProfile(user);
+        verify(userProfileService).recordInterest(user, 7L, -UserProfileService.FAVORITE_WEIGHT);
+        verify(userProfileService, never()).updateProfile(any());
     }
 
     @Test
@@ -157,6 +170,7 @@ class FavoriteServiceImplTest {
         doNothing().when(favoriteRepository).delete(any(Favorite.class));
         boolean result = favoriteService.removeFavorite(1L);
         assertTrue(result);
+        verify(itemRepository, times(1)).decrementFavoriteCount(2L);
     }
 
     // removeFavoriteByItemId
@@ -172,18 +186,21 @@ class FavoriteServiceImplTest {
         when(favoriteRepository.findByUserAndItem(any(), any())).thenReturn(Optional.empty());
         boolean result = favoriteService.removeFavoriteByItemId(2L);
         assertTrue(result);
+        verify(itemRepository, never()).decrementFavoriteCount(anyLong());
     }
 
     @Test
     void testRemoveFavoriteByItemId_UpdateProfile() {
         user.setAllowPersonalizedRecommend(true);
+        item.setCategory(Category.builder().id(7L).build());
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
         Favorite favorite = new Favorite(); favorite.setId(1L); favorite.setUser(user); favorite.setItem(item);
         when(favoriteRepository.findByUserAndItem(any(), any())).thenReturn(Optional.of(favorite));
         doNothing().when(favoriteRepository).delete(any(Favorite.class));
         boolean result = favoriteService.removeFavoriteByItemId(2L);
         assertTrue(result);
-        verify(userProfileService, atLeastOnce()).updateProfile(user);
+        verify(userProfileService).recordInterest(user, 7L, -UserProfileService.FAVORITE_WEIGHT);
+        verify(userProfileService, never()).updateProfile(any());
     }
 
     @Test
@@ -194,6 +211,8 @@ class FavoriteServiceImplTest {
         doNothing().when(favoriteRepository).delete(any(Favorite.class));
         boolean result = favoriteService.removeFavoriteByItemId(2L);
         assertTrue(result);
+        verify(itemRepository, times(1)).decrementFavoriteCount(2L);
+        verify(itemIndexService).enqueue(2L);
     }
 
     // getUserFavorites
@@ -201,7 +220,7 @@ class FavoriteServiceImplTest {
     void testGetUserFavorites_Normal() {
         Page<Favorite> page = new PageImpl<>(Collections.singletonList(new Favorite()));
         when(favoriteRepository.findByUser(any(), any(Pageable.class))).thenReturn(page);
-        when(itemService.convertToDTO(any())).thenReturn(new ItemDTO());
+        when(itemService.convertToDTOs(anyList())).thenReturn(Collections.singletonList(new ItemDTO()));
         PageResponseDTO<ItemDTO> result = favoriteService.getUserFavorites(1, 10);
         assertNotNull(result);
     }
@@ -210,7 +229,7 @@ class FavoriteServiceImplTest {
     void testGetUserFavorites_ItemServiceNull() {
         Page<Favorite> page = new PageImpl<>(Collections.singletonList(new Favorite()));
         when(favoriteRepository.findByUser(any(), any(Pageable.class))).thenReturn(page);
-        when(itemService.convertToDTO(any())).thenReturn(null);
+        when(itemService.convertToDTOs(anyList())).thenReturn(Collections.singletonList(null));
         PageResponseDTO<ItemDTO> result = favoriteService.getUserFavorites(1, 10);
         assertNotNull(result);
     }
@@ -240,20 +259,4 @@ class FavoriteServiceImplTest {
         ItemDTO result = favoriteService.checkFavoriteStatus(2L);
         assertNotNull(result);
     }
-
-    // getCurrentUser
-    @Test
-    void testGetCurrentUser_NullPrincipal() {
-        assertThrows(RuntimeException.class, () -> favoriteService.getCurrentUser(null));
-    }
-
-    @Test
-    void testGetCurrentUser_Normal() {
-        Principal principal = mock(Principal.class);
-        when(principal.getName()).thenReturn("testuser");
-        when(userService.findByUsername("testuser")).thenReturn(user);
-        User result = favoriteService.getCurrentUser(principal);
-        assertNotNull(result);
-        assertEquals(user.getId(), result.getId());
-    }
-}
\ No newline at end of file
+}
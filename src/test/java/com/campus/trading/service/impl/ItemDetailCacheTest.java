@@ -0,0 +1,121 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.cache.ItemDTOBinaryCodec;
+import com.campus.trading.dto.ItemDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ItemDetailCacheTest {
+
+    private StringRedisTemplate redis;
+    private RedisTemplate<String, byte[]> binaryRedis;
+    private ValueOperations<String, byte[]> valueOps;
+    private final ItemDTOBinaryCodec codec = new ItemDTOBinaryCodec();
+    private ItemDetailCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        binaryRedis = mock(RedisTemplate.class);
+        valueOps = mock(ValueOperations.class);
+        when(binaryRedis.opsForValue()).thenReturn(valueOps);
+        cache = new ItemDetailCache();
+        ReflectionTestUtils.setField(cache, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(cache, "binaryRedisTemplate", binaryRedis);
+        ReflectionTestUtils.setField(cache, "itemDetailCodec", codec);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<ItemDTO>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return cache.get(1L, id -> {
+                    loads.incrementAndGet();
+                    sleep();
+                    return ItemDTO.builder().id(id).name("desk").build();
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<ItemDTO> result : results) {
+            assertEquals("desk", result.get(5, TimeUnit.SECONDS).getName());
+        }
+        pool.shutdown();
+        assertEquals(1, loads.get());
+        verify(valueOps, times(1)).get("item:detail:bin:1");
+        verify(valueOps, times(1)).set(eq("item:detail:bin:1"), argThat(bytes -> "desk".equals(codec.decode(bytes).getName())), any());
+    }
+
+    @Test
+    void testUndecodableValueIsMiss() {
+        when(valueOps.get("item:detail:bin:4")).thenReturn("{\"id\":4}".getBytes());
+        assertEquals("chair", cache.get(4L, id -> ItemDTO.builder().id(id).name("chair").build()).getName());
+    }
+
+    @Test
+    void testRedisHitSkipsLoader() {
+        when(valueOps.get("item:detail:bin:2")).thenReturn(codec.encode(ItemDTO.builder().id(2L).name("lamp").build()));
+        ItemDTO dto = cache.get(2L, id -> fail("不应访问数据库"));
+        assertEquals("lamp", dto.getName());
+    }
+
+    @Test
+    void testInvalidateAfterCommit() {
+        cache.get(3L, id -> ItemDTO.builder().id(id).name("old").build());
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(3L);
+        // 提交前缓存仍然有效
+        verify(redis, never()).delete(anyString());
+        assertEquals("old", cache.get(3L, id -> ItemDTO.builder().id(id).name("new").build()).getName());
+
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCommit();
+        }
+        verify(redis).delete("item:detail:bin:3");
+        verify(redis).convertAndSend("item:detail:invalidate", "3");
+        assertEquals("new", cache.get(3L, id -> ItemDTO.builder().id(id).name("new").build()).getName());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.entity.Item;
+import com.campus.trading.entity.ItemIndexOutbox;
+import com.campus.trading.entity.User;
+import com.campus.trading.repository.ItemIndexOutboxRepository;
+import com.campus.trading.repository.ItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ItemIndexServiceImplTest {
+
+    private ItemIndexOutboxRepository outboxRepository;
+    private ItemRepository itemRepository;
+    private RestHighLevelClient client;
+    private ItemIndexServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(ItemIndexOutboxRepository.class);
+        itemRepository = mock(ItemRepository.class);
+        client = mock(RestHighLevelClient.class);
+        service = new ItemIndexServiceImpl(outboxRepository, itemRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "restHighLevelClient", client);
+    }
+
+    @Test
+    void testProcessOutbox_collapsesAndVersions() throws Exception {
+        // 物品1变更两次，物品2已不存在
+        when(outboxRepository.findBatch(any(Pageable.class))).thenReturn(Arrays.asList(
+                outbox(5L, 1L), outbox(6L, 2L), outbox(7L, 1L)));
+        User seller = new User();
+        seller.setId(3L);
+        seller.setUsername("seller");
+        Item item = new Item();
+        item.setId(1L);
+        item.setName("书");
+        item.setStatus(1);
+        item.setStock(1);
+        item.setUser(seller);
+        item.setCreateTime(LocalDateTime.of(2024, 5, 1, 12, 0));
+        when(itemRepository.findWithDetailsByIdIn(anyCollection())).thenReturn(Collections.singletonList(item));
+        when(client.bulk(any(BulkRequest.class), any(RequestOptions.class))).thenReturn(new BulkResponse(new BulkItemResponse[]{
+                BulkItemResponse.success(0, DocWriteRequest.OpType.INDEX,
+                        new IndexResponse(new ShardId("items", "_na_", 0), "_doc", "1", 1, 1, 7, true)),
+                BulkItemResponse.success(1, DocWriteRequest.OpType.DELETE,
+                        new DeleteResponse(new ShardId("items", "_na_", 0), "_doc", "2", 1, 1, 6, false))
+        }, 1));
+
+        int processed = service.processOutbox();
+
+        assertEquals(3, processed);
+        ArgumentCaptor<BulkRequest> bulk = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(client).bulk(bulk.capture(), any(RequestOptions.class));
+        List<DocWriteRequest<?>> requests = bulk.getValue().requests();
+        assertEquals(2, requests.size());
+        assertEquals(DocWriteRequest.OpType.INDEX, requests.get(0).opType());
+        assertEquals(7L, requests.get(0).version());
+        assertEquals(VersionType.EXTERNAL, requests.get(0).versionType());
+        String source = ((org.elasticsearch.action.index.IndexRequest) requests.get(0)).source().utf8ToString();
+        assertTrue(source.contains("\"createTime\":\"2024-05-01T12:00:00\""));
+        assertTrue(source.contains("\"username\":\"seller\""));
+        assertEquals(DocWriteRequest.OpType.DELETE, requests.get(1).opType());
+        assertEquals(6L, requests.get(1).version());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> deleted = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxRepository).deleteByIdIn(deleted.capture());
+        assertEquals(new HashSet<>(Arrays.asList(5L, 6L, 7L)), new HashSet<>(deleted.getValue()));
+    }
+
+    @Test
+    void testProcessOutbox_keepsFailedRows() throws Exception {
+        when(outboxRepository.findBatch(any(Pageable.class))).thenReturn(Collections.singletonList(outbox(9L, 1L)));
+        Item item = new Item();
+        item.setId(1L);
+        when(itemRepository.findWithDetailsByIdIn(anyCollection())).thenReturn(Collections.singletonList(item));
+        when(client.bulk(any(BulkRequest.class), any(RequestOptions.class))).thenReturn(new BulkResponse(new BulkItemResponse[]{
+                BulkItemResponse.failure(0, DocWriteRequest.OpType.INDEX,
+                        new BulkItemResponse.Failure("items", "_doc", "1", new RuntimeException("mapping")))
+        }, 1));
+
+        assertEquals(0, service.processOutbox());
+        verify(outboxRepository, never()).deleteByIdIn(anyCollection());
+    }
+
+    @Test
+    void testProcessOutbox_empty() throws Exception {
+        when(outboxRepository.findBatch(any(Pageable.class))).thenReturn(Collections.emptyList());
+        assertEquals(0, service.processOutbox());
+        verify(client, never()).bulk(any(BulkRequest.class), any(RequestOptions.class));
+    }
+
+    private static ItemIndexOutbox outbox(Long id, Long itemId) {
+        return ItemIndexOutbox.builder().id(id).itemId(itemId).createTime(LocalDateTime.now()).build();
+    }
+}
@@ -5,19 +5,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
+import static org.mockito.ArgumentMatchers.*;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
 import com.campus.trading.repository.ItemRepository;
 import com.campus.trading.service.ItemService;
 import static org.mockito.Mockito.*;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import com.campus.trading.service.impl.PlatformStatsSyncTask;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 @SpringBootTest
 @ActiveProfiles("test")
 class ItemPopularitySyncTaskTest {
@@ -31,10 +35,23 @@ class ItemPopularitySyncTaskTest {
     private StringRedisTemplate stringRedisTemplate;
     @MockBean
     private PlatformStatsSyncTask platformStatsSyncTask;
+    @MockBean
+    private com.campus.trading.service.ItemIndexService itemIndexService;
+    @MockBean
+    private JdbcTemplate jdbcTemplate;
+    @MockBean
+    private ItemReindexJob itemReindexJob;
+
+    private SetOperations<String, String> setOperations;
+    private ValueOperations<String, String> valueOperations;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
-        // 无需手动openMocks，SpringBootTest自动注入
+        setOperations = mock(SetOperations.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
     }
 
     @AfterEach
@@ -43,99 +60,49 @@ class ItemPopularitySyncTaskTest {
 
     @Test
     void syncPopularityToDb() {
-        // mock redis keys
-        java.util.Set<String> keys = new java.util.HashSet<>();
-        keys.add("item:view:1");
-        when(stringRedisTemplate.keys("item:view:*"))
-            .thenReturn(keys);
-
-        // mock opsForValue
-        org.springframework.data.redis.core.ValueOperations valueOperations = mock(org.springframework.data.redis.core.ValueOperations.class);
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get("item:view:1")).thenReturn("10");
-
-        // mock item
-        com.campus.trading.entity.Item item = new com.campus.trading.entity.Item();
-        item.setId(1L);
-        item.setPopularity(5);
-        when(itemRepository.findById(1L)).thenReturn(java.util.Optional.of(item));
-        when(itemRepository.save(any(com.campus.trading.entity.Item.class))).thenReturn(item);
+        when(setOperations.pop(eq("item:view:dirty"), anyLong()))
+            .thenReturn(Arrays.asList("1", "2"))
+            .thenReturn(Collections.emptyList());
+        when(valueOperations.multiGet(Arrays.asList("item:view:1", "item:view:2")))
+            .thenReturn(Arrays.asList("10", "3"));
+        // 物品1浏览量变大被更新，物品2数据库值更大未更新
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0});
 
         itemPopularitySyncTask.syncPopularityToDb();
 
-        verify(itemRepository, times(1)).save(any(com.campus.trading.entity.Item.class));
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        verify(itemIndexService).enqueueAll(Collections.singletonList(1L));
+        verify(itemReindexJob).recordChanged(Collections.singletonList(1L));
+        verify(stringRedisTemplate, never()).keys(anyString());
     }
 
     @Test
-    void syncPopularityToDb_keysNull() {
-        when(stringRedisTemplate.keys("item:view:*"))
-            .thenReturn(null);
-        assertDoesNotThrow(() -> itemPopularitySyncTask.syncPopularityToDb());
-    }
-
-    @Test
-    void syncPopularityToDb_keysEmpty() {
-        when(stringRedisTemplate.keys("item:view:*"))
-            .thenReturn(new java.util.HashSet<>());
+    void syncPopularityToDb_dirtySetEmpty() {
+        when(setOperations.pop(eq("item:view:dirty"), anyLong())).thenReturn(Collections.emptyList());
         assertDoesNotThrow(() -> itemPopularitySyncTask.syncPopularityToDb());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
     }
 
     @Test
     void syncPopularityToDb_valueNull() {
-        java.util.Set<String> keys = new java.util.HashSet<>();
-        keys.add("item:view:1");
-        when(stringRedisTemplate.keys("item:view:*"))
-            .thenReturn(keys);
-        org.springframework.data.redis.core.ValueOperations valueOperations = mock(org.springframework.data.redis.core.ValueOperations.class);
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get("item:view:1")).thenReturn(null);
+        when(setOperations.pop(eq("item:view:dirty"), anyLong()))
+            .thenReturn(Collections.singletonList("1"))
+            .thenReturn(Collections.emptyList());
+        when(valueOperations.multiGet(anyList())).thenReturn(Collections.singletonList(null));
         assertDoesNotThrow(() -> itemPopularitySyncTask.syncPopularityToDb());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
     }
 
     @Test
-    void syncPopularityToDb_itemNotFound() {
-        java.util.Set<String> keys = new java.util.HashSet<>();
-        keys.add("item:view:1");
-        when(stringRedisTemplate.keys("item:view:*"))
-            .thenReturn(keys);
-        org.springframework.data.redis.core.ValueOperations valueOperations = mock(org.springframework.data.redis.core.ValueOperations.class);
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get("item:view:1")).thenReturn("10");
-        when(itemRepository.findById(1L)).thenReturn(java.util.Optional.empty());
-        assertDoesNotThrow(() -> itemPopularitySyncTask.syncPopularityToDb());
-    }
+    void syncPopularityToDb_failureRequeues() {
+        when(setOperations.pop(eq("item:view:dirty"), anyLong()))
+            .thenReturn(Collections.singletonList("1"));
+        when(valueOperations.multiGet(anyList())).thenReturn(Collections.singletonList("10"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new org.springframework.dao.QueryTimeoutException("timeout"));
 
-    @Test
-    void syncPopularityToDb_redisGreaterThanDb() {
-        java.util.Set<String> keys = new java.util.HashSet<>();
-        keys.add("item:view:1");
-        when(stringRedisTemplate.keys("item:view:*"))
-            .thenReturn(keys);
-        org.springframework.data.redis.core.ValueOperations valueOperations = mock(org.springframework.data.redis.core.ValueOperations.class);
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get("item:view:1")).thenReturn("20");
-        com.campus.trading.entity.Item item = new com.campus.trading.entity.Item();
-        item.setId(1L);
-        item.setPopularity(5);
-        when(itemRepository.findById(1L)).thenReturn(java.util.Optional.of(item));
-        when(itemRepository.save(any(com.campus.trading.entity.Item.class))).thenReturn(item);
         assertDoesNotThrow(() -> itemPopularitySyncTask.syncPopularityToDb());
-    }
 
-    @Test
-    void syncPopularityToDb_dbGreaterThanRedis() {
-        java.util.Set<String> keys = new java.util.HashSet<>();
-        keys.add("item:view:1");
-        when(stringRedisTemplate.keys("item:view:*"))
-            .thenReturn(keys);
-        org.springframework.data.redis.core.ValueOperations valueOperations = mock(org.springframework.data.redis.core.ValueOperations.class);
-        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.get("item:view:1")).thenReturn("2");
-        com.campus.trading.entity.Item item = new com.campus.trading.entity.Item();
-        item.setId(1L);
-        item.setPopularity(5);
-        when(itemRepository.findById(1L)).thenReturn(java.util.Optional.of(item));
-        when(itemRepository.save(any(com.campus.trading.entity.Item.class))).thenReturn(item);
-        assertDoesNotThrow(() -> itemPopularitySyncTask.syncPopularityToDb());
+        verify(setOperations).add("item:view:dirty", "1");
+        verify(itemIndexService, never()).enqueueAll(any());
     }
-}
\ No newline at end of file
+}
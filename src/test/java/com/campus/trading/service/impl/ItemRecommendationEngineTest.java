@@ -0,0 +1,133 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.repository.FavoriteRepository;
+import com.campus.trading.repository.ItemRepository;
+import com.campus.trading.repository.OrderRepository;
+import com.campus.trading.repository.UserViewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ItemRecommendationEngineTest {
+
+    private StringRedisTemplate redis;
+    private UserViewRepository userViewRepository;
+    private FavoriteRepository favoriteRepository;
+    private OrderRepository orderRepository;
+    private ItemRepository itemRepository;
+    private ItemRecommendationEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        userViewRepository = mock(UserViewRepository.class);
+        favoriteRepository = mock(FavoriteRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        itemRepository = mock(ItemRepository.class);
+        engine = new ItemRecommendationEngine();
+        ReflectionTestUtils.setField(engine, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(engine, "userViewRepository", userViewRepository);
+        ReflectionTestUtils.setField(engine, "favoriteRepository", favoriteRepository);
+        ReflectionTestUtils.setField(engine, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(engine, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(engine, "parallelism", 2);
+    }
+
+    @Test
+    void testSimilarityIsCosineNormalizedCooccurrence() throws Exception {
+        Map<Long, Map<Long, Double>> baskets = new HashMap<>();
+        baskets.put(1L, basket(10L, 3.0, 11L, 3.0));
+        baskets.put(2L, basket(10L, 3.0, 11L, 1.0));
+        baskets.put(3L, basket(10L, 1.0));
+
+        Map<Long, List<ItemRecommendationEngine.Neighbor>> similar = engine.similarity(ForkJoinPool.commonPool(), baskets);
+
+        // co(10,11) = min(3,3) + min(3,1) = 4，n(10) = 7，n(11) = 4
+        assertEquals(1, similar.get(10L).size());
+        assertEquals(11L, similar.get(10L).get(0).itemId);
+        assertEquals(4 / Math.sqrt(28), similar.get(10L).get(0).score, 1e-9);
+        assertEquals(4 / Math.sqrt(28), similar.get(11L).get(0).score, 1e-9);
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void testRebuildSkipsOwnInteractedAndUnavailableItems() {
+        // 用户1收藏了10、11；用户2收藏10、浏览11、下单12；用户3只浏览过10
+        when(favoriteRepository.findUserItemPairs()).thenReturn(Arrays.asList(
+                row(1L, 10L), row(1L, 11L), row(2L, 10L)));
+        when(userViewRepository.findUserItemPairsSince(any())).thenReturn(Arrays.asList(
+                row(2L, 11L), row(3L, 10L)));
+        when(orderRepository.findBuyerItemPairsSince(any())).thenReturn(Collections.singletonList(row(2L, 12L)));
+        // 12 由用户3发布，13 已下架不在列表里
+        when(itemRepository.findLiveItemSellerIds()).thenReturn(Arrays.asList(
+                row(10L, 9L), row(11L, 9L), row(12L, 3L)));
+        RedisOperations<String, String> ops = mock(RedisOperations.class);
+        ZSetOperations<String, String> zSetOps = mock(ZSetOperations.class);
+        when(ops.opsForZSet()).thenReturn(zSetOps);
+        when(redis.executePipelined(any(SessionCallback.class))).thenAnswer(inv -> {
+            ((SessionCallback) inv.getArgument(0)).execute(ops);
+            return null;
+        });
+
+        assertEquals(3, engine.doRebuild());
+
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> user1 = ArgumentCaptor.forClass(Set.class);
+        verify(zSetOps).add(eq("rec:user:1:next"), user1.capture());
+        assertEquals(Collections.singletonList("12"), values(user1.getValue()));
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> user3 = ArgumentCaptor.forClass(Set.class);
+        verify(zSetOps).add(eq("rec:user:3:next"), user3.capture());
+        assertEquals(Collections.singletonList("11"), values(user3.getValue()));
+        verify(ops).rename("rec:user:1:next", "rec:user:1");
+        // 用户2已经交互过所有物品，删除旧候选
+        verify(ops).delete("rec:user:2");
+        verify(zSetOps, never()).add(eq("rec:user:2:next"), anySet());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPageReadsRangeAndTotalInOnePipeline() {
+        when(redis.executePipelined(any(SessionCallback.class))).thenReturn(Arrays.asList(
+                new LinkedHashSet<>(Arrays.asList("12", "11")), 5L));
+
+        ItemRecommendationEngine.Candidates page = engine.page(1L, 0, 2);
+
+        assertEquals(Arrays.asList(12L, 11L), page.itemIds);
+        assertEquals(5, page.total);
+        verify(redis, times(1)).executePipelined(any(SessionCallback.class));
+    }
+
+    private static Map<Long, Double> basket(Object... pairs) {
+        Map<Long, Double> basket = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            basket.put((Long) pairs[i], (Double) pairs[i + 1]);
+        }
+        return basket;
+    }
+
+    private static Object[] row(Long first, Long second) {
+        return new Object[]{first, second};
+    }
+
+    private static List<String> values(Set<ZSetOperations.TypedTuple<String>> tuples) {
+        return tuples.stream().map(ZSetOperations.TypedTuple::getValue).collect(Collectors.toList());
+    }
+}
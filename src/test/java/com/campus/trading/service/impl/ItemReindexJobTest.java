@@ -0,0 +1,103 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.repository.ItemIndexOutboxRepository;
+import com.campus.trading.repository.ItemRepository;
+import com.campus.trading.service.ItemIndexService;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ItemReindexJobTest {
+
+    private HashOperations<String, Object, Object> hashOps;
+    private SetOperations<String, String> setOps;
+    private ItemReindexJob job;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        hashOps = mock(HashOperations.class);
+        setOps = mock(SetOperations.class);
+        when(redis.<Object, Object>opsForHash()).thenReturn(hashOps);
+        when(redis.opsForSet()).thenReturn(setOps);
+        job = new ItemReindexJob(mock(ItemRepository.class), mock(ItemIndexOutboxRepository.class),
+                mock(ItemIndexService.class), redis, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void testWatermarkAdvancesOnlyOverContiguousChunks() {
+        ItemReindexJob.ChunkTracker tracker = job.new ChunkTracker(0);
+        tracker.register(0, 20, 2);   // 物品 10, 20
+        tracker.register(20, 40, 2);  // 物品 30, 40
+
+        // 第二块先完成，水位不能越过未完成的第一块
+        tracker.afterBulk(1, new BulkRequest(), response("30", "40"));
+        assertEquals(0, tracker.watermark.get());
+        verify(hashOps, never()).put(eq(ItemReindexJob.CHECKPOINT_KEY), eq("watermark"), any());
+
+        tracker.afterBulk(2, new BulkRequest(), response("10"));
+        assertEquals(0, tracker.watermark.get());
+
+        tracker.afterBulk(3, new BulkRequest(), response("20"));
+        assertEquals(40, tracker.watermark.get());
+        assertEquals(4, tracker.indexed.get());
+        verify(hashOps).put(ItemReindexJob.CHECKPOINT_KEY, "watermark", "40");
+        verify(hashOps).put(ItemReindexJob.CHECKPOINT_KEY, "indexed", "4");
+        assertFalse(tracker.failed.get());
+    }
+
+    @Test
+    void testFailedItemStopsWatermark() {
+        ItemReindexJob.ChunkTracker tracker = job.new ChunkTracker(100);
+        tracker.register(100, 120, 2);
+
+        tracker.afterBulk(1, new BulkRequest(), new BulkResponse(new BulkItemResponse[]{
+                success("110"),
+                BulkItemResponse.failure(1, DocWriteRequest.OpType.INDEX,
+                        new BulkItemResponse.Failure("items_v1", "_doc", "120", new RuntimeException("mapping")))
+        }, 1));
+
+        assertTrue(tracker.failed.get());
+        assertEquals(100, tracker.watermark.get());
+    }
+
+    @Test
+    void testRecordChangedOnlyWhileRunning() {
+        job.recordChanged(Collections.singletonList(1L));
+        verify(setOps, never()).add(anyString(), any());
+
+        when(hashOps.get(ItemReindexJob.CHECKPOINT_KEY, "status")).thenReturn(ItemReindexJob.STATUS_RUNNING);
+        job.recordChanged(Arrays.asList(1L, 2L));
+        verify(setOps).add(ItemReindexJob.CHANGED_KEY, "1", "2");
+    }
+
+    private static BulkResponse response(String... ids) {
+        BulkItemResponse[] items = new BulkItemResponse[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            items[i] = success(ids[i]);
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    private static BulkItemResponse success(String id) {
+        return BulkItemResponse.success(0, DocWriteRequest.OpType.INDEX,
+                new IndexResponse(new ShardId("items_v1", "_na_", 0), "_doc", id, 1, 1, 1, true));
+    }
+}
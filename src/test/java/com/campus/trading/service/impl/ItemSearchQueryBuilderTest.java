@@ -0,0 +1,80 @@
+package com.campus.trading.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemSearchQueryBuilderTest {
+
+    @Test
+    void testFiltersInFilterContext() {
+        SearchSourceBuilder source = new ItemSearchQueryBuilder()
+                .keyword("自行车")
+                .categoryIds(Arrays.asList(1L, 2L))
+                .price(new BigDecimal("10"), new BigDecimal("100"))
+                .condition(2, 3)
+                .sort("price", "asc")
+                .page(20, 10)
+                .build();
+        JSONObject json = JSON.parseObject(source.toString());
+
+        JSONObject bool = json.getJSONObject("query").getJSONObject("bool");
+        String filters = bool.getJSONArray("filter").toJSONString();
+        assertTrue(filters.contains("\"status\""));
+        assertTrue(filters.contains("\"stock\""));
+        assertTrue(filters.contains("\"categoryId\""));
+        assertTrue(filters.contains("\"price\""));
+        assertTrue(filters.contains("\"itemCondition\""));
+        assertEquals(1, bool.getJSONArray("must").size());
+        assertEquals(2, bool.getJSONArray("should").size());
+
+        assertEquals(20, json.getIntValue("from"));
+        assertEquals(10, json.getIntValue("size"));
+        assertTrue(json.containsKey("track_total_hits"));
+        assertNotNull(json.getJSONObject("_source").getJSONArray("includes"));
+
+        JSONArray sort = json.getJSONArray("sort");
+        assertEquals(2, sort.size());
+        assertEquals("asc", sort.getJSONObject(0).getJSONObject("price").getString("order"));
+        assertTrue(sort.getJSONObject(1).containsKey("id"));
+    }
+
+    @Test
+    void testSearchAfterReplacesFrom() {
+        SearchSourceBuilder source = new ItemSearchQueryBuilder()
+                .page(0, 11)
+                .searchAfter(new Object[]{1700000000000L, 42L})
+                .build();
+        JSONObject json = JSON.parseObject(source.toString());
+
+        assertFalse(json.containsKey("from"));
+        assertEquals(2, json.getJSONArray("search_after").size());
+        JSONObject bool = json.getJSONObject("query").getJSONObject("bool");
+        assertNull(bool.get("must"));
+        assertEquals("desc", json.getJSONArray("sort").getJSONObject(0).getJSONObject("createTime").getString("order"));
+    }
+
+    @Test
+    void testSortByFavoriteCount() {
+        SearchSourceBuilder source = new ItemSearchQueryBuilder()
+                .sort("favorites", "desc")
+                .page(0, 10)
+                .build();
+        JSONArray sort = JSON.parseObject(source.toString()).getJSONArray("sort");
+
+        assertEquals(3, sort.size());
+        JSONObject favoriteCount = sort.getJSONObject(0).getJSONObject("favoriteCount");
+        assertEquals("desc", favoriteCount.getString("order"));
+        // 旧索引中没有该字段的文档按0参与排序
+        assertEquals("integer", favoriteCount.getString("unmapped_type"));
+        assertTrue(sort.getJSONObject(1).containsKey("createTime"));
+        assertTrue(sort.getJSONObject(2).containsKey("id"));
+    }
+}
@@ -1,12 +1,17 @@
 package com.campus.trading.service.impl;
 
+import com.campus.trading.cache.CategoryTree;
+import com.campus.trading.dto.CursorPageResponseDTO;
 import com.campus.trading.dto.ItemCreateRequestDTO;
+import com.campus.trading.dto.ItemCursor;
+import com.campus.trading.dto.ItemDTO;
 import com.campus.trading.entity.Item;
 import com.campus.trading.entity.User;
 import com.campus.trading.repository.CategoryRepository;
 import com.campus.trading.repository.ItemESRepository;
 import com.campus.trading.repository.ItemRepository;
 import com.campus.trading.service.ImageService;
+import com.campus.trading.service.ItemIndexService;
 import com.campus.trading.service.UserService;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.junit.jupiter.api.AfterEach;
@@ -20,11 +25,21 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -70,6 +85,14 @@ class ItemServiceImplTest {
     private UserRepository userRepository;
     @MockBean
     private CategoryService categoryService;
+    @MockBean
+    private ItemIndexService itemIndexService;
+    @MockBean
+    private ItemReindexJob itemReindexJob;
+    @MockBean
+    private ItemTrendingEngine itemTrendingEngine;
+    @MockBean
+    private ItemDetailCache itemDetailCache;
 
     private AutoCloseable closeable;
 
@@ -90,6 +113,15 @@ class ItemServiceImplTest {
         ZSetOperations zSetOperations = mock(ZSetOperations.class);
         when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
         when(zSetOperations.reverseRange(any(), anyLong(), anyLong())).thenReturn(null);
+
+        // 详情缓存直接穿透到加载函数
+        when(itemDetailCache.get(anyLong(), any())).thenAnswer(inv ->
+                inv.<Function<Long, ItemDTO>>getArgument(1).apply(inv.getArgument(0)));
+        when(itemDetailCache.getAll(anyCollection(), any())).thenAnswer(inv ->
+                inv.<Function<List<Long>, Map<Long, ItemDTO>>>getArgument(1)
+                        .apply(new ArrayList<>(inv.<Collection<Long>>getArgument(0))));
+
+        when(categoryService.getCategoryTree()).thenReturn(CategoryTree.empty());
     }
 
     @AfterEach
@@ -275,6 +307,8 @@ class ItemServiceImplTest {
     void testSearchItems() {
         org.springframework.data.domain.Page<com.campus.trading.entity.Item> page = new org.springframework.data.domain.PageImpl<>(java.util.Collections.emptyList());
         when(itemRepository.findByNameContaining(anyString(), any(org.springframework.data.domain.Pageable.class))).thenReturn(page);
+        // ES 不可用时退回数据库查询
+        when(itemRepository.findAll(any(org.springframework.data.jpa.domain.Specification.class), any(Pageable.class))).thenReturn(page);
         assertNotNull(itemService.searchItems("test", 1L, null, null, null, null, 1, 10, "createTime", "desc"));
     }
 
@@ -293,8 +327,12 @@ class ItemServiceImplTest {
         org.springframework.data.domain.Pageable pageable = org.springframework.data.domain.PageRequest.of(0, 10);
         org.springframework.data.domain.Page<com.campus.trading.entity.Item> itemPage =
             new org.springframework.data.domain.PageImpl<>(java.util.Collections.emptyList(), pageable, 0);
-        when(itemRepository.findAllOrderByFavoriteCountDesc(any(Pageable.class))).thenReturn(itemPage);
+        org.mockito.ArgumentCaptor<Pageable> captor = org.mockito.ArgumentCaptor.forClass(Pageable.class);
+        when(itemRepository.findAll(any(org.springframework.data.jpa.domain.Specification.class), captor.capture())).thenReturn(itemPage);
         assertNotNull(itemService.searchItems("", null, null, null, null, null, 1, 10, "favorites", "desc"));
+        // 按冗余的收藏数排序，不再聚合收藏表
+        assertEquals(org.springframework.data.domain.Sort.Direction.DESC,
+            captor.getValue().getSort().getOrderFor("favoriteCount").getDirection());
     }
 
     @Test
@@ -364,6 +402,73 @@ class ItemServiceImplTest {
         assertNotNull(itemService.convertToDTO(item));
     }
 
+    @Test
+    void testConvertToDTOs_batch() {
+        User seller = new User();
+        seller.setId(1L);
+        seller.setAvatarImageId("avatar");
+        Item first = new Item();
+        first.setId(1L);
+        first.setUser(seller);
+        first.setPopularity(3);
+        first.setImageIds(Arrays.asList("a", "b"));
+        Item second = new Item();
+        second.setId(2L);
+        second.setUser(seller);
+        second.setPopularity(7);
+        second.setImageIds(Arrays.asList("b"));
+        when(stringRedisTemplate.opsForValue().multiGet(anyList())).thenReturn(Arrays.asList("10", null));
+        Map<String, String> urls = new HashMap<>();
+        urls.put("a", "url-a");
+        urls.put("b", "url-b");
+        urls.put("avatar", "url-avatar");
+        when(imageService.generateImageAccessTokens(anyCollection())).thenReturn(urls);
+
+        List<ItemDTO> dtos = itemService.convertToDTOs(Arrays.asList(first, null, second));
+
+        assertEquals(3, dtos.size());
+        assertNull(dtos.get(1));
+        assertEquals(10, dtos.get(0).getPopularity());
+        assertEquals(7, dtos.get(2).getPopularity());
+        assertEquals("url-avatar", dtos.get(2).getUserAvatar());
+        verify(stringRedisTemplate.opsForValue(), times(1)).multiGet(anyList());
+        verify(imageService, times(1)).generateImageAccessTokens(anyCollection());
+        verify(imageService, never()).generateImageAccessToken(anyString());
+    }
+
+    @Test
+    void testListItemsByCursor() {
+        User seller = new User();
+        seller.setId(1L);
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        Item first = new Item();
+        first.setId(9L);
+        first.setUser(seller);
+        first.setPopularity(0);
+        first.setCreateTime(now);
+        Item second = new Item();
+        second.setId(8L);
+        second.setUser(seller);
+        second.setPopularity(0);
+        second.setCreateTime(now.minusMinutes(1));
+        when(itemRepository.findLiveItemsBeforeCreateTime(any(), anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(first, second),
+                        PageRequest.of(0, 2), true));
+        when(imageService.generateImageAccessTokens(anyCollection())).thenReturn(Collections.emptyMap());
+
+        CursorPageResponseDTO<ItemDTO> page =
+                itemService.listItemsByCursor(null, null, 2, "createTime");
+
+        assertEquals(2, page.getList().size());
+        assertTrue(page.isHasMore());
+        ItemCursor next = ItemCursor.decode("createTime", page.getNextCursor());
+        assertEquals(8L, next.getId());
+        assertEquals(now.minusMinutes(1), next.getCreateTime());
+        verify(itemRepository, never()).findByStatusAndStockGreaterThan(anyInt(), anyInt(), any(Pageable.class));
+        assertThrows(IllegalArgumentException.class,
+                () -> itemService.listItemsByCursor(null, page.getNextCursor(), 2, "popularity"));
+    }
+
     @Test
     void testConvertToDTO_null() {
         assertNull(itemService.convertToDTO(null));
@@ -388,6 +493,7 @@ class ItemServiceImplTest {
 
     @Test
     void testGetHotItems() {
+        when(itemRepository.findByStatusAndStockGreaterThan(eq(1), eq(0), any(Pageable.class))).thenReturn(Page.empty());
         assertDoesNotThrow(() -> itemService.getHotItems(5));
     }
 
@@ -479,38 +585,56 @@ class ItemServiceImplTest {
     }
 
     @Test
-    void testSyncAllItemsToES() {
-        Item item = new Item();
-        item.setId(1L);
-        item.setName("test");
-        item.setImageIds(Collections.singletonList("img"));
-        item.setCategory(new Category());
-        item.setPrice(java.math.BigDecimal.ONE);
-        item.setUser(new User());
-        item.setPopularity(1);
-        item.setStatus(1);
-        item.setStock(1);
-        when(itemRepository.findAll()).thenReturn(Collections.singletonList(item));
-        when(itemESRepository.saveAll(anyList())).thenReturn(null); // 修正doNothing为thenReturn
+    void testSyncAllItemsToES() throws Exception {
+        Map<String, String> status = new HashMap<>();
+        status.put("status", "COMPLETED");
+        when(itemReindexJob.run(false)).thenReturn(status);
         assertDoesNotThrow(() -> itemService.syncAllItemsToES());
+        verify(itemReindexJob).run(false);
     }
 
     @Test
     void testGetHotItems_empty() {
-        when(stringRedisTemplate.opsForZSet().reverseRange(anyString(), anyLong(), anyLong())).thenReturn(Collections.emptySet());
+        when(itemTrendingEngine.top(null, 5)).thenReturn(Collections.emptyList());
+        when(itemRepository.findByStatusAndStockGreaterThan(eq(1), eq(0), any(Pageable.class))).thenReturn(Page.empty());
         assertNotNull(itemService.getHotItems(5));
     }
 
     @Test
-    void testGetAllCategoriesFromCache() {
-        when(categoryRepository.findAll()).thenReturn(Collections.emptyList());
-        when(stringRedisTemplate.opsForValue().get(anyString())).thenReturn(null);
-        assertNotNull(itemService.getAllCategoriesFromCache());
-    }
-
-    @Test
-    void testRefreshCategoryCache() {
-        when(categoryRepository.findAll()).thenReturn(Collections.emptyList());
-        assertDoesNotThrow(() -> itemService.refreshCategoryCache());
+    void testGetHotItems_fillsFromPopularity() {
+        // 热度榜只有物品2，按累计热度补齐时跳过已在榜上的物品
+        when(itemTrendingEngine.top(null, 3)).thenReturn(Collections.singletonList(2L));
+        Item item1 = new Item();
+        item1.setId(1L);
+        item1.setPopularity(9);
+        Item item2 = new Item();
+        item2.setId(2L);
+        item2.setPopularity(5);
+        Item item3 = new Item();
+        item3.setId(3L);
+        item3.setPopularity(1);
+        when(itemRepository.findAllById(anyList())).thenReturn(Collections.singletonList(item2));
+        when(itemRepository.findByStatusAndStockGreaterThan(eq(1), eq(0), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(item1, item2, item3)));
+        List<ItemDTO> hot = itemService.getHotItems(3);
+        assertEquals(3, hot.size());
+        assertEquals(2L, hot.get(0).getId());
+        assertEquals(1L, hot.get(1).getId());
+        assertEquals(3L, hot.get(2).getId());
+    }
+
+    @Test
+    void testGetHotItems_keepsTrendingOrder() {
+        when(itemTrendingEngine.top(3L, 2)).thenReturn(Arrays.asList(2L, 1L));
+        Item item1 = new Item();
+        item1.setId(1L);
+        item1.setPopularity(1);
+        Item item2 = new Item();
+        item2.setId(2L);
+        item2.setPopularity(1);
+        when(itemRepository.findAllById(anyList())).thenReturn(Arrays.asList(item1, item2));
+        List<ItemDTO> hot = itemService.getHotItems(3L, 2);
+        assertEquals(2L, hot.get(0).getId());
+        assertEquals(1L, hot.get(1).getId());
     }
 }
\ No newline at end of file
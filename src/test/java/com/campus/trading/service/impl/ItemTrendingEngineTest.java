@@ -0,0 +1,148 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.cache.CategoryTree;
+import com.campus.trading.entity.Category;
+import com.campus.trading.repository.ItemRepository;
+import com.campus.trading.service.CategoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ItemTrendingEngineTest {
+
+    private StringRedisTemplate redis;
+    private ZSetOperations<String, String> zSetOps;
+    private ValueOperations<String, String> valueOps;
+    private ItemRepository itemRepository;
+    private CategoryService categoryService;
+    private ItemTrendingEngine engine;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        zSetOps = mock(ZSetOperations.class);
+        itemRepository = mock(ItemRepository.class);
+        categoryService = mock(CategoryService.class);
+        valueOps = mock(ValueOperations.class);
+        when(redis.opsForZSet()).thenReturn(zSetOps);
+        when(redis.opsForValue()).thenReturn(valueOps);
+        when(valueOps.setIfAbsent(eq("trending:rebuild:lease"), anyString(), any(Duration.class))).thenReturn(true);
+        when(categoryService.getCategoryTree()).thenReturn(CategoryTree.of(Arrays.asList(
+                Category.builder().id(10L).build(),
+                Category.builder().id(11L).parentId(10L).build())));
+        engine = new ItemTrendingEngine();
+        ReflectionTestUtils.setField(engine, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(engine, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(engine, "categoryService", categoryService);
+        ReflectionTestUtils.setField(engine, "windowHours", 4);
+        ReflectionTestUtils.setField(engine, "halfLifeHours", 1.0);
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void testRebuildMergesDecayedBucketsAndFiltersUnavailable() {
+        Set<ZSetOperations.TypedTuple<String>> merged = new LinkedHashSet<>();
+        merged.add(new DefaultTypedTuple<>("1", 9.0));
+        merged.add(new DefaultTypedTuple<>("2", 5.0));
+        merged.add(new DefaultTypedTuple<>("3", 1.0));
+        when(zSetOps.reverseRangeWithScores(startsWith("trending:merge:"), eq(0L), anyLong())).thenReturn(merged);
+        // 物品2已售出，查询只返回可售的物品
+        when(itemRepository.findLiveItemCategoryIds(anyCollection())).thenReturn(Arrays.asList(
+                row(3L, 10L), row(1L, 10L)));
+        RedisOperations<String, String> ops = mock(RedisOperations.class);
+        ZSetOperations<String, String> pipelineZSet = mock(ZSetOperations.class);
+        when(ops.opsForZSet()).thenReturn(pipelineZSet);
+        when(redis.executePipelined(any(SessionCallback.class))).thenAnswer(inv -> {
+            ((SessionCallback) inv.getArgument(0)).execute(ops);
+            return null;
+        });
+
+        engine.doRebuild();
+
+        ArgumentCaptor<Collection<String>> others = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<RedisZSetCommands.Weights> weights = ArgumentCaptor.forClass(RedisZSetCommands.Weights.class);
+        verify(zSetOps).unionAndStore(startsWith("trending:h:"), others.capture(), startsWith("trending:merge:"),
+                eq(RedisZSetCommands.Aggregate.SUM), weights.capture());
+        assertEquals(3, others.getValue().size());
+        assertArrayEquals(new double[]{1, 0.5, 0.25, 0.125}, weights.getValue().toArray(), 1e-9);
+
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> overall = ArgumentCaptor.forClass(Set.class);
+        verify(pipelineZSet).add(startsWith("trending:items:next:"), overall.capture());
+        assertEquals(Arrays.asList("1", "3"), ids(overall.getValue()));
+        verify(ops).rename(startsWith("trending:items:next:"), eq("trending:items"));
+        verify(pipelineZSet).add(startsWith("trending:cat:10:next:"), anySet());
+        verify(ops).rename(startsWith("trending:cat:10:next:"), eq("trending:cat:10"));
+        verify(redis).delete(startsWith("trending:merge:"));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void testRebuildScansAllCandidatesIntoAncestorCategories() {
+        ReflectionTestUtils.setField(engine, "size", 1);
+        Set<ZSetOperations.TypedTuple<String>> merged = new LinkedHashSet<>();
+        merged.add(new DefaultTypedTuple<>("1", 9.0));
+        merged.add(new DefaultTypedTuple<>("2", 5.0));
+        merged.add(new DefaultTypedTuple<>("3", 1.0));
+        when(zSetOps.reverseRangeWithScores(startsWith("trending:merge:"), eq(0L), anyLong())).thenReturn(merged);
+        // 子分类11的物品排在总榜名额之外，仍应进入分类11及其上级分类10的榜单
+        when(itemRepository.findLiveItemCategoryIds(anyCollection())).thenReturn(Arrays.asList(
+                row(1L, 10L), row(2L, 11L), row(3L, 11L)));
+        RedisOperations<String, String> ops = mock(RedisOperations.class);
+        ZSetOperations<String, String> pipelineZSet = mock(ZSetOperations.class);
+        when(ops.opsForZSet()).thenReturn(pipelineZSet);
+        when(redis.executePipelined(any(SessionCallback.class))).thenAnswer(inv -> {
+            ((SessionCallback) inv.getArgument(0)).execute(ops);
+            return null;
+        });
+
+        engine.doRebuild();
+
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> overall = ArgumentCaptor.forClass(Set.class);
+        verify(pipelineZSet).add(startsWith("trending:items:next:"), overall.capture());
+        assertEquals(Arrays.asList("1"), ids(overall.getValue()));
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> child = ArgumentCaptor.forClass(Set.class);
+        verify(pipelineZSet).add(startsWith("trending:cat:11:next:"), child.capture());
+        assertEquals(Arrays.asList("2"), ids(child.getValue()));
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> parent = ArgumentCaptor.forClass(Set.class);
+        verify(pipelineZSet).add(startsWith("trending:cat:10:next:"), parent.capture());
+        assertEquals(Arrays.asList("1"), ids(parent.getValue()));
+    }
+
+    @Test
+    void testRebuildSkippedWhileAnotherNodeHoldsLease() {
+        when(valueOps.setIfAbsent(eq("trending:rebuild:lease"), anyString(), any(Duration.class))).thenReturn(false);
+
+        engine.doRebuild();
+
+        verifyNoInteractions(zSetOps, itemRepository, categoryService);
+    }
+
+    private static List<String> ids(Set<ZSetOperations.TypedTuple<String>> tuples) {
+        return tuples.stream().map(ZSetOperations.TypedTuple::getValue).collect(Collectors.toList());
+    }
+
+    private static Object[] row(Long id, Long categoryId) {
+        return new Object[]{id, categoryId};
+    }
+}
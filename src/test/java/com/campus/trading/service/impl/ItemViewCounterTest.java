@@ -0,0 +1,88 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.entity.Item;
+import com.campus.trading.repository.ItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ItemViewCounterTest {
+
+    private StringRedisTemplate redis;
+    private ItemRepository itemRepository;
+    private StringRedisConnection connection;
+    private ItemViewCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        itemRepository = mock(ItemRepository.class);
+        connection = mock(StringRedisConnection.class);
+        counter = new ItemViewCounter();
+        ReflectionTestUtils.setField(counter, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(counter, "itemRepository", itemRepository);
+        ReflectionTestUtils.setField(counter, "itemTrendingEngine", new ItemTrendingEngine());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushPipelinesAccumulatedDeltas() {
+        List<List<Object>> responses = new ArrayList<>();
+        // 物品1在 Redis 中已有计数，物品2是新键
+        responses.add(Arrays.asList(13L, 13.0, 1L, 1L, 1.0, 1L));
+        responses.add(Collections.singletonList(8L));
+        when(redis.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            ((RedisCallback<Object>) inv.getArgument(0)).doInRedis(connection);
+            return responses.remove(0);
+        });
+        Item item = new Item();
+        item.setId(2L);
+        item.setPopularity(7);
+        when(itemRepository.findAllById(Collections.singletonList(2L))).thenReturn(Collections.singletonList(item));
+
+        counter.increment(1L);
+        counter.increment(1L);
+        counter.increment(1L);
+        counter.increment(2L);
+        assertEquals(3, counter.pendingCount(1L));
+
+        counter.flush();
+
+        verify(connection).incrBy("item:view:1", 3L);
+        verify(connection).zIncrBy(startsWith("trending:h:"), eq(3.0), eq("1"));
+        verify(connection).incrBy("item:view:2", 1L);
+        verify(connection).incrBy("item:view:2", 7L);
+        verify(connection).sAdd("item:view:dirty", "1");
+        verify(connection).sAdd("item:view:dirty", "2");
+        assertEquals(0, counter.pendingCount(1L));
+
+        // 没有新的浏览时不访问 Redis
+        counter.flush();
+        verify(redis, times(2)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushFailureKeepsDeltas() {
+        when(redis.executePipelined(any(RedisCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+
+        counter.increment(5L);
+        counter.increment(5L);
+        counter.flush();
+
+        assertEquals(2, counter.pendingCount(5L));
+    }
+}
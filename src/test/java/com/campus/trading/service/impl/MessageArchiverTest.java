@@ -0,0 +1,77 @@
+package com.campus.trading.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MessageArchiverTest {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @InjectMocks
+    private MessageArchiver archiver;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void testMaintainPartitions_AddsMonthsAfterLastPartition() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("messages_archive")))
+                .thenReturn(Arrays.asList("p202609", "p_max"));
+        archiver.maintainPartitions(YearMonth.of(2026, 10));
+        verify(jdbcTemplate).execute("ALTER TABLE messages_archive REORGANIZE PARTITION p_max INTO ("
+                + "PARTITION p202610 VALUES LESS THAN ('2026-11-01'), "
+                + "PARTITION p202611 VALUES LESS THAN ('2026-12-01'), "
+                + "PARTITION p202612 VALUES LESS THAN ('2027-01-01'), "
+                + "PARTITION p_max VALUES LESS THAN (MAXVALUE))");
+        verify(jdbcTemplate, never()).execute(contains("DROP PARTITION"));
+    }
+
+    @Test
+    void testMaintainPartitions_DropsExpiredMonthsButKeepsOne() {
+        ReflectionTestUtils.setField(archiver, "keepMonths", 1);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("messages_archive")))
+                .thenReturn(Arrays.asList("p202607", "p202608", "p202609", "p202610", "p202611", "p202612", "p_max"));
+        archiver.maintainPartitions(YearMonth.of(2026, 10));
+        verify(jdbcTemplate, never()).execute(contains("REORGANIZE"));
+        verify(jdbcTemplate).execute("ALTER TABLE messages_archive DROP PARTITION p202607, p202608");
+    }
+
+    @Test
+    void testArchive_MovesBatchesUntilShortBatch() {
+        ReflectionTestUtils.setField(archiver, "batchSize", 2);
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM messages"), eq(Long.class), any(), eq(2)))
+                .thenReturn(Arrays.asList(1L, 2L), Collections.singletonList(3L));
+        when(jdbcTemplate.update(startsWith("DELETE FROM messages"), (Object[]) any())).thenReturn(2, 1);
+        int archived = archiver.archive(LocalDateTime.of(2026, 7, 1, 0, 0));
+        assertEquals(3, archived);
+        verify(jdbcTemplate, times(2)).update(startsWith("INSERT IGNORE INTO messages_archive"), (Object[]) any());
+        verify(jdbcTemplate).update("DELETE FROM messages WHERE id IN (?, ?)", 1L, 2L);
+        verify(jdbcTemplate).update("DELETE FROM messages WHERE id IN (?)", 3L);
+    }
+}
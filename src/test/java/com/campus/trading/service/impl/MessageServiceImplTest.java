@@ -17,7 +17,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.campus.trading.entity.*;
+import com.campus.trading.repository.ChatConversationRepository;
 import com.campus.trading.repository.UserRepository;
+import com.campus.trading.service.PushService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -30,6 +32,12 @@ class MessageServiceImplTest {
     private MessageRepository messageRepository;
     @MockBean
     private UserRepository userRepository;
+    @MockBean
+    private ChatConversationRepository chatConversationRepository;
+    @MockBean
+    private PushService pushService;
+    @MockBean
+    private MessageUnreadCounter unreadCounter;
     @Autowired
     private MessageServiceImpl messageService;
 
@@ -67,9 +75,37 @@ class MessageServiceImplTest {
     void markAsRead() {
         Message message = new CommentMessage();
         message.setId(1L);
+        message.setRecipient(user);
+        message.setMessageType("COMMENT");
         when(messageRepository.findById(1L)).thenReturn(java.util.Optional.of(message));
         when(messageRepository.save(any(Message.class))).thenReturn(message);
         assertDoesNotThrow(() -> messageService.markAsRead(1L));
+        verify(unreadCounter).increment(1L, "COMMENT", -1);
+    }
+
+    @Test
+    void markAsRead_alreadyReadKeepsCounter() {
+        Message message = new CommentMessage();
+        message.setId(1L);
+        message.setRecipient(user);
+        message.setMessageType("COMMENT");
+        message.setRead(true);
+        when(messageRepository.findById(1L)).thenReturn(java.util.Optional.of(message));
+        messageService.markAsRead(1L);
+        verify(unreadCounter, never()).increment(anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    void markAsRead_chatMessageAdvancesReadWatermark() {
+        ChatMessage message = new ChatMessage();
+        message.setId(3L);
+        message.setChatId(10L);
+        message.setRecipient(user);
+        message.setRead(false);
+        when(messageRepository.findById(3L)).thenReturn(java.util.Optional.of(message));
+        messageService.markAsRead(3L);
+        verify(unreadCounter).markChatRead(10L, 1L, 3L);
+        assertTrue(message.isRead());
     }
 
     @Test
@@ -80,15 +116,28 @@ class MessageServiceImplTest {
 
     @Test
     void countUnreadMessages() {
-        when(messageRepository.countByRecipientAndReadFalse(user)).thenReturn(5L);
+        when(unreadCounter.summary(1L)).thenReturn(summary(2L, 1L, 0L, 4L));
         long count = messageService.countUnreadMessages(1L);
-        assertEquals(5L, count);
+        assertEquals(7L, count);
+        // 计数来自 Redis，不再查询用户和统计消息表
+        verify(userRepository, never()).findById(anyLong());
+        verify(messageRepository, never()).countByRecipientAndReadFalse(any());
     }
 
     @Test
-    void countUnreadMessages_userNotFound() {
-        when(userRepository.findById(2L)).thenReturn(java.util.Optional.empty());
-        assertThrows(RuntimeException.class, () -> messageService.countUnreadMessages(2L));
+    void getUnreadSummary() {
+        java.util.Map<String, Long> summary = summary(2L, 1L, 0L, 4L);
+        when(unreadCounter.summary(1L)).thenReturn(summary);
+        assertEquals(summary, messageService.getUnreadSummary(1L));
+    }
+
+    private java.util.Map<String, Long> summary(long comment, long favorite, long order, long chat) {
+        java.util.Map<String, Long> summary = new java.util.LinkedHashMap<>();
+        summary.put("COMMENT", comment);
+        summary.put("FAVORITE", favorite);
+        summary.put("ORDER", order);
+        summary.put("CHAT", chat);
+        return summary;
     }
 
     @Test
@@ -155,8 +204,12 @@ class MessageServiceImplTest {
 
     @Test
     void markAllAsRead() {
-        when(messageRepository.findByRecipientAndReadFalse(user)).thenReturn(Collections.emptyList());
         assertDoesNotThrow(() -> messageService.markAllAsRead(1L));
+        // 一条 UPDATE 完成，不再加载未读消息逐条保存
+        verify(messageRepository).markAllAsReadByRecipientId(1L);
+        verify(chatConversationRepository).markAllRead(1L);
+        verify(messageRepository, never()).saveAll(anyList());
+        verify(unreadCounter).clear(1L, "COMMENT", "FAVORITE", "ORDER", "CHAT");
     }
 
     @Test
@@ -167,8 +220,11 @@ class MessageServiceImplTest {
 
     @Test
     void markAllAsReadByType() {
-        when(messageRepository.findUnreadMessagesByType(user, "COMMENT")).thenReturn(Collections.emptyList());
+        when(messageRepository.markAllAsReadByRecipientIdAndType(1L, "COMMENT")).thenReturn(3);
         assertDoesNotThrow(() -> messageService.markAllAsReadByType(1L, "COMMENT"));
+        verify(messageRepository).markAllAsReadByRecipientIdAndType(1L, "COMMENT");
+        verify(unreadCounter).increment(1L, "COMMENT", -3);
+        verify(chatConversationRepository, never()).markAllRead(anyLong());
     }
 
     @Test
@@ -183,6 +239,16 @@ class MessageServiceImplTest {
         assertNotNull(messageService.createCommentMessage(comment));
     }
 
+    @Test
+    void saveCommentMessage_pushesToRecipient() {
+        CommentMessage message = new CommentMessage();
+        message.setRecipient(user);
+        when(messageRepository.save(any(CommentMessage.class))).thenAnswer(inv -> inv.getArgument(0));
+        messageService.saveCommentMessage(message);
+        verify(pushService).push(eq(1L), eq("notification"), argThat(dto -> "COMMENT".equals(((MessageDTO) dto).getMessageType())));
+        verify(unreadCounter).increment(1L, "COMMENT", 1);
+    }
+
     @Test
     void createCommentMessage_null() {
         assertThrows(NullPointerException.class, () -> messageService.createCommentMessage(null));
@@ -279,8 +345,10 @@ class MessageServiceImplTest {
 
     @Test
     void countUnreadMessagesByType() {
-        when(messageRepository.countByRecipientAndMessageTypeAndReadFalse(user, "ORDER")).thenReturn(3L);
+        when(unreadCounter.summary(1L)).thenReturn(summary(0L, 0L, 3L, 4L));
         long count = messageService.countUnreadMessagesByType(1L, "ORDER");
         assertEquals(3L, count);
+        assertEquals(4L, messageService.countUnreadMessagesByType(1L, "CHAT"));
+        verify(messageRepository, never()).countByRecipientAndMessageTypeAndReadFalse(any(), anyString());
     }
 }
\ No newline at end of file
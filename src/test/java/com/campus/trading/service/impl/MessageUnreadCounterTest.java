@@ -0,0 +1,140 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.repository.ChatConversationRepository;
+import com.campus.trading.repository.MessageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MessageUnreadCounterTest {
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+    @Mock
+    private MessageRepository messageRepository;
+    @Mock
+    private ChatConversationRepository chatConversationRepository;
+    @InjectMocks
+    private MessageUnreadCounter unreadCounter;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        doReturn(hashOperations).when(stringRedisTemplate).opsForHash();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        closeable.close();
+    }
+
+    @Test
+    void testIncrement_DeferredUntilCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        unreadCounter.increment(1L, "COMMENT", 1);
+        unreadCounter.increment(1L, "SYSTEM", 1);
+        verify(hashOperations, never()).increment(anyString(), any(), anyLong());
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCommit();
+        }
+        verify(hashOperations).increment("msg:unread:1", "COMMENT", 1L);
+        verify(hashOperations, never()).increment(anyString(), eq("SYSTEM"), anyLong());
+    }
+
+    @Test
+    void testSummary_ReadsHashWithoutDatabase() {
+        Map<Object, Object> stored = new HashMap<>();
+        stored.put("COMMENT", "2");
+        stored.put("FAVORITE", "0");
+        stored.put("ORDER", "-1");
+        stored.put("CHAT", "5");
+        when(hashOperations.entries("msg:unread:1")).thenReturn(stored);
+        Map<String, Long> summary = unreadCounter.summary(1L);
+        assertEquals(2L, summary.get("COMMENT"));
+        assertEquals(0L, summary.get("ORDER"));
+        assertEquals(5L, summary.get("CHAT"));
+        verifyNoInteractions(messageRepository, chatConversationRepository);
+    }
+
+    @Test
+    void testSummary_IncompleteHashRebuiltFromDatabase() {
+        // 过期后单独的增量只留下一个字段
+        when(hashOperations.entries("msg:unread:1")).thenReturn(Collections.singletonMap("CHAT", "1"));
+        when(messageRepository.countUnreadNotificationsGroupByRecipient(anyCollection()))
+                .thenReturn(Collections.singletonList(new Object[]{1L, "ORDER", 3L}));
+        when(chatConversationRepository.sumUnreadCountGroupByUser(anyCollection()))
+                .thenReturn(Collections.singletonList(new Object[]{1L, 4L}));
+        Map<String, Long> summary = unreadCounter.summary(1L);
+        assertEquals(0L, summary.get("COMMENT"));
+        assertEquals(3L, summary.get("ORDER"));
+        assertEquals(4L, summary.get("CHAT"));
+        verify(stringRedisTemplate).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    void testMarkChatRead_DecrementsByConversationChange() {
+        when(chatConversationRepository.findUnreadCount(10L, 1L)).thenReturn(Optional.of(3), Optional.of(1));
+        unreadCounter.markChatRead(10L, 1L, 100L);
+        verify(chatConversationRepository).markReadThrough(10L, 1L, 100L);
+        verify(hashOperations).increment("msg:unread:1", "CHAT", -2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReconcile_KeepsExistingTtl() {
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenReturn(true, true, false);
+        when(cursor.next()).thenReturn("msg:unread:1", "msg:unread:2");
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        when(messageRepository.countUnreadNotificationsGroupByRecipient(anyCollection())).thenReturn(Collections.emptyList());
+        when(chatConversationRepository.sumUnreadCountGroupByUser(anyCollection())).thenReturn(Collections.emptyList());
+        RedisOperations<String, String> operations = mock(RedisOperations.class);
+        doReturn(hashOperations).when(operations).opsForHash();
+        // 依次为：改写字段、读取过期时间（用户2的键在扫描后过期、被重新创建）、补设过期时间
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            ((SessionCallback<Object>) invocation.getArgument(0)).execute(operations);
+            return Collections.emptyList();
+        }).thenAnswer(invocation -> {
+            ((SessionCallback<Object>) invocation.getArgument(0)).execute(operations);
+            return Arrays.asList(3600L, -1L);
+        }).thenAnswer(invocation -> {
+            ((SessionCallback<Object>) invocation.getArgument(0)).execute(operations);
+            return Collections.emptyList();
+        });
+
+        unreadCounter.reconcile();
+
+        verify(hashOperations).putAll(eq("msg:unread:1"), anyMap());
+        verify(hashOperations).putAll(eq("msg:unread:2"), anyMap());
+        verify(operations, never()).expire(eq("msg:unread:1"), any(Duration.class));
+        verify(operations).expire(eq("msg:unread:2"), any(Duration.class));
+    }
+}
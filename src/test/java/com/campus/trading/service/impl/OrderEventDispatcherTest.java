@@ -0,0 +1,291 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+import com.campus.trading.entity.User;
+import com.campus.trading.service.UserProfileService;
+import com.campus.trading.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 事件发布、进程内传输和幂等分发，用同步执行器代替后台线程
+ */
+class OrderEventDispatcherTest {
+
+    private final Map<String, String> redisValues = new HashMap<>();
+    private final RecordingHandler notification = new RecordingHandler("notification");
+    private final RecordingHandler stats = new RecordingHandler("stats");
+    private StringRedisTemplate stringRedisTemplate;
+    private OrderEventPublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), eq(OrderEventDispatcher.PROCESSING), any(Duration.class)))
+                .thenAnswer(inv -> redisValues.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null);
+        doAnswer(inv -> redisValues.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        when(valueOperations.get(anyString())).thenAnswer(inv -> redisValues.get(inv.<String>getArgument(0)));
+        when(stringRedisTemplate.delete(anyString())).thenAnswer(inv -> redisValues.remove(inv.<String>getArgument(0)) != null);
+
+        OrderEventDispatcher dispatcher = new OrderEventDispatcher(Arrays.asList(notification, stats), stringRedisTemplate);
+        publisher = new OrderEventPublisher(new LocalOrderEventTransport(dispatcher, Runnable::run));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static OrderEvent event() {
+        return OrderEvent.builder().type(OrderEvent.Type.CREATED).orderId(1L).buyerId(2L).sellerId(3L).newStatus(0).build();
+    }
+
+    @Test
+    void testDuplicateDeliveryHandledOnce() {
+        OrderEvent event = event();
+        publisher.publish(event);
+        publisher.publish(event);
+
+        assertNotNull(event.getEventId());
+        assertNotNull(event.getOccurredAt());
+        assertEquals(1, notification.handled.size());
+        assertEquals(1, stats.handled.size());
+        assertEquals(OrderEventDispatcher.DONE, redisValues.get("order:event:notification:" + event.getEventId()));
+
+        publisher.publish(event());
+        assertEquals(2, notification.handled.size());
+    }
+
+    @Test
+    void testPublishedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        publisher.publish(event());
+        assertTrue(notification.handled.isEmpty());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, notification.handled.size());
+    }
+
+    @Test
+    void testFailedHandlerRetriedWithoutRepeatingOthers() {
+        notification.failuresLeft = 1;
+        OrderEvent event = event();
+
+        // 进程内传输只记录失败，不影响发布方
+        publisher.publish(event);
+        assertEquals(0, notification.handled.size());
+        assertEquals(1, stats.handled.size());
+        assertFalse(redisValues.containsKey("order:event:notification:" + event.getEventId()));
+
+        // 重投时只重做失败的消费者
+        publisher.publish(event);
+        assertEquals(1, notification.handled.size());
+        assertEquals(1, stats.handled.size());
+    }
+
+    @Test
+    void testFailedDispatchRetriedWithBackoff() {
+        ScheduledExecutorService retryScheduler = mock(ScheduledExecutorService.class);
+        OrderEventDispatcher dispatcher = new OrderEventDispatcher(Arrays.asList(notification, stats), stringRedisTemplate);
+        OrderEventPublisher retryingPublisher = new OrderEventPublisher(
+                new LocalOrderEventTransport(dispatcher, Runnable::run, retryScheduler, 3, 1000));
+        notification.failuresLeft = 2;
+
+        retryingPublisher.publish(event());
+        assertEquals(0, notification.handled.size());
+        assertEquals(1, stats.handled.size());
+
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(retryScheduler).schedule(retry.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+        retry.getValue().run();
+        verify(retryScheduler).schedule(retry.capture(), eq(2000L), eq(TimeUnit.MILLISECONDS));
+        retry.getValue().run();
+
+        // 第三次成功，已完成的消费者不重复处理
+        assertEquals(1, notification.handled.size());
+        assertEquals(1, stats.handled.size());
+        verifyNoMoreInteractions(retryScheduler);
+    }
+
+    @Test
+    void testRetryStopsAtMaxAttempts() {
+        ScheduledExecutorService retryScheduler = mock(ScheduledExecutorService.class);
+        OrderEventDispatcher dispatcher = new OrderEventDispatcher(Arrays.asList(notification, stats), stringRedisTemplate);
+        OrderEventPublisher retryingPublisher = new OrderEventPublisher(
+                new LocalOrderEventTransport(dispatcher, Runnable::run, retryScheduler, 2, 1000));
+        notification.failuresLeft = 5;
+
+        retryingPublisher.publish(event());
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(retryScheduler).schedule(retry.capture(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+        retry.getValue().run();
+
+        assertEquals(0, notification.handled.size());
+        assertEquals(3, notification.failuresLeft);
+        verifyNoMoreInteractions(retryScheduler);
+    }
+
+    @Test
+    void testInterruptedProcessingNotTreatedAsDone() {
+        OrderEvent event = event();
+        publisher.publish(event);
+        // 模拟消费者处理中途退出：只留下未过期的处理中标记
+        String key = "order:event:notification:" + event.getEventId();
+        redisValues.put(key, OrderEventDispatcher.PROCESSING);
+        notification.handled.clear();
+
+        OrderEventDispatcher dispatcher = new OrderEventDispatcher(Arrays.asList(notification, stats), stringRedisTemplate);
+        assertThrows(RuntimeException.class, () -> dispatcher.dispatch(event));
+        assertTrue(notification.handled.isEmpty());
+        assertEquals(1, stats.handled.size());
+
+        // 处理中标记过期后的重投会重新处理
+        redisValues.remove(key);
+        dispatcher.dispatch(event);
+        assertEquals(1, notification.handled.size());
+        assertEquals(OrderEventDispatcher.DONE, redisValues.get(key));
+    }
+
+    @Test
+    void testHandlerRunsInOwnTransactionWhenQueueFull() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(TransactionalHandlerConfig.class)) {
+            UserService userService = context.getBean(UserService.class);
+            UserProfileService userProfileService = context.getBean(UserProfileService.class);
+            User seller = new User();
+            seller.setId(2L);
+            when(userService.findById(2L)).thenReturn(seller);
+            List<Thread> threads = new ArrayList<>();
+            List<Boolean> newTransactions = new ArrayList<>();
+            doAnswer(inv -> {
+                threads.add(Thread.currentThread());
+                newTransactions.add(TransactionAspectSupport.currentTransactionStatus().isNewTransaction());
+                return null;
+            }).when(userProfileService).deductReputationScore(any(User.class), anyInt(), anyString());
+
+            // 唯一的消费线程被占住、队列中已有一个任务，再投递的事件由提交线程自己处理
+            ExecutorService executor = LocalOrderEventTransport.newExecutor(1, 1);
+            CountDownLatch release = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            executor.execute(() -> { });
+            OrderEventDispatcher dispatcher = new OrderEventDispatcher(
+                    Collections.singletonList(context.getBean(OrderEventHandler.class)), stringRedisTemplate);
+            OrderEventPublisher transactionalPublisher = new OrderEventPublisher(new LocalOrderEventTransport(dispatcher, executor));
+
+            try {
+                new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status ->
+                        transactionalPublisher.publish(OrderEvent.builder().type(OrderEvent.Type.REJECTED)
+                                .orderId(9L).buyerId(1L).sellerId(2L).operatorId(2L).oldStatus(2).remark("不想卖了").build()));
+            } finally {
+                release.countDown();
+                executor.shutdown();
+            }
+
+            // 提交回调中的原事务已结束，消费者不能加入它，否则写入不会提交
+            assertEquals(Collections.singletonList(Thread.currentThread()), threads);
+            assertEquals(Collections.singletonList(true), newTransactions);
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class TransactionalHandlerConfig {
+        @Bean
+        DataSource dataSource() {
+            return new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        UserService userService() {
+            return mock(UserService.class);
+        }
+
+        @Bean
+        UserProfileService userProfileService() {
+            return mock(UserProfileService.class);
+        }
+
+        @Bean
+        OrderEventHandler reputationHandler(UserService userService, UserProfileService userProfileService) {
+            return new OrderReputationHandler(userService, userProfileService);
+        }
+    }
+
+    private static class RecordingHandler implements OrderEventHandler {
+        private final String name;
+        private final List<OrderEvent> handled = new ArrayList<>();
+        private int failuresLeft;
+
+        RecordingHandler(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void handle(OrderEvent event) {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IllegalStateException("模拟失败");
+            }
+            handled.add(event);
+        }
+    }
+}
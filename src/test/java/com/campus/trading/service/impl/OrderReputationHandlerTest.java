@@ -0,0 +1,82 @@
+package com.campus.trading.service.impl;
+
+import com.campus.trading.dto.OrderEvent;
+import com.campus.trading.entity.User;
+import com.campus.trading.service.UserProfileService;
+import com.campus.trading.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class OrderReputationHandlerTest {
+    @Mock
+    private UserService userService;
+    @Mock
+    private UserProfileService userProfileService;
+    @InjectMocks
+    private OrderReputationHandler handler;
+
+    private AutoCloseable closeable;
+    private final User buyer = new User();
+    private final User seller = new User();
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        buyer.setId(1L);
+        seller.setId(2L);
+        when(userService.findById(1L)).thenReturn(buyer);
+        when(userService.findById(2L)).thenReturn(seller);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    private static OrderEvent.OrderEventBuilder event(OrderEvent.Type type) {
+        return OrderEvent.builder().type(type).orderId(9L).buyerId(1L).sellerId(2L);
+    }
+
+    @Test
+    void testRejected_DeductsOperatorByProgress() {
+        handler.handle(event(OrderEvent.Type.REJECTED).operatorId(2L).oldStatus(2).remark("不想卖了").build());
+        verify(userProfileService).deductReputationScore(seller, 15, "不想卖了");
+
+        // 待确认阶段中止不扣分，客观原因不扣分
+        handler.handle(event(OrderEvent.Type.REJECTED).operatorId(2L).oldStatus(0).remark("不想卖了").build());
+        handler.handle(event(OrderEvent.Type.REJECTED).operatorId(2L).oldStatus(3).remark("商品已售出").build());
+        verifyNoMoreInteractions(userProfileService);
+    }
+
+    @Test
+    void testCancelled_DeductsBothUnlessObjective() {
+        handler.handle(event(OrderEvent.Type.CANCELLED).oldStatus(0).remark("与卖家协商一致取消").build());
+        handler.handle(event(OrderEvent.Type.CANCELLED).oldStatus(0).build());
+        verify(userProfileService, never()).deductReputationScore(any(), anyInt(), any());
+
+        handler.handle(event(OrderEvent.Type.CANCELLED).oldStatus(1).remark("主动取消").build());
+        verify(userProfileService).deductReputationScore(buyer, 10, "主动取消");
+        verify(userProfileService).deductReputationScore(seller, 10, "主动取消");
+    }
+
+    @Test
+    void testCommented_AdjustsRatedParty() {
+        handler.handle(event(OrderEvent.Type.COMMENTED).byBuyer(true).rating(5).build());
+        verify(userProfileService).addReputationScore(seller, 2, "获得买家5星好评");
+
+        handler.handle(event(OrderEvent.Type.COMMENTED).byBuyer(false).rating(1).build());
+        verify(userProfileService).deductReputationScore(buyer, 6, "获得卖家1星差评");
+
+        handler.handle(event(OrderEvent.Type.COMMENTED).byBuyer(true).rating(4).build());
+        handler.handle(event(OrderEvent.Type.CONFIRMED).build());
+        verifyNoMoreInteractions(userProfileService);
+    }
+}
@@ -1,6 +1,7 @@
 package com.campus.trading.service.impl;
 
 import com.campus.trading.dto.OrderDTO;
+import com.campus.trading.dto.OrderEvent;
 import com.campus.trading.entity.Item;
 import com.campus.trading.entity.Order;
 import com.campus.trading.entity.User;
@@ -11,6 +12,7 @@ import com.campus.trading.service.UserService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -50,6 +52,10 @@ class OrderServiceImplTest {
     @MockBean
     private PlatformStatsSyncTask platformStatsSyncTask;
     @MockBean
+    private PlatformStatsCounter platformStatsCounter;
+    @MockBean
+    private OrderEventPublisher orderEventPublisher;
+    @MockBean
     private RedisPopularityInitializer redisPopularityInitializer;
     @MockBean
     private ItemPopularitySyncTask itemPopularitySyncTask;
@@ -102,6 +108,7 @@ class OrderServiceImplTest {
         item.setStatus(0);
         when(itemRepository.findById(any())).thenReturn(Optional.of(item));
         assertThrows(RuntimeException.class, () -> orderService.createOrder(100L, 0, "地点", "留言"));
+        verify(orderEventPublisher, never()).publish(any());
     }
 
     @Test
@@ -114,6 +121,23 @@ class OrderServiceImplTest {
         assertThrows(RuntimeException.class, () -> orderService.createOrder(100L, 0, "地点", "留言"));
     }
 
+    @Test
+    void createOrder_soldOut() {
+        User seller = new User();
+        seller.setId(2L);
+        Item item = new Item();
+        item.setId(100L);
+        item.setUser(seller);
+        item.setStatus(1);
+        item.setStock(1);
+        when(itemRepository.findById(any())).thenReturn(Optional.of(item));
+        // 并发下单时库存已被别人预占
+        when(itemRepository.reserveStock(100L)).thenReturn(0);
+        assertThrows(RuntimeException.class, () -> orderService.createOrder(100L, 0, "地点", "留言"));
+        verify(orderRepository, never()).save(any());
+        verify(itemRepository, never()).save(any());
+    }
+
     @Test
     void getOrderById_notFound() {
         when(orderRepository.findById(any())).thenReturn(Optional.empty());
@@ -247,6 +271,15 @@ class OrderServiceImplTest {
         when(itemRepository.save(any())).thenReturn(mockItem);
         OrderDTO dto = orderService.cancelOrder(1L, "主动取消");
         assertNotNull(dto);
+        // 副作用不在请求内执行，只发布事件
+        ArgumentCaptor<OrderEvent> captor = ArgumentCaptor.forClass(OrderEvent.class);
+        verify(orderEventPublisher).publish(captor.capture());
+        assertEquals(OrderEvent.Type.CANCELLED, captor.getValue().getType());
+        assertEquals(0, captor.getValue().getOldStatus());
+        assertEquals(5, captor.getValue().getNewStatus());
+        assertEquals("主动取消", captor.getValue().getRemark());
+        verify(messageService, never()).createOrderMessage(any(), any(), any(), any());
+        verify(userProfileService, never()).deductReputationScore(any(), anyInt(), any());
     }
 
     @Test
@@ -0,0 +1,88 @@
+package com.campus.trading.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PlatformStatsCounterTest {
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+    @InjectMocks
+    private PlatformStatsCounter platformStatsCounter;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        doReturn(hashOperations).when(stringRedisTemplate).opsForHash();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        closeable.close();
+    }
+
+    @Test
+    void testItemStatusChanged_OnlyCountsListedTransitions() {
+        platformStatsCounter.itemStatusChanged(null, 1);
+        platformStatsCounter.itemStatusChanged(0, 1);
+        platformStatsCounter.itemStatusChanged(1, 0);
+        platformStatsCounter.itemStatusChanged(1, 1);
+        platformStatsCounter.itemStatusChanged(0, 0);
+        verify(hashOperations, times(2)).increment("platform:stats", "totalItems", 1L);
+        verify(hashOperations, times(1)).increment("platform:stats", "totalItems", -1L);
+    }
+
+    @Test
+    void testOrderStatusChanged_CountsCompletion() {
+        platformStatsCounter.orderCreated();
+        platformStatsCounter.orderStatusChanged(3, 4);
+        platformStatsCounter.orderStatusChanged(4, 4);
+        platformStatsCounter.orderStatusChanged(0, 5);
+        verify(hashOperations).increment("platform:stats", "totalOrders", 1L);
+        verify(hashOperations, times(1)).increment("platform:stats", "completedOrders", 1L);
+    }
+
+    @Test
+    void testIncrement_DeferredUntilCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        platformStatsCounter.userRegistered();
+        verify(hashOperations, never()).increment(anyString(), any(), anyLong());
+        for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+            sync.afterCommit();
+        }
+        verify(hashOperations).increment("platform:stats", "totalUsers", 1L);
+    }
+
+    @Test
+    void testSnapshot_MissingFieldsAreZero() {
+        Map<Object, Object> stored = new HashMap<>();
+        stored.put("totalItems", "12");
+        stored.put("completedOrders", "-1");
+        when(hashOperations.entries("platform:stats")).thenReturn(stored);
+        Map<String, Long> stats = platformStatsCounter.snapshot();
+        assertEquals(12L, stats.get("totalItems"));
+        assertEquals(0L, stats.get("completedOrders"));
+        assertEquals(0L, stats.get("totalUsers"));
+        assertEquals(0L, stats.get("totalOrders"));
+    }
+}
@@ -4,6 +4,9 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -12,7 +15,6 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import static org.mockito.Mockito.*;
 import org.springframework.boot.ApplicationArguments;
-import org.springframework.data.redis.core.HashOperations;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -24,7 +26,7 @@ class PlatformStatsSyncTaskTest {
     @Mock
     private com.campus.trading.repository.OrderRepository orderRepository;
     @Mock
-    private org.springframework.data.redis.core.StringRedisTemplate stringRedisTemplate;
+    private PlatformStatsCounter platformStatsCounter;
     @InjectMocks
     private PlatformStatsSyncTask platformStatsSyncTask;
 
@@ -35,11 +37,8 @@ class PlatformStatsSyncTaskTest {
         when(itemRepository.countByStatus(anyInt())).thenReturn(0L);
         when(itemRepository.count()).thenReturn(0L);
         when(orderRepository.count()).thenReturn(0L);
+        when(orderRepository.countByStatus(anyInt())).thenReturn(0L);
         when(userService.getTotalUsers()).thenReturn(0L);
-        // mock redis hash操作
-        HashOperations hashOperations = mock(HashOperations.class);
-        when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
-        doNothing().when(hashOperations).putAll(any(), anyMap());
     }
 
     @AfterEach
@@ -50,5 +49,22 @@ class PlatformStatsSyncTaskTest {
     void run() {
         ApplicationArguments args = mock(ApplicationArguments.class);
         assertDoesNotThrow(() -> platformStatsSyncTask.run(args));
+        verify(platformStatsCounter, times(1)).reset(anyMap());
+    }
+
+    @Test
+    void reconcile_completedOrdersFromOrderStatus() {
+        when(itemRepository.countByStatus(1)).thenReturn(7L);
+        when(orderRepository.countByStatus(4)).thenReturn(3L);
+        when(orderRepository.count()).thenReturn(10L);
+        when(userService.getTotalUsers()).thenReturn(5L);
+        platformStatsSyncTask.reconcile();
+        Map<String, Long> expected = new HashMap<>();
+        expected.put("totalItems", 7L);
+        expected.put("completedOrders", 3L);
+        expected.put("totalUsers", 5L);
+        expected.put("totalOrders", 10L);
+        verify(platformStatsCounter).reset(expected);
+        verify(itemRepository, never()).countByStatus(3);
     }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package com.campus.trading.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PushServiceImplTest {
+
+    private StringRedisTemplate redis;
+    private PushServiceImpl pushService;
+    // 只收集发送任务不执行，模拟客户端读得很慢
+    private final List<Runnable> pending = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        pushService = new PushServiceImpl();
+        ReflectionTestUtils.setField(pushService, "stringRedisTemplate", redis);
+        ReflectionTestUtils.setField(pushService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(pushService, "bufferSize", 3);
+        ReflectionTestUtils.setField(pushService, "maxConnectionsPerUser", 2);
+        ReflectionTestUtils.setField(pushService, "sender", (Executor) pending::add);
+    }
+
+    @Test
+    void testSlowConnectionIsClosedWhenBufferFull() {
+        pushService.subscribe(1L);
+        pushService.subscribe(2L);
+
+        // 连接时的注释占一格，再投递两条正好填满
+        pushService.deliver(1L, "notification", "{}");
+        pushService.deliver(1L, "notification", "{}");
+        assertEquals(1, pushService.connectionCount(1L));
+        // 每个连接同时只有一个发送任务
+        assertEquals(2, pending.size());
+
+        pushService.deliver(1L, "notification", "{}");
+        assertEquals(0, pushService.connectionCount(1L));
+        assertEquals(1, pushService.connectionCount(2L));
+    }
+
+    @Test
+    void testOldestConnectionClosedOverLimit() {
+        pushService.subscribe(1L);
+        pushService.subscribe(1L);
+        pushService.subscribe(1L);
+
+        assertEquals(2, pushService.connectionCount(1L));
+    }
+
+    @Test
+    void testPushBroadcastsThroughRedisAndFallsBackLocally() throws Exception {
+        ReflectionTestUtils.setField(pushService, "listenerContainer", mock(RedisMessageListenerContainer.class));
+        pushService.subscribe(1L);
+
+        pushService.push(1L, "chat.message", Collections.singletonMap("content", "hi"));
+        verify(redis).convertAndSend(eq(PushServiceImpl.CHANNEL),
+                eq("{\"userId\":1,\"event\":\"chat.message\",\"data\":\"{\\\"content\\\":\\\"hi\\\"}\"}"));
+
+        // Redis 不可用时直接投递本节点的连接：连接注释 + 1 条事件，再投递 1 条填满缓冲，下一条断开
+        doThrow(new RedisConnectionFailureException("down")).when(redis).convertAndSend(anyString(), anyString());
+        pushService.push(1L, "chat.message", "a");
+        pushService.push(1L, "chat.message", "b");
+        assertEquals(1, pushService.connectionCount(1L));
+        pushService.push(1L, "chat.message", "c");
+        assertEquals(0, pushService.connectionCount(1L));
+    }
+
+    @Test
+    void testStalledWriteClosesConnection() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 写出一直阻塞，模拟客户端不读取、TCP 发送窗口已满
+        SseEmitter stalled = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("broken pipe");
+            }
+        };
+        PushServiceImpl spy = spy(pushService);
+        doReturn(stalled).when(spy).newEmitter();
+        List<Thread> threads = new ArrayList<>();
+        ReflectionTestUtils.setField(spy, "sender", (Executor) task -> {
+            Thread thread = new Thread(task);
+            threads.add(thread);
+            thread.start();
+        });
+        ReflectionTestUtils.setField(spy, "writeTimeoutMs", 1000L);
+
+        spy.subscribe(1L);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        spy.closeStalled(System.currentTimeMillis());
+        assertEquals(1, spy.connectionCount(1L));
+
+        spy.closeStalled(System.currentTimeMillis() + 2000);
+        assertEquals(0, spy.connectionCount(1L));
+        // 已摘除的连接不再接收事件
+        spy.deliver(1L, "notification", "{}");
+        assertEquals(1, threads.size());
+
+        release.countDown();
+        threads.get(0).join(5000);
+        assertFalse(threads.get(0).isAlive());
+    }
+}
@@ -22,12 +22,17 @@ import org.springframework.test.context.ActiveProfiles;
 
 import java.util.Collections;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -40,15 +45,52 @@ class RecommendationServiceImplTest {
     private ItemRepository itemRepository;
     @MockBean
     private ItemService itemService;
+    @MockBean
+    private ItemRecommendationEngine itemRecommendationEngine;
     @Autowired
     private RecommendationServiceImpl recommendationService;
 
+    @BeforeEach
+    void setUp() {
+        when(itemRecommendationEngine.page(any(), anyLong(), anyInt()))
+                .thenReturn(new ItemRecommendationEngine.Candidates(Collections.emptyList(), 0));
+    }
+
+    @Test
+    void recommendItems_usesPrecomputedCandidates() {
+        User user = new User();
+        user.setId(1L);
+        when(itemRecommendationEngine.page(eq(1L), eq(10L), eq(10)))
+                .thenReturn(new ItemRecommendationEngine.Candidates(java.util.Arrays.asList(12L, 11L), 30));
+        ItemDTO live = ItemDTO.builder().id(12L).status(1).stock(1).build();
+        ItemDTO soldOut = ItemDTO.builder().id(11L).status(1).stock(0).build();
+        when(itemService.getItemsByIds(java.util.Arrays.asList(12L, 11L))).thenReturn(java.util.Arrays.asList(live, soldOut));
+
+        Page<ItemDTO> page = recommendationService.recommendItems(user, 2, 10);
+
+        assertEquals(Collections.singletonList(live), page.getContent());
+        assertEquals(30, page.getTotalElements());
+        verify(userProfileRepository, never()).findByUser(any());
+    }
+
+    @Test
+    void recommendItems_candidateReadFailsFallsBack() {
+        User user = new User();
+        user.setId(1L);
+        when(itemRecommendationEngine.page(any(), anyLong(), anyInt()))
+                .thenThrow(new org.springframework.data.redis.RedisConnectionFailureException("down"));
+        when(userProfileRepository.findByUser(any(User.class))).thenReturn(java.util.Optional.empty());
+        Page<com.campus.trading.entity.Item> itemPage = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0);
+        when(itemRepository.findByStatusAndStockGreaterThan(eq(1), eq(0), any(Pageable.class))).thenReturn(itemPage);
+        assertNotNull(recommendationService.recommendItems(user, 1, 10));
+    }
+
     @Test
     void recommendItems_profileNotFound() {
         User user = new User();
         when(userProfileRepository.findByUser(any(User.class))).thenReturn(java.util.Optional.empty());
         Page<com.campus.trading.entity.Item> itemPage = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0);
-        when(itemRepository.findAll(any(Pageable.class))).thenReturn(itemPage);
+        when(itemRepository.findByStatusAndStockGreaterThan(eq(1), eq(0), any(Pageable.class))).thenReturn(itemPage);
         assertNotNull(recommendationService.recommendItems(user, 1, 10));
     }
 
@@ -59,7 +101,7 @@ class RecommendationServiceImplTest {
         profile.setCategoryInterest(new java.util.HashMap<>());
         when(userProfileRepository.findByUser(any(User.class))).thenReturn(java.util.Optional.of(profile));
         Page<com.campus.trading.entity.Item> itemPage = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0);
-        when(itemRepository.findAll(any(Pageable.class))).thenReturn(itemPage);
+        when(itemRepository.findByStatusAndStockGreaterThan(eq(1), eq(0), any(Pageable.class))).thenReturn(itemPage);
         assertNotNull(recommendationService.recommendItems(user, 1, 10));
     }
 
@@ -73,7 +115,7 @@ class RecommendationServiceImplTest {
         profile.setCategoryInterest(interest);
         when(userProfileRepository.findByUser(any(User.class))).thenReturn(java.util.Optional.of(profile));
         Page<com.campus.trading.entity.Item> itemPage = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0);
-        when(itemRepository.findByCategoryIdInAndStatusOrderByPopularityDesc(anyList(), eq(1), any(Pageable.class))).thenReturn(itemPage);
+        when(itemRepository.findByCategoryIdInAndStatusAndStockGreaterThanOrderByPopularityDesc(anyList(), eq(1), eq(0), any(Pageable.class))).thenReturn(itemPage);
         assertNotNull(recommendationService.recommendItems(user, 1, 10));
     }
 
@@ -81,7 +123,7 @@ class RecommendationServiceImplTest {
     void recommendItems_itemRepositoryThrows() {
         User user = new User();
         when(userProfileRepository.findByUser(any(User.class))).thenReturn(java.util.Optional.empty());
-        when(itemRepository.findAll(any(Pageable.class))).thenThrow(new RuntimeException("db error"));
+        when(itemRepository.findByStatusAndStockGreaterThan(eq(1), eq(0), any(Pageable.class))).thenThrow(new RuntimeException("db error"));
         assertThrows(RuntimeException.class, () -> recommendationService.recommendItems(user, 1, 10));
     }
 
@@ -94,7 +136,7 @@ class RecommendationServiceImplTest {
         profile.setCategoryInterest(interest);
         when(userProfileRepository.findByUser(any(User.class))).thenReturn(java.util.Optional.of(profile));
         Page<com.campus.trading.entity.Item> itemPage = new PageImpl<>(Collections.singletonList(new com.campus.trading.entity.Item()), PageRequest.of(0, 10), 1);
-        when(itemRepository.findByCategoryIdInAndStatusOrderByPopularityDesc(anyList(), eq(1), any(Pageable.class))).thenReturn(itemPage);
+        when(itemRepository.findByCategoryIdInAndStatusAndStockGreaterThanOrderByPopularityDesc(anyList(), eq(1), eq(0), any(Pageable.class))).thenReturn(itemPage);
         when(itemService.convertToDTO(any())).thenReturn(null);
         assertNotNull(recommendationService.recommendItems(user, 1, 10));
     }
@@ -27,6 +27,11 @@ class UserDetailsServiceImplTest {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @BeforeEach
+    void setUp() {
+        userDetailsService.evictAll();
+    }
+
     @Test
     void loadUserByUsername_success() {
         User user = new User();
@@ -92,4 +97,24 @@ class UserDetailsServiceImplTest {
         var userDetails = userDetailsService.loadUserByUsername("emptyPwd");
         assertEquals("", userDetails.getPassword());
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadUserByUsername_cachedUntilEvicted() {
+        User user = new User();
+        user.setUsername("cachedUser");
+        user.setPassword("password");
+        user.setStatus(1);
+        user.setRoles(Collections.singleton("ROLE_USER"));
+        when(userRepository.findByUsername("cachedUser")).thenReturn(Optional.of(user));
+
+        var first = userDetailsService.loadUserByUsername("cachedUser");
+        var second = userDetailsService.loadUserByUsername("cachedUser");
+        assertNotSame(first, second);
+        assertEquals("password", second.getPassword());
+        verify(userRepository, times(1)).findByUsername("cachedUser");
+
+        user.setStatus(0);
+        userDetailsService.evictUser("cachedUser");
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("cachedUser"));
+    }
+}
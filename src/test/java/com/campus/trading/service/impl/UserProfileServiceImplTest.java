@@ -21,7 +21,9 @@ import com.campus.trading.repository.UserProfileRepository;
 import com.campus.trading.repository.UserViewRepository;
 import com.campus.trading.repository.FavoriteRepository;
 import com.campus.trading.repository.OrderRepository;
-import com.campus.trading.repository.CategoryRepository;
+import com.campus.trading.cache.CategoryTree;
+import com.campus.trading.service.CategoryService;
+import com.campus.trading.service.UserProfileService;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -37,7 +39,7 @@ class UserProfileServiceImplTest {
     @MockBean
     private OrderRepository orderRepository;
     @MockBean
-    private CategoryRepository categoryRepository;
+    private CategoryService categoryService;
     @Autowired
     private UserProfileServiceImpl userProfileService;
 
@@ -71,8 +73,8 @@ class UserProfileServiceImplTest {
         profile.setUser(user);
         profile.setCategoryInterest(new java.util.HashMap<>());
         when(userProfileRepository.findByUser(any(User.class))).thenReturn(java.util.Optional.of(profile));
-        when(categoryRepository.findById(anyLong())).thenReturn(java.util.Optional.empty());
         assertNotNull(userProfileService.getProfileDTO(user));
+        verify(categoryService, never()).getCategoryTree();
     }
 
     @Test
@@ -97,12 +99,14 @@ class UserProfileServiceImplTest {
         com.campus.trading.entity.Category cat = new com.campus.trading.entity.Category();
         cat.setId(1L);
         cat.setName("电子产品");
-        when(categoryRepository.findById(1L)).thenReturn(java.util.Optional.of(cat));
-        when(categoryRepository.findById(2L)).thenReturn(java.util.Optional.empty());
+        when(categoryService.getCategoryTree()).thenReturn(CategoryTree.of(java.util.Collections.singletonList(cat)));
         UserProfileDTO dto = userProfileService.getProfileDTO(user);
         assertNotNull(dto);
         assertTrue(dto.getCategoryInterest().containsKey(1L));
         assertTrue(dto.getCategoryInterest().containsKey(2L));
+        assertEquals("电子产品", dto.getCategoryIdToName().get(1L));
+        assertEquals("2", dto.getCategoryIdToName().get(2L));
+        verify(categoryService, times(1)).getCategoryTree();
     }
 
     @Test
@@ -176,11 +180,10 @@ class UserProfileServiceImplTest {
         User user = new User();
         UserProfile profile = new UserProfile();
         when(userProfileRepository.findByUser(any(User.class))).thenReturn(java.util.Optional.of(profile));
-        when(userViewRepository.findByUser(any(User.class))).thenReturn(java.util.Collections.emptyList());
-        when(favoriteRepository.findByUser(any(User.class))).thenReturn(java.util.Collections.emptyList());
-        when(orderRepository.findByBuyer(any(User.class))).thenReturn(java.util.Collections.emptyList());
         when(userProfileRepository.save(any(UserProfile.class))).thenReturn(profile);
         assertDoesNotThrow(() -> userProfileService.updateProfile(user));
+        assertTrue(profile.getCategoryInterest().isEmpty());
+        assertNotNull(profile.getUpdateTime());
     }
 
     @Test
@@ -188,46 +191,55 @@ class UserProfileServiceImplTest {
         User user = new User();
         UserProfile profile = new UserProfile();
         when(userProfileRepository.findByUser(any(User.class))).thenReturn(java.util.Optional.of(profile));
-        // 浏览
-        com.campus.trading.entity.Item item1 = new com.campus.trading.entity.Item();
-        com.campus.trading.entity.Category cat1 = new com.campus.trading.entity.Category();
-        cat1.setId(1L);
-        item1.setCategory(cat1);
-        com.campus.trading.entity.UserView view = new com.campus.trading.entity.UserView();
-        view.setItem(item1);
-        when(userViewRepository.findByUser(any(User.class))).thenReturn(java.util.Collections.singletonList(view));
-        // 收藏
-        com.campus.trading.entity.Favorite fav = new com.campus.trading.entity.Favorite();
-        fav.setItem(item1);
-        when(favoriteRepository.findByUser(any(User.class))).thenReturn(java.util.Collections.singletonList(fav));
-        // 交易
-        com.campus.trading.entity.Order order = new com.campus.trading.entity.Order();
-        order.setItem(item1);
-        when(orderRepository.findByBuyer(any(User.class))).thenReturn(java.util.Collections.singletonList(order));
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        // 浏览：刚刚一次；收藏：一个半衰期（30天）前；交易：刚刚，另一个分类
+        when(userViewRepository.findCategoryViewTimes(any(User.class), any()))
+                .thenReturn(java.util.Collections.singletonList(new Object[]{1L, now}));
+        when(favoriteRepository.findCategoryFavoriteTimes(any(User.class), any()))
+                .thenReturn(java.util.Collections.singletonList(new Object[]{1L, now.minusDays(30)}));
+        when(orderRepository.findCategoryOrderTimes(any(User.class), any()))
+                .thenReturn(java.util.Collections.singletonList(new Object[]{2L, now}));
         when(userProfileRepository.save(any(UserProfile.class))).thenReturn(profile);
-        assertDoesNotThrow(() -> userProfileService.updateProfile(user));
+        userProfileService.updateProfile(user);
+        assertEquals(1.0 + 1.5, profile.getCategoryInterest().get(1L), 0.01);
+        assertEquals(5.0, profile.getCategoryInterest().get(2L), 0.01);
+        // 不再逐条加载行为记录
+        verify(userViewRepository, never()).findByUser(any());
+        verify(favoriteRepository, never()).findByUser(any(User.class));
+        verify(orderRepository, never()).findByBuyer(any(User.class));
     }
 
     @Test
-    void updateProfile_nullItemOrCategory() {
+    void recordInterest_decaysThenAdds() {
         User user = new User();
         UserProfile profile = new UserProfile();
+        java.util.Map<Long, Double> interest = new java.util.HashMap<>();
+        interest.put(1L, 4.0);
+        interest.put(2L, 0.015);
+        profile.setCategoryInterest(interest);
+        profile.setUpdateTime(java.time.LocalDateTime.now().minusDays(30));
         when(userProfileRepository.findByUser(any(User.class))).thenReturn(java.util.Optional.of(profile));
-        // 浏览行为 item 为 null
-        com.campus.trading.entity.UserView view = new com.campus.trading.entity.UserView();
-        view.setItem(null);
-        when(userViewRepository.findByUser(any(User.class))).thenReturn(java.util.Collections.singletonList(view));
-        // 收藏行为 item.category 为 null
-        com.campus.trading.entity.Item item = new com.campus.trading.entity.Item();
-        item.setCategory(null);
-        com.campus.trading.entity.Favorite fav = new com.campus.trading.entity.Favorite();
-        fav.setItem(item);
-        when(favoriteRepository.findByUser(any(User.class))).thenReturn(java.util.Collections.singletonList(fav));
-        // 交易行为 item/category 都为 null
-        com.campus.trading.entity.Order order = new com.campus.trading.entity.Order();
-        order.setItem(null);
-        when(orderRepository.findByBuyer(any(User.class))).thenReturn(java.util.Collections.singletonList(order));
         when(userProfileRepository.save(any(UserProfile.class))).thenReturn(profile);
-        assertDoesNotThrow(() -> userProfileService.updateProfile(user));
+
+        userProfileService.recordInterest(user, 3L, UserProfileService.FAVORITE_WEIGHT);
+
+        // 一个半衰期后减半，过小的分类被移除
+        assertEquals(2.0, profile.getCategoryInterest().get(1L), 0.01);
+        assertFalse(profile.getCategoryInterest().containsKey(2L));
+        assertEquals(3.0, profile.getCategoryInterest().get(3L), 0.01);
+        assertTrue(profile.getUpdateTime().isAfter(java.time.LocalDateTime.now().minusMinutes(1)));
+
+        // 取消收藏扣回，不会出现负分
+        userProfileService.recordInterest(user, 3L, -UserProfileService.FAVORITE_WEIGHT);
+        userProfileService.recordInterest(user, 4L, -UserProfileService.FAVORITE_WEIGHT);
+        assertFalse(profile.getCategoryInterest().containsKey(3L));
+        assertFalse(profile.getCategoryInterest().containsKey(4L));
+        assertEquals(2.0, profile.getCategoryInterest().get(1L), 0.01);
+    }
+
+    @Test
+    void recordInterest_nullCategoryIgnored() {
+        userProfileService.recordInterest(new User(), null, UserProfileService.VIEW_WEIGHT);
+        verify(userProfileRepository, never()).save(any());
     }
-}
\ No newline at end of file
+}
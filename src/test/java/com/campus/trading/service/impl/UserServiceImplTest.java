@@ -47,6 +47,8 @@ class UserServiceImplTest {
     private ImageService imageService;
     @MockBean
     private UserProfileRepository userProfileRepository;
+    @MockBean
+    private PlatformStatsCounter platformStatsCounter;
     @Autowired
     private UserServiceImpl userService;
 
@@ -55,6 +57,7 @@ class UserServiceImplTest {
         RegisterRequestDTO dto = new RegisterRequestDTO();
         when(userRepository.save(any())).thenReturn(new User());
         assertNotNull(userService.register(dto));
+        verify(platformStatsCounter).userRegistered();
     }
 
     @Test
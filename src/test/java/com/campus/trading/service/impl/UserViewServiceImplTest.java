@@ -4,6 +4,7 @@ import com.campus.trading.entity.User;
 import com.campus.trading.entity.Item;
 import com.campus.trading.entity.UserView;
 import com.campus.trading.repository.UserViewRepository;
+import com.campus.trading.service.UserProfileService;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ActiveProfiles;
@@ -23,6 +24,8 @@ import static org.mockito.ArgumentMatchers.isNull;
 class UserViewServiceImplTest {
     @MockBean
     private UserViewRepository userViewRepository;
+    @MockBean
+    private UserProfileService userProfileService;
     @Autowired
     private UserViewServiceImpl userViewService;
 
@@ -49,6 +52,24 @@ class UserViewServiceImplTest {
         assertNotNull(userViewService.recordView(user, null));
     }
 
+    @Test
+    void recordView_updatesInterest() {
+        User user = new User();
+        Item item = new Item();
+        com.campus.trading.entity.Category category = new com.campus.trading.entity.Category();
+        category.setId(7L);
+        item.setCategory(category);
+        when(userViewRepository.save(any(UserView.class))).thenReturn(new UserView());
+        userViewService.recordView(user, item);
+        verify(userProfileService).recordInterest(user, 7L, UserProfileService.VIEW_WEIGHT);
+
+        // 关闭个性化推荐的用户不更新画像
+        User optedOut = new User();
+        optedOut.setAllowPersonalizedRecommend(false);
+        userViewService.recordView(optedOut, item);
+        verify(userProfileService, never()).recordInterest(eq(optedOut), any(), anyDouble());
+    }
+
     @Test
     void recordView_saveThrows() {
         User user = new User();